@@ -12,6 +12,7 @@ javac -d bin -cp bin src/main/java/com/motor/utils/*.java
 javac -d bin -cp bin src/main/java/com/motor/storage/*.java
 javac -d bin -cp bin src/main/java/com/motor/algorithms/*.java
 javac -d bin -cp bin src/main/java/com/motor/query/*.java
+javac -d bin -cp bin src/main/java/com/motor/benchmark/*.java
 javac -d bin -cp bin src/main/java/com/motor/Main.java
 
 echo.
@@ -14,6 +14,7 @@ javac -d out ^
     src/main/java/com/motor/storage/*.java ^
     src/main/java/com/motor/core/*.java ^
     src/main/java/com/motor/query/*.java ^
+    src/main/java/com/motor/benchmark/*.java ^
     src/main/java/com/motor/Main.java
 
 if %ERRORLEVEL% EQU 0 (
@@ -2,6 +2,7 @@ package com.motor;
 
 import com.motor.core.*;
 import com.motor.query.QueryProcessor;
+import com.motor.storage.StorageManager;
 import java.util.Scanner;
 
 /**
@@ -12,6 +13,7 @@ public class Main {
     
     private static Database database;
     private static QueryProcessor queryProcessor;
+    private static StorageManager storage;
     private static Scanner scanner;
     
     public static void main(String[] args) {
@@ -21,6 +23,10 @@ public class Main {
         System.out.println("╚════════════════════════════════════════════╝");
         
         database = new Database("MiBaseDeDatos");
+        storage = new StorageManager("datos");
+        long recuperadas = storage.open(database);  // Reproducir el registro de escritura
+        if (recuperadas > 0) System.out.println("Recuperadas " + recuperadas + " operaciones del registro.");
+        storage.startCheckpoints(60_000);  // Copia de cada colección y truncado del registro cada minuto
         queryProcessor = new QueryProcessor(database);
         scanner = new Scanner(System.in);
         
@@ -56,7 +62,7 @@ public class Main {
                 case 7: verEstadisticas(); break;
                 case 8: demoAlgoritmos(); break;
                 case 9: cargarDatosEjemplo(); break;
-                case 0: System.out.println("¡Hasta luego!"); break;
+                case 0: storage.close(); System.out.println("¡Hasta luego!"); break;
                 default: System.out.println("Opción no válida");
             }
         } while (opcion != 0);
@@ -84,7 +90,7 @@ public class Main {
             for (String par : pares) {
                 String[] kv = par.split("=");
                 if (kv.length == 2) {
-                    doc.put(kv[0].trim(), kv[1].trim());
+                    doc.put(kv[0].trim(), Document.parseValue(kv[1]));  // edad=20 -> Integer
                 }
             }
             col.insert(doc);
@@ -194,15 +200,17 @@ public class Main {
             {"5", "nombre=Pedro,edad=20,carrera=Informatica"}
         };
         
+        java.util.List<Document> lote = new java.util.ArrayList<>();
         for (String[] d : datos) {
             Document doc = new Document(d[0]);
             String[] pares = d[1].split(",");
             for (String par : pares) {
                 String[] kv = par.split("=");
-                doc.put(kv[0], kv[1]);
+                doc.put(kv[0], Document.parseValue(kv[1]));
             }
-            estudiantes.insert(doc);
+            lote.add(doc);
         }
+        estudiantes.insertAll(lote);  // Carga masiva: ordena y construye el Árbol B+ de abajo hacia arriba
         
         System.out.println("Colección 'estudiantes' creada con " + estudiantes.size() + " documentos");
     }
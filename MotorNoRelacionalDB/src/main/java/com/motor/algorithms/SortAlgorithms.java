@@ -1,6 +1,7 @@
 package com.motor.algorithms;
 
 import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * ALGORITMOS DE ORDENAMIENTO
@@ -108,6 +109,46 @@ public class SortAlgorithms {
         while (j < n2) { arr[k] = (T) R[j]; j++; k++; }
     }
     
+    /**
+     * MERGESORT con comparador
+     * 
+     * Misma estrategia que mergeSort(arr, left, right) pero ordena por un
+     * criterio externo (ej. documentos por _id). Es estable: elementos
+     * iguales conservan su orden original.
+     * 
+     * Complejidad: O(n log n) garantizado, espacio O(n)
+     */
+    public static <T> void mergeSort(T[] arr, int left, int right, Comparator<? super T> cmp) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            
+            mergeSort(arr, left, mid, cmp);
+            mergeSort(arr, mid + 1, right, cmp);
+            merge(arr, left, mid, right, cmp);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(T[] arr, int left, int mid, int right, Comparator<? super T> cmp) {
+        // Ya ordenado: el último de la izquierda no supera al primero de la derecha
+        if (cmp.compare(arr[mid], arr[mid + 1]) <= 0) return;
+        
+        int n1 = mid - left + 1;
+        Object[] L = new Object[n1];
+        for (int i = 0; i < n1; i++) L[i] = arr[left + i];
+        
+        // Mezclar: la mitad derecha se lee en su lugar
+        int i = 0, j = mid + 1, k = left;
+        while (i < n1 && j <= right) {
+            if (cmp.compare((T) L[i], arr[j]) <= 0) {
+                arr[k++] = (T) L[i++];
+            } else {
+                arr[k++] = arr[j++];
+            }
+        }
+        while (i < n1) arr[k++] = (T) L[i++];
+    }
+    
     /**
      * BUBBLESORT (Fuerza Bruta)
      * 
@@ -0,0 +1,54 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.index.BPlusTreeIndex;
+import java.util.Random;
+
+/**
+ * BPLUSTREEINSERTBENCHMARK - Latencia por inserción a medida que crece el árbol
+ * 
+ * Inserta n claves secuenciales y n aleatorias, midiendo ns/inserción en
+ * tramos de n/10. Si la propagación de divisiones es O(log n) de verdad,
+ * la latencia se mantiene plana; con una búsqueda de padre O(n) crecería
+ * linealmente con cada tramo.
+ * 
+ * Uso: java -Xmx4g -cp bin com.motor.benchmark.BPlusTreeInsertBenchmark [n] [orden]
+ */
+public class BPlusTreeInsertBenchmark {
+    
+    private static final int SEGMENTS = 10;
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int order = args.length > 1 ? Integer.parseInt(args[1]) : Collection.DEFAULT_ORDER;
+        
+        Integer[] sequential = new Integer[n];
+        for (int i = 0; i < n; i++) sequential[i] = i;
+        
+        Integer[] shuffled = sequential.clone();
+        Random random = new Random(11);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = shuffled[i]; shuffled[i] = shuffled[j]; shuffled[j] = tmp;
+        }
+        
+        System.out.println("=== BENCHMARK: inserción en Árbol B+ (orden " + order + ", " + n + " claves) ===");
+        run("Secuencial", sequential, order);
+        run("Aleatoria", shuffled, order);
+    }
+    
+    private static void run(String label, Integer[] keys, int order) {
+        BPlusTreeIndex<Integer, Integer> tree = new BPlusTreeIndex<>(order);
+        int segment = Math.max(1, keys.length / SEGMENTS);
+        
+        System.out.println("\n" + label + ":");
+        System.out.println("  Tramo             | ns/inserción | Altura");
+        for (int start = 0; start < keys.length; start += segment) {
+            int end = Math.min(keys.length, start + segment);
+            long t0 = System.nanoTime();
+            for (int i = start; i < end; i++) tree.insert(keys[i], keys[i]);
+            long ns = System.nanoTime() - t0;
+            System.out.printf("  %8d-%-8d | %12d | %6d%n", start, end, ns / (end - start), tree.height());
+        }
+    }
+}
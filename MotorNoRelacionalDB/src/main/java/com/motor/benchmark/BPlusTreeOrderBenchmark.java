@@ -0,0 +1,56 @@
+package com.motor.benchmark;
+
+import com.motor.index.BPlusTreeIndex;
+import com.motor.utils.ComplexityAnalyzer;
+import java.util.Random;
+
+/**
+ * BPLUSTREEORDERBENCHMARK - Barrido del orden del Árbol B+
+ * 
+ * Para cada orden inserta n claves en orden aleatorio y luego las busca,
+ * reportando altura y throughput. Órdenes pequeños dan árboles altos (muchos
+ * saltos de puntero); órdenes enormes mueven más memoria en cada división.
+ * 
+ * Uso: java -Xmx8g -cp bin com.motor.benchmark.BPlusTreeOrderBenchmark [n] [orden...]
+ * Ejemplo 10M claves: ... BPlusTreeOrderBenchmark 10000000 4 16 64 128 256 512
+ */
+public class BPlusTreeOrderBenchmark {
+    
+    private static final int[] DEFAULT_ORDERS = {4, 16, 32, 64, 128, 256, 512};
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] orders = DEFAULT_ORDERS;
+        if (args.length > 1) {
+            orders = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) orders[i - 1] = Integer.parseInt(args[i]);
+        }
+        
+        // Claves permutadas al azar (Fisher-Yates) para no favorecer inserciones secuenciales
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) keys[i] = i;
+        Random random = new Random(7);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i]; keys[i] = keys[j]; keys[j] = tmp;
+        }
+        
+        System.out.println("=== BENCHMARK: orden del Árbol B+ con " + n + " claves ===");
+        System.out.println("Orden | Altura | Inserción (M ops/s) | Búsqueda (M ops/s)");
+        
+        for (int order : orders) {
+            BPlusTreeIndex<Integer, Integer> tree = new BPlusTreeIndex<>(order);
+            long insertNs = ComplexityAnalyzer.measureTime(() -> {
+                for (Integer k : keys) tree.insert(k, k);
+            });
+            
+            int[] found = new int[1];
+            long searchNs = ComplexityAnalyzer.measureTime(() -> {
+                for (Integer k : keys) if (tree.search(k) != null) found[0]++;
+            });
+            
+            System.out.printf("%5d | %6d | %19.2f | %18.2f%n", order, tree.height(),
+                n / (insertNs / 1_000.0), n / (searchNs / 1_000.0));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.motor.benchmark;
+
+import com.motor.index.DiskBPlusTreeIndex;
+import com.motor.index.OrderedIndex;
+import com.motor.index.Serializer;
+import com.motor.storage.BufferPool;
+import com.motor.storage.PageFile;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * BUFFERPOOLBENCHMARK - Tasa de aciertos del BufferPool según el presupuesto
+ * 
+ * Arma un DiskBPlusTreeIndex de n claves y lo recorre con un patrón de
+ * conjunto caliente: 90% de las búsquedas van al primer 10% de las claves. Para
+ * cada presupuesto (porcentaje del archivo) reporta tasa de aciertos y
+ * throughput, antes y después de un recorrido completo del árbol (que con
+ * LRU simple expulsaría las páginas calientes; con LRU-2 no).
+ * 
+ * Uso: java -cp bin com.motor.benchmark.BufferPoolBenchmark [numClaves] [archivo]
+ */
+public class BufferPoolBenchmark {
+    
+    private static final int[] BUDGET_PERCENTS = {1, 5, 10, 25, 100};
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        String path = args.length > 1 ? args[1] : "bench-pool.db";
+        new File(path).delete();
+        
+        try (PageFile file = new PageFile(path)) {
+            DiskBPlusTreeIndex<Integer, String> tree = new DiskBPlusTreeIndex<>(file, Serializer.INTEGER, Serializer.STRING);
+            for (int i = 0; i < n; i++) tree.insert(i, "valor-" + i + "-relleno-para-ocupar-la-hoja");
+            System.out.println("=== BENCHMARK: BufferPool con " + n + " claves ("
+                + file.getPageCount() + " páginas, altura " + tree.height() + ") ===");
+        }
+        
+        int[] lookups = new int[n];
+        Random random = new Random(3);
+        int hot = Math.max(1, n / 10);
+        for (int i = 0; i < n; i++) {
+            lookups[i] = random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(n);
+        }
+        
+        System.out.println("Presupuesto | Aciertos | Búsquedas (K ops/s) | Aciertos tras recorrido");
+        for (int percent : BUDGET_PERCENTS) {
+            PageFile file = new PageFile(path);
+            long budget = (long) file.getPageCount() * file.getPageSize() * percent / 100;
+            BufferPool pool = new BufferPool(file, budget);
+            DiskBPlusTreeIndex<Integer, String> tree = new DiskBPlusTreeIndex<>(pool, Serializer.INTEGER, Serializer.STRING);
+            
+            for (int k : lookups) tree.search(k);  // Calentar el caché
+            pool.resetStats();
+            long ns = ComplexityAnalyzer.measureTime(() -> {
+                for (int k : lookups) tree.search(k);
+            });
+            double warm = pool.getHitRatio();
+            
+            OrderedIndex.Cursor<Integer, String> scan = tree.cursor();
+            while (scan.hasNext()) scan.next();
+            pool.resetStats();
+            for (int k : lookups) tree.search(k);
+            
+            System.out.printf("%10d%% | %7.1f%% | %19.1f | %22.1f%%%n", percent, warm * 100,
+                n / (ns / 1_000_000.0), pool.getHitRatio() * 100);
+            pool.close();
+        }
+        new File(path).delete();
+    }
+}
@@ -0,0 +1,98 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CONCURRENTREADBENCHMARK - Escalado de lecturas concurrentes en Collection
+ * 
+ * Lanza 1, 4, 16 y 64 hilos que hacen findById() con IDs aleatorios durante
+ * un tiempo fijo y reporta el throughput total. Se corre dos veces:
+ * - Solo lecturas: la lectura optimista nunca toma el bloqueo
+ * - Con un hilo escritor haciendo update() sin pausa: parte de las lecturas
+ *   se invalida y reintenta con bloqueo de lectura
+ * 
+ * Uso: java -cp bin com.motor.benchmark.ConcurrentReadBenchmark [numDocs] [segundos]
+ */
+public class ConcurrentReadBenchmark {
+    
+    private static final int[] THREADS = {1, 4, 16, 64};
+    
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2.0;
+        
+        Collection col = new Collection("bench");
+        List<Document> docs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Document doc = new Document(id(i));
+            doc.put("n", i);
+            docs.add(doc);
+        }
+        col.insertAll(docs);
+        
+        System.out.println("=== BENCHMARK: findById concurrente sobre " + n + " documentos ("
+            + Runtime.getRuntime().availableProcessors() + " núcleos) ===");
+        run(col, n, seconds, 1, false);  // Calentamiento del JIT
+        
+        System.out.println("Hilos | Solo lecturas (M ops/s) | Con 1 escritor (M ops/s)");
+        for (int threads : THREADS) {
+            double readOnly = run(col, n, seconds, threads, false);
+            double withWriter = run(col, n, seconds, threads, true);
+            System.out.printf("%5d | %23.2f | %24.2f%n", threads, readOnly, withWriter);
+        }
+    }
+    
+    private static String id(int i) {
+        return String.format("doc%08d", i);
+    }
+    
+    // Devuelve millones de lecturas por segundo (todos los hilos lectores)
+    private static double run(Collection col, int n, double seconds, int threads, boolean writer)
+            throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder reads = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                try { start.await(); } catch (InterruptedException e) { return; }
+                while (!stop.get()) {
+                    if (col.findById(id(random.nextInt(n))) != null) local++;
+                }
+                reads.add(local);
+            }));
+        }
+        if (writer) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try { start.await(); } catch (InterruptedException e) { return; }
+                while (!stop.get()) {
+                    int i = random.nextInt(n);
+                    Document doc = new Document(id(i));
+                    doc.put("n", i);
+                    col.update(doc.getId(), doc);
+                }
+            }));
+        }
+        
+        for (Thread w : workers) w.start();
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep((long) (seconds * 1000));
+        stop.set(true);
+        for (Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - begin;
+        
+        return reads.sum() / (elapsed / 1_000.0);
+    }
+}
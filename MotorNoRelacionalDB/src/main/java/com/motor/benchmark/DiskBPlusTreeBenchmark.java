@@ -0,0 +1,98 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Database;
+import com.motor.core.Document;
+import com.motor.storage.StorageManager;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * DISKBPLUSTREEBENCHMARK - Colección en memoria vs colección en disco
+ * 
+ * Inserta n documentos en una colección normal y en una colección con el
+ * índice principal en un archivo de páginas (DiskBPlusTreeIndex), y compara:
+ * - Inserción aleatoria y búsquedas por ID
+ * - Arranque: cargar la copia del checkpoint vs reabrir el archivo
+ * - Heap usado tras el arranque (los documentos en disco no ocupan heap)
+ * 
+ * Con -Xmx chico (por ejemplo -Xmx64m) la colección en disco sigue
+ * funcionando con n mayores que los que entran en el heap.
+ * 
+ * Uso: java -cp bin com.motor.benchmark.DiskBPlusTreeBenchmark [numDocs] [directorio]
+ */
+public class DiskBPlusTreeBenchmark {
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String dir = args.length > 1 ? args[1] : "bench-disco";
+        clean(new File(dir));
+        
+        System.out.println("=== BENCHMARK: colección en disco con " + n + " documentos ===");
+        run("Memoria (BPlusTreeIndex)", dir + "/memoria", false, n);
+        run("Disco (DiskBPlusTreeIndex)", dir + "/disco", true, n);
+        clean(new File(dir));
+    }
+    
+    private static void run(String label, String dir, boolean disk, int n) {
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) ids[i] = String.format("doc-%09d", i);
+        Random random = new Random(11);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String tmp = ids[i]; ids[i] = ids[j]; ids[j] = tmp;
+        }
+        
+        Database db = new Database("bench");
+        StorageManager storage = new StorageManager(dir);
+        if (disk) storage.openDiskCollection(db, "datos");
+        storage.open(db);
+        Collection col = db.createCollection("datos");
+        
+        long insertNs = ComplexityAnalyzer.measureTime(() -> {
+            for (String id : ids) {
+                Document doc = new Document(id);
+                doc.put("nombre", "Estudiante " + id);
+                doc.put("edad", 18 + id.hashCode() % 10);
+                col.insert(doc);
+            }
+        });
+        storage.checkpoint();
+        storage.close();
+        
+        // Arranque en frío del proceso simulado: base nueva sobre los mismos archivos
+        Database reopened = new Database("bench");
+        StorageManager storage2 = new StorageManager(dir);
+        long before = usedMemory();
+        long openNs = ComplexityAnalyzer.measureTime(() -> {
+            if (disk) storage2.openDiskCollection(reopened, "datos");
+            storage2.open(reopened);
+        });
+        long heap = usedMemory() - before;
+        
+        Collection loaded = reopened.getCollection("datos");
+        int[] found = new int[1];
+        long searchNs = ComplexityAnalyzer.measureTime(() -> {
+            for (String id : ids) if (loaded.findById(id) != null) found[0]++;
+        });
+        storage2.close();
+        
+        System.out.println("\n" + label);
+        System.out.printf("  Inserción: %.1f K docs/s%n", n / (insertNs / 1_000_000.0));
+        System.out.printf("  Arranque: %.1f ms, heap tras arrancar: %.1f MB%n", openNs / 1e6, heap / 1e6);
+        System.out.printf("  Búsquedas por ID: %.1f K ops/s (%d encontrados)%n", n / (searchNs / 1_000_000.0), found[0]);
+    }
+    
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+    
+    private static void clean(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) clean(f);
+        dir.delete();
+    }
+}
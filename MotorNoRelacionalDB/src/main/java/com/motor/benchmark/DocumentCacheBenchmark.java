@@ -0,0 +1,97 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Database;
+import com.motor.core.Document;
+import com.motor.core.DocumentCache;
+import com.motor.storage.StorageManager;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * DOCUMENTCACHEBENCHMARK - findById con y sin DocumentCache bajo acceso Zipf
+ * 
+ * Colección en disco (cada búsqueda sin caché recorre páginas y decodifica
+ * el documento) consultada con IDs de distribución Zipf (s = 1): pocos IDs
+ * concentran la mayoría de las lecturas. Para cada tamaño de caché (como
+ * porcentaje del tamaño estimado de los datos) reporta tasa de aciertos,
+ * desalojos y throughput.
+ * 
+ * Uso: java -cp bin com.motor.benchmark.DocumentCacheBenchmark [numDocs] [lecturas] [directorio]
+ */
+public class DocumentCacheBenchmark {
+    
+    private static final int[] CACHE_PERCENTS = {0, 1, 5, 10, 25};
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        String dir = args.length > 2 ? args[2] : "bench-cache";
+        clean(new File(dir));
+        
+        Database db = new Database("bench");
+        StorageManager storage = new StorageManager(dir);
+        Collection col = storage.openDiskCollection(db, "datos");
+        long dataBytes = 0;
+        for (int i = 0; i < n; i++) {
+            Document doc = new Document(String.format("doc-%08d", i));
+            doc.put("nombre", "Estudiante " + i);
+            doc.put("edad", 18 + i % 10);
+            doc.put("carrera", i % 2 == 0 ? "Sistemas" : "Electronica");
+            col.insert(doc);
+            dataBytes += DocumentCache.estimateBytes(doc);
+        }
+        
+        String[] ids = zipfIds(n, reads, new Random(5));
+        System.out.println("=== BENCHMARK: DocumentCache con " + n + " documentos, " + reads + " lecturas Zipf ===");
+        System.out.println("Caché | Aciertos | Desalojos | Lecturas (K ops/s)");
+        for (int percent : CACHE_PERCENTS) {
+            if (percent == 0) col.disableCache();
+            else col.enableCache(dataBytes * percent / 100);
+            
+            for (int i = 0; i < reads / 10; i++) col.findById(ids[i]);  // Calentamiento
+            DocumentCache cache = col.getCache();
+            if (cache != null) cache.resetStats();
+            long ns = ComplexityAnalyzer.measureTime(() -> {
+                for (String id : ids) col.findById(id);
+            });
+            
+            System.out.printf("%4d%% | %7.1f%% | %9d | %18.1f%n", percent,
+                cache == null ? 0 : cache.getHitRatio() * 100, cache == null ? 0 : cache.getEvictions(),
+                reads / (ns / 1_000_000.0));
+        }
+        storage.close();
+        clean(new File(dir));
+    }
+    
+    // IDs con P(rango k) proporcional a 1/k, por búsqueda binaria en la distribución acumulada
+    private static String[] zipfIds(int n, int count, Random random) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) cdf[k] = sum += 1.0 / (k + 1);
+        
+        // Rango -> ID barajado, para que los calientes no sean vecinos en el árbol
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) perm[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = perm[i]; perm[i] = perm[j]; perm[j] = tmp;
+        }
+        
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            int k = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (k < 0) k = Math.min(-(k + 1), n - 1);
+            ids[i] = String.format("doc-%08d", perm[k]);
+        }
+        return ids;
+    }
+    
+    private static void clean(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) clean(f);
+        dir.delete();
+    }
+}
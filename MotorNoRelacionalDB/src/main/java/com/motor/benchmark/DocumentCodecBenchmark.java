@@ -0,0 +1,134 @@
+package com.motor.benchmark;
+
+import com.motor.core.Document;
+import com.motor.storage.DocumentCodec;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * DOCUMENTCODECBENCHMARK - Texto (toString) vs formato binario DocumentCodec
+ * 
+ * Genera n documentos con enteros, decimales, cadenas, booleanos, un
+ * documento anidado y un arreglo, y compara:
+ * - Tamaño total del archivo
+ * - Tiempo de guardado (texto: toString() como hacía saveCollection)
+ * - Tiempo de carga (el texto no se puede leer de vuelta; solo binario)
+ * - Ida y vuelta exacta de tipos en binario
+ * 
+ * Uso: java -cp bin com.motor.benchmark.DocumentCodecBenchmark [numDocs]
+ */
+public class DocumentCodecBenchmark {
+    
+    private static final String[] CARRERAS = {"Sistemas", "Informatica", "Computacion", "Electronica"};
+    
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<Document> docs = generate(n);
+        
+        for (int round = 0; round < 3; round++) {  // Calentamiento del JIT
+            saveText(docs);
+            loadBinary(saveBinary(docs));
+        }
+        
+        byte[][] text = new byte[1][];
+        long textNs = ComplexityAnalyzer.measureTime(() -> text[0] = saveText(docs));
+        byte[][] binary = new byte[1][];
+        long binaryNs = ComplexityAnalyzer.measureTime(() -> binary[0] = saveBinary(docs));
+        List<List<Document>> loaded = new ArrayList<>();
+        long loadNs = ComplexityAnalyzer.measureTime(() -> loaded.add(loadBinary(binary[0])));
+        
+        int mismatches = 0;
+        for (int i = 0; i < n; i++) if (!sameDocument(docs.get(i), loaded.get(0).get(i))) mismatches++;
+        
+        System.out.println("=== BENCHMARK: formato de documentos con " + n + " documentos ===");
+        System.out.printf("Texto   : %8.2f MB | guardar %7.1f ms | cargar: no soportado%n",
+            text[0].length / 1e6, textNs / 1e6);
+        System.out.printf("Binario : %8.2f MB | guardar %7.1f ms | cargar %7.1f ms%n",
+            binary[0].length / 1e6, binaryNs / 1e6, loadNs / 1e6);
+        System.out.printf("Reducción de tamaño: %.1fx%n", (double) text[0].length / binary[0].length);
+        System.out.println("Ida y vuelta exacta: " + (mismatches == 0 ? "OK" : mismatches + " documentos distintos"));
+    }
+    
+    private static List<Document> generate(int n) {
+        Random random = new Random(3);
+        List<Document> docs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Document doc = new Document(String.format("%08d", i));
+            doc.put("nombre", "Estudiante " + i);
+            doc.put("edad", 17 + random.nextInt(15));
+            doc.put("promedio", Math.round(random.nextDouble() * 500) / 100.0);
+            doc.put("activo", random.nextBoolean());
+            doc.put("creditos", (long) random.nextInt(200));
+            doc.put("carrera", CARRERAS[random.nextInt(CARRERAS.length)]);
+            Document direccion = new Document(null);
+            direccion.put("ciudad", "Bogota");
+            direccion.put("codigo", 110000 + random.nextInt(1000));
+            doc.put("direccion", direccion);
+            doc.put("notas", Arrays.asList(random.nextInt(6), random.nextInt(6), random.nextInt(6)));
+            docs.add(doc);
+        }
+        return docs;
+    }
+    
+    // Como el saveCollection anterior: toString() de cada documento
+    private static byte[] saveText(List<Document> docs) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < docs.size(); i++) {
+            sb.append("  ").append(docs.get(i));
+            if (i < docs.size() - 1) sb.append(",");
+            sb.append("\n");
+        }
+        sb.append("]");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] saveBinary(List<Document> docs) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DocumentCodec.Writer out = new DocumentCodec.Writer(bytes)) {
+            for (Document doc : docs) out.write(doc);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static List<Document> loadBinary(byte[] data) {
+        List<Document> docs = new ArrayList<>();
+        try (DocumentCodec.Reader in = new DocumentCodec.Reader(new ByteArrayInputStream(data))) {
+            for (Document doc = in.read(); doc != null; doc = in.read()) docs.add(doc);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return docs;
+    }
+    
+    // Igualdad profunda con tipos exactos (Document no define equals)
+    private static boolean sameDocument(Document a, Document b) {
+        if (!Objects.equals(a.getId(), b.getId()) || !a.getKeys().equals(b.getKeys())) return false;
+        for (String key : a.getKeys()) {
+            if (!sameValue(a.get(key), b.get(key))) return false;
+        }
+        return true;
+    }
+    
+    private static boolean sameValue(Object x, Object y) {
+        if (x instanceof Document && y instanceof Document) return sameDocument((Document) x, (Document) y);
+        if (x instanceof List && y instanceof List) {
+            List<?> lx = (List<?>) x, ly = (List<?>) y;
+            if (lx.size() != ly.size()) return false;
+            for (int i = 0; i < lx.size(); i++) if (!sameValue(lx.get(i), ly.get(i))) return false;
+            return true;
+        }
+        if (x instanceof Map || y instanceof Map) return Objects.equals(x, y);
+        return x == null ? y == null : y != null && x.getClass() == y.getClass() && x.equals(y);
+    }
+}
@@ -0,0 +1,115 @@
+package com.motor.benchmark;
+
+import com.motor.core.Document;
+import com.motor.core.FieldDictionary;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * DOCUMENTFOOTPRINTBENCHMARK - Memoria por documento según su representación
+ * 
+ * Arma n documentos con el mismo esquema (10 campos: 6 números, 2 booleanos,
+ * 2 textos) y mide el heap que ocupan, en bytes por documento:
+ * - HashMap<String, Object> con valores en caja (la representación original
+ *   de Document; nombres de campo compartidos)
+ * - Document suelto (FieldDictionary.DEFAULT, arreglos con lugar de sobra)
+ * - Document compactado en el diccionario de una colección (lo que guarda
+ *   Collection)
+ * 
+ * Se mide como un "footprint" de JOL pero sin la dependencia: heap usado
+ * después de GC antes y después de armar los documentos, que quedan vivos
+ * en un arreglo. Los textos propios de cada documento (_id y nombre) se
+ * miden aparte para separar la estructura de los datos.
+ * 
+ * Uso: java -Xmx2g -cp bin com.motor.benchmark.DocumentFootprintBenchmark [numDocs]
+ */
+public class DocumentFootprintBenchmark {
+    
+    private static final String[] CARRERAS = {"Sistemas", "Informatica", "Computacion", "Electronica"};
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        FieldDictionary dictionary = new FieldDictionary();
+        
+        System.out.println("=== BENCHMARK: memoria de " + n + " documentos de 10 campos ===");
+        double texts = measure(n, i -> new String[]{id(i), nombre(i)});
+        double map = measure(n, DocumentFootprintBenchmark::buildMap);
+        double loose = measure(n, i -> buildDocument(i, FieldDictionary.DEFAULT));
+        double compact = measure(n, i -> {
+            Document doc = buildDocument(i, dictionary);
+            doc.compact(dictionary);
+            return doc;
+        });
+        
+        System.out.printf("Textos propios (_id, nombre): %6.1f bytes/doc%n", texts);
+        report("HashMap (original)", map, texts, map);
+        report("Document suelto", loose, texts, map);
+        report("Document compacto", compact, texts, map);
+        System.out.println("Diccionario de la colección: " + dictionary);
+    }
+    
+    private static void report(String label, double bytes, double texts, double baseline) {
+        System.out.printf("%-19s: %6.1f bytes/doc (estructura %6.1f) | %.1fx menos que HashMap (%.1fx sin textos)%n",
+            label, bytes, bytes - texts, baseline / bytes, (baseline - texts) / (bytes - texts));
+    }
+    
+    // Heap retenido por n objetos, en bytes por objeto
+    private static double measure(int n, IntFunction<Object> build) {
+        Object[] keep = new Object[n];
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < n; i++) keep[i] = build.apply(i);
+        long after = usedHeapAfterGc();
+        if (keep[n - 1] == null) System.out.println("(vacío)");  // Mantiene vivo el arreglo
+        return (double) (after - before) / n;
+    }
+    
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {  // Varias pasadas: el GC no garantiza juntar todo en una
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+    
+    private static String id(int i) {
+        return String.format("%08d", i);
+    }
+    
+    private static String nombre(int i) {
+        return "Estudiante " + i;
+    }
+    
+    private static Map<String, Object> buildMap(int i) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("_id", id(i));
+        doc.put("nombre", nombre(i));
+        doc.put("edad", 17 + i % 15);
+        doc.put("promedio", (i % 500) / 100.0);
+        doc.put("activo", i % 3 != 0);
+        doc.put("creditos", (long) (i % 200));
+        doc.put("carrera", CARRERAS[i % CARRERAS.length]);
+        doc.put("semestre", 1 + i % 10);
+        doc.put("beca", i % 7 == 0);
+        doc.put("codigo", 110000 + i % 1000);
+        doc.put("ingreso", 2000 + i % 25);
+        return doc;
+    }
+    
+    private static Document buildDocument(int i, FieldDictionary dictionary) {
+        Document doc = new Document(id(i), dictionary);
+        doc.put("nombre", nombre(i));
+        doc.putInt("edad", 17 + i % 15);
+        doc.putDouble("promedio", (i % 500) / 100.0);
+        doc.putBoolean("activo", i % 3 != 0);
+        doc.putLong("creditos", i % 200);
+        doc.put("carrera", CARRERAS[i % CARRERAS.length]);
+        doc.putInt("semestre", 1 + i % 10);
+        doc.putBoolean("beca", i % 7 == 0);
+        doc.putInt("codigo", 110000 + i % 1000);
+        doc.putInt("ingreso", 2000 + i % 25);
+        return doc;
+    }
+}
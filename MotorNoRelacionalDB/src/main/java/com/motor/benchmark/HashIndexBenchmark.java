@@ -0,0 +1,69 @@
+package com.motor.benchmark;
+
+import com.motor.index.HashIndex;
+import com.motor.utils.ComplexityAnalyzer;
+
+/**
+ * HASHINDEXBENCHMARK - Distribución de cadenas antes/después del redimensionamiento
+ * 
+ * Compara:
+ * - Antes: 16 buckets fijos con módulo (sin crecer, cadenas de longitud n/16)
+ * - Después: factor de carga 0.75 con rehash incremental y máscara potencia de 2
+ * 
+ * Uso: java -cp bin com.motor.benchmark.HashIndexBenchmark [numClaves]
+ */
+public class HashIndexBenchmark {
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        
+        System.out.println("=== BENCHMARK: HashIndex con " + n + " claves ===");
+        run("Antes (16 buckets fijos, módulo)", new HashIndex<>(16, Double.POSITIVE_INFINITY, false), n);
+        run("Después (carga 0.75, rehash incremental, máscara)", new HashIndex<>(16, 0.75, true), n);
+    }
+    
+    private static void run(String label, HashIndex<String, Integer> index, int n) {
+        long insertNs = ComplexityAnalyzer.measureTime(() -> {
+            for (int i = 0; i < n; i++) index.insert("key" + i, i);
+        });
+        
+        long searchNs = ComplexityAnalyzer.measureTime(() -> {
+            for (int i = 0; i < n; i++) index.search("key" + i);
+        });
+        
+        System.out.println("\n" + label);
+        System.out.println("  Capacidad final: " + index.getCapacity());
+        System.out.println("  Inserción: " + (insertNs / n) + " ns/op");
+        System.out.println("  Búsqueda:  " + (searchNs / n) + " ns/op");
+        printHistogram(index.chainLengthHistogram());
+    }
+    
+    private static void printHistogram(int[] histogram) {
+        long nodes = 0;
+        int nonEmpty = 0;
+        for (int len = 1; len < histogram.length; len++) {
+            nodes += (long) len * histogram[len];
+            nonEmpty += histogram[len];
+        }
+        
+        System.out.println("  Longitud máxima de cadena: " + (histogram.length - 1));
+        System.out.printf("  Longitud promedio (buckets no vacíos): %.2f%n",
+            nonEmpty == 0 ? 0.0 : (double) nodes / nonEmpty);
+        
+        // Para cadenas muy largas (tabla fija) solo se muestran los extremos
+        if (histogram.length <= 10) {
+            for (int len = 0; len < histogram.length; len++) {
+                System.out.println("    longitud " + len + ": " + histogram[len] + " buckets");
+            }
+        } else {
+            System.out.println("    longitud 0: " + histogram[0] + " buckets");
+            System.out.println("    longitud >= 10: " + countFrom(histogram, 10) + " buckets");
+        }
+    }
+    
+    private static int countFrom(int[] histogram, int from) {
+        int total = 0;
+        for (int i = from; i < histogram.length; i++) total += histogram[i];
+        return total;
+    }
+}
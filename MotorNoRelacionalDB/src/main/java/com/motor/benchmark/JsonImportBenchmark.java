@@ -0,0 +1,144 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Database;
+import com.motor.core.Document;
+import com.motor.storage.NdjsonImporter;
+import com.motor.utils.ComplexityAnalyzer;
+import com.motor.utils.JsonReader;
+import com.motor.utils.JsonUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * JSONIMPORTBENCHMARK - Exportación e importación JSON / NDJSON por flujo
+ * 
+ * Genera una colección de n documentos (números, textos con escapes,
+ * booleanos, documento anidado, arreglo) y mide sobre archivos temporales:
+ * - Exportar NDJSON y arreglo JSON (exportJson)
+ * - Solo parsear el NDJSON con JsonReader, sin guardar los documentos:
+ *   muestra la memoria usada por el lector, que no crece con el archivo
+ * - Importar el NDJSON a una colección nueva (importJson)
+ * - Importar el NDJSON con NdjsonImporter (parseo en paralelo) variando la
+ *   cantidad de workers; cada corrida usa una colección nueva
+ * 
+ * Uso: java -Xmx4g -cp bin com.motor.benchmark.JsonImportBenchmark [numDocs]
+ */
+public class JsonImportBenchmark {
+    
+    private static final String[] CARRERAS = {"Sistemas", "Informatica", "Computacion", "Electronica"};
+    
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Database db = new Database("bench");
+        Collection source = db.createCollection("origen");
+        source.insertAll(generate(n));
+        
+        File ndjson = File.createTempFile("motor", ".ndjson");
+        File array = File.createTempFile("motor", ".json");
+        ndjson.deleteOnExit();
+        array.deleteOnExit();
+        
+        System.out.println("=== BENCHMARK: JSON por flujo con " + n + " documentos ===");
+        
+        long exportNs = ComplexityAnalyzer.measureTime(() -> export(source, ndjson, true));
+        report("Exportar NDJSON", ndjson.length(), n, exportNs);
+        long arrayNs = ComplexityAnalyzer.measureTime(() -> export(source, array, false));
+        report("Exportar arreglo", array.length(), n, arrayNs);
+        
+        for (int round = 0; round < 2; round++) parseOnly(ndjson);  // Calentamiento del JIT
+        long[] heap = new long[1];
+        long parseNs = ComplexityAnalyzer.measureTime(() -> heap[0] = parseOnly(ndjson));
+        report("Solo parsear", ndjson.length(), n, parseNs);
+        System.out.printf("  Memoria usada al terminar el parseo: %.1f MB (el archivo ocupa %.1f MB)%n",
+            heap[0] / 1e6, ndjson.length() / 1e6);
+        
+        Collection target = db.createCollection("destino");
+        long[] imported = new long[1];
+        long importNs = ComplexityAnalyzer.measureTime(() -> imported[0] = importInto(target, ndjson));
+        report("Importar NDJSON", ndjson.length(), n, importNs);
+        System.out.println("  Documentos importados: " + imported[0] + " | colección: " + target.size());
+        
+        int cpus = Runtime.getRuntime().availableProcessors();
+        System.out.println("\n--- Importación en paralelo (" + cpus + " procesadores) ---");
+        for (int workers : IntStream.of(1, 2, 4, cpus).distinct().toArray()) {
+            Collection parallel = new Collection("paralelo");
+            NdjsonImporter importer = new NdjsonImporter(parallel, workers, NdjsonImporter.DEFAULT_CHUNK_BYTES);
+            importer.importFile(ndjson.toPath());
+            report(workers + " workers", importer.getBytes(), (int) importer.getDocuments(), importer.getElapsedNanos());
+        }
+    }
+    
+    private static void report(String label, long bytes, int docs, long ns) {
+        System.out.printf("%-17s: %8.1f MB | %8.1f ms | %7.1f MB/s | %9.0f docs/s%n",
+            label, bytes / 1e6, ns / 1e6, bytes / 1e6 / (ns / 1e9), docs / (ns / 1e9));
+    }
+    
+    private static void export(Collection col, File file, boolean ndjson) {
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonUtils.exportJson(col, out, ndjson);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Recorre todo el archivo descartando los documentos; devuelve el heap en uso
+    private static long parseOnly(File file) {
+        System.gc();
+        long before = usedHeap();
+        try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonReader json = new JsonReader(in);
+            long fields = 0;
+            while (json.hasNext()) fields += json.readDocument().size();
+            if (fields == 0) System.out.println("(vacío)");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.gc();
+        return Math.max(0, usedHeap() - before);
+    }
+    
+    private static long importInto(Collection col, File file) {
+        try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return JsonUtils.importJson(in, col);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+    
+    private static List<Document> generate(int n) {
+        Random random = new Random(3);
+        List<Document> docs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Document doc = new Document(String.format("%08d", i));
+            doc.put("nombre", "Estudiante \"" + i + "\"");
+            doc.putInt("edad", 17 + random.nextInt(15));
+            doc.putDouble("promedio", Math.round(random.nextDouble() * 500) / 100.0);
+            doc.putBoolean("activo", random.nextBoolean());
+            doc.putLong("creditos", random.nextInt(200));
+            doc.put("carrera", CARRERAS[random.nextInt(CARRERAS.length)]);
+            Document direccion = new Document(null);
+            direccion.put("ciudad", "Bogotá");
+            direccion.putInt("codigo", 110000 + random.nextInt(1000));
+            doc.put("direccion", direccion);
+            doc.put("notas", Arrays.asList(random.nextInt(6), random.nextInt(6), random.nextInt(6)));
+            docs.add(doc);
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,89 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import com.motor.storage.OffHeapDocumentIndex;
+import com.motor.utils.ComplexityAnalyzer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * OFFHEAPBENCHMARK - Documentos en el heap vs fuera del heap (OffHeapDocumentIndex)
+ * 
+ * Carga n documentos en una colección normal y en una con
+ * OffHeapDocumentIndex y mide para cada una:
+ * - Tiempo de carga (insertAll) y de n búsquedas findById al azar
+ * - Heap usado después de GC y memoria directa del arena
+ * - Pausa de un GC completo (System.gc), que crece con el heap vivo
+ * 
+ * Uso: java -Xmx4g -cp bin com.motor.benchmark.OffHeapBenchmark [numDocs]
+ */
+public class OffHeapBenchmark {
+    
+    private static final String[] CARRERAS = {"Sistemas", "Informatica", "Computacion", "Electronica"};
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("=== BENCHMARK: " + n + " documentos en el heap vs fuera del heap ===");
+        run("Heap (BPlusTreeIndex)", new Collection("heap"), n, null);
+        OffHeapDocumentIndex offHeap = new OffHeapDocumentIndex();
+        run("Fuera del heap", new Collection("offheap", offHeap), n, offHeap);
+    }
+    
+    private static void run(String label, Collection col, int n, OffHeapDocumentIndex offHeap) {
+        long baseHeap = usedHeapAfterGc();
+        long loadNs = 0;
+        for (int start = 0; start < n; start += 100_000) {  // Por lotes: el lote no infla el heap medido
+            List<Document> batch = generate(start, Math.min(n, start + 100_000));
+            loadNs += ComplexityAnalyzer.measureTime(() -> col.insertAll(batch));
+        }
+        Random random = new Random(9);
+        long[] found = new long[1];
+        long searchNs = ComplexityAnalyzer.measureTime(() -> {
+            for (int i = 0; i < n; i++) {
+                if (col.findById(String.format("%08d", random.nextInt(n))) != null) found[0]++;
+            }
+        });
+        
+        long heap = usedHeapAfterGc() - baseHeap;
+        long gcNs = ComplexityAnalyzer.measureTime(System::gc);
+        
+        System.out.println("\n" + label + ":");
+        System.out.printf("  Carga: %8.1f ms | findById: %9.0f búsquedas/s (%d encontradas)%n",
+            loadNs / 1e6, n / (searchNs / 1e9), found[0]);
+        System.out.printf("  Heap: %8.1f MB (%.0f bytes/doc)", heap / 1e6, (double) heap / n);
+        if (offHeap != null) {
+            System.out.printf(" | fuera del heap: %.1f MB usados, %.1f MB reservados",
+                offHeap.getArena().getUsedBytes() / 1e6, offHeap.getArena().getReservedBytes() / 1e6);
+        }
+        System.out.printf("%n  GC completo: %.1f ms%n", gcNs / 1e6);
+        if (col.size() != n) System.out.println("  (colección incompleta: " + col.size() + ")");
+    }
+    
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+    
+    private static List<Document> generate(int from, int to) {
+        Random random = new Random(from);
+        List<Document> docs = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Document doc = new Document(String.format("%08d", i));
+            doc.put("nombre", "Estudiante " + i);
+            doc.putInt("edad", 17 + random.nextInt(15));
+            doc.putDouble("promedio", Math.round(random.nextDouble() * 500) / 100.0);
+            doc.putBoolean("activo", random.nextBoolean());
+            doc.put("carrera", CARRERAS[random.nextInt(CARRERAS.length)]);
+            doc.put("descripcion", "Inscripto en " + CARRERAS[random.nextInt(CARRERAS.length)] + " desde " + (2000 + i % 25));
+            docs.add(doc);
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,83 @@
+package com.motor.benchmark;
+
+import com.motor.index.HashIndex;
+import com.motor.index.Index;
+import com.motor.index.LongHashIndex;
+import com.motor.index.OpenHashIndex;
+import com.motor.utils.ComplexityAnalyzer;
+import java.util.Random;
+
+/**
+ * OPENHASHINDEXBENCHMARK - Encadenamiento vs direccionamiento abierto
+ * 
+ * Mide para HashIndex, OpenHashIndex y LongHashIndex:
+ * - Memoria por entrada (heap usado tras System.gc(), incluye claves Long en cajas)
+ * - Throughput de búsquedas exitosas en orden aleatorio
+ * 
+ * Todas las entradas comparten el mismo valor para medir solo la estructura.
+ * 
+ * Uso: java -cp bin com.motor.benchmark.OpenHashIndexBenchmark [numClaves]
+ */
+public class OpenHashIndexBenchmark {
+    
+    private static final Object VALUE = new Object();
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long[] lookups = new long[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) lookups[i] = random.nextInt(n) + 1L;
+        
+        System.out.println("=== BENCHMARK: índices hash con " + n + " claves long ===");
+        run("HashIndex (encadenado)", new HashIndex<Long, Object>(), n, lookups);
+        run("OpenHashIndex (Robin Hood)", new OpenHashIndex<Long, Object>(), n, lookups);
+        runPrimitive(n, lookups);
+    }
+    
+    private static void run(String label, Index<Long, Object> index, int n, long[] lookups) {
+        long before = usedMemory();
+        for (long k = 1; k <= n; k++) index.insert(k, VALUE);
+        long bytes = usedMemory() - before;
+        
+        int[] found = new int[1];
+        for (int round = 0; round < 3; round++) {   // Calentamiento del JIT
+            found[0] = 0;
+            for (long k : lookups) if (index.search(k) != null) found[0]++;
+        }
+        long ns = ComplexityAnalyzer.measureTime(() -> {
+            for (long k : lookups) if (index.search(k) != null) found[0]++;
+        });
+        
+        report(label, bytes, n, ns, lookups.length);
+    }
+    
+    // LongHashIndex usando la API primitiva (sin boxing en inserción ni búsqueda)
+    private static void runPrimitive(int n, long[] lookups) {
+        long before = usedMemory();
+        LongHashIndex<Object> index = new LongHashIndex<>();
+        for (long k = 1; k <= n; k++) index.insertLong(k, VALUE);
+        long bytes = usedMemory() - before;
+        
+        int[] found = new int[1];
+        for (int round = 0; round < 3; round++) {
+            for (long k : lookups) if (index.searchLong(k) != null) found[0]++;
+        }
+        long ns = ComplexityAnalyzer.measureTime(() -> {
+            for (long k : lookups) if (index.searchLong(k) != null) found[0]++;
+        });
+        
+        report("LongHashIndex (primitivo)", bytes, n, ns, lookups.length);
+    }
+    
+    private static void report(String label, long bytes, int n, long ns, int ops) {
+        System.out.println("\n" + label);
+        System.out.printf("  Memoria: %.1f bytes/entrada%n", (double) bytes / n);
+        System.out.printf("  Búsquedas: %.1f M ops/s%n", ops / (ns / 1_000.0));
+    }
+    
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
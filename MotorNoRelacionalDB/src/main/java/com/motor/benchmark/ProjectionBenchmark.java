@@ -0,0 +1,117 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Database;
+import com.motor.core.Document;
+import com.motor.query.QueryProcessor;
+import com.motor.storage.OffHeapDocumentIndex;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * PROJECTIONBENCHMARK - Decodificar solo los campos pedidos (proyección)
+ * 
+ * Carga n documentos de 30 campos en una colección con OffHeapDocumentIndex
+ * (cada lectura decodifica el documento) y compara, con y sin proyección:
+ * - Recorrido: scan() completo vs scan() pidiendo 2 campos
+ * - SELECT * vs SELECT nombre, edad con el mismo WHERE
+ * - findByField sin índice secundario (compara un solo campo)
+ * 
+ * Mide tiempo y bytes asignados en el heap por el hilo
+ * (com.sun.management.ThreadMXBean), la basura que genera cada recorrido.
+ * 
+ * Uso: java -cp bin com.motor.benchmark.ProjectionBenchmark [numDocs]
+ */
+public class ProjectionBenchmark {
+    
+    private static final String[] CARRERAS = {"Sistemas", "Informatica", "Computacion", "Electronica"};
+    private static final int EXTRA_FIELDS = 24;
+    private static final int ROUNDS = 3;
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        System.out.println("=== BENCHMARK: proyección sobre " + n + " documentos de "
+            + (EXTRA_FIELDS + 6) + " campos fuera del heap ===");
+        
+        Database db = new Database("proyeccion");
+        Collection col = db.createCollection("estudiantes", new OffHeapDocumentIndex());
+        for (int start = 0; start < n; start += 100_000) col.insertAll(generate(start, Math.min(n, start + 100_000)));
+        QueryProcessor processor = new QueryProcessor(db, 16, new PrintStream(OutputStream.nullOutputStream()));
+        
+        System.out.println("\nRecorrido completo:");
+        compare(n,
+            () -> col.scan(null, true, null, true, false).mapToInt(Document::size).sum(),
+            () -> col.scan(null, true, null, true, false, Set.of("nombre", "edad")).mapToInt(Document::size).sum());
+        
+        System.out.println("\nSELECT ... WHERE carrera = 'Sistemas' AND edad > 25:");
+        compare(n,
+            () -> processor.query("SELECT * FROM estudiantes WHERE carrera = 'Sistemas' AND edad > 25").toList().size(),
+            () -> processor.query("SELECT nombre, edad FROM estudiantes WHERE carrera = 'Sistemas' AND edad > 25")
+                .toList().size());
+        
+        System.out.println("\nfindByField(\"edad\", 20) sin índice secundario (con proyección de un campo):");
+        report("findByField", n, measure(() -> col.findByField("edad", 20).size()));
+    }
+    
+    private interface Task {
+        int run();
+    }
+    
+    private static void compare(int n, Task full, Task projected) {
+        long[] f = measure(full);
+        long[] p = measure(projected);
+        report("Sin proyección", n, f);
+        report("Con proyección", n, p);
+        System.out.printf("  -> %.1fx más rápido, %.1fx menos memoria asignada%n",
+            (double) f[0] / p[0], (double) f[1] / Math.max(1, p[1]));
+    }
+    
+    // Mejor de ROUNDS ejecuciones: {nanos, bytes asignados, resultado}
+    private static long[] measure(Task task) {
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, 0};
+        for (int i = 0; i < ROUNDS; i++) {
+            int[] result = new int[1];
+            long bytes = THREADS.getCurrentThreadAllocatedBytes();
+            long ns = ComplexityAnalyzer.measureTime(() -> result[0] = task.run());
+            bytes = THREADS.getCurrentThreadAllocatedBytes() - bytes;
+            best[0] = Math.min(best[0], ns);
+            best[1] = Math.min(best[1], bytes);
+            best[2] = result[0];
+        }
+        return best;
+    }
+    
+    private static void report(String label, int n, long[] m) {
+        System.out.printf("  %-15s %8.1f ms | %8.1f MB asignados (%5.0f bytes/doc) | resultado %d%n",
+            label + ":", m[0] / 1e6, m[1] / 1e6, (double) m[1] / n, m[2]);
+    }
+    
+    private static List<Document> generate(int from, int to) {
+        Random random = new Random(from);
+        List<Document> docs = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Document doc = new Document(String.format("%08d", i));
+            doc.put("nombre", "Estudiante " + i);
+            doc.putInt("edad", 17 + random.nextInt(15));
+            doc.putDouble("promedio", Math.round(random.nextDouble() * 500) / 100.0);
+            doc.putBoolean("activo", random.nextBoolean());
+            doc.put("carrera", CARRERAS[random.nextInt(CARRERAS.length)]);
+            doc.put("descripcion", "Inscripto en " + CARRERAS[random.nextInt(CARRERAS.length)] + " desde " + (2000 + i % 25));
+            for (int j = 0; j < EXTRA_FIELDS; j++) {
+                if (j % 3 == 0) doc.put("nota" + j, "Observación " + random.nextInt(1000));
+                else doc.putInt("nota" + j, random.nextInt(100));
+            }
+            docs.add(doc);
+        }
+        return docs;
+    }
+}
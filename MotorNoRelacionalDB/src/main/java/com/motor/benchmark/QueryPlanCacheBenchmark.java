@@ -0,0 +1,55 @@
+package com.motor.benchmark;
+
+import com.motor.core.Database;
+import com.motor.query.PreparedStatement;
+import com.motor.query.QueryParser;
+import com.motor.query.QueryProcessor;
+import com.motor.utils.ComplexityAnalyzer;
+
+/**
+ * QUERYPLANCACHEBENCHMARK - Costo de preparar una consulta
+ * 
+ * Misma forma de consulta con un literal distinto en cada ejecución:
+ * - parse(): parsear el texto completo cada vez
+ * - prepare(): normalizar con el lexer + caché de planes + bind()
+ * - PreparedStatement.bind(): preparada una vez, solo reemplaza los ?
+ * 
+ * Mide solo la preparación (no ejecuta contra datos).
+ * 
+ * Uso: java -cp bin com.motor.benchmark.QueryPlanCacheBenchmark [consultas]
+ */
+public class QueryPlanCacheBenchmark {
+    
+    private static final String SHAPE =
+        "SELECT nombre, edad FROM estudiantes WHERE edad >= %d AND carrera IN ('Sistemas', 'Civil') ORDER BY edad DESC LIMIT 10";
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        String[] queries = new String[n];
+        for (int i = 0; i < n; i++) queries[i] = String.format(SHAPE, i);
+        
+        QueryParser parser = new QueryParser();
+        QueryProcessor processor = new QueryProcessor(new Database("bench"));
+        PreparedStatement ps = processor.prepare("SELECT nombre, edad FROM estudiantes WHERE edad >= ? "
+            + "AND carrera IN ('Sistemas', 'Civil') ORDER BY edad DESC LIMIT 10");
+        
+        System.out.println("=== BENCHMARK: preparación de " + n + " consultas de la misma forma ===");
+        for (int round = 0; round < 3; round++) {   // Las primeras rondas calientan el JIT
+            long parseNs = ComplexityAnalyzer.measureTime(() -> {
+                for (String q : queries) parser.parse(q);
+            });
+            long cachedNs = ComplexityAnalyzer.measureTime(() -> {
+                for (String q : queries) processor.prepare(q).bind();
+            });
+            long boundNs = ComplexityAnalyzer.measureTime(() -> {
+                for (int i = 0; i < n; i++) ps.bind(i);
+            });
+            
+            System.out.printf("%nRonda %d%n", round + 1);
+            System.out.printf("  parse():                   %6.2f M consultas/s%n", n / (parseNs / 1_000.0));
+            System.out.printf("  prepare() con caché:       %6.2f M consultas/s%n", n / (cachedNs / 1_000.0));
+            System.out.printf("  PreparedStatement.bind():  %6.2f M consultas/s%n", n / (boundNs / 1_000.0));
+        }
+        System.out.println("\n" + processor.getPlanCache());
+    }
+}
@@ -0,0 +1,83 @@
+package com.motor.benchmark;
+
+import com.motor.index.BPlusTreeIndex;
+import com.motor.index.BTreeIndex;
+import java.util.Random;
+
+/**
+ * TREECHURNBENCHMARK - Altura, nodos y memoria bajo inserciones/eliminaciones
+ * 
+ * Mantiene n claves vivas y en cada ronda elimina la mitad al azar e
+ * inserta la misma cantidad de claves nuevas. Con rebalanceo real
+ * (préstamo/fusión) la altura, la cantidad de nodos y el heap se mantienen
+ * acotados ronda tras ronda en lugar de acumular hojas vacías.
+ * 
+ * Uso: java -cp bin com.motor.benchmark.TreeChurnBenchmark [n] [rondas]
+ */
+public class TreeChurnBenchmark {
+    
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        
+        System.out.println("=== BENCHMARK: churn con " + n + " claves vivas, " + rounds + " rondas ===");
+        
+        BPlusTreeIndex<Integer, Integer> bplus = new BPlusTreeIndex<>(64);
+        run("Árbol B+ (orden 64)", new Tree() {
+            public void insert(int k) { bplus.insert(k, k); }
+            public void delete(int k) { bplus.delete(k); }
+            public String stats() {
+                return String.format("altura %d | nodos %7d | llenado %.2f",
+                    bplus.height(), bplus.nodeCount(), bplus.fillFactor());
+            }
+        }, n, rounds);
+        
+        BTreeIndex<Integer, Integer> btree = new BTreeIndex<>(32);
+        run("Árbol B (grado 32)", new Tree() {
+            public void insert(int k) { btree.insert(k, k); }
+            public void delete(int k) { btree.delete(k); }
+            public String stats() {
+                return String.format("altura %d | nodos %7d | llenado %.2f",
+                    btree.height(), btree.nodeCount(), btree.fillFactor());
+            }
+        }, n, rounds);
+    }
+    
+    // Adaptador mínimo para ejecutar la misma carga sobre ambos árboles
+    private interface Tree {
+        void insert(int k);
+        void delete(int k);
+        String stats();
+    }
+    
+    private static void run(String label, Tree tree, int n, int rounds) {
+        Random random = new Random(3);
+        int[] live = new int[n];
+        int nextKey = 0;
+        for (int i = 0; i < n; i++) {
+            live[i] = nextKey++;
+            tree.insert(live[i]);
+        }
+        
+        System.out.println("\n" + label);
+        System.out.println("  inicial | " + tree.stats() + " | heap " + usedMb() + " MB");
+        
+        for (int r = 1; r <= rounds; r++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n / 2; i++) {
+                int slot = random.nextInt(n);
+                tree.delete(live[slot]);
+                live[slot] = nextKey++;      // Las claves nuevas crecen: las hojas viejas se vacían
+                tree.insert(live[slot]);
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            System.out.printf("  ronda %2d | %s | heap %d MB | %d ms%n", r, tree.stats(), usedMb(), ms);
+        }
+    }
+    
+    private static long usedMb() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
+    }
+}
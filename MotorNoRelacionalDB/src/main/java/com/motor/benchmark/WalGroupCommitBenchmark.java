@@ -0,0 +1,82 @@
+package com.motor.benchmark;
+
+import com.motor.core.Collection;
+import com.motor.core.Database;
+import com.motor.core.Document;
+import com.motor.storage.StorageManager;
+import com.motor.storage.WriteAheadLog;
+import com.motor.utils.ComplexityAnalyzer;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WALGROUPCOMMITBENCHMARK - Escrituras durables con commit en grupo
+ * 
+ * Con 1, 4, 16 y 64 hilos insertando documentos (cada insert espera su
+ * fsync) reporta inserciones durables por segundo y registros por fsync.
+ * Con un solo hilo hay un fsync por escritura; con más hilos los lotes
+ * crecen y el costo del fsync se reparte.
+ * Como referencia mide también saveCollection(), que reescribe la colección
+ * completa (lo que costaba antes cada guardado).
+ * 
+ * Uso: java -cp bin com.motor.benchmark.WalGroupCommitBenchmark [directorio] [insertsPorHilo]
+ */
+public class WalGroupCommitBenchmark {
+    
+    private static final int[] THREADS = {1, 4, 16, 64};
+    
+    public static void main(String[] args) throws InterruptedException {
+        String dir = args.length > 0 ? args[0] : "bench-wal";
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        System.out.println("=== BENCHMARK: registro de escritura con commit en grupo (" + dir + ") ===");
+        System.out.println("Hilos | Inserts durables/s | Registros por fsync");
+        
+        for (int threads : THREADS) {
+            clean(dir);
+            Database db = new Database("bench");
+            StorageManager storage = new StorageManager(dir);
+            storage.open(db);
+            Collection col = db.createCollection("docs");
+            WriteAheadLog wal = storage.getWriteAheadLog();
+            long recordsBefore = wal.getRecordCount();
+            long syncsBefore = wal.getSyncCount();
+            
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                workers.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Document doc = new Document("t" + thread + "-" + i);
+                        doc.put("n", i);
+                        doc.put("texto", "documento de prueba " + i);
+                        col.insert(doc);
+                    }
+                }));
+            }
+            long start = System.nanoTime();
+            for (Thread w : workers) w.start();
+            for (Thread w : workers) w.join();
+            long ns = System.nanoTime() - start;
+            
+            long records = wal.getRecordCount() - recordsBefore;
+            long syncs = wal.getSyncCount() - syncsBefore;
+            System.out.printf("%5d | %18.0f | %19.1f%n", threads,
+                threads * perThread / (ns / 1e9), (double) records / Math.max(1, syncs));
+            
+            if (threads == THREADS[THREADS.length - 1]) {
+                long saveNs = ComplexityAnalyzer.measureTime(() -> storage.saveCollection(col));
+                System.out.printf("%nReferencia: saveCollection() de %d documentos = %.2f ms por guardado%n",
+                    col.size(), saveNs / 1e6);
+            }
+            storage.close();
+        }
+        clean(dir);
+    }
+    
+    private static void clean(String dir) {
+        File[] files = new File(dir).listFiles();
+        if (files != null) for (File f : files) f.delete();
+    }
+}
@@ -0,0 +1,32 @@
+package com.motor.core;
+
+/**
+ * CHANGELOG - Registro de cambios que Database y Collection notifican
+ * 
+ * Cada método anota la operación y devuelve su número de secuencia (LSN).
+ * Se llama con el bloqueo de la colección tomado, así que el orden del
+ * registro coincide con el orden en que se aplicaron los cambios; debe ser
+ * rápido (solo encolar). sync(lsn) espera a que el cambio sea durable y se
+ * llama después de soltar el bloqueo, para que varios escritores compartan
+ * una misma escritura a disco.
+ * 
+ * Implementación: storage.WriteAheadLog
+ */
+public interface ChangeLog {
+    
+    long logCreate(String collection, int order);
+    
+    long logDrop(String collection);
+    
+    long logInsert(String collection, Document doc);
+    
+    long logUpdate(String collection, String id, Document doc);
+    
+    long logDelete(String collection, String id);
+    
+    // Bloquea hasta que todo registro con LSN <= lsn esté en disco
+    void sync(long lsn);
+    
+    // LSN del último cambio anotado (los checkpoints lo guardan con cada copia)
+    long lastLsn();
+}
@@ -1,8 +1,29 @@
 package com.motor.core;
 
+import com.motor.algorithms.SortAlgorithms;
 import com.motor.index.BPlusTreeIndex;
+import com.motor.index.BTreeIndex;
+import com.motor.index.HashIndex;
+import com.motor.index.Index;
+import com.motor.index.OrderedIndex;
+import com.motor.index.ProjectingIndex;
+import java.io.PrintStream;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * COLLECTION - Almacena documentos usando Árbol B+ como índice principal
@@ -17,61 +38,503 @@ import java.util.List;
  * - findById(): O(log n)
  * - delete(): O(log n)
  * - getAll(): O(n)
+ * - stream() / scan(): perezosos, O(log n) + O(k) por k documentos leídos
+ * 
+ * Índices secundarios (createIndex): campo -> lista de IDs.
+ * Se mantienen sincronizados en insert/update/delete y permiten que
+ * findByField() pase de O(n) a O(1) (hash) u O(log n) (árbol).
+ * 
+ * Concurrencia (StampedLock, uno por colección):
+ * - findById(): lectura optimista sin bloqueo; si una escritura la invalida,
+ *   reintenta con bloqueo de lectura
+ * - Demás lecturas: bloqueo de lectura compartido (lectores en paralelo)
+ * - Escrituras: bloqueo exclusivo; colecciones distintas no se bloquean entre sí
+ * - stream()/scan(): leen por lotes bajo bloqueo de lectura y reanudan desde
+ *   el último ID visto, sin retener el bloqueo mientras se consume el Stream
+ * 
+ * Con un ChangeLog asignado cada escritura se anota bajo el bloqueo (orden del
+ * registro = orden de aplicación) y se espera su durabilidad ya sin bloqueo.
+ * 
+ * Memoria: cada documento guardado pasa a las formas del FieldDictionary
+ * de la colección (Document.compact): los documentos con el mismo esquema
+ * comparten nombres y tipos de campo y solo guardan sus valores.
+ * 
+ * Caché opcional de documentos (enableCache): findById() consulta primero
+ * un DocumentCache acotado en bytes; las escrituras invalidan el ID bajo el
+ * bloqueo de escritura. Un acierto devuelve la instancia guardada en el
+ * caché, compartida por todos los lectores: no se debe modificar (aunque el
+ * índice principal devuelva copias), los cambios van por update().
  */
 public class Collection {
     
+    /** Orden por defecto del Árbol B+ (ver BPlusTreeOrderBenchmark) */
+    public static final int DEFAULT_ORDER = 128;
+    
+    /** Llenado de hojas en carga masiva: deja lugar para inserciones posteriores */
+    public static final double DEFAULT_BULK_FILL = 0.9;
+    
     private String name;
-    private BPlusTreeIndex<String, Document> index;  // Índice Árbol B+
-    private int documentCount;
+    private int order;
+    private OrderedIndex<String, Document> index;  // Índice principal: Árbol B+ (heap o disco)
+    private volatile int documentCount;  // Escrito bajo bloqueo, leído sin él en size()
+    private volatile long modifications;  // Documentos insertados, reemplazados o borrados (bajo bloqueo)
+    private Map<String, Index<FieldKey, List<String>>> secondaryIndexes;  // campo -> índice
+    private final StampedLock lock = new StampedLock();
+    private volatile ChangeLog changeLog;  // null = sin persistencia
+    private volatile DocumentCache cache;  // null = sin caché
+    private final FieldDictionary fields = new FieldDictionary();  // Formas compartidas por sus documentos
+    
+    /** Documentos leídos por cada toma del bloqueo en stream()/scan() */
+    private static final int SCAN_BATCH = 128;
+    
+    /** Caracteres acumulados por escritura en showAll() */
+    private static final int SHOW_CHUNK = 64 * 1024;
     
     public Collection(String name) {
+        this(name, DEFAULT_ORDER);
+    }
+    
+    /**
+     * @param order máximo de hijos por nodo del Árbol B+ (recomendado 64-512)
+     */
+    public Collection(String name, int order) {
         this.name = name;
-        this.index = new BPlusTreeIndex<>(4);  // Orden 4
+        this.order = order;
+        this.index = new BPlusTreeIndex<>(order);
         this.documentCount = 0;
+        this.secondaryIndexes = new HashMap<>();
+    }
+    
+    /**
+     * Colección sobre un índice principal ya construido (por ejemplo
+     * DiskBPlusTreeIndex: los documentos que ya tiene quedan disponibles
+     * sin recargar nada)
+     */
+    public Collection(String name, OrderedIndex<String, Document> index) {
+        this.name = name;
+        this.order = DEFAULT_ORDER;  // Para índices secundarios "bplus"
+        this.index = index;
+        this.documentCount = index.size();
+        this.secondaryIndexes = new HashMap<>();
+    }
+    
+    /**
+     * Crear índice secundario sobre un campo
+     * Tipos: "hash" (HashIndex), "bplus" (BPlusTreeIndex), "btree" (BTreeIndex)
+     * Complejidad: O(n) - indexa los documentos existentes
+     */
+    public void createIndex(String field, String type) {
+        Index<FieldKey, List<String>> fieldIndex;
+        switch (type.toLowerCase()) {
+            case "hash":  fieldIndex = new HashIndex<>(); break;
+            case "bplus": fieldIndex = new BPlusTreeIndex<>(order); break;
+            case "btree": fieldIndex = new BTreeIndex<>(3); break;
+            default: throw new IllegalArgumentException("Tipo de índice no soportado: " + type);
+        }
+        
+        long stamp = lock.writeLock();
+        try {
+            secondaryIndexes.put(field, fieldIndex);
+            for (Document doc : index.getAllValues()) {
+                addToIndex(fieldIndex, doc.get(field), doc.getId());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public boolean hasIndex(String field) {
+        long stamp = lock.readLock();
+        try {
+            return secondaryIndexes.containsKey(field);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // ¿El índice secundario del campo admite rangos? (solo "bplus")
+    public boolean hasOrderedIndex(String field) {
+        long stamp = lock.readLock();
+        try {
+            return secondaryIndexes.get(field) instanceof OrderedIndex;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public boolean dropIndex(String field) {
+        long stamp = lock.writeLock();
+        try {
+            return secondaryIndexes.remove(field) != null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Registrar el ID bajo el valor del campo - O(1) / O(log n)
+    private void addToIndex(Index<FieldKey, List<String>> fieldIndex, Object value, String id) {
+        if (value == null) return;
+        FieldKey key = new FieldKey(value);
+        List<String> ids = fieldIndex.search(key);
+        if (ids == null) {
+            ids = new ArrayList<>(1);
+            fieldIndex.insert(key, ids);
+        }
+        ids.add(id);
+    }
+    
+    // Quitar el ID del valor del campo - O(1) / O(log n) + O(k) duplicados
+    private void removeFromIndex(Index<FieldKey, List<String>> fieldIndex, Object value, String id) {
+        if (value == null) return;
+        FieldKey key = new FieldKey(value);
+        List<String> ids = fieldIndex.search(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) fieldIndex.delete(key);
+    }
+    
+    private void indexDocument(Document doc) {
+        for (Map.Entry<String, Index<FieldKey, List<String>>> e : secondaryIndexes.entrySet()) {
+            addToIndex(e.getValue(), doc.get(e.getKey()), doc.getId());
+        }
+    }
+    
+    private void unindexDocument(Document doc) {
+        for (Map.Entry<String, Index<FieldKey, List<String>>> e : secondaryIndexes.entrySet()) {
+            removeFromIndex(e.getValue(), doc.get(e.getKey()), doc.getId());
+        }
     }
     
     /**
      * Insertar documento
-     * Complejidad: O(log n) - inserción en Árbol B+
+     * Complejidad: O(log n) - inserción en Árbol B+ (+ un paso por índice secundario)
      */
     public void insert(Document doc) {
+        checkDocument(doc);  // Antes de anotarlo: el registro solo guarda cambios que se pueden aplicar
+        ChangeLog log = changeLog;
+        long lsn = 0;
+        long stamp = lock.writeLock();
+        try {
+            if (log != null) lsn = log.logInsert(name, doc);
+            insertLocked(doc);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (lsn > 0) log.sync(lsn);
+    }
+    
+    private static void checkDocument(Document doc) {
+        if (doc == null) throw new IllegalArgumentException("Documento nulo");
+        if (doc.getId() == null) throw new IllegalArgumentException("Documento sin _id");
+    }
+    
+    // Inserción con el bloqueo de escritura ya tomado (StampedLock no es reentrante)
+    private void insertLocked(Document doc) {
+        doc.compact(fields);
+        invalidate(doc.getId());
+        Document previous = index.search(doc.getId());
+        if (previous != null) unindexDocument(previous);  // Reemplazo del mismo ID
+        
         index.insert(doc.getId(), doc);
-        documentCount++;
+        indexDocument(doc);
+        if (previous == null) documentCount++;
+        modifications++;
+    }
+    
+    /**
+     * Inserción masiva
+     * 
+     * Ordena el lote por _id con MergeSort (estable: ante IDs repetidos gana
+     * el último) y, si la colección está vacía, construye el Árbol B+ con
+     * bulkLoad() en O(n) en lugar de n inserciones O(log n) con divisiones.
+     * Si ya hay documentos, inserta uno a uno en orden (mejor localidad).
+     * 
+     * Complejidad: O(n log n) por el ordenamiento
+     * 
+     * @return cantidad de documentos insertados (sin contar IDs repetidos)
+     */
+    public int insertAll(List<Document> docs) {
+        return insertAll(docs, DEFAULT_BULK_FILL);
+    }
+    
+    public int insertAll(List<Document> docs, double fillFactor) {
+        for (Document doc : docs) checkDocument(doc);
+        Document[] sorted = docs.toArray(new Document[0]);
+        int unique = sortById(sorted);
+        insertSortedLocked(sorted, unique, fillFactor);
+        return unique;
+    }
+    
+    /**
+     * Ordenar un lote por _id con MergeSort (estable) y quitar IDs repetidos
+     * conservando la última aparición. Los primeros n documentos quedan
+     * listos para insertSorted(); no toca ninguna colección, así que se
+     * puede llamar desde otro hilo (lo usa NdjsonImporter en sus workers).
+     * Complejidad: O(n log n)
+     * @return n, la cantidad de documentos únicos
+     */
+    public static int sortById(Document[] docs) {
+        SortAlgorithms.mergeSort(docs, 0, docs.length - 1, Comparator.comparing(Document::getId));
+        int unique = 0;
+        for (int i = 0; i < docs.length; i++) {
+            if (i + 1 < docs.length && docs[i].getId().equals(docs[i + 1].getId())) continue;
+            docs[unique++] = docs[i];
+        }
+        return unique;
+    }
+    
+    /**
+     * Inserción masiva de un lote ya preparado con sortById(): como
+     * insertAll() pero sin ordenar de nuevo
+     * Complejidad: O(n) en una colección vacía, O(n log N) si no
+     * @throws IllegalArgumentException si sorted[0, count) no está ordenado sin repetidos
+     */
+    public void insertSorted(Document[] sorted, int count) {
+        for (int i = 0; i < count; i++) checkDocument(sorted[i]);
+        for (int i = 1; i < count; i++) {
+            if (sorted[i - 1].getId().compareTo(sorted[i].getId()) >= 0) {
+                throw new IllegalArgumentException("Lote desordenado o con ID repetido: " + sorted[i].getId());
+            }
+        }
+        insertSortedLocked(sorted, count, DEFAULT_BULK_FILL);
+    }
+    
+    private void insertSortedLocked(Document[] sorted, int count, double fillFactor) {
+        ChangeLog log = changeLog;
+        long[] lsn = new long[1];
+        long stamp = lock.writeLock();
+        try {
+            if (documentCount > 0) {
+                if (log != null) {
+                    for (int i = 0; i < count; i++) lsn[0] = log.logInsert(name, sorted[i]);
+                }
+                for (int i = 0; i < count; i++) insertLocked(sorted[i]);
+            } else {
+                bulkLoadLocked(Arrays.asList(sorted).subList(0, count).iterator(), fillFactor, log, lsn);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (lsn[0] > 0) log.sync(lsn[0]);  // Un solo fsync para todo el lote
+    }
+    
+    /**
+     * Carga masiva de una colección vacía desde un recorrido ordenado por _id
+     * sin repetidos (p. ej. la mezcla de varios lotes ordenados): un solo
+     * bulkLoad() del Árbol B+ sin materializar un arreglo con todo
+     * Complejidad: O(n)
+     * @throws IllegalStateException si la colección no está vacía
+     * @throws IllegalArgumentException si el recorrido no está ordenado o
+     *         trae un documento sin _id (con un Árbol B+ en el heap la
+     *         colección queda vacía; en disco, con lo cargado hasta el error)
+     * @return documentos cargados
+     */
+    public long bulkLoad(Iterator<Document> sorted) {
+        ChangeLog log = changeLog;
+        long[] lsn = new long[1];
+        long loaded;
+        long stamp = lock.writeLock();
+        try {
+            if (documentCount > 0) throw new IllegalStateException("bulkLoad requiere una colección vacía");
+            loaded = bulkLoadLocked(sorted, DEFAULT_BULK_FILL, log, lsn);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (lsn[0] > 0) log.sync(lsn[0]);
+        return loaded;
+    }
+    
+    /**
+     * Cargar el Árbol B+ vacío y recién después, con lo que efectivamente
+     * quedó cargado (todo, nada o, en disco, lo anterior al error), llenar
+     * los índices secundarios y anotar en el registro. Así un recorrido
+     * desordenado no deja índices ni registros de documentos que no están.
+     * lsn[0] = último LSN anotado.
+     */
+    private long bulkLoadLocked(Iterator<Document> sorted, double fillFactor, ChangeLog log, long[] lsn) {
+        Iterator<Map.Entry<String, Document>> entries = new Iterator<Map.Entry<String, Document>>() {
+            public boolean hasNext() { return sorted.hasNext(); }
+            public Map.Entry<String, Document> next() {
+                Document doc = sorted.next();
+                checkDocument(doc);
+                doc.compact(fields);
+                return new AbstractMap.SimpleImmutableEntry<>(doc.getId(), doc);
+            }
+        };
+        try {
+            index.bulkLoad(entries, fillFactor);
+        } finally {
+            documentCount = index.size();
+            modifications += documentCount;
+            if (documentCount > 0 && (log != null || !secondaryIndexes.isEmpty())) {
+                // Sin registro alcanzan los campos indexados
+                Set<String> needed = log != null ? null : secondaryIndexes.keySet();
+                OrderedIndex.Cursor<String, Document> cursor = openCursor(null, true, null, true, false, needed);
+                while (cursor.hasNext()) {
+                    Document doc = cursor.next();
+                    indexDocument(doc);
+                    if (log != null) lsn[0] = log.logInsert(name, doc);
+                }
+            }
+        }
+        return documentCount;
     }
     
     /**
      * Buscar por ID
-     * Complejidad: O(log n) - búsqueda en Árbol B+
+     * Complejidad: O(1) con acierto en el caché, O(log n) - búsqueda en Árbol B+
      */
     public Document findById(String id) {
-        return index.search(id);
+        DocumentCache c = cache;
+        if (c != null) {
+            Document cached = c.get(id);
+            if (cached != null) return cached;
+        }
+        
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Document doc = index.search(id);
+                if (lock.validate(stamp)) {
+                    if (c != null && doc != null) {
+                        c.put(id, doc);
+                        // Una escritura entre la lectura y put() pudo invalidar antes de tiempo
+                        if (!lock.validate(stamp)) c.invalidate(id);
+                    }
+                    return doc;
+                }
+            } catch (RuntimeException e) {
+                // Se leyó un nodo a medio modificar: validate() fallaría igual
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            Document doc = index.search(id);
+            if (c != null && doc != null) c.put(id, doc);  // Las escrituras esperan: no hay carrera
+            return doc;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
     
     /**
-     * Buscar por campo específico
-     * Complejidad: O(n) - debe recorrer todos los documentos
+     * Buscar por campo específico, con igualdad tipada (20 coincide con 20L
+     * y 20.0, no con "20")
+     * Complejidad: O(1) / O(log n) + O(k) con índice secundario,
+     *              O(n) sin índice - debe recorrer todos los documentos
      */
     public List<Document> findByField(String field, Object value) {
+        long stamp = lock.readLock();
+        try {
+            return findByFieldLocked(field, value);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private List<Document> findByFieldLocked(String field, Object value) {
         List<Document> results = new ArrayList<>();
-        List<Document> all = index.getAllValues();
         
-        for (Document doc : all) {
-            Object docValue = doc.get(field);
-            if (docValue != null && docValue.equals(value)) {
-                results.add(doc);
+        Index<FieldKey, List<String>> fieldIndex = secondaryIndexes.get(field);
+        if (fieldIndex != null) {
+            if (value == null) return results;
+            List<String> ids = fieldIndex.search(new FieldKey(value));
+            if (ids == null) return results;
+            for (String id : ids) {
+                Document doc = index.search(id);
+                if (doc != null && sameValue(doc.get(field), value)) {
+                    results.add(doc);
+                }
+            }
+            return results;
+        }
+        
+        // Sin índice: recorrer comparando solo el campo; con un índice que
+        // proyecta se decodifica ese campo y el documento completo solo si coincide
+        if (value == null) return results;
+        OrderedIndex.Cursor<String, Document> cursor = openCursor(null, true, null, true, false, Set.of(field));
+        boolean partial = index instanceof ProjectingIndex;
+        while (cursor.hasNext()) {
+            Document doc = cursor.next();
+            if (sameValue(doc.get(field), value)) {
+                results.add(partial ? index.search(cursor.lastKey()) : doc);
             }
         }
         return results;
     }
     
+    // Cursor del índice principal; fields != null solo se aplica si el índice proyecta
+    private OrderedIndex.Cursor<String, Document> openCursor(String from, boolean fromInclusive, String to,
+                                                             boolean toInclusive, boolean descending,
+                                                             Set<String> fields) {
+        if (fields != null && index instanceof ProjectingIndex) {
+            return ((ProjectingIndex<String, Document>) index).cursor(from, fromInclusive, to, toInclusive,
+                descending, fields);
+        }
+        return index.cursor(from, fromInclusive, to, toInclusive, descending);
+    }
+    
+    // Igualdad tipada, la misma del WHERE: 20, 20L y 20.0 son iguales; 20 y "20" no
+    private static boolean sameValue(Object docValue, Object value) {
+        return docValue != null && value != null && FieldKey.sameKind(docValue, value)
+            && FieldKey.compare(docValue, value) == 0;
+    }
+    
+    /**
+     * Buscar por rango de valores con un índice secundario ordenado ("bplus")
+     * Límites null = sin límite. El orden entre tipos es el de FieldKey, así
+     * que un rango abierto puede incluir valores de otro tipo: quien consulta
+     * debe verificar la condición sobre cada documento.
+     * Complejidad: O(log n + k) - k documentos en el rango
+     * @throws IllegalStateException si el campo no tiene un índice ordenado
+     */
+    public List<Document> findByFieldRange(String field, Object from, boolean fromInclusive,
+                                           Object to, boolean toInclusive) {
+        long stamp = lock.readLock();
+        try {
+            Index<FieldKey, List<String>> fieldIndex = secondaryIndexes.get(field);
+            if (!(fieldIndex instanceof OrderedIndex)) {
+                throw new IllegalStateException("El campo " + field + " no tiene un índice ordenado");
+            }
+            OrderedIndex.Cursor<FieldKey, List<String>> cursor = ((OrderedIndex<FieldKey, List<String>>) fieldIndex)
+                .cursor(from == null ? null : new FieldKey(from), fromInclusive,
+                        to == null ? null : new FieldKey(to), toInclusive, false);
+            List<Document> results = new ArrayList<>();
+            while (cursor.hasNext()) {
+                for (String id : cursor.next()) {
+                    Document doc = index.search(id);
+                    if (doc != null) results.add(doc);
+                }
+            }
+            return results;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
     /**
      * Eliminar documento
      * Complejidad: O(log n)
      */
     public boolean delete(String id) {
-        boolean deleted = index.delete(id);
-        if (deleted) documentCount--;
-        return deleted;
+        ChangeLog log = changeLog;
+        long lsn = 0;
+        long stamp = lock.writeLock();
+        try {
+            Document doc = index.search(id);
+            if (doc == null) return false;
+            
+            if (log != null) lsn = log.logDelete(name, id);
+            invalidate(id);
+            unindexDocument(doc);
+            index.delete(id);
+            documentCount--;
+            modifications++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (lsn > 0) log.sync(lsn);
+        return true;
     }
     
     /**
@@ -79,30 +542,61 @@ public class Collection {
      * Complejidad: O(log n)
      */
     public boolean update(String id, Document newDoc) {
-        if (index.search(id) != null) {
+        if (id == null) throw new IllegalArgumentException("ID nulo");
+        if (newDoc == null) throw new IllegalArgumentException("Documento nulo");
+        ChangeLog log = changeLog;
+        long lsn = 0;
+        long stamp = lock.writeLock();
+        try {
+            Document oldDoc = index.search(id);
+            if (oldDoc == null) return false;
+            
+            if (log != null) lsn = log.logUpdate(name, id, newDoc);
+            invalidate(id);
+            unindexDocument(oldDoc);
             index.delete(id);
             newDoc.setId(id);
+            newDoc.compact(fields);
             index.insert(id, newDoc);
-            return true;
+            indexDocument(newDoc);
+            modifications++;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return false;
+        if (lsn > 0) log.sync(lsn);
+        return true;
     }
     
     /**
-     * Mostrar todos los documentos
+     * Mostrar todos los documentos por consola
      * Complejidad: O(n)
      */
     public void showAll() {
-        System.out.println("\n=== Colección: " + name + " ===");
-        List<Document> docs = index.getAllValues();
-        if (docs.isEmpty()) {
-            System.out.println("(vacía)");
-        } else {
-            for (Document doc : docs) {
-                System.out.println(doc);
+        showAll(System.out);
+    }
+    
+    /**
+     * Escribir todos los documentos en out: recorre con stream() (memoria
+     * constante, sin copiar la colección) y escribe por bloques de texto en
+     * lugar de una escritura por documento
+     * Complejidad: O(n)
+     */
+    public void showAll(PrintStream out) {
+        String nl = System.lineSeparator();
+        StringBuilder sb = new StringBuilder(nl).append("=== Colección: ").append(name).append(" ===").append(nl);
+        long count = 0;
+        Iterator<Document> it = stream().iterator();
+        while (it.hasNext()) {
+            sb.append(it.next()).append(nl);
+            count++;
+            if (sb.length() >= SHOW_CHUNK) {
+                out.print(sb);
+                sb.setLength(0);
             }
         }
-        System.out.println("Total: " + documentCount + " documentos");
+        if (count == 0) sb.append("(vacía)").append(nl);
+        sb.append("Total: ").append(count).append(" documentos").append(nl);
+        out.print(sb);
     }
     
     /**
@@ -110,9 +604,208 @@ public class Collection {
      * Complejidad: O(n)
      */
     public List<Document> getAll() {
-        return index.getAllValues();
+        long stamp = lock.readLock();
+        try {
+            return index.getAllValues();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Recorrer todos los documentos en orden de ID sin materializar una lista
+     * Las operaciones cortas (limit, findFirst, anyMatch) dejan de leer hojas
+     * en cuanto tienen lo que necesitan.
+     * Complejidad: O(1) para abrir + O(1) amortizado por documento consumido
+     */
+    public Stream<Document> stream() {
+        return streamOf(new BatchScan(null, true, null, true, false, null));
+    }
+    
+    /**
+     * Recorrer los documentos con ID en [from, to] (null = sin límite)
+     * Complejidad: O(log n) para posicionarse + O(k) por k documentos consumidos
+     */
+    public Stream<Document> scan(String from, String to) {
+        return streamOf(new BatchScan(from, true, to, true, false, null));
+    }
+    
+    /**
+     * Variante general: límites exclusivos y orden descendente
+     * Ejemplo (página siguiente): scan(ultimoId, false, null, true, false).limit(20)
+     */
+    public Stream<Document> scan(String from, boolean fromInclusive, String to, boolean toInclusive,
+                                 boolean descending) {
+        return streamOf(new BatchScan(from, fromInclusive, to, toInclusive, descending, null));
+    }
+    
+    /**
+     * Recorrido que solo necesita algunos campos (null = todos)
+     * Con un índice que proyecta (ProjectingIndex) los documentos llegan con
+     * solo esos campos y el _id, sin decodificar el resto; con otro índice
+     * llegan completos. Es lo que usa el QueryExecutor.
+     */
+    public Stream<Document> scan(String from, boolean fromInclusive, String to, boolean toInclusive,
+                                 boolean descending, Set<String> fields) {
+        return streamOf(new BatchScan(from, fromInclusive, to, toInclusive, descending, fields));
+    }
+    
+    private static Stream<Document> streamOf(Iterator<Document> cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor,
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    
+    /**
+     * Recorrido por lotes: toma el bloqueo de lectura, copia hasta SCAN_BATCH
+     * documentos desde el cursor del Árbol B+ y lo suelta. El siguiente lote
+     * reabre el cursor justo después del último ID devuelto (límite exclusivo),
+     * así que tolera escrituras entre lotes (consistencia débil, sin repetidos).
+     */
+    private class BatchScan implements Iterator<Document> {
+        private final String from, to;
+        private final boolean fromInclusive, toInclusive, descending;
+        private final Set<String> fields;  // null = documentos completos
+        private final Document[] batch = new Document[SCAN_BATCH];
+        private int count, pos;
+        private String lastId;       // null = todavía no se leyó ningún lote
+        private boolean exhausted;
+        
+        BatchScan(String from, boolean fromInclusive, String to, boolean toInclusive, boolean descending,
+                  Set<String> fields) {
+            this.from = from;
+            this.to = to;
+            this.fromInclusive = fromInclusive;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            this.fields = fields;
+        }
+        
+        private void fetch() {
+            long stamp = lock.readLock();
+            try {
+                OrderedIndex.Cursor<String, Document> cursor;
+                if (lastId == null) {
+                    cursor = openCursor(from, fromInclusive, to, toInclusive, descending, fields);
+                } else if (descending) {
+                    cursor = openCursor(from, fromInclusive, lastId, false, true, fields);
+                } else {
+                    cursor = openCursor(lastId, false, to, toInclusive, false, fields);
+                }
+                count = 0;
+                while (count < SCAN_BATCH && cursor.hasNext()) batch[count++] = cursor.next();
+                if (count > 0) lastId = cursor.lastKey();
+                exhausted = count < SCAN_BATCH;
+                pos = 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (pos < count) return true;
+            if (exhausted) return false;
+            fetch();
+            return pos < count;
+        }
+        
+        @Override
+        public Document next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Document doc = batch[pos];
+            batch[pos++] = null;
+            return doc;
+        }
+    }
+    
+    /** Copia consistente de la colección (para checkpoints) */
+    public static final class Snapshot {
+        public final long lsn;                  // Último cambio anotado incluido en la copia
+        public final List<Document> documents;  // En orden de ID
+        
+        Snapshot(long lsn, List<Document> documents) {
+            this.lsn = lsn;
+            this.documents = documents;
+        }
+    }
+    
+    /**
+     * Tomar una copia consistente bajo el bloqueo de lectura
+     * Las escrituras anotan en el registro con el bloqueo de escritura tomado,
+     * así que todo cambio de esta colección con LSN <= lsn está en la copia
+     * y ninguno posterior. Los lectores no se bloquean.
+     * Complejidad: O(n)
+     */
+    public Snapshot snapshot() {
+        long stamp = lock.readLock();
+        try {
+            ChangeLog log = changeLog;
+            return new Snapshot(log != null ? log.lastLsn() : 0, index.getAllValues());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Ejecutar una acción con la colección quieta (bloqueo de lectura)
+     * Recibe el mismo LSN que snapshot(): el índice tiene exactamente los
+     * cambios hasta él. Sirve para sincronizar un índice en disco sin copiar
+     * los documentos; las escrituras esperan mientras dura la acción.
+     */
+    public void atConsistentPoint(LongConsumer action) {
+        long stamp = lock.readLock();
+        try {
+            ChangeLog log = changeLog;
+            action.accept(log != null ? log.lastLsn() : 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // true si el índice principal es exactamente 'other'
+    public boolean isBackedBy(OrderedIndex<String, Document> other) { return index == other; }
+    
+    /**
+     * Activar el caché de documentos delante de findById()
+     * Los documentos que devuelve findById() desde el caché son compartidos:
+     * modificarlos cambiaría lo que ven las búsquedas siguientes por ID pero
+     * no lo guardado ni stream()/findByField(), así que se tratan como de
+     * solo lectura.
+     * @param maxBytes presupuesto en bytes estimados (DocumentCache.estimateBytes)
+     */
+    public void enableCache(long maxBytes) {
+        long stamp = lock.writeLock();  // Sin escrituras en curso al publicarlo
+        try {
+            cache = new DocumentCache(maxBytes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public void disableCache() { cache = null; }
+    
+    // Estadísticas del caché (null si no está activo)
+    public DocumentCache getCache() { return cache; }
+    
+    // Quitar un ID del caché (con el bloqueo de escritura tomado)
+    private void invalidate(String id) {
+        DocumentCache c = cache;
+        if (c != null) c.invalidate(id);
+    }
+    
+    /**
+     * Asignar el registro de cambios (null = desactivar)
+     * Lo llama Database; las escrituras anteriores no se registran.
+     */
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
     }
     
     public String getName() { return name; }
+    public int getOrder() { return order; }
+    public FieldDictionary getFieldDictionary() { return fields; }
     public int size() { return documentCount; }
+    
+    // Escrituras aplicadas desde que se creó (el planificador mide con esto si sus estadísticas envejecieron)
+    public long getModificationCount() { return modifications; }
 }
@@ -1,7 +1,10 @@
 package com.motor.core;
 
-import java.util.HashMap;
+import com.motor.index.OrderedIndex;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DATABASE - Gestiona múltiples colecciones usando Tabla Hash
@@ -10,26 +13,54 @@ import java.util.Map;
  * - put(): O(1) promedio, O(n) peor caso (muchas colisiones)
  * - get(): O(1) promedio, O(n) peor caso
  * - remove(): O(1) promedio, O(n) peor caso
+ * 
+ * Las colecciones viven en un ConcurrentHashMap: varios hilos pueden
+ * obtener, crear y eliminar colecciones a la vez sin bloqueo global.
  */
 public class Database {
     
     private String name;
-    private Map<String, Collection> collections;
+    private final Map<String, Collection> collections;
+    private volatile ChangeLog changeLog;  // null = sin persistencia
     
     public Database(String name) {
         this.name = name;
-        this.collections = new HashMap<>();
+        this.collections = new ConcurrentHashMap<>();
         System.out.println("Base de datos '" + name + "' inicializada.");
     }
     
     // Crear colección - O(1)
     public Collection createCollection(String collectionName) {
-        if (!collections.containsKey(collectionName)) {
-            Collection col = new Collection(collectionName);
-            collections.put(collectionName, col);
-            return col;
-        }
-        return collections.get(collectionName);
+        return createCollection(collectionName, Collection.DEFAULT_ORDER);
+    }
+    
+    // Crear colección con orden del Árbol B+ a medida - O(1)
+    public Collection createCollection(String collectionName, int order) {
+        // Atómico: dos hilos que crean la misma colección obtienen la misma instancia
+        ChangeLog log = changeLog;
+        long[] lsn = new long[1];
+        Collection col = collections.computeIfAbsent(collectionName, n -> {
+            Collection created = new Collection(n, order);
+            if (log != null) {
+                lsn[0] = log.logCreate(n, order);
+                created.setChangeLog(log);
+            }
+            return created;
+        });
+        if (lsn[0] > 0) log.sync(lsn[0]);
+        return col;
+    }
+    
+    /**
+     * Registrar una colección sobre un índice principal propio
+     * (por ejemplo en disco, ver StorageManager.openDiskCollection)
+     * Si ya existe una colección con ese nombre se devuelve la existente.
+     */
+    public Collection createCollection(String collectionName, OrderedIndex<String, Document> index) {
+        ChangeLog log = changeLog;
+        Collection col = collections.computeIfAbsent(collectionName, n -> new Collection(n, index));
+        col.setChangeLog(log);
+        return col;
     }
     
     // Obtener colección - O(1)
@@ -39,7 +70,22 @@ public class Database {
     
     // Eliminar colección - O(1)
     public boolean dropCollection(String collectionName) {
-        return collections.remove(collectionName) != null;
+        ChangeLog log = changeLog;
+        long[] lsn = new long[1];
+        boolean[] removed = new boolean[1];
+        collections.computeIfPresent(collectionName, (n, col) -> {
+            col.setChangeLog(null);  // Referencias viejas ya no escriben en el registro
+            if (log != null) lsn[0] = log.logDrop(n);
+            removed[0] = true;
+            return null;
+        });
+        if (lsn[0] > 0) log.sync(lsn[0]);
+        return removed[0];
+    }
+    
+    // Nombres de las colecciones (copia) - O(n)
+    public List<String> getCollectionNames() {
+        return new ArrayList<>(collections.keySet());
     }
     
     // Listar colecciones - O(n)
@@ -50,5 +96,14 @@ public class Database {
         }
     }
     
+    /**
+     * Activar el registro de cambios para las colecciones actuales y futuras
+     * Se llama después de reproducir el registro (la reproducción no se anota).
+     */
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+        for (Collection col : collections.values()) col.setChangeLog(changeLog);
+    }
+    
     public String getName() { return name; }
 }
@@ -1,52 +1,415 @@
 package com.motor.core;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * DOCUMENT - Representa un documento (similar a JSON)
  * 
- * Usa HashMap internamente para almacenar pares clave-valor
+ * Valores tipados: cada campo guarda su tipo (Type) y los primitivos van
+ * sin caja. El esquema y los valores se guardan por separado:
+ * 
+ *   shape     forma compartida (FieldDictionary.Shape): nombre, tipo y
+ *             posición del valor de cada campo, en orden de inserción
+ *   prims[]   INT / LONG / BOOLEAN como long, DOUBLE como bits IEEE 754
+ *   refs[]    STRING, ARRAY (List), DOCUMENT y OTHER (Float, Map...)
+ * 
+ * Los documentos con los mismos campos y tipos comparten la forma: cada uno
+ * paga solo 3 referencias y sus valores, sin nombres, tipos ni tabla hash
+ * propios. La forma sale del FieldDictionary del documento: el de su
+ * colección (Collection.insert llama a compact()) o FieldDictionary.DEFAULT.
+ * 
+ * putInt()/getInt() y compañía no crean objetos; put(Object)/get() siguen
+ * funcionando y get() devuelve el valor en caja (Integer.valueOf, con su
+ * caché de -128..127).
  * 
  * Complejidad:
- * - put(): O(1) promedio
- * - get(): O(1) promedio
- * - remove(): O(1) promedio
+ * - put() de un campo nuevo: O(1) amortizado (transición de forma ya conocida)
+ * - put() de un campo existente: O(1); O(k) si cambia de tipo (otra forma)
+ * - get(): O(1) promedio (lineal hasta 8 campos, tabla hash de la forma)
+ * - remove(): O(k) - k = campos (rearma la forma)
  */
 public class Document {
     
+    /** Tipo del valor de un campo */
+    public enum Type { NULL, BOOLEAN, INT, LONG, DOUBLE, STRING, ARRAY, DOCUMENT, OTHER }
+    
+    private static final Type[] TYPES = Type.values();
+    
+    private static final byte NULL = 0;  // Type.NULL.ordinal()
+    
+    private static final long[] NO_PRIMS = {};
+    private static final Object[] NO_REFS = {};
+    
     private String id;
-    private Map<String, Object> data;
+    private FieldDictionary.Shape shape;
+    private long[] prims = NO_PRIMS;
+    private Object[] refs = NO_REFS;
     
     public Document(String id) {
+        this(id, FieldDictionary.DEFAULT);
+    }
+    
+    /** Documento que toma sus formas de dictionary (p. ej. el de su colección) */
+    public Document(String id, FieldDictionary dictionary) {
         this.id = id;
-        this.data = new HashMap<>();
+        this.shape = dictionary.root;
     }
     
-    // Agregar campo - O(1)
+    // ==================== ESCRITURA ====================
+    
+    // Agregar campo - O(1); el tipo se toma de la clase del valor
     public void put(String key, Object value) {
-        data.put(key, value);
+        if (value == null) {
+            set(key, Type.NULL, 0, null);
+        } else if (value instanceof Integer) {
+            set(key, Type.INT, (Integer) value, null);
+        } else if (value instanceof Long) {
+            set(key, Type.LONG, (Long) value, null);
+        } else if (value instanceof Double) {
+            set(key, Type.DOUBLE, Double.doubleToRawLongBits((Double) value), null);
+        } else if (value instanceof Boolean) {
+            set(key, Type.BOOLEAN, (Boolean) value ? 1 : 0, null);
+        } else if (value instanceof String) {
+            set(key, Type.STRING, 0, value);
+        } else if (value instanceof Document) {
+            set(key, Type.DOCUMENT, 0, value);
+        } else if (value instanceof List) {
+            set(key, Type.ARRAY, 0, value);
+        } else {
+            set(key, Type.OTHER, 0, value);  // Float, Short, Map...: tal cual, sin convertir
+        }
     }
     
-    // Obtener campo - O(1)
-    public Object get(String key) {
-        return data.get(key);
+    public void putInt(String key, int value) { set(key, Type.INT, value, null); }
+    
+    public void putLong(String key, long value) { set(key, Type.LONG, value, null); }
+    
+    public void putDouble(String key, double value) { set(key, Type.DOUBLE, Double.doubleToRawLongBits(value), null); }
+    
+    public void putBoolean(String key, boolean value) { set(key, Type.BOOLEAN, value ? 1 : 0, null); }
+    
+    private void set(String key, Type type, long prim, Object ref) {
+        byte t = (byte) type.ordinal();
+        int i = shape.indexOf(key);
+        if (i < 0) {
+            append(key, t, prim, ref);
+        } else if (shape.types[i] != t) {
+            relayout(shape.dictionary, i, t, prim, ref);  // Mismo campo, otro tipo: otra forma
+        } else if (isPrim(t)) {
+            prims[shape.slots[i]] = prim;
+        } else if (t != NULL) {
+            refs[shape.slots[i]] = ref;
+        }
+    }
+    
+    // Campo nuevo al final: transición de forma y valor en su arreglo
+    private void append(String key, byte type, long prim, Object ref) {
+        shape = shape.with(key, type, isPrim(type));
+        int slot = shape.slots[shape.size - 1];
+        if (isPrim(type)) {
+            if (slot == prims.length) prims = Arrays.copyOf(prims, grown(slot));
+            prims[slot] = prim;
+        } else if (type != NULL) {
+            if (slot == refs.length) refs = Arrays.copyOf(refs, grown(slot));
+            refs[slot] = ref;
+        }
+    }
+    
+    private static int grown(int length) {
+        return length == 0 ? 2 : length + (length >> 1) + 1;
+    }
+    
+    private static boolean isPrim(byte type) {
+        return type >= Type.BOOLEAN.ordinal() && type <= Type.DOUBLE.ordinal();
+    }
+    
+    /**
+     * Rearmar el documento sobre la raíz de dictionary, en el mismo orden,
+     * con arreglos justos. change = posición que cambia de tipo (type) o se
+     * quita (type < 0); -1 = ninguna
+     * Complejidad: O(k)
+     */
+    private void relayout(FieldDictionary dictionary, int change, int type, long prim, Object ref) {
+        FieldDictionary.Shape old = shape;
+        long[] oldPrims = prims;
+        Object[] oldRefs = refs;
+        int extra = change >= 0 ? 1 : 0;
+        shape = dictionary.root;
+        prims = old.primCount + extra == 0 ? NO_PRIMS : new long[old.primCount + extra];
+        refs = old.refCount + extra == 0 ? NO_REFS : new Object[old.refCount + extra];
+        for (int i = 0; i < old.size; i++) {
+            if (i == change) {
+                if (type >= 0) append(old.names[i], (byte) type, prim, ref);
+                continue;
+            }
+            byte t = old.types[i];
+            int slot = old.slots[i];
+            append(old.names[i], t, isPrim(t) ? oldPrims[slot] : 0, isPrim(t) || t == NULL ? null : oldRefs[slot]);
+        }
+        trim();
+    }
+    
+    // Arreglos del tamaño exacto de la forma
+    private void trim() {
+        if (prims.length != shape.primCount) prims = shape.primCount == 0 ? NO_PRIMS : Arrays.copyOf(prims, shape.primCount);
+        if (refs.length != shape.refCount) refs = shape.refCount == 0 ? NO_REFS : Arrays.copyOf(refs, shape.refCount);
+    }
+    
+    /**
+     * Pasar el documento (y sus documentos anidados) a las formas de
+     * dictionary y recortar los arreglos al tamaño justo. Lo llama
+     * Collection al guardar: sus documentos comparten formas y nombres.
+     * Complejidad: O(k) - nada si ya está en dictionary y recortado
+     */
+    public void compact(FieldDictionary dictionary) {
+        if (shape.dictionary != dictionary) relayout(dictionary, -1, 0, 0, null);
+        else trim();
+        for (int i = 0; i < shape.size; i++) {
+            byte t = shape.types[i];
+            if (t == Type.DOCUMENT.ordinal()) {
+                ((Document) refs[shape.slots[i]]).compact(dictionary);
+            } else if (t == Type.ARRAY.ordinal()) {
+                for (Object item : (List<?>) refs[shape.slots[i]]) {
+                    if (item instanceof Document) ((Document) item).compact(dictionary);
+                }
+            }
+        }
     }
     
-    // Eliminar campo - O(1)
+    /** Diccionario del que salen las formas del documento */
+    public FieldDictionary getDictionary() { return shape.dictionary; }
+    
+    // Eliminar campo - O(k), conserva el orden de los demás
     public Object remove(String key) {
-        return data.remove(key);
+        int i = shape.indexOf(key);
+        if (i < 0) return null;
+        Object old = valueAt(i);
+        relayout(shape.dictionary, i, -1, 0, null);
+        return old;
+    }
+    
+    // ==================== LECTURA ====================
+    
+    // Obtener campo - O(1); los primitivos vuelven en caja
+    public Object get(String key) {
+        int i = shape.indexOf(key);
+        return i < 0 ? null : valueAt(i);
     }
     
     // Verificar si existe campo - O(1)
     public boolean hasField(String key) {
-        return data.containsKey(key);
+        return shape.indexOf(key) >= 0;
+    }
+    
+    /** Tipo del campo, o null si no existe */
+    public Type getType(String key) {
+        int i = shape.indexOf(key);
+        return i < 0 ? null : TYPES[shape.types[i]];
     }
     
-    // Obtener todas las claves - O(1)
+    /**
+     * Valor entero sin caja (INT, o LONG que entre en int)
+     * @throws IllegalArgumentException si el campo no existe o no es entero
+     * @throws ArithmeticException si es un LONG fuera del rango de int
+     */
+    public int getInt(String key) {
+        return Math.toIntExact(getLong(key));
+    }
+    
+    /**
+     * Valor entero sin caja (INT o LONG)
+     * @throws IllegalArgumentException si el campo no existe o no es entero
+     */
+    public long getLong(String key) {
+        int i = require(key);
+        Type t = TYPES[shape.types[i]];
+        if (t == Type.INT || t == Type.LONG) return prims[shape.slots[i]];
+        throw wrongType(key, t, "entero");
+    }
+    
+    /**
+     * Valor numérico sin caja (INT, LONG o DOUBLE convertidos a double)
+     * @throws IllegalArgumentException si el campo no existe o no es numérico
+     */
+    public double getDouble(String key) {
+        int i = require(key);
+        Type t = TYPES[shape.types[i]];
+        if (t == Type.DOUBLE) return Double.longBitsToDouble(prims[shape.slots[i]]);
+        if (t == Type.INT || t == Type.LONG) return prims[shape.slots[i]];
+        throw wrongType(key, t, "numérico");
+    }
+    
+    /**
+     * @throws IllegalArgumentException si el campo no existe o no es BOOLEAN
+     */
+    public boolean getBoolean(String key) {
+        int i = require(key);
+        if (shape.types[i] == Type.BOOLEAN.ordinal()) return prims[shape.slots[i]] != 0;
+        throw wrongType(key, TYPES[shape.types[i]], "booleano");
+    }
+    
+    /** Texto del campo, o null si no existe o no es STRING */
+    public String getString(String key) {
+        return (String) refOfType(key, Type.STRING);
+    }
+    
+    /** Documento anidado, o null si no existe o no es DOCUMENT */
+    public Document getDocument(String key) {
+        return (Document) refOfType(key, Type.DOCUMENT);
+    }
+    
+    /** Arreglo, o null si no existe o no es ARRAY */
+    public List<?> getList(String key) {
+        return (List<?>) refOfType(key, Type.ARRAY);
+    }
+    
+    private Object refOfType(String key, Type type) {
+        int i = shape.indexOf(key);
+        return i >= 0 && shape.types[i] == type.ordinal() ? refs[shape.slots[i]] : null;
+    }
+    
+    private int require(String key) {
+        int i = shape.indexOf(key);
+        if (i < 0) throw new IllegalArgumentException("El campo " + key + " no existe");
+        return i;
+    }
+    
+    private static IllegalArgumentException wrongType(String key, Type actual, String expected) {
+        return new IllegalArgumentException("El campo " + key + " no es " + expected + " (" + actual + ")");
+    }
+    
+    // ==================== ACCESO POR POSICIÓN ====================
+    // Para codificadores y recorridos: sin buscar por nombre y sin cajas
+    
+    /** Cantidad de campos (sin contar _id) */
+    public int size() { return shape.size; }
+    
+    public String keyAt(int i) { return shape.names[checkIndex(i)]; }
+    
+    public Type typeAt(int i) { return TYPES[shape.types[checkIndex(i)]]; }
+    
+    /** INT, LONG y BOOLEAN (0/1) como long; 0 en los tipos no primitivos */
+    public long longAt(int i) {
+        checkIndex(i);
+        return isPrim(shape.types[i]) ? prims[shape.slots[i]] : 0;
+    }
+    
+    public double doubleAt(int i) {
+        long bits = longAt(i);
+        return shape.types[i] == Type.DOUBLE.ordinal() ? Double.longBitsToDouble(bits) : bits;
+    }
+    
+    /** Valor en la posición i, en caja si es primitivo */
+    public Object valueAt(int i) {
+        int slot = shape.slots[checkIndex(i)];
+        switch (TYPES[shape.types[i]]) {
+            case NULL:    return null;
+            case BOOLEAN: return prims[slot] != 0;
+            case INT:     return (int) prims[slot];
+            case LONG:    return prims[slot];
+            case DOUBLE:  return Double.longBitsToDouble(prims[slot]);
+            default:      return refs[slot];
+        }
+    }
+    
+    private int checkIndex(int i) {
+        if (i < 0 || i >= shape.size) throw new IndexOutOfBoundsException("Campo " + i + " de " + shape.size);
+        return i;
+    }
+    
+    // Obtener todas las claves - O(1); vista de solo lectura en orden de inserción
     public Set<String> getKeys() {
-        return data.keySet();
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next;
+                    
+                    @Override
+                    public boolean hasNext() { return next < shape.size; }
+                    
+                    @Override
+                    public String next() {
+                        if (next >= shape.size) throw new NoSuchElementException();
+                        return shape.names[next++];
+                    }
+                };
+            }
+            
+            @Override
+            public int size() { return shape.size; }
+            
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && shape.indexOf((String) o) >= 0;
+            }
+        };
+    }
+    
+    // ==================== TEXTO ====================
+    
+    /**
+     * Valor tipado a partir de texto de entrada (consola, JSON sin comillas):
+     * - null, true, false (sin distinguir mayúsculas)
+     * - enteros: Integer si entran, si no Long; decimales y exponentes: Double
+     * - 'texto' o "texto": String sin las comillas
+     * - cualquier otra cosa queda como String, incluidos números con ceros
+     *   a la izquierda ("007" suele ser un código, no el 7)
+     * Complejidad: O(m) - m = largo del texto
+     */
+    public static Object parseValue(String text) {
+        String s = text.trim();
+        int n = s.length();
+        if (n >= 2 && (s.charAt(0) == '\'' || s.charAt(0) == '"') && s.charAt(n - 1) == s.charAt(0)) {
+            return s.substring(1, n - 1);
+        }
+        if (s.equalsIgnoreCase("null")) return null;
+        if (s.equalsIgnoreCase("true")) return Boolean.TRUE;
+        if (s.equalsIgnoreCase("false")) return Boolean.FALSE;
+        return isNumber(s) ? parseNumber(s) : s;
+    }
+    
+    // Sintaxis JSON de número: -?(0|[1-9]d*)(.d+)?([eE][+-]?d+)?
+    private static boolean isNumber(String s) {
+        int i = 0, n = s.length();
+        if (i < n && s.charAt(i) == '-') i++;
+        if (i >= n || !isDigit(s.charAt(i))) return false;
+        if (s.charAt(i) == '0' && i + 1 < n && isDigit(s.charAt(i + 1))) return false;
+        while (i < n && isDigit(s.charAt(i))) i++;
+        if (i < n && s.charAt(i) == '.') {
+            if (++i >= n || !isDigit(s.charAt(i))) return false;
+            while (i < n && isDigit(s.charAt(i))) i++;
+        }
+        if (i < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            if (++i < n && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            if (i >= n || !isDigit(s.charAt(i))) return false;
+            while (i < n && isDigit(s.charAt(i))) i++;
+        }
+        return i == n;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    // Mismas reglas que los literales de las consultas: int, long o double
+    private static Number parseNumber(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') return Double.parseDouble(s);
+        }
+        try {
+            long v = Long.parseLong(s);
+            if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) return (int) v;
+            return v;
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(s);  // Entero que no entra en long
+        }
     }
     
     // Getters y Setters
@@ -57,13 +420,11 @@ public class Document {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("{ _id: \"").append(id).append("\"");
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            sb.append(", ").append(entry.getKey()).append(": ");
-            if (entry.getValue() instanceof String) {
-                sb.append("\"").append(entry.getValue()).append("\"");
-            } else {
-                sb.append(entry.getValue());
-            }
+        for (int i = 0; i < shape.size; i++) {
+            sb.append(", ").append(shape.names[i]).append(": ");
+            Object value = valueAt(i);
+            if (value instanceof String) sb.append("\"").append(value).append("\"");
+            else sb.append(value);
         }
         sb.append(" }");
         return sb.toString();
@@ -0,0 +1,213 @@
+package com.motor.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DOCUMENTCACHE - Caché de documentos por ID con LRU segmentado (SLRU)
+ * 
+ * Se pone delante de Collection.findById(): un acierto evita recorrer el
+ * Árbol B+ (y, con el índice en disco, decodificar el documento).
+ * 
+ * Dos segmentos, cada uno una LinkedHashMap en orden de uso (LRU primero):
+ * - Prueba (probation): documentos leídos una vez; de aquí sale la víctima
+ * - Protegido (80% del presupuesto): documentos leídos dos o más veces; al
+ *   llenarse, su LRU vuelve a prueba en lugar de salir del caché
+ * Así un recorrido de IDs fríos no desplaza a los calientes (acceso Zipf).
+ * 
+ * El presupuesto es en bytes estimados (estimateBytes), no en cantidad de
+ * entradas: un documento grande ocupa lo que realmente pesa.
+ * 
+ * Sin copias: get() devuelve la misma instancia guardada con put() a todos
+ * los que aciertan, por eso los documentos del caché son de solo lectura.
+ * 
+ * Thread-safe (métodos synchronized, operaciones O(1)).
+ * 
+ * Complejidad:
+ * - get(), put(), invalidate(): O(1)
+ */
+public class DocumentCache {
+    
+    private static final double PROTECTED_FRACTION = 0.8;
+    
+    private static final class Entry {
+        final Document doc;
+        final long bytes;
+        
+        Entry(Document doc, long bytes) {
+            this.doc = doc;
+            this.bytes = bytes;
+        }
+    }
+    
+    private final long maxBytes;
+    private final long maxProtectedBytes;
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>();
+    private long probationBytes, protectedBytes;
+    private long hits, misses, evictions, invalidations;
+    
+    public DocumentCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Tamaño de caché inválido: " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.maxProtectedBytes = (long) (maxBytes * PROTECTED_FRACTION);
+    }
+    
+    /**
+     * Buscar un documento (cuenta acierto o fallo)
+     * Complejidad: O(1)
+     */
+    public synchronized Document get(String id) {
+        Entry e = protectedSegment.remove(id);
+        if (e != null) {
+            protectedSegment.put(id, e);  // Pasa a ser el más reciente
+            hits++;
+            return e.doc;
+        }
+        e = probation.remove(id);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        // Segundo acceso: promover al segmento protegido
+        probationBytes -= e.bytes;
+        protectedSegment.put(id, e);
+        protectedBytes += e.bytes;
+        while (protectedBytes > maxProtectedBytes && protectedSegment.size() > 1) {
+            Iterator<Map.Entry<String, Entry>> lru = protectedSegment.entrySet().iterator();
+            Map.Entry<String, Entry> demoted = lru.next();
+            lru.remove();
+            protectedBytes -= demoted.getValue().bytes;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationBytes += demoted.getValue().bytes;
+        }
+        evictOverflow();
+        hits++;
+        return e.doc;
+    }
+    
+    /**
+     * Guardar un documento leído del índice (entra a prueba)
+     * Documentos más grandes que el caché completo no se guardan.
+     * Complejidad: O(1) amortizado
+     */
+    public synchronized void put(String id, Document doc) {
+        long bytes = estimateBytes(doc);
+        if (bytes > maxBytes) return;
+        removeEntry(id);
+        probation.put(id, new Entry(doc, bytes));
+        probationBytes += bytes;
+        evictOverflow();
+    }
+    
+    // Desalojar LRU de prueba (o de protegido si prueba quedó vacío) hasta entrar
+    private void evictOverflow() {
+        while (probationBytes + protectedBytes > maxBytes) {
+            LinkedHashMap<String, Entry> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<Entry> lru = segment.values().iterator();
+            Entry victim = lru.next();
+            lru.remove();
+            if (segment == probation) probationBytes -= victim.bytes;
+            else protectedBytes -= victim.bytes;
+            evictions++;
+        }
+    }
+    
+    private boolean removeEntry(String id) {
+        Entry e = probation.remove(id);
+        if (e != null) {
+            probationBytes -= e.bytes;
+            return true;
+        }
+        e = protectedSegment.remove(id);
+        if (e != null) {
+            protectedBytes -= e.bytes;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Quitar un ID (lo llaman las escrituras de Collection)
+     * Complejidad: O(1)
+     */
+    public synchronized void invalidate(String id) {
+        if (removeEntry(id)) invalidations++;
+    }
+    
+    public synchronized void clear() {
+        probation.clear();
+        protectedSegment.clear();
+        probationBytes = protectedBytes = 0;
+    }
+    
+    /**
+     * Estimación del tamaño en heap de un documento (cabeceras de objeto,
+     * arreglos de valores de Document, cadenas en UTF-16), recorriendo
+     * documentos, listas y mapas anidados. Los campos primitivos ocupan solo
+     * su lugar en los arreglos.
+     * Complejidad: O(campos)
+     */
+    public static long estimateBytes(Document doc) {
+        int n = doc.size();
+        long bytes = 32 + 2 * 16 + stringBytes(doc.getId());  // Document + 2 arreglos (la forma es compartida)
+        for (int i = 0; i < n; i++) {
+            switch (doc.typeAt(i)) {
+                case NULL: break;
+                case BOOLEAN: case INT: case LONG: case DOUBLE: bytes += 8; break;
+                default: bytes += 4 + valueBytes(doc.valueAt(i));
+            }
+        }
+        return bytes;
+    }
+    
+    private static long valueBytes(Object value) {
+        if (value == null) return 0;
+        if (value instanceof String) return stringBytes((String) value);
+        if (value instanceof Document) return estimateBytes((Document) value);
+        if (value instanceof List) {
+            long bytes = 40;
+            for (Object item : (List<?>) value) bytes += 8 + valueBytes(item);
+            return bytes;
+        }
+        if (value instanceof Map) {
+            long bytes = 48;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                bytes += 32 + valueBytes(e.getKey()) + valueBytes(e.getValue());
+            }
+            return bytes;
+        }
+        return 16 + 8;  // Integer, Long, Double, Boolean... en caja
+    }
+    
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+    
+    // ==================== ESTADÍSTICAS ====================
+    
+    public long getMaxBytes() { return maxBytes; }
+    public synchronized long getBytes() { return probationBytes + protectedBytes; }
+    public synchronized int size() { return probation.size() + protectedSegment.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getInvalidations() { return invalidations; }
+    
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    public synchronized void resetStats() {
+        hits = misses = evictions = invalidations = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("DocumentCache{%d docs, %d/%d bytes, aciertos %.1f%%, desalojos %d, invalidaciones %d}",
+            size(), getBytes(), maxBytes, getHitRatio() * 100, evictions, invalidations);
+    }
+}
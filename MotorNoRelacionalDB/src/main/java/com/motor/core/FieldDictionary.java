@@ -0,0 +1,215 @@
+package com.motor.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FIELDDICTIONARY - Diccionario de nombres de campo y formas de documento
+ * 
+ * Cada Collection tiene el suyo. Guarda:
+ * - Los nombres de campo internados, con un id entero por nombre
+ *   (idOf / name): una sola instancia de "nombre" para millones de documentos
+ * - Un árbol de formas (Shape): la secuencia de campos y tipos de un
+ *   documento. Los documentos con el mismo esquema comparten la misma
+ *   forma, así que cada Document solo guarda sus valores (ver Document)
+ * 
+ *   raíz {} --nombre:STRING--> {nombre} --edad:INT--> {nombre, edad} ...
+ * 
+ * Las transiciones se buscan sin bloqueo (arreglo de hijos copiado al
+ * escribir); crear un nombre o una forma nueva es synchronized. Varios
+ * hilos pueden armar documentos sobre el mismo diccionario (NdjsonImporter).
+ * 
+ * Límite: más de MAX_SHAPES formas (esquemas muy variables, p. ej. nombres
+ * de campo que son datos) dejan de registrarse: cada documento nuevo arma
+ * formas propias que no se comparten. Sigue funcionando, sin el ahorro.
+ * 
+ * Complejidad:
+ * - transición ya conocida: O(h) - h = hijos de la forma (casi siempre 1)
+ * - idOf(): O(1) promedio
+ */
+public class FieldDictionary {
+    
+    /** Formas registradas como máximo */
+    public static final int MAX_SHAPES = 1 << 14;
+    
+    /** Campos hasta los que una forma busca en forma lineal */
+    static final int LINEAR_LIMIT = 8;
+    
+    /** Diccionario de los documentos que no están en una colección */
+    public static final FieldDictionary DEFAULT = new FieldDictionary();
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int nameCount;
+    private volatile int shapeCount = 1;
+    
+    final Shape root = new Shape(this);
+    
+    // ==================== NOMBRES ====================
+    
+    /** Id del nombre, o -1 si ningún documento lo usó */
+    public synchronized int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+    
+    /** Nombre de un id */
+    public String name(int id) {
+        if (id < 0 || id >= nameCount) throw new IndexOutOfBoundsException("Campo " + id + " de " + nameCount);
+        return names[id];
+    }
+    
+    // Id del nombre, registrándolo si es nuevo
+    private synchronized int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        int next = nameCount;
+        String[] table = names;
+        if (next == table.length) table = Arrays.copyOf(table, next * 2);
+        table[next] = name;
+        names = table;
+        ids.put(name, next);
+        nameCount = next + 1;
+        return next;
+    }
+    
+    /** Cantidad de nombres distintos */
+    public int size() { return nameCount; }
+    
+    /** Cantidad de formas registradas (incluye la raíz) */
+    public int shapes() { return shapeCount; }
+    
+    @Override
+    public String toString() {
+        return "FieldDictionary{" + nameCount + " campos, " + shapeCount + " formas}";
+    }
+    
+    // ==================== FORMAS ====================
+    
+    /**
+     * Forma de un documento: nombre, tipo y posición del valor de cada campo.
+     * Inmutable salvo la lista de transiciones y la tabla de búsqueda, que
+     * se arman una vez y se comparten entre todos sus documentos.
+     * 
+     * slots[i] es la posición del valor del campo i en Document.prims (tipos
+     * primitivos) o en Document.refs (textos, arreglos, documentos); -1 en NULL.
+     */
+    static final class Shape {
+        private static final Shape[] NO_CHILDREN = {};
+        
+        final FieldDictionary dictionary;
+        final String[] names;
+        final int[] ids;
+        final byte[] types;
+        final int[] slots;
+        final int size;
+        final int primCount;
+        final int refCount;
+        private volatile Shape[] children = NO_CHILDREN;
+        private volatile int[] table;  // Posición + 1 por hash del nombre (0 = libre); null = sin armar
+        
+        // Raíz: documento sin campos
+        Shape(FieldDictionary dictionary) {
+            this.dictionary = dictionary;
+            this.names = new String[0];
+            this.ids = new int[0];
+            this.types = new byte[0];
+            this.slots = new int[0];
+            this.size = 0;
+            this.primCount = 0;
+            this.refCount = 0;
+        }
+        
+        // Forma del padre más un campo
+        private Shape(Shape parent, String name, int id, byte type, boolean prim) {
+            this.dictionary = parent.dictionary;
+            this.size = parent.size + 1;
+            this.names = Arrays.copyOf(parent.names, size);
+            this.ids = Arrays.copyOf(parent.ids, size);
+            this.types = Arrays.copyOf(parent.types, size);
+            this.slots = Arrays.copyOf(parent.slots, size);
+            names[size - 1] = name;
+            ids[size - 1] = id;
+            types[size - 1] = type;
+            if (type == Document.Type.NULL.ordinal()) {
+                slots[size - 1] = -1;
+                primCount = parent.primCount;
+                refCount = parent.refCount;
+            } else if (prim) {
+                slots[size - 1] = parent.primCount;
+                primCount = parent.primCount + 1;
+                refCount = parent.refCount;
+            } else {
+                slots[size - 1] = parent.refCount;
+                primCount = parent.primCount;
+                refCount = parent.refCount + 1;
+            }
+        }
+        
+        /**
+         * Forma con un campo más al final (el nombre no debe estar ya)
+         * Complejidad: O(h) si la transición existe, O(k) si hay que crearla
+         */
+        Shape with(String name, byte type, boolean prim) {
+            for (Shape child : children) {
+                String last = child.names[size];
+                if (child.types[size] == type && (last == name || last.equals(name))) return child;
+            }
+            return dictionary.addChild(this, name, type, prim);
+        }
+        
+        /** Posición del campo, o -1 */
+        int indexOf(String name) {
+            if (size <= LINEAR_LIMIT) {
+                for (int i = 0; i < size; i++) {
+                    if (names[i] == name) return i;  // Nombres internados: casi siempre la misma instancia
+                }
+                for (int i = 0; i < size; i++) {
+                    if (names[i].equals(name)) return i;
+                }
+                return -1;
+            }
+            int[] t = table;
+            if (t == null) table = t = buildTable();  // Carrera benigna: dos hilos arman la misma tabla
+            int mask = t.length - 1;
+            for (int s = spread(name.hashCode()) & mask; t[s] != 0; s = (s + 1) & mask) {
+                int i = t[s] - 1;
+                if (names[i] == name || names[i].equals(name)) return i;
+            }
+            return -1;
+        }
+        
+        private int[] buildTable() {
+            int[] t = new int[Integer.highestOneBit(size * 4 - 1)];  // Potencia de 2 >= 2 * size
+            int mask = t.length - 1;
+            for (int i = 0; i < size; i++) {
+                int s = spread(names[i].hashCode()) & mask;
+                while (t[s] != 0) s = (s + 1) & mask;
+                t[s] = i + 1;
+            }
+            return t;
+        }
+        
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+    
+    // Crear (o encontrar, si otro hilo se adelantó) la transición parent + name
+    private synchronized Shape addChild(Shape parent, String name, byte type, boolean prim) {
+        Shape[] children = parent.children;
+        for (Shape child : children) {
+            String last = child.names[parent.size];
+            if (child.types[parent.size] == type && last.equals(name)) return child;
+        }
+        int id = intern(name);
+        Shape child = new Shape(parent, names[id], id, type, prim);
+        if (shapeCount >= MAX_SHAPES) return child;  // Sin registrar: forma propia del documento
+        Shape[] grown = Arrays.copyOf(children, children.length + 1);
+        grown[children.length] = child;
+        parent.children = grown;
+        shapeCount++;
+        return child;
+    }
+}
@@ -0,0 +1,112 @@
+package com.motor.core;
+
+/**
+ * FIELDKEY - Clave comparable para los índices secundarios
+ *
+ * Los valores de un campo pueden ser de cualquier tipo (String, Integer,
+ * Double...), pero los índices exigen claves Comparable. FieldKey envuelve
+ * el valor y define un orden total:
+ * - Números comparados numéricamente (20 == 20L == 20.0), de forma exacta:
+ *   un entero contra un double no pasa el entero a double (más allá de 2^53
+ *   se redondea y el orden deja de ser transitivo)
+ * - Luego textos, luego booleanos, luego el resto por toString()
+ *
+ * Complejidad: compareTo(), equals(), hashCode(): O(1) (O(m) para textos)
+ */
+public final class FieldKey implements Comparable<FieldKey> {
+
+    private final Object value;
+
+    public FieldKey(Object value) {
+        this.value = value;
+    }
+
+    public Object getValue() { return value; }
+
+    // Orden entre tipos distintos: 0 null, 1 número, 2 texto, 3 booleano, 4 otro
+    public static int rank(Object v) {
+        if (v == null) return 0;
+        if (v instanceof Number) return 1;
+        if (v instanceof String) return 2;
+        if (v instanceof Boolean) return 3;
+        return 4;
+    }
+
+    private static boolean isIntegral(Object v) {
+        return v instanceof Integer || v instanceof Long
+            || v instanceof Short || v instanceof Byte;
+    }
+
+    @Override
+    public int compareTo(FieldKey other) {
+        return compare(value, other.value);
+    }
+
+    /**
+     * Mismo orden que compareTo() sin crear FieldKeys (lo usan las consultas)
+     * Complejidad: O(1) (O(m) para textos)
+     */
+    public static int compare(Object a, Object b) {
+        int ra = rank(a), rb = rank(b);
+        if (ra != rb) return Integer.compare(ra, rb);
+
+        switch (ra) {
+            case 0: return 0;
+            case 1:
+                if (isIntegral(a) && isIntegral(b)) {
+                    return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+                }
+                if (isIntegral(a)) return compareExact(((Number) a).longValue(), ((Number) b).doubleValue());
+                if (isIntegral(b)) return -compareExact(((Number) b).longValue(), ((Number) a).doubleValue());
+                return compareDoubles(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            case 2: return ((String) a).compareTo((String) b);
+            case 3: return Boolean.compare((Boolean) a, (Boolean) b);
+            default: return a.toString().compareTo(b.toString());
+        }
+    }
+
+    // Comparar un long con un double sin perder precisión (NaN va después de todo)
+    public static int compareExact(long l, double d) {
+        if (Double.isNaN(d) || d >= 0x1p63) return -1;
+        if (d < -0x1p63) return 1;
+        long whole = (long) d;  // Exacto dentro del rango: trunca hacia cero
+        if (l != whole) return Long.compare(l, whole);
+        double fraction = d - whole;
+        return fraction > 0 ? -1 : fraction < 0 ? 1 : 0;
+    }
+
+    // Como Double.compare pero con 0.0 == -0.0, igual que el entero 0
+    public static int compareDoubles(double x, double y) {
+        return x == y ? 0 : Double.compare(x, y);
+    }
+
+    // true si a y b son del mismo tipo comparable (números con números, textos con textos...)
+    public static boolean sameKind(Object a, Object b) {
+        return rank(a) == rank(b);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FieldKey && compareTo((FieldKey) o) == 0;
+    }
+
+    // Consistente con compareTo: 20, 20L y 20.0 producen el mismo hash
+    // (un double entero dentro del rango de long se hashea como ese long)
+    @Override
+    public int hashCode() {
+        if (value == null) return 0;
+        if (isIntegral(value)) return Long.hashCode(((Number) value).longValue());
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63) return Long.hashCode((long) d);
+            return Double.hashCode(d);
+        }
+        if (rank(value) == 4) return value.toString().hashCode();
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
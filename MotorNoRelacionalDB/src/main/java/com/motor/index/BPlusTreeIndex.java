@@ -1,7 +1,11 @@
 package com.motor.index;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * BPLUSTREEINDEX - Índice basado en Árbol B+
@@ -16,19 +20,33 @@ import java.util.List;
  * 2. Nodos internos más pequeños = más claves por nodo = menos I/O
  * 3. Todas las búsquedas terminan en hojas (consistente)
  * 
+ * Dentro de cada nodo las claves están ordenadas, así que se ubican con
+ * búsqueda binaria: O(log m) comparaciones por nodo en lugar de O(m).
+ * Eso permite órdenes grandes (64-512) sin encarecer cada nodo, y con
+ * ello árboles mucho más bajos (menos saltos de puntero por búsqueda).
+ * 
+ * Las inserciones registran el camino raíz-hoja al descender, así una
+ * división encuentra a su padre en O(1) sin recorrer el árbol.
+ * 
  * Complejidad:
  * - Búsqueda: O(log n)
  * - Inserción: O(log n)
  * - Eliminación: O(log n)
  * - Búsqueda por rango: O(log n + k) donde k = elementos en rango
+ * - Cursor: O(log n) para posicionarse + O(1) amortizado por elemento
  */
-public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
+public class BPlusTreeIndex<K extends Comparable<K>, V> implements OrderedIndex<K, V> {
     
     private int order;      // Máximo de hijos por nodo interno
     private Node root;
     private LeafNode firstLeaf;  // Primer nodo hoja (para recorridos)
     private int size;
     
+    // Camino de descenso de la última escritura (reutilizado, sin asignaciones)
+    private InternalNode[] path;
+    private int[] pathSlots;     // Índice del hijo tomado en cada nivel
+    private int pathDepth;
+    
     // Clase base para nodos
     private abstract class Node {
         int numKeys;
@@ -46,6 +64,7 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     private class InternalNode extends Node {
         Node[] children;
         
+        @SuppressWarnings("unchecked")
         InternalNode() {
             super();
             this.children = new BPlusTreeIndex.Node[order + 1];
@@ -59,6 +78,7 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     private class LeafNode extends Node {
         Object[] values;
         LeafNode next;  // Enlace a siguiente hoja
+        LeafNode prev;  // Enlace a hoja anterior (recorridos descendentes)
         
         LeafNode() {
             super();
@@ -71,10 +91,54 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     }
     
     public BPlusTreeIndex(int order) {
+        if (order < 3) throw new IllegalArgumentException("Orden mínimo 3: " + order);
         this.order = order;
         this.root = new LeafNode();
         this.firstLeaf = (LeafNode) root;
         this.size = 0;
+        this.path = newPath(8);
+        this.pathSlots = new int[8];
+    }
+    
+    // Mínimo de claves en una hoja / nodo interno que no es raíz
+    private int minLeafKeys() { return order / 2; }
+    private int minInternalKeys() { return (order - 1) / 2; }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private InternalNode[] newPath(int capacity) {
+        return (InternalNode[]) new BPlusTreeIndex.InternalNode[capacity];
+    }
+    
+    /**
+     * Búsqueda binaria dentro de un nodo
+     * Retorna la posición de la clave, o (-(punto de inserción) - 1) si no está
+     * (misma convención que Arrays.binarySearch)
+     * Complejidad: O(log m) con m = claves del nodo
+     */
+    @SuppressWarnings("unchecked")
+    private int binarySearch(Node node, K key) {
+        int izq = 0;
+        int der = node.numKeys - 1;
+        
+        while (izq <= der) {
+            int mid = (izq + der) >>> 1;
+            int cmp = ((K) node.keys[mid]).compareTo(key);
+            
+            if (cmp < 0) {
+                izq = mid + 1;
+            } else if (cmp > 0) {
+                der = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(izq + 1);
+    }
+    
+    // Índice del hijo a seguir: cantidad de claves <= key - O(log m)
+    private int childIndex(InternalNode node, K key) {
+        int pos = binarySearch(node, key);
+        return pos >= 0 ? pos + 1 : -(pos + 1);
     }
     
     /**
@@ -85,27 +149,42 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     @SuppressWarnings("unchecked")
     public V search(K key) {
         LeafNode leaf = findLeaf(key);
-        
-        for (int i = 0; i < leaf.numKeys; i++) {
-            if (key.compareTo((K) leaf.keys[i]) == 0) {
-                return (V) leaf.values[i];
-            }
-        }
-        return null;
+        int pos = binarySearch(leaf, key);
+        return pos >= 0 ? (V) leaf.values[pos] : null;
     }
     
     // Encontrar nodo hoja donde debería estar la clave
-    @SuppressWarnings("unchecked")
     private LeafNode findLeaf(K key) {
         Node current = root;
         
         while (!current.isLeaf()) {
             InternalNode internal = (InternalNode) current;
-            int i = 0;
-            while (i < internal.numKeys && key.compareTo((K) internal.keys[i]) >= 0) {
-                i++;
+            current = internal.children[childIndex(internal, key)];
+        }
+        
+        return (LeafNode) current;
+    }
+    
+    /**
+     * Igual que findLeaf pero registra el camino de descenso en 'path'
+     * (path[0] = raíz, path[pathDepth - 1] = padre de la hoja).
+     * Las divisiones suben por este camino: encontrar el padre es O(1).
+     * Complejidad: O(log n)
+     */
+    private LeafNode findLeafRecordingPath(K key) {
+        Node current = root;
+        pathDepth = 0;
+        
+        while (!current.isLeaf()) {
+            InternalNode internal = (InternalNode) current;
+            if (pathDepth == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+                pathSlots = Arrays.copyOf(pathSlots, pathSlots.length * 2);
             }
-            current = internal.children[i];
+            int slot = childIndex(internal, key);
+            path[pathDepth] = internal;
+            pathSlots[pathDepth++] = slot;
+            current = internal.children[slot];
         }
         
         return (LeafNode) current;
@@ -118,85 +197,56 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     @Override
     @SuppressWarnings("unchecked")
     public void insert(K key, V value) {
-        LeafNode leaf = findLeaf(key);
+        LeafNode leaf = findLeafRecordingPath(key);
         
-        // Verificar si la clave ya existe
-        for (int i = 0; i < leaf.numKeys; i++) {
-            if (key.compareTo((K) leaf.keys[i]) == 0) {
-                leaf.values[i] = value;  // Actualizar valor existente
-                return;
-            }
+        int pos = binarySearch(leaf, key);
+        if (pos >= 0) {
+            leaf.values[pos] = value;  // Actualizar valor existente
+            return;
         }
+        pos = -(pos + 1);
         
-        // Insertar nueva clave
-        if (leaf.numKeys < order - 1) {
-            insertInLeaf(leaf, key, value);
-        } else {
-            // Nodo lleno, necesita división
-            LeafNode newLeaf = new LeafNode();
-            Object[] tempKeys = new Object[order];
-            Object[] tempValues = new Object[order];
-            
-            // Copiar y ordenar
-            int i, insertPos = 0;
-            for (i = 0; i < leaf.numKeys; i++) {
-                if (key.compareTo((K) leaf.keys[i]) < 0 && insertPos == i) {
-                    tempKeys[insertPos] = key;
-                    tempValues[insertPos] = value;
-                    insertPos++;
-                }
-                tempKeys[insertPos] = leaf.keys[i];
-                tempValues[insertPos] = leaf.values[i];
-                insertPos++;
-            }
-            if (insertPos == i) {
-                tempKeys[insertPos] = key;
-                tempValues[insertPos] = value;
-            }
-            
-            // Dividir
-            int mid = order / 2;
-            leaf.numKeys = 0;
-            for (i = 0; i < mid; i++) {
-                leaf.keys[i] = tempKeys[i];
-                leaf.values[i] = tempValues[i];
-                leaf.numKeys++;
-            }
-            
-            for (i = mid; i < order; i++) {
-                newLeaf.keys[i - mid] = tempKeys[i];
-                newLeaf.values[i - mid] = tempValues[i];
-                newLeaf.numKeys++;
-            }
-            
-            // Enlazar hojas
-            newLeaf.next = leaf.next;
-            leaf.next = newLeaf;
-            
-            // Propagar división hacia arriba
-            insertInParent(leaf, (K) newLeaf.keys[0], newLeaf);
-        }
+        // Insertar en su posición (el arreglo admite una clave extra antes de dividir)
+        System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.numKeys - pos);
+        System.arraycopy(leaf.values, pos, leaf.values, pos + 1, leaf.numKeys - pos);
+        leaf.keys[pos] = key;
+        leaf.values[pos] = value;
+        leaf.numKeys++;
         size++;
-    }
-    
-    // Insertar en nodo hoja no lleno
-    @SuppressWarnings("unchecked")
-    private void insertInLeaf(LeafNode leaf, K key, V value) {
-        int i = leaf.numKeys - 1;
-        while (i >= 0 && key.compareTo((K) leaf.keys[i]) < 0) {
-            leaf.keys[i + 1] = leaf.keys[i];
-            leaf.values[i + 1] = leaf.values[i];
-            i--;
+        
+        if (leaf.numKeys < order) return;
+        
+        // Nodo lleno, necesita división
+        LeafNode newLeaf = new LeafNode();
+        int mid = order / 2;
+        int moved = leaf.numKeys - mid;
+        System.arraycopy(leaf.keys, mid, newLeaf.keys, 0, moved);
+        System.arraycopy(leaf.values, mid, newLeaf.values, 0, moved);
+        for (int i = mid; i < leaf.numKeys; i++) {
+            leaf.keys[i] = null;
+            leaf.values[i] = null;
         }
-        leaf.keys[i + 1] = key;
-        leaf.values[i + 1] = value;
-        leaf.numKeys++;
+        newLeaf.numKeys = moved;
+        leaf.numKeys = mid;
+        
+        // Enlazar hojas
+        newLeaf.next = leaf.next;
+        newLeaf.prev = leaf;
+        if (leaf.next != null) leaf.next.prev = newLeaf;
+        leaf.next = newLeaf;
+        
+        // Propagar división hacia arriba por el camino registrado
+        insertInParent(leaf, (K) newLeaf.keys[0], newLeaf, pathDepth);
     }
     
-    // Insertar clave en nodo padre después de división
+    /**
+     * Insertar clave en nodo padre después de división
+     * depth = nivel de 'left' en el camino (su padre es path[depth - 1])
+     * Complejidad: O(order) por nivel, O(log n) niveles como máximo
+     */
     @SuppressWarnings("unchecked")
-    private void insertInParent(Node left, K key, Node right) {
-        if (left == root) {
+    private void insertInParent(Node left, K key, Node right, int depth) {
+        if (depth == 0) {
             InternalNode newRoot = new InternalNode();
             newRoot.keys[0] = key;
             newRoot.children[0] = left;
@@ -206,114 +256,449 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
             return;
         }
         
-        InternalNode parent = findParent(root, left);
+        InternalNode parent = path[depth - 1];
         
-        if (parent.numKeys < order - 1) {
-            // Hay espacio en el padre
-            int i = parent.numKeys - 1;
-            while (i >= 0 && key.compareTo((K) parent.keys[i]) < 0) {
-                parent.keys[i + 1] = parent.keys[i];
-                parent.children[i + 2] = parent.children[i + 1];
-                i--;
-            }
-            parent.keys[i + 1] = key;
-            parent.children[i + 2] = right;
-            parent.numKeys++;
-        } else {
-            // Dividir nodo interno (simplificado)
-            InternalNode newInternal = new InternalNode();
-            parent.keys[parent.numKeys] = key;
-            parent.children[parent.numKeys + 1] = right;
-            parent.numKeys++;
-            
-            int mid = parent.numKeys / 2;
-            K midKey = (K) parent.keys[mid];
-            
-            // Mover mitad superior al nuevo nodo
-            for (int i = mid + 1; i < parent.numKeys; i++) {
-                newInternal.keys[i - mid - 1] = parent.keys[i];
-                newInternal.children[i - mid - 1] = parent.children[i];
-                newInternal.numKeys++;
-            }
-            newInternal.children[newInternal.numKeys] = parent.children[parent.numKeys];
-            parent.numKeys = mid;
-            
-            insertInParent(parent, midKey, newInternal);
+        // Insertar clave e hijo derecho en orden (admite desborde temporal)
+        int pos = childIndex(parent, key);
+        System.arraycopy(parent.keys, pos, parent.keys, pos + 1, parent.numKeys - pos);
+        System.arraycopy(parent.children, pos + 1, parent.children, pos + 2, parent.numKeys - pos);
+        parent.keys[pos] = key;
+        parent.children[pos + 1] = right;
+        parent.numKeys++;
+        
+        if (parent.numKeys < order) return;
+        
+        // Dividir nodo interno: la clave del medio sube al padre
+        InternalNode newInternal = new InternalNode();
+        int mid = parent.numKeys / 2;
+        K midKey = (K) parent.keys[mid];
+        
+        int moved = parent.numKeys - mid - 1;
+        System.arraycopy(parent.keys, mid + 1, newInternal.keys, 0, moved);
+        System.arraycopy(parent.children, mid + 1, newInternal.children, 0, moved + 1);
+        for (int i = mid; i < parent.numKeys; i++) parent.keys[i] = null;
+        for (int i = mid + 1; i <= parent.numKeys; i++) parent.children[i] = null;
+        newInternal.numKeys = moved;
+        parent.numKeys = mid;
+        
+        insertInParent(parent, midKey, newInternal, depth - 1);
+    }
+    
+    /**
+     * Eliminar por clave
+     * Si la hoja queda por debajo del mínimo (order/2 claves) se rebalancea:
+     * 1. Pedir prestada una clave a un hermano con claves de sobra
+     * 2. Si ninguno puede prestar, fusionarse con un hermano
+     * La fusión quita una clave del padre, que puede a su vez quedar corto:
+     * el rebalanceo sube por el camino registrado y, si la raíz queda sin
+     * claves, su único hijo pasa a ser la raíz (el árbol pierde un nivel).
+     * Complejidad: O(log n)
+     */
+    @Override
+    public boolean delete(K key) {
+        LeafNode leaf = findLeafRecordingPath(key);
+        
+        int pos = binarySearch(leaf, key);
+        if (pos < 0) return false;
+        
+        // Eliminar desplazando
+        System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.numKeys - pos - 1);
+        System.arraycopy(leaf.values, pos + 1, leaf.values, pos, leaf.numKeys - pos - 1);
+        leaf.numKeys--;
+        leaf.keys[leaf.numKeys] = null;
+        leaf.values[leaf.numKeys] = null;
+        size--;
+        
+        if (pathDepth > 0 && leaf.numKeys < minLeafKeys()) {
+            rebalanceLeaf(leaf, pathDepth);
         }
+        return true;
     }
     
-    // Encontrar nodo padre
+    // Corregir hoja con pocas claves (su padre es path[depth - 1]) - O(order)
     @SuppressWarnings("unchecked")
-    private InternalNode findParent(Node current, Node child) {
-        if (current.isLeaf() || ((InternalNode) current).children[0].isLeaf()) {
-            InternalNode internal = (InternalNode) current;
-            for (int i = 0; i <= internal.numKeys; i++) {
-                if (internal.children[i] == child) {
-                    return internal;
-                }
-            }
-            return null;
+    private void rebalanceLeaf(LeafNode leaf, int depth) {
+        InternalNode parent = path[depth - 1];
+        int slot = pathSlots[depth - 1];
+        LeafNode left = slot > 0 ? (LeafNode) parent.children[slot - 1] : null;
+        LeafNode right = slot < parent.numKeys ? (LeafNode) parent.children[slot + 1] : null;
+        
+        if (left != null && left.numKeys > minLeafKeys()) {
+            // Prestar la última clave del hermano izquierdo
+            System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.numKeys);
+            System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.numKeys);
+            left.numKeys--;
+            leaf.keys[0] = left.keys[left.numKeys];
+            leaf.values[0] = left.values[left.numKeys];
+            left.keys[left.numKeys] = null;
+            left.values[left.numKeys] = null;
+            leaf.numKeys++;
+            parent.keys[slot - 1] = leaf.keys[0];
+        } else if (right != null && right.numKeys > minLeafKeys()) {
+            // Prestar la primera clave del hermano derecho
+            leaf.keys[leaf.numKeys] = right.keys[0];
+            leaf.values[leaf.numKeys] = right.values[0];
+            leaf.numKeys++;
+            System.arraycopy(right.keys, 1, right.keys, 0, right.numKeys - 1);
+            System.arraycopy(right.values, 1, right.values, 0, right.numKeys - 1);
+            right.numKeys--;
+            right.keys[right.numKeys] = null;
+            right.values[right.numKeys] = null;
+            parent.keys[slot] = right.keys[0];
+        } else if (left != null) {
+            mergeLeaves(left, leaf);
+            removeFromInternal(parent, slot - 1);
+            rebalanceInternal(depth - 1);
+        } else if (right != null) {
+            mergeLeaves(leaf, right);
+            removeFromInternal(parent, slot);
+            rebalanceInternal(depth - 1);
+        }
+    }
+    
+    // Mover todas las claves de 'right' a 'left' y desenlazar 'right' - O(order)
+    private void mergeLeaves(LeafNode left, LeafNode right) {
+        System.arraycopy(right.keys, 0, left.keys, left.numKeys, right.numKeys);
+        System.arraycopy(right.values, 0, left.values, left.numKeys, right.numKeys);
+        left.numKeys += right.numKeys;
+        left.next = right.next;
+        if (right.next != null) right.next.prev = left;
+    }
+    
+    // Quitar la clave keyIdx y el hijo a su derecha (keyIdx + 1) - O(order)
+    private void removeFromInternal(InternalNode node, int keyIdx) {
+        System.arraycopy(node.keys, keyIdx + 1, node.keys, keyIdx, node.numKeys - keyIdx - 1);
+        System.arraycopy(node.children, keyIdx + 2, node.children, keyIdx + 1, node.numKeys - keyIdx - 1);
+        node.numKeys--;
+        node.keys[node.numKeys] = null;
+        node.children[node.numKeys + 1] = null;
+    }
+    
+    /**
+     * Corregir el nodo interno path[depth] tras perder una clave
+     * Complejidad: O(order) por nivel, O(log n) niveles como máximo
+     */
+    private void rebalanceInternal(int depth) {
+        InternalNode node = path[depth];
+        
+        if (depth == 0) {
+            // Raíz sin claves: su único hijo pasa a ser la raíz
+            if (node.numKeys == 0) root = node.children[0];
+            return;
         }
+        if (node.numKeys >= minInternalKeys()) return;
         
-        InternalNode internal = (InternalNode) current;
-        for (int i = 0; i <= internal.numKeys; i++) {
-            InternalNode result = findParent(internal.children[i], child);
-            if (result != null) return result;
+        InternalNode parent = path[depth - 1];
+        int slot = pathSlots[depth - 1];
+        InternalNode left = slot > 0 ? (InternalNode) parent.children[slot - 1] : null;
+        InternalNode right = slot < parent.numKeys ? (InternalNode) parent.children[slot + 1] : null;
+        
+        if (left != null && left.numKeys > minInternalKeys()) {
+            // Rotación a la derecha: separador baja, última clave del izquierdo sube
+            System.arraycopy(node.keys, 0, node.keys, 1, node.numKeys);
+            System.arraycopy(node.children, 0, node.children, 1, node.numKeys + 1);
+            node.keys[0] = parent.keys[slot - 1];
+            node.children[0] = left.children[left.numKeys];
+            node.numKeys++;
+            parent.keys[slot - 1] = left.keys[left.numKeys - 1];
+            left.keys[left.numKeys - 1] = null;
+            left.children[left.numKeys] = null;
+            left.numKeys--;
+        } else if (right != null && right.numKeys > minInternalKeys()) {
+            // Rotación a la izquierda: separador baja, primera clave del derecho sube
+            node.keys[node.numKeys] = parent.keys[slot];
+            node.children[node.numKeys + 1] = right.children[0];
+            node.numKeys++;
+            parent.keys[slot] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.numKeys - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.numKeys);
+            right.numKeys--;
+            right.keys[right.numKeys] = null;
+            right.children[right.numKeys + 1] = null;
+        } else if (left != null) {
+            mergeInternal(left, parent.keys[slot - 1], node);
+            removeFromInternal(parent, slot - 1);
+            rebalanceInternal(depth - 1);
+        } else if (right != null) {
+            mergeInternal(node, parent.keys[slot], right);
+            removeFromInternal(parent, slot);
+            rebalanceInternal(depth - 1);
         }
-        return null;
+    }
+    
+    // Fusionar: left + separador + right (el separador baja del padre) - O(order)
+    private void mergeInternal(InternalNode left, Object separator, InternalNode right) {
+        left.keys[left.numKeys] = separator;
+        System.arraycopy(right.keys, 0, left.keys, left.numKeys + 1, right.numKeys);
+        System.arraycopy(right.children, 0, left.children, left.numKeys + 1, right.numKeys + 1);
+        left.numKeys += right.numKeys + 1;
     }
     
     /**
-     * Eliminar por clave (simplificado)
-     * Complejidad: O(log n)
+     * Carga masiva desde datos YA ORDENADOS por clave (árbol vacío)
+     * 
+     * En lugar de n inserciones con sus divisiones, construye el árbol de
+     * abajo hacia arriba:
+     * 1. Llena hojas consecutivas hasta fillFactor * (order - 1) claves
+     * 2. Arma cada nivel interno agrupando los nodos del nivel anterior
+     * 3. Repite hasta que quede un solo nodo (la raíz)
+     * 
+     * Un fillFactor menor a 1.0 deja espacio libre en cada hoja para que las
+     * inserciones posteriores no dividan todas las hojas de inmediato.
+     * 
+     * Todo o nada: el árbol nuevo se arma aparte y reemplaza al vacío recién
+     * al terminar, así que si las claves llegan desordenadas (o entries
+     * falla) el árbol sigue vacío y usable.
+     * 
+     * Complejidad: O(n) - sin búsquedas ni divisiones
+     * 
+     * @param entries    pares clave-valor en orden estrictamente creciente
+     * @param fillFactor ocupación objetivo de cada nodo (0 < fillFactor <= 1)
      */
     @Override
     @SuppressWarnings("unchecked")
-    public boolean delete(K key) {
-        LeafNode leaf = findLeaf(key);
+    public void bulkLoad(Iterator<Map.Entry<K, V>> entries, double fillFactor) {
+        if (size > 0) throw new IllegalStateException("bulkLoad requiere un árbol vacío");
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Factor de llenado inválido: " + fillFactor);
+        }
+        
+        int leafTarget = Math.max(minLeafKeys(), Math.min(order - 1, (int) Math.round(fillFactor * (order - 1))));
+        int fanoutTarget = Math.max(minInternalKeys() + 1, Math.min(order, (int) Math.round(fillFactor * order)));
+        
+        // 1. Hojas
+        List<Node> level = new ArrayList<>();
+        List<Object> lowKeys = new ArrayList<>();  // Menor clave de cada nodo del nivel
+        LeafNode leaf = new LeafNode();
+        K previous = null;
+        int count = 0;
         
-        int pos = -1;
-        for (int i = 0; i < leaf.numKeys; i++) {
-            if (key.compareTo((K) leaf.keys[i]) == 0) {
-                pos = i;
-                break;
+        while (entries.hasNext()) {
+            Map.Entry<K, V> e = entries.next();
+            K key = e.getKey();
+            if (previous != null && previous.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("bulkLoad requiere claves ordenadas sin duplicados: " + key);
             }
+            previous = key;
+            
+            if (leaf.numKeys == leafTarget) {
+                LeafNode nextLeaf = new LeafNode();
+                leaf.next = nextLeaf;
+                nextLeaf.prev = leaf;
+                level.add(leaf);
+                lowKeys.add(leaf.keys[0]);
+                leaf = nextLeaf;
+            }
+            leaf.keys[leaf.numKeys] = key;
+            leaf.values[leaf.numKeys] = e.getValue();
+            leaf.numKeys++;
+            count++;
         }
+        level.add(leaf);
+        lowKeys.add(leaf.keys[0]);
         
-        if (pos == -1) return false;
+        // La última hoja puede quedar corta: repartir con la anterior
+        if (level.size() > 1 && leaf.numKeys < minLeafKeys()) {
+            LeafNode prev = (LeafNode) level.get(level.size() - 2);
+            int total = prev.numKeys + leaf.numKeys;
+            if (total <= order - 1) {
+                mergeLeaves(prev, leaf);
+                level.remove(level.size() - 1);
+                lowKeys.remove(lowKeys.size() - 1);
+            } else {
+                int moved = total / 2 - leaf.numKeys;
+                System.arraycopy(leaf.keys, 0, leaf.keys, moved, leaf.numKeys);
+                System.arraycopy(leaf.values, 0, leaf.values, moved, leaf.numKeys);
+                System.arraycopy(prev.keys, prev.numKeys - moved, leaf.keys, 0, moved);
+                System.arraycopy(prev.values, prev.numKeys - moved, leaf.values, 0, moved);
+                for (int i = prev.numKeys - moved; i < prev.numKeys; i++) {
+                    prev.keys[i] = null;
+                    prev.values[i] = null;
+                }
+                prev.numKeys -= moved;
+                leaf.numKeys += moved;
+                lowKeys.set(lowKeys.size() - 1, leaf.keys[0]);
+            }
+        }
         
-        // Eliminar desplazando
-        for (int i = pos; i < leaf.numKeys - 1; i++) {
-            leaf.keys[i] = leaf.keys[i + 1];
-            leaf.values[i] = leaf.values[i + 1];
+        LeafNode first = (LeafNode) level.get(0);
+        
+        // 2-3. Niveles internos
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            List<Object> parentLowKeys = new ArrayList<>();
+            
+            int start = 0;
+            while (start < level.size()) {
+                int end = Math.min(level.size(), start + fanoutTarget);
+                int remaining = level.size() - end;
+                // Evitar un último grupo con menos hijos que el mínimo
+                if (remaining > 0 && remaining < minInternalKeys() + 1) {
+                    int total = end - start + remaining;
+                    end = total <= order ? level.size() : start + total / 2;
+                }
+                
+                InternalNode node = new InternalNode();
+                for (int i = start; i < end; i++) {
+                    node.children[i - start] = level.get(i);
+                    if (i > start) node.keys[i - start - 1] = lowKeys.get(i);
+                }
+                node.numKeys = end - start - 1;
+                parents.add(node);
+                parentLowKeys.add(lowKeys.get(start));
+                start = end;
+            }
+            level = parents;
+            lowKeys = parentLowKeys;
         }
-        leaf.numKeys--;
-        size--;
-        return true;
+        root = level.get(0);
+        firstLeaf = first;
+        size = count;
     }
     
     /**
      * Búsqueda por rango (ventaja del B+)
      * Complejidad: O(log n + k) donde k = elementos en rango
      */
-    @SuppressWarnings("unchecked")
+    @Override
     public List<V> rangeSearch(K startKey, K endKey) {
         List<V> results = new ArrayList<>();
-        LeafNode leaf = findLeaf(startKey);
-        
-        boolean started = false;
-        while (leaf != null) {
-            for (int i = 0; i < leaf.numKeys; i++) {
-                K currentKey = (K) leaf.keys[i];
-                if (currentKey.compareTo(startKey) >= 0) started = true;
-                if (started) {
-                    if (currentKey.compareTo(endKey) > 0) return results;
-                    results.add((V) leaf.values[i]);
+        Cursor cursor = cursor(startKey, true, endKey, true, false);
+        while (cursor.hasNext()) results.add(cursor.next());
+        return results;
+    }
+    
+    /**
+     * CURSOR - Recorrido perezoso sobre las hojas enlazadas
+     * 
+     * A diferencia de rangeSearch() no arma ninguna lista: cada next()
+     * devuelve el siguiente valor leyendo directamente de la hoja actual y
+     * salta a la hoja vecina al agotarla. Quien consume puede detenerse en
+     * cualquier momento (LIMIT, paginación) sin haber leído el resto.
+     * 
+     * lastKey() da la clave del último valor devuelto (útil para reanudar).
+     * 
+     * No admite modificaciones del árbol mientras se recorre.
+     */
+    public class Cursor implements OrderedIndex.Cursor<K, V> {
+        private final K from, to;
+        private final boolean fromInclusive, toInclusive, descending;
+        private LeafNode leaf;
+        private int pos;
+        private K lastKey;
+        
+        private Cursor(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+            this.from = from;
+            this.to = to;
+            this.fromInclusive = fromInclusive;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            if (descending) seekLast(); else seekFirst();
+        }
+        
+        // Posicionarse en la primera clave >= from (o > from) - O(log n)
+        private void seekFirst() {
+            if (from == null) {
+                leaf = firstLeaf;
+                pos = 0;
+            } else {
+                leaf = findLeaf(from);
+                int p = binarySearch(leaf, from);
+                pos = p >= 0 ? (fromInclusive ? p : p + 1) : -(p + 1);
+            }
+            while (leaf != null && pos >= leaf.numKeys) {
+                leaf = leaf.next;
+                pos = 0;
+            }
+        }
+        
+        // Posicionarse en la última clave <= to (o < to) - O(log n)
+        private void seekLast() {
+            if (to == null) {
+                Node current = root;
+                while (!current.isLeaf()) {
+                    InternalNode internal = (InternalNode) current;
+                    current = internal.children[internal.numKeys];
                 }
+                leaf = (LeafNode) current;
+                pos = leaf.numKeys - 1;
+            } else {
+                leaf = findLeaf(to);
+                int p = binarySearch(leaf, to);
+                pos = p >= 0 ? (toInclusive ? p : p - 1) : -(p + 1) - 1;
+            }
+            while (leaf != null && pos < 0) {
+                leaf = leaf.prev;
+                if (leaf != null) pos = leaf.numKeys - 1;
             }
-            leaf = leaf.next;  // Seguir enlace a siguiente hoja
         }
-        return results;
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            if (leaf == null) return false;
+            K key = (K) leaf.keys[pos];
+            
+            // Verificar el límite opuesto al de inicio
+            boolean inRange;
+            if (descending) {
+                inRange = from == null || (fromInclusive ? key.compareTo(from) >= 0 : key.compareTo(from) > 0);
+            } else {
+                inRange = to == null || (toInclusive ? key.compareTo(to) <= 0 : key.compareTo(to) < 0);
+            }
+            if (!inRange) leaf = null;  // Fin del rango: no se vuelve a comparar
+            return inRange;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            lastKey = (K) leaf.keys[pos];
+            V value = (V) leaf.values[pos];
+            
+            if (descending) {
+                if (--pos < 0) {
+                    leaf = leaf.prev;
+                    if (leaf != null) pos = leaf.numKeys - 1;
+                }
+            } else {
+                if (++pos >= leaf.numKeys) {
+                    leaf = leaf.next;  // Seguir enlace a siguiente hoja
+                    pos = 0;
+                }
+            }
+            return value;
+        }
+        
+        @Override
+        public K lastKey() { return lastKey; }
+    }
+    
+    /**
+     * Abrir cursor sobre un rango
+     * @param from          límite inferior (null = sin límite)
+     * @param fromInclusive incluir 'from'
+     * @param to            límite superior (null = sin límite)
+     * @param toInclusive   incluir 'to'
+     * @param descending    recorrer de mayor a menor
+     * Complejidad: O(log n)
+     */
+    @Override
+    public Cursor cursor(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+        return new Cursor(from, fromInclusive, to, toInclusive, descending);
+    }
+    
+    // Cursor ascendente sobre todo el árbol
+    @Override
+    public Cursor cursor() {
+        return new Cursor(null, true, null, true, false);
+    }
+    
+    // Cursor ascendente sobre [from, to] (null = sin límite)
+    @Override
+    public Cursor cursor(K from, K to) {
+        return new Cursor(from, true, to, true, false);
     }
     
     /**
@@ -323,7 +708,7 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     @Override
     @SuppressWarnings("unchecked")
     public List<V> getAllValues() {
-        List<V> values = new ArrayList<>();
+        List<V> values = new ArrayList<>(size);
         LeafNode current = firstLeaf;
         
         // Recorrer todas las hojas usando el enlace next
@@ -336,6 +721,49 @@ public class BPlusTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
         return values;
     }
     
+    /**
+     * Altura del árbol (1 = solo la raíz hoja)
+     * Complejidad: O(log n)
+     */
+    public int height() {
+        int h = 1;
+        Node current = root;
+        while (!current.isLeaf()) {
+            current = ((InternalNode) current).children[0];
+            h++;
+        }
+        return h;
+    }
+    
+    /**
+     * Cantidad de nodos (internos + hojas)
+     * Complejidad: O(n / order)
+     */
+    public int nodeCount() {
+        return countNodes(root);
+    }
+    
+    private int countNodes(Node node) {
+        if (node.isLeaf()) return 1;
+        InternalNode internal = (InternalNode) node;
+        int count = 1;
+        for (int i = 0; i <= internal.numKeys; i++) count += countNodes(internal.children[i]);
+        return count;
+    }
+    
+    /**
+     * Factor de llenado de las hojas: claves / capacidad total de las hojas
+     * (1.0 = hojas llenas; valores bajos = espacio desperdiciado)
+     * Complejidad: O(n / order)
+     */
+    public double fillFactor() {
+        int leaves = 0;
+        for (LeafNode leaf = firstLeaf; leaf != null; leaf = leaf.next) leaves++;
+        return (double) size / ((long) leaves * (order - 1));
+    }
+    
+    public int getOrder() { return order; }
+    
     @Override
     public int size() {
         return size;
@@ -175,7 +175,11 @@ public class BTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
     }
     
     /**
-     * Eliminar por clave (simplificado)
+     * Eliminar por clave (algoritmo de Cormen et al.)
+     * Al descender se garantiza que cada hijo visitado tenga al menos 'order'
+     * claves (prestando de un hermano o fusionando), así la eliminación nunca
+     * deja un nodo por debajo del mínimo y no hace falta volver hacia arriba.
+     * Claves en nodos internos se reemplazan por su predecesor o sucesor.
      * Complejidad: O(log n)
      */
     @Override
@@ -183,6 +187,11 @@ public class BTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
         if (search(key) == null) return false;
         deleteFromNode(root, key);
         size--;
+        
+        // Raíz sin claves: su único hijo pasa a ser la raíz (el árbol pierde un nivel)
+        if (root.numKeys == 0 && !root.isLeaf) {
+            root = root.children[0];
+        }
         return true;
     }
     
@@ -193,14 +202,156 @@ public class BTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
             i++;
         }
         
-        if (i < node.numKeys && key.compareTo((K) node.keys[i]) == 0 && node.isLeaf) {
-            // Eliminar de nodo hoja
-            for (int j = i; j < node.numKeys - 1; j++) {
-                node.keys[j] = node.keys[j + 1];
-                node.values[j] = node.values[j + 1];
+        if (i < node.numKeys && key.compareTo((K) node.keys[i]) == 0) {
+            if (node.isLeaf) {
+                // Caso 1: eliminar de nodo hoja
+                removeKey(node, i);
+            } else {
+                deleteInternalKey(node, i);
+            }
+            return;
+        }
+        
+        if (node.isLeaf) return;  // No existe
+        
+        // Caso 3: asegurar que el hijo tenga al menos 'order' claves antes de bajar
+        if (node.children[i].numKeys < order) {
+            if (i > 0 && node.children[i - 1].numKeys >= order) {
+                borrowFromPrev(node, i);
+            } else if (i < node.numKeys && node.children[i + 1].numKeys >= order) {
+                borrowFromNext(node, i);
+            } else if (i < node.numKeys) {
+                merge(node, i);
+            } else {
+                merge(node, i - 1);
+                i--;
+            }
+        }
+        deleteFromNode(node.children[i], key);
+    }
+    
+    // Caso 2: la clave está en un nodo interno
+    @SuppressWarnings("unchecked")
+    private void deleteInternalKey(BTreeNode node, int i) {
+        K key = (K) node.keys[i];
+        BTreeNode left = node.children[i];
+        BTreeNode right = node.children[i + 1];
+        
+        if (left.numKeys >= order) {
+            // 2a: reemplazar por el predecesor y eliminarlo del subárbol izquierdo
+            BTreeNode pred = left;
+            while (!pred.isLeaf) pred = pred.children[pred.numKeys];
+            K predKey = (K) pred.keys[pred.numKeys - 1];
+            node.keys[i] = predKey;
+            node.values[i] = pred.values[pred.numKeys - 1];
+            deleteFromNode(left, predKey);
+        } else if (right.numKeys >= order) {
+            // 2b: reemplazar por el sucesor y eliminarlo del subárbol derecho
+            BTreeNode succ = right;
+            while (!succ.isLeaf) succ = succ.children[0];
+            K succKey = (K) succ.keys[0];
+            node.keys[i] = succKey;
+            node.values[i] = succ.values[0];
+            deleteFromNode(right, succKey);
+        } else {
+            // 2c: fusionar ambos hijos con la clave y eliminar de la fusión
+            merge(node, i);
+            deleteFromNode(left, key);
+        }
+    }
+    
+    // Quitar clave i de un nodo hoja - O(order)
+    private void removeKey(BTreeNode node, int i) {
+        for (int j = i; j < node.numKeys - 1; j++) {
+            node.keys[j] = node.keys[j + 1];
+            node.values[j] = node.values[j + 1];
+        }
+        node.numKeys--;
+        node.keys[node.numKeys] = null;
+        node.values[node.numKeys] = null;
+    }
+    
+    // Rotación: la clave del padre baja al hijo i, la última del hermano izquierdo sube
+    private void borrowFromPrev(BTreeNode parent, int i) {
+        BTreeNode child = parent.children[i];
+        BTreeNode sibling = parent.children[i - 1];
+        
+        for (int j = child.numKeys - 1; j >= 0; j--) {
+            child.keys[j + 1] = child.keys[j];
+            child.values[j + 1] = child.values[j];
+        }
+        if (!child.isLeaf) {
+            for (int j = child.numKeys; j >= 0; j--) child.children[j + 1] = child.children[j];
+            child.children[0] = sibling.children[sibling.numKeys];
+            sibling.children[sibling.numKeys] = null;
+        }
+        child.keys[0] = parent.keys[i - 1];
+        child.values[0] = parent.values[i - 1];
+        child.numKeys++;
+        
+        parent.keys[i - 1] = sibling.keys[sibling.numKeys - 1];
+        parent.values[i - 1] = sibling.values[sibling.numKeys - 1];
+        sibling.numKeys--;
+        sibling.keys[sibling.numKeys] = null;
+        sibling.values[sibling.numKeys] = null;
+    }
+    
+    // Rotación: la clave del padre baja al hijo i, la primera del hermano derecho sube
+    private void borrowFromNext(BTreeNode parent, int i) {
+        BTreeNode child = parent.children[i];
+        BTreeNode sibling = parent.children[i + 1];
+        
+        child.keys[child.numKeys] = parent.keys[i];
+        child.values[child.numKeys] = parent.values[i];
+        if (!child.isLeaf) child.children[child.numKeys + 1] = sibling.children[0];
+        child.numKeys++;
+        
+        parent.keys[i] = sibling.keys[0];
+        parent.values[i] = sibling.values[0];
+        
+        for (int j = 1; j < sibling.numKeys; j++) {
+            sibling.keys[j - 1] = sibling.keys[j];
+            sibling.values[j - 1] = sibling.values[j];
+        }
+        if (!sibling.isLeaf) {
+            for (int j = 1; j <= sibling.numKeys; j++) sibling.children[j - 1] = sibling.children[j];
+            sibling.children[sibling.numKeys] = null;
+        }
+        sibling.numKeys--;
+        sibling.keys[sibling.numKeys] = null;
+        sibling.values[sibling.numKeys] = null;
+    }
+    
+    // Fusionar hijo i + clave i del padre + hijo i+1 en el hijo i - O(order)
+    private void merge(BTreeNode parent, int i) {
+        BTreeNode child = parent.children[i];
+        BTreeNode sibling = parent.children[i + 1];
+        
+        child.keys[order - 1] = parent.keys[i];
+        child.values[order - 1] = parent.values[i];
+        for (int j = 0; j < sibling.numKeys; j++) {
+            child.keys[j + order] = sibling.keys[j];
+            child.values[j + order] = sibling.values[j];
+        }
+        if (!child.isLeaf) {
+            for (int j = 0; j <= sibling.numKeys; j++) {
+                child.children[j + order] = sibling.children[j];
             }
-            node.numKeys--;
         }
+        child.numKeys += sibling.numKeys + 1;
+        
+        // Quitar clave i e hijo i+1 del padre
+        for (int j = i + 1; j < parent.numKeys; j++) {
+            parent.keys[j - 1] = parent.keys[j];
+            parent.values[j - 1] = parent.values[j];
+        }
+        for (int j = i + 2; j <= parent.numKeys; j++) {
+            parent.children[j - 1] = parent.children[j];
+        }
+        parent.numKeys--;
+        parent.keys[parent.numKeys] = null;
+        parent.values[parent.numKeys] = null;
+        parent.children[parent.numKeys + 1] = null;
     }
     
     /**
@@ -229,6 +380,40 @@ public class BTreeIndex<K extends Comparable<K>, V> implements Index<K, V> {
         }
     }
     
+    /**
+     * Altura del árbol (1 = solo la raíz hoja)
+     * Complejidad: O(log n)
+     */
+    public int height() {
+        int h = 1;
+        for (BTreeNode node = root; !node.isLeaf; node = node.children[0]) h++;
+        return h;
+    }
+    
+    /**
+     * Cantidad de nodos del árbol
+     * Complejidad: O(n / order)
+     */
+    public int nodeCount() {
+        return countNodes(root);
+    }
+    
+    private int countNodes(BTreeNode node) {
+        int count = 1;
+        if (!node.isLeaf) {
+            for (int i = 0; i <= node.numKeys; i++) count += countNodes(node.children[i]);
+        }
+        return count;
+    }
+    
+    /**
+     * Factor de llenado: claves / capacidad total de los nodos (2*order - 1 cada uno)
+     * Complejidad: O(n / order)
+     */
+    public double fillFactor() {
+        return (double) size / ((long) nodeCount() * (2 * order - 1));
+    }
+    
     @Override
     public int size() {
         return size;
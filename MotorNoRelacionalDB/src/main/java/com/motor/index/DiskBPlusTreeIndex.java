@@ -0,0 +1,831 @@
+package com.motor.index;
+
+import com.motor.storage.PageStore;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * DISKBPLUSTREEINDEX - Árbol B+ con nodos en páginas de un PageStore
+ * 
+ * Igual que BPlusTreeIndex pero cada nodo es una página del archivo en
+ * lugar de un objeto del heap: el tamaño de los datos no depende de -Xmx y
+ * al reabrir el archivo el árbol ya está armado (arranque instantáneo,
+ * las páginas se leen recién cuando se tocan).
+ * 
+ * Las páginas se fijan solo mientras se usan (pin/unpin), así el árbol
+ * funciona igual sobre el archivo mapeado (PageFile) o sobre un caché con
+ * memoria acotada (BufferPool).
+ * 
+ * Página de nodo (claves y valores de largo variable):
+ * 
+ *   [tipo 1][-][cantidad 2][next / hijo 0 4][prev 4][ranuras 2 * cantidad][entradas]
+ * 
+ * - Ranuras: posición de cada entrada, en orden de clave (búsqueda binaria
+ *   decodificando solo O(log m) claves)
+ * - Hoja:    [largo clave][clave][0][largo][valor] o [1][largo][página overflow]
+ * - Interna: [largo clave][clave][hijo a la derecha]
+ * - Valores de más de pageSize / 8 bytes van a páginas overflow encadenadas
+ * 
+ * Un nodo se divide cuando sus entradas ya no entran en la página (por
+ * bytes, no por cantidad de claves). Si la clave nueva va al final de la
+ * hoja más a la derecha (inserción secuencial, carga masiva) la división
+ * deja la hoja izquierda llena en lugar de a la mitad.
+ * 
+ * Eliminación sin fusiones: una hoja se libera (vuelve a la lista libre del
+ * archivo) recién cuando queda vacía, como en muchos árboles B en disco.
+ * 
+ * Sin registro de páginas propio: antes de la primera modificación el
+ * archivo se marca "sucio" y sync() lo vuelve a marcar consistente; tras
+ * una caída entre ambos el archivo no es confiable (ver StorageManager).
+ * 
+ * No es thread-safe para escrituras (Collection las serializa). search()
+ * admite lectores optimistas durante una escritura: pueden leer páginas a
+ * medio modificar o ya liberadas (BufferPool no las descarta mientras
+ * estén fijadas) y terminan con basura o una excepción, nunca en un ciclo.
+ * 
+ * Complejidad:
+ * - Búsqueda, inserción, eliminación: O(log n) páginas
+ * - Cursor: O(log n) para posicionarse + O(1) amortizado por elemento
+ */
+public class DiskBPlusTreeIndex<K extends Comparable<K>, V> implements OrderedIndex<K, V> {
+    
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int HEADER = 12;
+    private static final int O_COUNT = 2;
+    private static final int O_NEXT = 4;   // Hoja: siguiente; interna: hijo 0
+    private static final int O_PREV = 8;
+    
+    private static final byte INLINE = 0;
+    private static final byte OVERFLOW = 1;
+    private static final int OVERFLOW_HEADER = 8;  // [siguiente][bytes usados]
+    private static final int MAX_DEPTH = 64;       // Ningún árbol válido llega a tantos niveles
+    
+    // Ranuras de metadatos del PageFile
+    private static final int META_ROOT = 0;
+    private static final int META_SIZE = 1;
+    private static final int META_MAGIC = 2;
+    private static final long TREE_MAGIC = 0x42504C5553545245L;  // "BPLUSTRE"
+    
+    private final PageStore store;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int pageSize;
+    private final int maxKeyBytes;
+    private final int maxInlineBytes;
+    
+    // Camino de descenso de la última escritura (como en BPlusTreeIndex)
+    private int[] path = new int[16];
+    private int[] pathSlots = new int[16];
+    private int pathDepth;
+    
+    // Nodo decodificado para modificarlo y volver a escribirlo
+    private static final class NodeData {
+        final boolean leaf;
+        int next, prev;
+        final List<byte[]> keys = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();    // Hoja: campo de valor codificado
+        final List<Integer> children = new ArrayList<>();  // Interna: keys.size() + 1
+        
+        NodeData(boolean leaf) { this.leaf = leaf; }
+        
+        int entryBytes(int i) {
+            return 2 + 2 + keys.get(i).length + (leaf ? values.get(i).length : 4);
+        }
+        
+        int bytes() {
+            int total = HEADER;
+            for (int i = 0; i < keys.size(); i++) total += entryBytes(i);
+            return total;
+        }
+    }
+    
+    /**
+     * Abrir el árbol guardado en el archivo (o crear uno vacío)
+     */
+    public DiskBPlusTreeIndex(PageStore store, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this.store = store;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.pageSize = store.getPageSize();
+        this.maxKeyBytes = pageSize / 8;
+        this.maxInlineBytes = pageSize / 8;
+        
+        if (store.getMeta(META_MAGIC) != TREE_MAGIC) {
+            int root = store.allocate();
+            write(root, new NodeData(true));
+            store.setMeta(META_ROOT, root);
+            store.setMeta(META_SIZE, 0);
+            store.setMeta(META_MAGIC, TREE_MAGIC);
+        }
+    }
+    
+    private int root() { return (int) store.getMeta(META_ROOT); }
+    
+    // ==================== LECTURA DE PÁGINAS ====================
+    
+    // Leer / escribir un int de la cabecera de una página (fijándola solo para eso)
+    private int readInt(int page, int offset) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return p.getInt(offset);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private void writeInt(int page, int offset, int value) {
+        ByteBuffer p = store.pin(page);
+        try {
+            p.putInt(offset, value);
+        } finally {
+            store.unpin(page, true);
+        }
+    }
+    
+    private int count(int page) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return count(p);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private K keyAt(int page, int i) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return keyAt(p, i);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private V valueAt(int page, int i) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return valueAt(p, i);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private int searchPage(int page, K key) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return search(p, key);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private static int count(ByteBuffer p) { return p.getChar(O_COUNT); }
+    
+    private static int slot(ByteBuffer p, int i) { return p.getChar(HEADER + 2 * i); }
+    
+    private byte[] bytesAt(ByteBuffer p, int offset, int length) {
+        if (length < 0 || offset + length > pageSize) throw new IllegalStateException("Página corrupta");
+        byte[] b = new byte[length];
+        p.get(offset, b, 0, length);
+        return b;
+    }
+    
+    private K keyAt(ByteBuffer p, int i) {
+        int off = slot(p, i);
+        int len = p.getChar(off);
+        byte[] b = bytesAt(p, off + 2, len);
+        return keySerializer.fromBytes(b, 0, len);
+    }
+    
+    private int childAt(ByteBuffer p, int i) {
+        if (i == 0) return p.getInt(O_NEXT);
+        int off = slot(p, i - 1);
+        return p.getInt(off + 2 + p.getChar(off));
+    }
+    
+    private V valueAt(ByteBuffer p, int i) {
+        int off = slot(p, i);
+        int vOff = off + 2 + p.getChar(off);
+        byte kind = p.get(vOff);
+        int len = p.getInt(vOff + 1);
+        byte[] b = kind == INLINE ? bytesAt(p, vOff + 5, len) : readOverflow(p.getInt(vOff + 5), len);
+        return valueSerializer.fromBytes(b, 0, len);
+    }
+    
+    // Búsqueda binaria en la página (convención de Arrays.binarySearch)
+    private int search(ByteBuffer p, K key) {
+        int lo = 0, hi = count(p) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = keyAt(p, mid).compareTo(key);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+    
+    // Índice del hijo a seguir = cantidad de claves <= key
+    private int childIndex(ByteBuffer p, K key) {
+        int i = search(p, key);
+        return i >= 0 ? i + 1 : -(i + 1);
+    }
+    
+    private int findLeaf(K key) {
+        int page = root();
+        for (int depth = 0; ; depth++) {
+            // Un lector optimista puede seguir enlaces de páginas reutilizadas
+            if (depth > MAX_DEPTH) throw new IllegalStateException("Árbol inconsistente: más de " + MAX_DEPTH + " niveles");
+            ByteBuffer p = store.pin(page);
+            int child;
+            try {
+                if (p.get(0) == LEAF) return page;
+                child = childAt(p, childIndex(p, key));
+            } finally {
+                store.unpin(page, false);
+            }
+            page = child;
+        }
+    }
+    
+    // Hoja más a la izquierda (first) o más a la derecha
+    private int edgeLeaf(boolean first) {
+        int page = root();
+        while (true) {
+            ByteBuffer p = store.pin(page);
+            int child;
+            try {
+                if (p.get(0) == LEAF) return page;
+                child = childAt(p, first ? 0 : count(p));
+            } finally {
+                store.unpin(page, false);
+            }
+            page = child;
+        }
+    }
+    
+    // Igual que findLeaf pero registrando el camino para las escrituras
+    private int findLeafRecordingPath(K key) {
+        int page = root();
+        int depth = 0;
+        while (true) {
+            ByteBuffer p = store.pin(page);
+            int slot, child;
+            try {
+                if (p.get(0) == LEAF) {
+                    pathDepth = depth;
+                    return page;
+                }
+                slot = childIndex(p, key);
+                child = childAt(p, slot);
+            } finally {
+                store.unpin(page, false);
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                pathSlots = Arrays.copyOf(pathSlots, depth * 2);
+            }
+            path[depth] = page;
+            pathSlots[depth] = slot;
+            depth++;
+            page = child;
+        }
+    }
+    
+    // ==================== NODOS DECODIFICADOS ====================
+    
+    private NodeData read(int page) {
+        ByteBuffer p = store.pin(page);
+        try {
+            return decode(p);
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    private NodeData decode(ByteBuffer p) {
+        NodeData node = new NodeData(p.get(0) == LEAF);
+        int n = count(p);
+        node.next = p.getInt(O_NEXT);
+        node.prev = p.getInt(O_PREV);
+        if (!node.leaf) node.children.add(node.next);
+        for (int i = 0; i < n; i++) {
+            int off = slot(p, i);
+            int klen = p.getChar(off);
+            node.keys.add(bytesAt(p, off + 2, klen));
+            int rest = off + 2 + klen;
+            if (node.leaf) {
+                int vlen = p.get(rest) == INLINE ? 5 + p.getInt(rest + 1) : 9;
+                node.values.add(bytesAt(p, rest, vlen));
+            } else {
+                node.children.add(p.getInt(rest));
+            }
+        }
+        return node;
+    }
+    
+    private void write(int page, NodeData node) {
+        ByteBuffer p = store.pin(page);
+        try {
+            encode(p, node);
+        } finally {
+            store.unpin(page, true);
+        }
+    }
+    
+    private void encode(ByteBuffer p, NodeData node) {
+        int n = node.keys.size();
+        p.put(0, node.leaf ? LEAF : INTERNAL);
+        p.putChar(O_COUNT, (char) n);
+        p.putInt(O_NEXT, node.leaf ? node.next : node.children.get(0));
+        p.putInt(O_PREV, node.leaf ? node.prev : 0);
+        int off = HEADER + 2 * n;
+        for (int i = 0; i < n; i++) {
+            byte[] key = node.keys.get(i);
+            p.putChar(HEADER + 2 * i, (char) off);
+            p.putChar(off, (char) key.length);
+            p.put(off + 2, key);
+            off += 2 + key.length;
+            if (node.leaf) {
+                byte[] value = node.values.get(i);
+                p.put(off, value);
+                off += value.length;
+            } else {
+                p.putInt(off, node.children.get(i + 1));
+                off += 4;
+            }
+        }
+    }
+    
+    // Búsqueda binaria sobre un nodo decodificado
+    private int search(NodeData node, K key) {
+        int lo = 0, hi = node.keys.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            byte[] b = node.keys.get(mid);
+            int cmp = keySerializer.fromBytes(b, 0, b.length).compareTo(key);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+    
+    // ==================== VALORES Y OVERFLOW ====================
+    
+    // Campo de valor: [INLINE][largo][bytes] o [OVERFLOW][largo][primera página]
+    private byte[] encodeValue(byte[] value) {
+        ByteBuffer field;
+        if (value.length <= maxInlineBytes) {
+            field = ByteBuffer.allocate(5 + value.length);
+            field.put(INLINE).putInt(value.length).put(value);
+        } else {
+            field = ByteBuffer.allocate(9);
+            field.put(OVERFLOW).putInt(value.length).putInt(writeOverflow(value));
+        }
+        return field.array();
+    }
+    
+    private int writeOverflow(byte[] value) {
+        int chunk = pageSize - OVERFLOW_HEADER;
+        int first = 0, previous = 0;
+        for (int off = 0; off < value.length; off += chunk) {
+            int page = store.allocate();
+            int used = Math.min(chunk, value.length - off);
+            ByteBuffer p = store.pin(page);
+            try {
+                p.putInt(0, 0);
+                p.putInt(4, used);
+                p.put(OVERFLOW_HEADER, value, off, used);
+            } finally {
+                store.unpin(page, true);
+            }
+            if (previous == 0) first = page;
+            else writeInt(previous, 0, page);
+            previous = page;
+        }
+        return first;
+    }
+    
+    private byte[] readOverflow(int page, int length) {
+        if (length < 0 || (long) length > (long) store.getPageCount() * pageSize) {
+            throw new IllegalStateException("Valor overflow corrupto");
+        }
+        byte[] value = new byte[length];
+        int off = 0;
+        while (off < length) {
+            if (page <= 0) throw new IllegalStateException("Cadena overflow corrupta");
+            int current = page;
+            ByteBuffer p = store.pin(current);
+            try {
+                int used = Math.min(p.getInt(4), length - off);
+                if (used <= 0) throw new IllegalStateException("Cadena overflow corrupta");
+                p.get(OVERFLOW_HEADER, value, off, used);
+                off += used;
+                page = p.getInt(0);
+            } finally {
+                store.unpin(current, false);
+            }
+        }
+        return value;
+    }
+    
+    // Liberar las páginas overflow de un campo de valor
+    private void freeValue(byte[] field) {
+        if (field[0] != OVERFLOW) return;
+        int page = ByteBuffer.wrap(field).getInt(5);
+        while (page != 0) {
+            int next = readInt(page, 0);
+            store.free(page);
+            page = next;
+        }
+    }
+    
+    // ==================== OPERACIONES ====================
+    
+    /**
+     * Buscar por clave
+     * Complejidad: O(log n) páginas, O(log m) claves decodificadas por página
+     */
+    @Override
+    public V search(K key) {
+        int page = findLeaf(key);
+        ByteBuffer p = store.pin(page);
+        try {
+            int i = search(p, key);
+            return i >= 0 ? valueAt(p, i) : null;
+        } finally {
+            store.unpin(page, false);
+        }
+    }
+    
+    /**
+     * Insertar o reemplazar
+     * Complejidad: O(log n)
+     */
+    @Override
+    public void insert(K key, V value) {
+        put(key, value, 0);
+    }
+    
+    // fill > 0: carga masiva, las divisiones al final dejan la hoja izquierda a ese llenado
+    private void put(K key, V value, double fill) {
+        byte[] k = keySerializer.toBytes(key);
+        if (k.length > maxKeyBytes) {
+            throw new IllegalArgumentException("Clave de " + k.length + " bytes (máximo " + maxKeyBytes + ")");
+        }
+        store.markDirty();
+        byte[] v = encodeValue(valueSerializer.toBytes(value));
+        
+        int page = findLeafRecordingPath(key);
+        NodeData leaf = read(page);
+        int i = search(leaf, key);
+        boolean append = false;
+        if (i >= 0) {
+            freeValue(leaf.values.get(i));
+            leaf.values.set(i, v);
+        } else {
+            i = -(i + 1);
+            leaf.keys.add(i, k);
+            leaf.values.add(i, v);
+            store.setMeta(META_SIZE, size() + 1);
+            append = i == leaf.keys.size() - 1 && leaf.next == 0;
+        }
+        
+        if (leaf.bytes() <= pageSize) {
+            write(page, leaf);
+        } else {
+            splitLeaf(page, leaf, append ? (fill > 0 ? fill : 1.0) : 0.5);
+        }
+    }
+    
+    /**
+     * Punto de división: las entradas [0, s) quedan a la izquierda
+     * ocupando a lo sumo fraction de la página (siempre 1 <= s <= máximo)
+     */
+    private int splitPoint(NodeData node, double fraction, int max) {
+        int target = (int) (fraction * (pageSize - HEADER));
+        int used = 0;
+        int s = 0;
+        while (s < node.keys.size() && used + node.entryBytes(s) <= target) used += node.entryBytes(s++);
+        return Math.max(1, Math.min(s, max));
+    }
+    
+    private void splitLeaf(int page, NodeData leaf, double fraction) {
+        int n = leaf.keys.size();
+        int s = splitPoint(leaf, fraction, n - 1);
+        
+        int newPage = store.allocate();
+        NodeData right = new NodeData(true);
+        right.keys.addAll(leaf.keys.subList(s, n));
+        right.values.addAll(leaf.values.subList(s, n));
+        leaf.keys.subList(s, n).clear();
+        leaf.values.subList(s, n).clear();
+        
+        // Enlaces de hojas: leaf <-> right <-> siguiente
+        right.next = leaf.next;
+        right.prev = page;
+        if (right.next != 0) writeInt(right.next, O_PREV, newPage);
+        leaf.next = newPage;
+        
+        write(page, leaf);
+        write(newPage, right);
+        insertInParent(pathDepth, page, right.keys.get(0), newPage, fraction);
+    }
+    
+    // Insertar separador y nuevo hijo derecho en el padre (nivel depth - 1)
+    private void insertInParent(int depth, int left, byte[] key, int right, double fraction) {
+        if (depth == 0) {
+            int newRoot = store.allocate();
+            NodeData root = new NodeData(false);
+            root.children.add(left);
+            root.keys.add(key);
+            root.children.add(right);
+            write(newRoot, root);
+            store.setMeta(META_ROOT, newRoot);
+            return;
+        }
+        
+        int parent = path[depth - 1];
+        int slot = pathSlots[depth - 1];
+        NodeData node = read(parent);
+        node.keys.add(slot, key);
+        node.children.add(slot + 1, right);
+        if (node.bytes() <= pageSize) {
+            write(parent, node);
+            return;
+        }
+        
+        // División interna: la clave del medio sube
+        int n = node.keys.size();
+        double f = fraction > 0.5 && slot == n - 1 ? fraction : 0.5;
+        int s = splitPoint(node, f, n - 2);
+        byte[] upKey = node.keys.get(s);
+        
+        int newPage = store.allocate();
+        NodeData sibling = new NodeData(false);
+        sibling.keys.addAll(node.keys.subList(s + 1, n));
+        sibling.children.addAll(node.children.subList(s + 1, n + 1));
+        node.keys.subList(s, n).clear();
+        node.children.subList(s + 1, n + 1).clear();
+        
+        write(parent, node);
+        write(newPage, sibling);
+        insertInParent(depth - 1, parent, upKey, newPage, f);
+    }
+    
+    /**
+     * Eliminar por clave
+     * Complejidad: O(log n)
+     */
+    @Override
+    public boolean delete(K key) {
+        int page = findLeafRecordingPath(key);
+        NodeData leaf = read(page);
+        int i = search(leaf, key);
+        if (i < 0) return false;
+        
+        store.markDirty();
+        freeValue(leaf.values.remove(i));
+        leaf.keys.remove(i);
+        store.setMeta(META_SIZE, size() - 1);
+        
+        if (leaf.keys.isEmpty() && pathDepth > 0) {
+            // Hoja vacía: desenlazarla, liberarla y quitarla del padre
+            if (leaf.prev != 0) writeInt(leaf.prev, O_NEXT, leaf.next);
+            if (leaf.next != 0) writeInt(leaf.next, O_PREV, leaf.prev);
+            store.free(page);
+            removeChild(pathDepth - 1);
+            collapseRoot();
+        } else {
+            write(page, leaf);
+        }
+        return true;
+    }
+    
+    // Quitar el hijo pathSlots[depth] del nodo path[depth]
+    private void removeChild(int depth) {
+        int parent = path[depth];
+        int slot = pathSlots[depth];
+        NodeData node = read(parent);
+        node.children.remove(slot);
+        if (!node.keys.isEmpty()) node.keys.remove(slot > 0 ? slot - 1 : 0);
+        
+        if (node.children.isEmpty()) {
+            if (depth == 0) {
+                write(parent, new NodeData(true));  // El árbol quedó vacío: la raíz vuelve a ser hoja
+            } else {
+                store.free(parent);
+                removeChild(depth - 1);
+            }
+            return;
+        }
+        write(parent, node);
+    }
+    
+    // Mientras la raíz sea interna con un solo hijo, ese hijo pasa a ser la raíz
+    private void collapseRoot() {
+        int root = root();
+        while (true) {
+            ByteBuffer p = store.pin(root);
+            int child;
+            try {
+                if (p.get(0) != INTERNAL || count(p) != 0) return;
+                child = childAt(p, 0);
+            } finally {
+                store.unpin(root, false);
+            }
+            store.free(root);
+            store.setMeta(META_ROOT, child);
+            root = child;
+        }
+    }
+    
+    /**
+     * Carga masiva: inserta en orden dejando cada hoja a fillFactor
+     * (las claves crecientes siempre caen en la hoja más a la derecha)
+     * Complejidad: O(n log n) con O(1) páginas tocadas por inserción
+     */
+    @Override
+    public void bulkLoad(Iterator<Map.Entry<K, V>> entries, double fillFactor) {
+        if (size() > 0) throw new IllegalStateException("bulkLoad requiere un árbol vacío");
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Factor de llenado inválido: " + fillFactor);
+        }
+        K previous = null;
+        while (entries.hasNext()) {
+            Map.Entry<K, V> e = entries.next();
+            if (previous != null && previous.compareTo(e.getKey()) >= 0) {
+                throw new IllegalArgumentException("Claves no ordenadas o repetidas en bulkLoad: " + e.getKey());
+            }
+            put(e.getKey(), e.getValue(), fillFactor);
+            previous = e.getKey();
+        }
+    }
+    
+    // ==================== CURSOR ====================
+    
+    /**
+     * Cursor sobre las hojas enlazadas del archivo (mismas reglas que
+     * BPlusTreeIndex.Cursor; no admite modificaciones durante el recorrido)
+     */
+    private final class DiskCursor implements OrderedIndex.Cursor<K, V> {
+        private final K from, to;
+        private final boolean fromInclusive, toInclusive, descending;
+        private int page;   // 0 = fin (la página 0 es la cabecera)
+        private int pos;
+        private K nextKey;  // Clave en (page, pos) ya verificada por hasNext()
+        private K lastKey;
+        
+        DiskCursor(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+            this.from = from;
+            this.to = to;
+            this.fromInclusive = fromInclusive;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            if (descending) seekLast(); else seekFirst();
+        }
+        
+        private void seekFirst() {
+            if (from == null) {
+                page = edgeLeaf(true);
+                pos = 0;
+            } else {
+                page = findLeaf(from);
+                int i = searchPage(page, from);
+                pos = i >= 0 ? (fromInclusive ? i : i + 1) : -(i + 1);
+            }
+            skipForward();
+        }
+        
+        private void seekLast() {
+            if (to == null) {
+                page = edgeLeaf(false);
+                pos = count(page) - 1;
+            } else {
+                page = findLeaf(to);
+                int i = searchPage(page, to);
+                pos = i >= 0 ? (toInclusive ? i : i - 1) : -(i + 1) - 1;
+            }
+            skipBackward();
+        }
+        
+        private void skipForward() {
+            while (page != 0 && pos >= count(page)) {
+                page = readInt(page, O_NEXT);
+                pos = 0;
+            }
+        }
+        
+        private void skipBackward() {
+            while (page != 0 && pos < 0) {
+                page = readInt(page, O_PREV);
+                if (page != 0) pos = count(page) - 1;
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (nextKey != null) return true;
+            if (page == 0) return false;
+            K key = keyAt(page, pos);
+            boolean inRange;
+            if (descending) {
+                inRange = from == null || (fromInclusive ? key.compareTo(from) >= 0 : key.compareTo(from) > 0);
+            } else {
+                inRange = to == null || (toInclusive ? key.compareTo(to) <= 0 : key.compareTo(to) < 0);
+            }
+            if (!inRange) {
+                page = 0;
+                return false;
+            }
+            nextKey = key;
+            return true;
+        }
+        
+        @Override
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            V value = valueAt(page, pos);
+            lastKey = nextKey;
+            nextKey = null;
+            if (descending) {
+                pos--;
+                skipBackward();
+            } else {
+                pos++;
+                skipForward();
+            }
+            return value;
+        }
+        
+        @Override
+        public K lastKey() { return lastKey; }
+    }
+    
+    @Override
+    public OrderedIndex.Cursor<K, V> cursor(K from, boolean fromInclusive, K to, boolean toInclusive,
+                                            boolean descending) {
+        return new DiskCursor(from, fromInclusive, to, toInclusive, descending);
+    }
+    
+    /**
+     * Obtener todos los valores en orden de clave
+     * Complejidad: O(n)
+     */
+    @Override
+    public List<V> getAllValues() {
+        List<V> values = new ArrayList<>(size());
+        OrderedIndex.Cursor<K, V> cursor = cursor();
+        while (cursor.hasNext()) values.add(cursor.next());
+        return values;
+    }
+    
+    /**
+     * Altura del árbol (1 = solo la raíz hoja)
+     * Complejidad: O(log n)
+     */
+    public int height() {
+        int h = 1;
+        for (int page = root(); ; h++) {
+            ByteBuffer p = store.pin(page);
+            int child;
+            try {
+                if (p.get(0) == LEAF) return h;
+                child = childAt(p, 0);
+            } finally {
+                store.unpin(page, false);
+            }
+            page = child;
+        }
+    }
+    
+    /**
+     * Ocupación de las hojas: bytes usados / bytes disponibles
+     * Complejidad: O(n / claves por hoja)
+     */
+    public double fillFactor() {
+        long used = 0;
+        int leaves = 0;
+        for (int page = edgeLeaf(true); page != 0; page = readInt(page, O_NEXT)) {
+            used += read(page).bytes();
+            leaves++;
+        }
+        return (double) used / ((long) leaves * pageSize);
+    }
+    
+    // Forzar a disco las páginas modificadas (el archivo queda marcado consistente)
+    public void sync() { store.sync(); }
+    
+    public PageStore getPageStore() { return store; }
+    
+    @Override
+    public int size() {
+        return (int) store.getMeta(META_SIZE);
+    }
+}
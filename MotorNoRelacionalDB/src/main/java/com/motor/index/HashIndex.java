@@ -1,6 +1,7 @@
 package com.motor.index;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,9 +15,19 @@ import java.util.List;
  * - delete(): O(1) promedio, O(n) peor caso
  * 
  * El peor caso ocurre cuando todas las claves colisionan en el mismo bucket.
+ * 
+ * Redimensionamiento incremental:
+ * - Cuando size > capacidad * factorDeCarga se crea una tabla del doble
+ * - Los buckets se migran de a REHASH_STEPS por operación (como Redis),
+ *   así ninguna inserción individual paga el costo O(n) completo
+ * - Durante la migración se consultan ambas tablas
+ * - Solo las escrituras avanzan la migración: search() no modifica la tabla
  */
 public class HashIndex<K extends Comparable<K>, V> implements Index<K, V> {
     
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int REHASH_STEPS = 4;  // Buckets migrados por operación
+    
     // Nodo para encadenamiento (Lista enlazada simple)
     private class HashNode {
         K key;
@@ -30,55 +41,168 @@ public class HashIndex<K extends Comparable<K>, V> implements Index<K, V> {
         }
     }
     
-    private HashNode[] buckets;  // Arreglo de buckets
+    private HashNode[] buckets;      // Arreglo de buckets
+    private HashNode[] newBuckets;   // Tabla destino durante el rehash (null si no hay)
+    private int rehashIndex;         // Siguiente bucket de 'buckets' a migrar
     private int capacity;
     private int size;
+    private final double loadFactor;
+    private final boolean powerOfTwo;  // Usar máscara de bits en lugar de módulo
     
-    @SuppressWarnings("unchecked")
-    public HashIndex(int capacity) {
-        this.capacity = capacity;
-        this.buckets = (HashNode[]) new HashIndex.HashNode[capacity];
+    /**
+     * @param capacity   capacidad inicial
+     * @param loadFactor factor de carga máximo (Double.POSITIVE_INFINITY = nunca crecer)
+     * @param powerOfTwo redondear capacidades a potencias de 2 y usar máscara (hash & (cap - 1))
+     */
+    public HashIndex(int capacity, double loadFactor, boolean powerOfTwo) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        if (!(loadFactor > 0)) throw new IllegalArgumentException("Factor de carga inválido: " + loadFactor);
+        this.loadFactor = loadFactor;
+        this.powerOfTwo = powerOfTwo;
+        this.capacity = powerOfTwo ? nextPowerOfTwo(capacity) : capacity;
+        this.buckets = newTable(this.capacity);
         this.size = 0;
     }
     
+    public HashIndex(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR, true);
+    }
+    
     public HashIndex() {
         this(16);  // Capacidad por defecto
     }
     
+    @SuppressWarnings("unchecked")
+    private HashNode[] newTable(int cap) {
+        return (HashNode[]) new HashIndex.HashNode[cap];
+    }
+    
+    private static int nextPowerOfTwo(int n) {
+        int p = 1;
+        while (p < n && p < (1 << 30)) p <<= 1;
+        return p;
+    }
+    
+    /**
+     * Mezcla de bits (finalizador de MurmurHash3)
+     * Evita que claves con hashCode parecidos caigan en los mismos buckets,
+     * imprescindible al usar máscara de bits (solo toma los bits bajos).
+     * Complejidad: O(1)
+     */
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
     /**
-     * Función hash - convierte clave en índice
+     * Función hash - convierte clave en índice para una tabla de tamaño cap
      * Complejidad: O(1)
      */
-    private int hash(K key) {
-        return Math.abs(key.hashCode() % capacity);
+    private int hash(K key, int cap) {
+        int h = mix(key.hashCode());
+        return powerOfTwo ? (h & (cap - 1)) : Math.floorMod(h, cap);
+    }
+    
+    private boolean isRehashing() {
+        return newBuckets != null;
+    }
+    
+    // Iniciar migración hacia una tabla del doble de tamaño - O(1)
+    private void startResize() {
+        if (isRehashing() || capacity >= (1 << 30)) return;
+        newBuckets = newTable(capacity * 2);
+        rehashIndex = 0;
+    }
+    
+    /**
+     * Migrar hasta 'steps' buckets no vacíos a la tabla nueva
+     * Complejidad: O(steps + nodos movidos) - acotado por operación
+     */
+    private void rehashStep(int steps) {
+        int newCap = newBuckets.length;
+        int emptyVisits = steps * 10;  // Limita el recorrido de buckets vacíos
+        
+        while (steps > 0 && rehashIndex < buckets.length) {
+            HashNode current = buckets[rehashIndex];
+            if (current == null) {
+                rehashIndex++;
+                if (--emptyVisits == 0) break;
+                continue;
+            }
+            while (current != null) {
+                HashNode next = current.next;
+                int index = hash(current.key, newCap);
+                current.next = newBuckets[index];
+                newBuckets[index] = current;
+                current = next;
+            }
+            buckets[rehashIndex] = null;
+            rehashIndex++;
+            steps--;
+        }
+        
+        if (rehashIndex >= buckets.length) {
+            buckets = newBuckets;
+            capacity = newCap;
+            newBuckets = null;
+        }
+    }
+    
+    // Avanzar la migración pendiente antes de cada operación - O(1) amortizado
+    private void advanceRehash() {
+        if (isRehashing()) rehashStep(REHASH_STEPS);
+    }
+    
+    // Buscar nodo en ambas tablas - O(1) promedio
+    private HashNode findNode(K key) {
+        if (isRehashing()) {
+            int oldIndex = hash(key, capacity);
+            if (oldIndex >= rehashIndex) {
+                HashNode node = findInChain(buckets[oldIndex], key);
+                if (node != null) return node;
+            }
+            return findInChain(newBuckets[hash(key, newBuckets.length)], key);
+        }
+        return findInChain(buckets[hash(key, capacity)], key);
+    }
+    
+    private HashNode findInChain(HashNode current, K key) {
+        while (current != null) {
+            if (current.key.equals(key)) return current;
+            current = current.next;
+        }
+        return null;
     }
     
     /**
      * Insertar par clave-valor
-     * Complejidad: O(1) promedio
+     * Complejidad: O(1) promedio (amortizado, sin pausas de rehash completo)
      */
     @Override
     public void insert(K key, V value) {
-        int index = hash(key);
-        HashNode newNode = new HashNode(key, value);
+        advanceRehash();
         
-        // Si el bucket está vacío
-        if (buckets[index] == null) {
-            buckets[index] = newNode;
-        } else {
-            // Buscar si la clave ya existe o agregar al final
-            HashNode current = buckets[index];
-            while (current != null) {
-                if (current.key.equals(key)) {
-                    current.value = value;  // Actualizar
-                    return;
-                }
-                if (current.next == null) break;
-                current = current.next;
-            }
-            current.next = newNode;  // Agregar al final de la lista
+        HashNode existing = findNode(key);
+        if (existing != null) {
+            existing.value = value;  // Actualizar
+            return;
         }
+        
+        // Durante la migración las claves nuevas van a la tabla nueva
+        HashNode[] table = isRehashing() ? newBuckets : buckets;
+        int index = hash(key, table.length);
+        HashNode newNode = new HashNode(key, value);
+        newNode.next = table[index];  // Insertar al inicio de la lista
+        table[index] = newNode;
         size++;
+        
+        if (!isRehashing() && size > capacity * loadFactor) {
+            startResize();
+        }
     }
     
     /**
@@ -87,17 +211,8 @@ public class HashIndex<K extends Comparable<K>, V> implements Index<K, V> {
      */
     @Override
     public V search(K key) {
-        int index = hash(key);
-        HashNode current = buckets[index];
-        
-        // Recorrer lista enlazada del bucket
-        while (current != null) {
-            if (current.key.equals(key)) {
-                return current.value;
-            }
-            current = current.next;
-        }
-        return null;
+        HashNode node = findNode(key);
+        return node != null ? node.value : null;
     }
     
     /**
@@ -106,14 +221,24 @@ public class HashIndex<K extends Comparable<K>, V> implements Index<K, V> {
      */
     @Override
     public boolean delete(K key) {
-        int index = hash(key);
-        HashNode current = buckets[index];
+        advanceRehash();
+        
+        if (isRehashing()) {
+            int oldIndex = hash(key, capacity);
+            if (oldIndex >= rehashIndex && deleteFromChain(buckets, oldIndex, key)) return true;
+            return deleteFromChain(newBuckets, hash(key, newBuckets.length), key);
+        }
+        return deleteFromChain(buckets, hash(key, capacity), key);
+    }
+    
+    private boolean deleteFromChain(HashNode[] table, int index, K key) {
+        HashNode current = table[index];
         HashNode prev = null;
         
         while (current != null) {
             if (current.key.equals(key)) {
                 if (prev == null) {
-                    buckets[index] = current.next;
+                    table[index] = current.next;
                 } else {
                     prev.next = current.next;
                 }
@@ -132,17 +257,45 @@ public class HashIndex<K extends Comparable<K>, V> implements Index<K, V> {
      */
     @Override
     public List<V> getAllValues() {
-        List<V> values = new ArrayList<>();
-        for (int i = 0; i < capacity; i++) {
-            HashNode current = buckets[i];
+        List<V> values = new ArrayList<>(size);
+        collectValues(buckets, values);
+        if (isRehashing()) collectValues(newBuckets, values);
+        return values;
+    }
+    
+    private void collectValues(HashNode[] table, List<V> values) {
+        for (HashNode head : table) {
+            HashNode current = head;
             while (current != null) {
                 values.add(current.value);
                 current = current.next;
             }
         }
-        return values;
     }
     
+    /**
+     * Histograma de longitudes de cadena: h[i] = buckets con i nodos
+     * Complejidad: O(capacidad + n)
+     */
+    public int[] chainLengthHistogram() {
+        int[] histogram = addChainLengths(buckets, new int[1]);
+        if (isRehashing()) histogram = addChainLengths(newBuckets, histogram);
+        return histogram;
+    }
+    
+    private int[] addChainLengths(HashNode[] table, int[] histogram) {
+        for (HashNode head : table) {
+            int len = 0;
+            for (HashNode n = head; n != null; n = n.next) len++;
+            if (len >= histogram.length) histogram = Arrays.copyOf(histogram, len + 1);
+            histogram[len]++;
+        }
+        return histogram;
+    }
+    
+    public int getCapacity() { return isRehashing() ? newBuckets.length : capacity; }
+    public double getLoadFactor() { return loadFactor; }
+    
     @Override
     public int size() {
         return size;
@@ -0,0 +1,198 @@
+package com.motor.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LONGHASHINDEX - Tabla Hash Robin Hood especializada en claves long
+ * 
+ * Igual que OpenHashIndex pero las claves viven en un long[]:
+ * - Sin boxing: insertLong() / searchLong() / deleteLong() no crean objetos Long
+ *   (nombres propios: sobrecargas con long y Long serían ambiguas con claves en caja)
+ * - La clave 0 marca casilla vacía; la clave real 0 se guarda aparte
+ *   (containsZero / zeroValue), técnica usual en colecciones primitivas
+ * - Implementa Index<Long, V> para poder reemplazar a HashIndex directamente
+ * 
+ * Complejidad:
+ * - insertLong(), searchLong(), deleteLong(): O(1) promedio
+ */
+public class LongHashIndex<V> implements Index<Long, V> {
+    
+    private static final double LOAD_FACTOR = 0.75;
+    
+    private long[] keys;       // 0 = casilla vacía
+    private Object[] values;
+    private int mask;
+    private int size;          // Incluye la clave 0 si está presente
+    private int threshold;
+    
+    private boolean containsZero;
+    private V zeroValue;
+    
+    public LongHashIndex(int capacity) {
+        int cap = 2;
+        while (cap < capacity && cap < (1 << 30)) cap <<= 1;
+        allocate(cap);
+    }
+    
+    public LongHashIndex() {
+        this(16);  // Capacidad por defecto
+    }
+    
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new Object[cap];
+        mask = cap - 1;
+        threshold = (int) (cap * LOAD_FACTOR);
+    }
+    
+    /**
+     * Mezcla de bits de 64 bits (finalizador de MurmurHash3)
+     * Complejidad: O(1)
+     */
+    private static int mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return (int) k;
+    }
+    
+    private int probeDistance(int i) {
+        return (i - (mix(keys[i]) & mask)) & mask;
+    }
+    
+    private int indexOf(long key) {
+        int i = mix(key) & mask;
+        for (int dist = 0; ; dist++) {
+            if (keys[i] == 0 || probeDistance(i) < dist) return -1;
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+    }
+    
+    /**
+     * Insertar sin boxing
+     * Complejidad: O(1) promedio
+     */
+    public void insertLong(long key, V value) {
+        if (key == 0) {
+            if (!containsZero) size++;
+            containsZero = true;
+            zeroValue = value;
+            return;
+        }
+        if (size >= threshold) resize(keys.length * 2);
+        
+        long k = key;
+        Object v = value;
+        int i = mix(k) & mask;
+        
+        for (int dist = 0; ; dist++) {
+            if (keys[i] == 0) {
+                keys[i] = k;
+                values[i] = v;
+                size++;
+                return;
+            }
+            if (keys[i] == k) {
+                values[i] = v;  // Actualizar
+                return;
+            }
+            int existing = probeDistance(i);
+            if (existing < dist) {
+                long tk = keys[i]; keys[i] = k; k = tk;
+                Object tv = values[i]; values[i] = v; v = tv;
+                dist = existing;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void resize(int newCap) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCap);
+        size = containsZero ? 1 : 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) insertLong(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+    
+    /**
+     * Buscar sin boxing
+     * Complejidad: O(1) promedio
+     */
+    @SuppressWarnings("unchecked")
+    public V searchLong(long key) {
+        if (key == 0) return containsZero ? zeroValue : null;
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+    
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : indexOf(key) >= 0;
+    }
+    
+    /**
+     * Eliminar sin boxing (desplazamiento hacia atrás)
+     * Complejidad: O(1) promedio
+     */
+    public boolean deleteLong(long key) {
+        if (key == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            zeroValue = null;
+            size--;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0) return false;
+        
+        int next = (i + 1) & mask;
+        while (keys[next] != 0 && probeDistance(next) > 0) {
+            keys[i] = keys[next];
+            values[i] = values[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+        keys[i] = 0;
+        values[i] = null;
+        size--;
+        return true;
+    }
+    
+    // Métodos de Index<Long, V> (delegan en las versiones primitivas)
+    @Override
+    public void insert(Long key, V value) { insertLong(key, value); }
+    
+    @Override
+    public V search(Long key) { return searchLong(key); }
+    
+    @Override
+    public boolean delete(Long key) { return deleteLong(key); }
+    
+    /**
+     * Obtener todos los valores
+     * Complejidad: O(capacidad)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<V> getAllValues() {
+        List<V> result = new ArrayList<>(size);
+        if (containsZero) result.add(zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) result.add((V) values[i]);
+        }
+        return result;
+    }
+    
+    public int getCapacity() { return keys.length; }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+}
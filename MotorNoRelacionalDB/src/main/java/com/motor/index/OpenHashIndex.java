@@ -0,0 +1,173 @@
+package com.motor.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OPENHASHINDEX - Tabla Hash con direccionamiento abierto (Robin Hood)
+ * 
+ * Alternativa a HashIndex sin nodos enlazados:
+ * - Claves, valores y hashes en arreglos paralelos (sin un objeto por entrada)
+ * - Sondeo lineal Robin Hood: al insertar, la clave que está más lejos de su
+ *   bucket ideal se queda con el lugar ("robar al rico"), lo que mantiene las
+ *   distancias de sondeo cortas y parejas
+ * - Eliminación con desplazamiento hacia atrás: no usa lápidas (tombstones),
+ *   la tabla nunca se degrada tras muchas eliminaciones
+ * 
+ * Complejidad:
+ * - insert(): O(1) promedio (amortizado, incluye redimensionamiento)
+ * - search(): O(1) promedio, búsqueda fallida termina temprano
+ * - delete(): O(1) promedio
+ */
+public class OpenHashIndex<K extends Comparable<K>, V> implements Index<K, V> {
+    
+    private static final double LOAD_FACTOR = 0.75;
+    
+    private Object[] keys;    // null = casilla vacía
+    private Object[] values;
+    private int[] hashes;     // Hash mezclado de cada clave (evita recalcular y acelera equals)
+    private int mask;         // capacidad - 1 (capacidad potencia de 2)
+    private int size;
+    private int threshold;
+    
+    public OpenHashIndex(int capacity) {
+        int cap = 2;
+        while (cap < capacity && cap < (1 << 30)) cap <<= 1;
+        allocate(cap);
+        this.size = 0;
+    }
+    
+    public OpenHashIndex() {
+        this(16);  // Capacidad por defecto
+    }
+    
+    private void allocate(int cap) {
+        keys = new Object[cap];
+        values = new Object[cap];
+        hashes = new int[cap];
+        mask = cap - 1;
+        threshold = (int) (cap * LOAD_FACTOR);
+    }
+    
+    // Distancia de la casilla i a su bucket ideal - O(1)
+    private int probeDistance(int i) {
+        return (i - (hashes[i] & mask)) & mask;
+    }
+    
+    // Posición de la clave o -1 - O(1) promedio
+    private int indexOf(K key) {
+        int h = HashIndex.mix(key.hashCode());
+        int i = h & mask;
+        for (int dist = 0; ; dist++) {
+            if (keys[i] == null || probeDistance(i) < dist) return -1;  // Corte Robin Hood
+            if (hashes[i] == h && keys[i].equals(key)) return i;
+            i = (i + 1) & mask;
+        }
+    }
+    
+    /**
+     * Insertar par clave-valor
+     * Complejidad: O(1) promedio
+     */
+    @Override
+    public void insert(K key, V value) {
+        if (size >= threshold) resize(keys.length * 2);
+        
+        Object k = key;
+        Object v = value;
+        int h = HashIndex.mix(key.hashCode());
+        int i = h & mask;
+        
+        for (int dist = 0; ; dist++) {
+            if (keys[i] == null) {
+                keys[i] = k;
+                values[i] = v;
+                hashes[i] = h;
+                size++;
+                return;
+            }
+            // Los duplicados aparecen antes del primer intercambio (misma regla de corte que search)
+            if (hashes[i] == h && keys[i].equals(k)) {
+                values[i] = v;  // Actualizar
+                return;
+            }
+            int existing = probeDistance(i);
+            if (existing < dist) {
+                // Robin Hood: la entrada residente está más cerca de su origen, cede el lugar
+                Object tk = keys[i]; keys[i] = k; k = tk;
+                Object tv = values[i]; values[i] = v; v = tv;
+                int th = hashes[i]; hashes[i] = h; h = th;
+                dist = existing;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+    
+    // Reconstruir con el doble de capacidad - O(n)
+    @SuppressWarnings("unchecked")
+    private void resize(int newCap) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCap);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) insert((K) oldKeys[i], (V) oldValues[i]);
+        }
+    }
+    
+    /**
+     * Buscar por clave
+     * Complejidad: O(1) promedio
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+    
+    /**
+     * Eliminar por clave (desplazamiento hacia atrás, sin lápidas)
+     * Complejidad: O(1) promedio
+     */
+    @Override
+    public boolean delete(K key) {
+        int i = indexOf(key);
+        if (i < 0) return false;
+        
+        // Correr hacia atrás las entradas siguientes que no están en su bucket ideal
+        int next = (i + 1) & mask;
+        while (keys[next] != null && probeDistance(next) > 0) {
+            keys[i] = keys[next];
+            values[i] = values[next];
+            hashes[i] = hashes[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        return true;
+    }
+    
+    /**
+     * Obtener todos los valores
+     * Complejidad: O(capacidad)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<V> getAllValues() {
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) result.add((V) values[i]);
+        }
+        return result;
+    }
+    
+    public int getCapacity() { return keys.length; }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,53 @@
+package com.motor.index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ORDEREDINDEX - Índice con claves ordenadas (rangos y cursores)
+ * 
+ * Lo implementan BPlusTreeIndex (nodos en el heap) y DiskBPlusTreeIndex
+ * (nodos en páginas de un archivo). Collection usa esta interfaz como índice
+ * principal, así que cualquiera de los dos puede guardar los documentos.
+ */
+public interface OrderedIndex<K extends Comparable<K>, V> extends Index<K, V> {
+    
+    /** Recorrido perezoso; lastKey() = clave del último valor devuelto */
+    interface Cursor<K, V> extends Iterator<V> {
+        K lastKey();
+    }
+    
+    /**
+     * Abrir cursor sobre un rango (null = sin límite)
+     * Complejidad: O(log n)
+     */
+    Cursor<K, V> cursor(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending);
+    
+    default Cursor<K, V> cursor() {
+        return cursor(null, true, null, true, false);
+    }
+    
+    default Cursor<K, V> cursor(K from, K to) {
+        return cursor(from, true, to, true, false);
+    }
+    
+    /**
+     * Búsqueda por rango [startKey, endKey]
+     * Complejidad: O(log n + k)
+     */
+    default List<V> rangeSearch(K startKey, K endKey) {
+        List<V> results = new ArrayList<>();
+        Cursor<K, V> cursor = cursor(startKey, true, endKey, true, false);
+        while (cursor.hasNext()) results.add(cursor.next());
+        return results;
+    }
+    
+    /**
+     * Carga masiva sobre un índice vacío
+     * @param entries    pares clave-valor en orden estrictamente creciente
+     * @param fillFactor ocupación objetivo de cada nodo (0 < fillFactor <= 1)
+     */
+    void bulkLoad(Iterator<Map.Entry<K, V>> entries, double fillFactor);
+}
@@ -0,0 +1,27 @@
+package com.motor.index;
+
+import java.util.Set;
+
+/**
+ * PROJECTINGINDEX - Índice ordenado que puede devolver valores parciales
+ * 
+ * Para índices que guardan los documentos serializados (por ejemplo
+ * storage.OffHeapDocumentIndex): el cursor con proyección decodifica solo
+ * los campos pedidos y se salta el resto sin crear objetos. Collection lo
+ * usa en scan() con campos y en findByField() sin índice secundario, y el
+ * QueryExecutor le pasa los campos que usa cada SELECT.
+ * 
+ * Los valores devueltos tienen solo esos campos: no sirven para
+ * reescribirlos (para el documento completo, search()).
+ */
+public interface ProjectingIndex<K extends Comparable<K>, V> extends OrderedIndex<K, V> {
+    
+    /**
+     * Cursor como cursor(from, fromInclusive, to, toInclusive, descending)
+     * con cada valor reducido a fields (de primer nivel: "a.b" trae "a";
+     * null = todos los campos)
+     * Complejidad: O(log n) para abrir + O(bytes hasta el último campo pedido) por valor
+     */
+    Cursor<K, V> cursor(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending,
+                        Set<String> fields);
+}
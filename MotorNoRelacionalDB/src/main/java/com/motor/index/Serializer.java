@@ -0,0 +1,47 @@
+package com.motor.index;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SERIALIZER - Conversión de claves y valores a bytes para índices en disco
+ * 
+ * Implementaciones incluidas: STRING, LONG, INTEGER.
+ * Los documentos usan storage.DocumentCodec.SERIALIZER.
+ */
+public interface Serializer<T> {
+    
+    byte[] toBytes(T value);
+    
+    T fromBytes(byte[] data, int offset, int length);
+    
+    Serializer<String> STRING = new Serializer<String>() {
+        public byte[] toBytes(String value) { return value.getBytes(StandardCharsets.UTF_8); }
+        public String fromBytes(byte[] data, int offset, int length) {
+            return new String(data, offset, length, StandardCharsets.UTF_8);
+        }
+    };
+    
+    Serializer<Long> LONG = new Serializer<Long>() {
+        public byte[] toBytes(Long value) {
+            byte[] b = new byte[8];
+            for (int i = 0; i < 8; i++) b[i] = (byte) (value >>> (56 - 8 * i));
+            return b;
+        }
+        public Long fromBytes(byte[] data, int offset, int length) {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | (data[offset + i] & 0xFF);
+            return v;
+        }
+    };
+    
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        public byte[] toBytes(Integer value) {
+            int v = value;
+            return new byte[] {(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+        }
+        public Integer fromBytes(byte[] data, int offset, int length) {
+            return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                 | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+        }
+    };
+}
@@ -0,0 +1,196 @@
+package com.motor.query;
+
+import com.motor.utils.Exceptions.InvalidQueryException;
+
+/**
+ * LEXER - Analizador léxico de consultas en una sola pasada
+ * 
+ * Recorre el texto una vez y expone el token actual como (tipo, inicio,
+ * fin) sobre la cadena original: no crea objetos por token ni pasa la
+ * consulta a mayúsculas. Las palabras clave se reconocen sin importar
+ * mayúsculas con regionMatches, sin crear Strings; solo se materializa el
+ * texto de identificadores y literales que el parser guarda en el AST.
+ * 
+ * Tokens:
+ * - IDENT: letras, dígitos, '_' y '.' (campos anidados), sin empezar con dígito
+ * - STRING: 'texto' o "texto" (la comilla se escapa duplicándola)
+ * - NUMBER: -12, 3.5, 1e9
+ * - Símbolos: * , ( ) = != <> < <= > >= ?
+ * 
+ * Complejidad: O(n) sobre la longitud de la consulta
+ */
+public final class Lexer {
+    
+    public enum Type { IDENT, STRING, NUMBER, PARAM, STAR, COMMA, LPAREN, RPAREN, EQ, NE, LT, LE, GT, GE, EOF }
+    
+    private final String src;
+    private int pos;
+    
+    // Token actual
+    private Type type;
+    private int start, end;     // Texto del token (sin comillas en STRING)
+    private boolean escaped;    // STRING con comillas duplicadas adentro
+    private boolean decimal;    // NUMBER con punto o exponente
+    
+    private int parameters;     // Marcadores ? numerados hasta ahora
+    
+    public Lexer(String src) {
+        this.src = src;
+        advance();
+    }
+    
+    /**
+     * Avanzar al siguiente token
+     * Complejidad: O(largo del token)
+     */
+    public void advance() {
+        int n = src.length();
+        while (pos < n && Character.isWhitespace(src.charAt(pos))) pos++;
+        start = pos;
+        escaped = false;
+        decimal = false;
+        if (pos >= n) {
+            type = Type.EOF;
+            end = pos;
+            return;
+        }
+        
+        char c = src.charAt(pos);
+        if (Character.isLetter(c) || c == '_') {
+            pos++;
+            while (pos < n && isIdentPart(src.charAt(pos))) pos++;
+            type = Type.IDENT;
+        } else if (Character.isDigit(c) || (c == '-' && pos + 1 < n && Character.isDigit(src.charAt(pos + 1)))) {
+            scanNumber();
+        } else if (c == '\'' || c == '"') {
+            scanString(c);
+            return;  // start/end ya apuntan al contenido
+        } else {
+            pos++;
+            switch (c) {
+                case '*': type = Type.STAR; break;
+                case ',': type = Type.COMMA; break;
+                case '(': type = Type.LPAREN; break;
+                case ')': type = Type.RPAREN; break;
+                case '?': type = Type.PARAM; break;
+                case '=': type = Type.EQ; break;
+                case '!':
+                    if (pos < n && src.charAt(pos) == '=') { pos++; type = Type.NE; break; }
+                    throw error("se esperaba '=' después de '!'");
+                case '<':
+                    if (pos < n && src.charAt(pos) == '=') { pos++; type = Type.LE; }
+                    else if (pos < n && src.charAt(pos) == '>') { pos++; type = Type.NE; }
+                    else type = Type.LT;
+                    break;
+                case '>':
+                    if (pos < n && src.charAt(pos) == '=') { pos++; type = Type.GE; }
+                    else type = Type.GT;
+                    break;
+                default:
+                    pos--;
+                    throw error("carácter inesperado '" + c + "'");
+            }
+        }
+        end = pos;
+    }
+    
+    private static boolean isIdentPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+    
+    private void scanNumber() {
+        int n = src.length();
+        if (src.charAt(pos) == '-') pos++;
+        while (pos < n && Character.isDigit(src.charAt(pos))) pos++;
+        if (pos + 1 < n && src.charAt(pos) == '.' && Character.isDigit(src.charAt(pos + 1))) {
+            decimal = true;
+            pos++;
+            while (pos < n && Character.isDigit(src.charAt(pos))) pos++;
+        }
+        if (pos < n && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+            int save = pos++;
+            if (pos < n && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+            if (pos < n && Character.isDigit(src.charAt(pos))) {
+                decimal = true;
+                while (pos < n && Character.isDigit(src.charAt(pos))) pos++;
+            } else {
+                pos = save;
+            }
+        }
+        if (pos < n && isIdentPart(src.charAt(pos))) throw error("número mal formado");
+        type = Type.NUMBER;
+    }
+    
+    private void scanString(char quote) {
+        int n = src.length();
+        int open = pos++;
+        start = pos;
+        while (true) {
+            if (pos >= n) {
+                pos = open;
+                throw error("texto sin cerrar");
+            }
+            if (src.charAt(pos) == quote) {
+                if (pos + 1 < n && src.charAt(pos + 1) == quote) {  // Comilla duplicada
+                    escaped = true;
+                    pos += 2;
+                    continue;
+                }
+                break;
+            }
+            pos++;
+        }
+        end = pos++;
+        type = Type.STRING;
+    }
+    
+    // ==================== TOKEN ACTUAL ====================
+    
+    public Type type() { return type; }
+    
+    public int position() { return start; }
+    
+    // ¿El token actual es la palabra clave kw? (sin importar mayúsculas, sin crear Strings)
+    public boolean isKeyword(String kw) {
+        return type == Type.IDENT && end - start == kw.length() && src.regionMatches(true, start, kw, 0, kw.length());
+    }
+    
+    public String text() {
+        return src.substring(start, end);
+    }
+    
+    // Copiar el texto del token sin crear un String intermedio
+    public void appendText(StringBuilder sb) {
+        sb.append(src, start, end);
+    }
+    
+    // Contenido de un STRING sin comillas
+    public String stringValue() {
+        String s = text();
+        if (!escaped) return s;
+        char quote = src.charAt(start - 1);
+        return s.replace(new String(new char[] {quote, quote}), String.valueOf(quote));
+    }
+    
+    // NUMBER como Integer, Long o Double según su forma y magnitud
+    public Number numberValue() {
+        String s = text();
+        if (decimal) return Double.parseDouble(s);
+        try {
+            long v = Long.parseLong(s);
+            if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) return (int) v;
+            return v;
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(s);  // Entero que no entra en long
+        }
+    }
+    
+    // Índice (desde 0) para el próximo marcador ?, en orden de aparición
+    public int nextParameter() { return parameters++; }
+    
+    public InvalidQueryException error(String message) {
+        return new InvalidQueryException(message + " (posición " + (start + 1) + ")");
+    }
+    
+    public String getSource() { return src; }
+}
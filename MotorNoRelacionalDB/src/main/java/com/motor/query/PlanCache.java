@@ -0,0 +1,87 @@
+package com.motor.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PLANCACHE - Caché LRU de consultas parseadas
+ * 
+ * Clave: texto normalizado (QueryParser.normalize), con los literales
+ * reemplazados por ?. Valor: el árbol Query con Parameter en esos lugares.
+ * Como los nodos de Query son inmutables, un mismo árbol lo comparten todas
+ * las ejecuciones de esa forma de consulta; cada una hace bind() con sus
+ * propios valores.
+ * 
+ * LinkedHashMap en orden de acceso: al superar la capacidad sale la entrada
+ * usada hace más tiempo.
+ * 
+ * Thread-safe (métodos synchronized, operaciones O(1)).
+ * 
+ * Complejidad:
+ * - get(), put(): O(1) promedio (más el hash del texto)
+ */
+public class PlanCache {
+    
+    private final int capacity;
+    private final LinkedHashMap<String, Query> plans;
+    private long hits, misses, evictions;
+    
+    public PlanCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Tamaño de caché inválido: " + capacity);
+        this.capacity = capacity;
+        this.plans = new LinkedHashMap<String, Query>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Query> eldest) {
+                if (size() <= PlanCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Buscar el plan de una consulta normalizada (cuenta acierto o fallo)
+     * Complejidad: O(1)
+     */
+    public synchronized Query get(String normalized) {
+        Query plan = plans.get(normalized);
+        if (plan != null) hits++;
+        else misses++;
+        return plan;
+    }
+    
+    /**
+     * Guardar un plan (desaloja el LRU si se supera la capacidad)
+     * Complejidad: O(1)
+     */
+    public synchronized void put(String normalized, Query plan) {
+        plans.put(normalized, plan);
+    }
+    
+    public synchronized void clear() {
+        plans.clear();
+    }
+    
+    // ==================== ESTADÍSTICAS ====================
+    
+    public int getCapacity() { return capacity; }
+    public synchronized int size() { return plans.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    public synchronized void resetStats() {
+        hits = misses = evictions = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("PlanCache{%d/%d planes, aciertos %.1f%%, desalojos %d}",
+            plans.size(), capacity, getHitRatio() * 100, evictions);
+    }
+}
@@ -0,0 +1,91 @@
+package com.motor.query;
+
+import com.motor.utils.Exceptions.InvalidQueryException;
+
+/**
+ * PREPAREDSTATEMENT - Consulta preparada con parámetros ?
+ * 
+ * Se obtiene con QueryProcessor.prepare(): el texto se parsea una sola vez
+ * (o se toma de la caché de planes) y cada ejecución solo reemplaza los ?
+ * por los valores recibidos, en orden de aparición.
+ * 
+ * Los valores van ya tipados (Integer, Long, Double, String, Boolean o null)
+ * y no se vuelven a analizar como texto: un String con comillas o palabras
+ * clave es solo un valor, no puede alterar la consulta.
+ * 
+ *   PreparedStatement ps = processor.prepare("SELECT * FROM estudiantes WHERE edad >= ? AND carrera = ?");
+ *   List<Document> r = ps.executeQuery(18, "Sistemas").toList();
+ * 
+ * Inmutable y reutilizable desde varios hilos.
+ */
+public class PreparedStatement {
+    
+    private final QueryExecutor executor;
+    private final Query plan;
+    private final Object[] literals;   // Literales del texto; null en los ? del usuario
+    private final int[] userSlots;     // Posición en literals de cada ? del usuario
+    private final String text;
+    
+    PreparedStatement(QueryExecutor executor, Query plan, QueryParser.Normalized normalized) {
+        this.executor = executor;
+        this.plan = plan;
+        this.literals = normalized.literals;
+        this.userSlots = normalized.userSlots;
+        this.text = normalized.text;
+    }
+    
+    /**
+     * Consulta concreta con los parámetros reemplazados
+     * Complejidad: O(nodos)
+     * @throws InvalidQueryException si no coincide la cantidad de parámetros
+     */
+    public Query bind(Object... params) {
+        if (params.length != userSlots.length) {
+            throw new InvalidQueryException("se esperaban " + userSlots.length + " parámetros y se recibieron " + params.length);
+        }
+        Object[] args = literals.clone();
+        for (int i = 0; i < userSlots.length; i++) args[userSlots[i]] = params[i];
+        return plan.bind(args);
+    }
+    
+    /**
+     * Ejecutar un SELECT preparado (resultado perezoso)
+     * Complejidad: la de QueryExecutor.execute()
+     */
+    public ResultSet executeQuery(Object... params) {
+        return resume(null, params);
+    }
+    
+    /**
+     * Reanudar un SELECT preparado desde un token de continuación
+     * (los parámetros deben ser los mismos de la página anterior)
+     */
+    public ResultSet resume(String continuation, Object... params) {
+        Query q = bind(params);
+        if (q.kind() != Query.Kind.SELECT) throw new InvalidQueryException("executeQuery requiere un SELECT");
+        return executor.execute((Query.Select) q, continuation);
+    }
+    
+    /**
+     * Ejecutar un INSERT o DELETE preparado
+     * @return documentos insertados o eliminados
+     */
+    public int executeUpdate(Object... params) {
+        Query q = bind(params);
+        switch (q.kind()) {
+            case INSERT: return executor.insert((Query.Insert) q);
+            case DELETE: return executor.delete((Query.Delete) q);
+            default: throw new InvalidQueryException("executeUpdate requiere un INSERT o DELETE");
+        }
+    }
+    
+    public Query.Kind kind() { return plan.kind(); }
+    
+    public int getParameterCount() { return userSlots.length; }
+    
+    // Forma normalizada (la clave en la caché de planes)
+    public String getText() { return text; }
+    
+    @Override
+    public String toString() { return text; }
+}
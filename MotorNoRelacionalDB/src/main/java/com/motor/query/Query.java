@@ -0,0 +1,457 @@
+package com.motor.query;
+
+import com.motor.core.Document;
+import com.motor.core.FieldKey;
+import com.motor.utils.Exceptions.InvalidQueryException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QUERY - Árbol sintáctico (AST) tipado de una consulta
+ * 
+ * Lo produce QueryParser y lo consume QueryExecutor:
+ * 
+ *   Select: SELECT campos|* FROM col [WHERE cond] [ORDER BY campo [ASC|DESC], ...]
+ *           [LIMIT n] [OFFSET m]
+ *   Insert: INSERT INTO col VALUES (id, campo=valor, ...)
+ *   Delete: DELETE FROM col [WHERE cond]
+ *   Explain: EXPLAIN select (plan elegido, costo estimado y real)
+ * 
+ *   Condition: Comparison (campo op valor), In (campo IN (v1, v2...)),
+ *              And / Or (n-arios, con paréntesis para agrupar)
+ * 
+ * Los valores son Integer/Long/Double/String/Boolean/null ya tipados, o un
+ * Parameter (?) que bind() reemplaza por el valor real. Todos los nodos son
+ * inmutables: bind() arma un árbol nuevo y el original se puede reutilizar
+ * (sentencias preparadas, caché de planes). toString() devuelve la consulta
+ * normalizada.
+ */
+public abstract class Query {
+    
+    public enum Kind { SELECT, INSERT, DELETE, EXPLAIN }
+    
+    public final String collection;
+    
+    protected Query(String collection) {
+        this.collection = collection;
+    }
+    
+    public abstract Kind kind();
+    
+    /**
+     * Copia con los parámetros (?) reemplazados por args[índice]
+     * Complejidad: O(nodos)
+     */
+    public abstract Query bind(Object[] args);
+    
+    /**
+     * Cantidad de parámetros (? de mayor índice + 1)
+     * Complejidad: O(nodos)
+     */
+    public abstract int parameterCount();
+    
+    // ==================== CONSULTAS ====================
+    
+    public static final class Select extends Query {
+        public final List<String> fields;      // null = todos (*)
+        public final Condition where;          // null = sin filtro
+        public final List<OrderBy> orderBy;    // Vacía = orden de _id
+        public final int limit;                // -1 = sin límite
+        public final int offset;
+        
+        public Select(String collection, List<String> fields, Condition where,
+                      List<OrderBy> orderBy, int limit, int offset) {
+            super(collection);
+            this.fields = fields;
+            this.where = where;
+            this.orderBy = orderBy;
+            this.limit = limit;
+            this.offset = offset;
+        }
+        
+        @Override
+        public Kind kind() { return Kind.SELECT; }
+        
+        @Override
+        public Select bind(Object[] args) {
+            if (where == null) return this;
+            return new Select(collection, fields, where.bind(args), orderBy, limit, offset);
+        }
+        
+        @Override
+        public int parameterCount() { return where == null ? 0 : where.parameterCount(); }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("SELECT ");
+            sb.append(fields == null ? "*" : String.join(", ", fields));
+            sb.append(" FROM ").append(collection);
+            if (where != null) sb.append(" WHERE ").append(where);
+            for (int i = 0; i < orderBy.size(); i++) sb.append(i == 0 ? " ORDER BY " : ", ").append(orderBy.get(i));
+            if (limit >= 0) sb.append(" LIMIT ").append(limit);
+            if (offset > 0) sb.append(" OFFSET ").append(offset);
+            return sb.toString();
+        }
+    }
+    
+    public static final class Insert extends Query {
+        public final Object id;
+        public final List<String> fields;
+        public final List<Object> values;      // Paralela a fields
+        
+        public Insert(String collection, Object id, List<String> fields, List<Object> values) {
+            super(collection);
+            this.id = id;
+            this.fields = fields;
+            this.values = values;
+        }
+        
+        @Override
+        public Kind kind() { return Kind.INSERT; }
+        
+        @Override
+        public Insert bind(Object[] args) {
+            Object boundId = bindValue(id, args);
+            if (boundId == null) throw new InvalidQueryException("el ID no puede ser NULL");
+            return new Insert(collection, boundId, fields, bindValues(values, args));
+        }
+        
+        @Override
+        public int parameterCount() { return Math.max(countParameters(id), countParameters(values)); }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(collection).append(" VALUES (");
+            sb.append(literal(id));
+            for (int i = 0; i < fields.size(); i++) {
+                sb.append(", ").append(fields.get(i)).append(" = ").append(literal(values.get(i)));
+            }
+            return sb.append(")").toString();
+        }
+    }
+    
+    public static final class Delete extends Query {
+        public final Condition where;          // null = todos
+        
+        public Delete(String collection, Condition where) {
+            super(collection);
+            this.where = where;
+        }
+        
+        @Override
+        public Kind kind() { return Kind.DELETE; }
+        
+        @Override
+        public Delete bind(Object[] args) {
+            return where == null ? this : new Delete(collection, where.bind(args));
+        }
+        
+        @Override
+        public int parameterCount() { return where == null ? 0 : where.parameterCount(); }
+        
+        @Override
+        public String toString() {
+            return "DELETE FROM " + collection + (where != null ? " WHERE " + where : "");
+        }
+    }
+    
+    public static final class Explain extends Query {
+        public final Select select;
+        
+        public Explain(Select select) {
+            super(select.collection);
+            this.select = select;
+        }
+        
+        @Override
+        public Kind kind() { return Kind.EXPLAIN; }
+        
+        @Override
+        public Explain bind(Object[] args) {
+            Select bound = select.bind(args);
+            return bound == select ? this : new Explain(bound);
+        }
+        
+        @Override
+        public int parameterCount() { return select.parameterCount(); }
+        
+        @Override
+        public String toString() { return "EXPLAIN " + select; }
+    }
+    
+    public static final class OrderBy {
+        public final String field;
+        public final boolean descending;
+        
+        public OrderBy(String field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+        
+        @Override
+        public String toString() { return field + (descending ? " DESC" : " ASC"); }
+    }
+    
+    // ==================== CONDICIONES ====================
+    
+    public enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+        
+        public final String symbol;
+        
+        Op(String symbol) { this.symbol = symbol; }
+        
+        // Aplicar a un resultado de comparación (negativo, cero, positivo)
+        boolean test(int cmp) {
+            switch (this) {
+                case EQ: return cmp == 0;
+                case NE: return cmp != 0;
+                case LT: return cmp < 0;
+                case LE: return cmp <= 0;
+                case GT: return cmp > 0;
+                default: return cmp >= 0;
+            }
+        }
+    }
+    
+    public abstract static class Condition {
+        public abstract boolean matches(Document doc);
+        
+        public abstract Condition bind(Object[] args);
+        
+        public abstract int parameterCount();
+    }
+    
+    /**
+     * campo op valor
+     * Tipos distintos (texto contra número) o campo ausente: solo != es verdadero
+     * Contra _id el valor se compara como texto (_id = 5 es _id = '5', como lo guarda INSERT)
+     */
+    public static final class Comparison extends Condition {
+        public final String field;
+        public final Op op;
+        public final Object value;
+        
+        private final boolean topLevel;  // Campo del documento (ni _id ni a.b)
+        
+        public Comparison(String field, Op op, Object value) {
+            this.field = field;
+            this.op = op;
+            this.value = idLiteral(field, value);
+            this.topLevel = !field.equals("_id") && field.indexOf('.') < 0;
+        }
+        
+        @Override
+        public boolean matches(Document doc) {
+            // Números contra campos numéricos: se comparan los primitivos, sin cajas
+            if (topLevel && (value instanceof Integer || value instanceof Long || value instanceof Double)) {
+                Document.Type t = doc.getType(field);
+                if (t == Document.Type.INT || t == Document.Type.LONG) {
+                    return op.test(value instanceof Double
+                        ? FieldKey.compareExact(doc.getLong(field), (Double) value)
+                        : Long.compare(doc.getLong(field), ((Number) value).longValue()));
+                }
+                if (t == Document.Type.DOUBLE) {
+                    return op.test(value instanceof Double
+                        ? FieldKey.compareDoubles(doc.getDouble(field), (Double) value)
+                        : -FieldKey.compareExact(((Number) value).longValue(), doc.getDouble(field)));
+                }
+            }
+            Object v = fieldValue(doc, field);
+            if (v == null || value == null) {
+                return op == Op.EQ ? v == value : op == Op.NE && v != value;
+            }
+            if (!FieldKey.sameKind(v, value)) return op == Op.NE;
+            return op.test(FieldKey.compare(v, value));
+        }
+        
+        @Override
+        public Condition bind(Object[] args) {
+            return value instanceof Parameter ? new Comparison(field, op, bindValue(value, args)) : this;
+        }
+        
+        @Override
+        public int parameterCount() { return countParameters(value); }
+        
+        @Override
+        public String toString() { return field + " " + op.symbol + " " + literal(value); }
+    }
+    
+    public static final class In extends Condition {
+        public final String field;
+        public final List<Object> values;
+        
+        public In(String field, List<Object> values) {
+            this.field = field;
+            if (field.equals("_id")) {
+                List<Object> ids = new ArrayList<>(values.size());
+                for (Object v : values) ids.add(idLiteral(field, v));
+                values = ids;
+            }
+            this.values = values;
+        }
+        
+        @Override
+        public boolean matches(Document doc) {
+            Object v = fieldValue(doc, field);
+            for (Object candidate : values) {
+                if (v == null ? candidate == null
+                        : candidate != null && FieldKey.sameKind(v, candidate) && FieldKey.compare(v, candidate) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public Condition bind(Object[] args) { return new In(field, bindValues(values, args)); }
+        
+        @Override
+        public int parameterCount() { return countParameters(values); }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(field).append(" IN (");
+            for (int i = 0; i < values.size(); i++) sb.append(i > 0 ? ", " : "").append(literal(values.get(i)));
+            return sb.append(")").toString();
+        }
+    }
+    
+    public static final class And extends Condition {
+        public final List<Condition> terms;
+        
+        public And(List<Condition> terms) { this.terms = terms; }
+        
+        @Override
+        public boolean matches(Document doc) {
+            for (Condition c : terms) if (!c.matches(doc)) return false;
+            return true;
+        }
+        
+        @Override
+        public Condition bind(Object[] args) { return new And(bindAll(terms, args)); }
+        
+        @Override
+        public int parameterCount() { return maxParameters(terms); }
+        
+        @Override
+        public String toString() { return join(terms, " AND "); }
+    }
+    
+    public static final class Or extends Condition {
+        public final List<Condition> terms;
+        
+        public Or(List<Condition> terms) { this.terms = terms; }
+        
+        @Override
+        public boolean matches(Document doc) {
+            for (Condition c : terms) if (c.matches(doc)) return true;
+            return false;
+        }
+        
+        @Override
+        public Condition bind(Object[] args) { return new Or(bindAll(terms, args)); }
+        
+        @Override
+        public int parameterCount() { return maxParameters(terms); }
+        
+        @Override
+        public String toString() { return join(terms, " OR "); }
+    }
+    
+    private static String join(List<Condition> terms, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms.size(); i++) {
+            Condition c = terms.get(i);
+            if (i > 0) sb.append(separator);
+            sb.append(c instanceof Or ? "(" + c + ")" : c.toString());  // AND liga más fuerte que OR
+        }
+        return sb.toString();
+    }
+    
+    private static List<Condition> bindAll(List<Condition> terms, Object[] args) {
+        List<Condition> bound = new ArrayList<>(terms.size());
+        for (Condition c : terms) bound.add(c.bind(args));
+        return bound;
+    }
+    
+    private static int maxParameters(List<Condition> terms) {
+        int max = 0;
+        for (Condition c : terms) max = Math.max(max, c.parameterCount());
+        return max;
+    }
+    
+    // ==================== PARÁMETROS ====================
+    
+    /**
+     * Marcador de parámetro (?) en la posición index (desde 0)
+     */
+    public static final class Parameter {
+        public final int index;
+        
+        public Parameter(int index) { this.index = index; }
+        
+        @Override
+        public String toString() { return "?"; }
+    }
+    
+    // Los _id se guardan como texto (INSERT usa String.valueOf): un literal contra _id también
+    private static Object idLiteral(String field, Object value) {
+        if (value == null || value instanceof Parameter || value instanceof String || !field.equals("_id")) return value;
+        return String.valueOf(value);
+    }
+    
+    private static Object bindValue(Object value, Object[] args) {
+        if (!(value instanceof Parameter)) return value;
+        int index = ((Parameter) value).index;
+        if (index >= args.length) throw new InvalidQueryException("falta el valor del parámetro " + (index + 1));
+        return args[index];
+    }
+    
+    private static List<Object> bindValues(List<Object> values, Object[] args) {
+        List<Object> bound = new ArrayList<>(values.size());
+        for (Object v : values) bound.add(bindValue(v, args));
+        return bound;
+    }
+    
+    private static int countParameters(Object value) {
+        return value instanceof Parameter ? ((Parameter) value).index + 1 : 0;
+    }
+    
+    private static int countParameters(List<Object> values) {
+        int max = 0;
+        for (Object v : values) max = Math.max(max, countParameters(v));
+        return max;
+    }
+    
+    // ==================== VALORES ====================
+    
+    /**
+     * Valor de un campo: "_id" es el ID del documento y "a.b" entra en
+     * documentos o mapas anidados
+     * Complejidad: O(niveles)
+     */
+    public static Object fieldValue(Document doc, String field) {
+        if (field.equals("_id")) return doc.getId();
+        if (field.indexOf('.') < 0) return doc.get(field);
+        Object current = doc;
+        int from = 0;
+        while (current != null && from <= field.length()) {
+            int dot = field.indexOf('.', from);
+            String part = field.substring(from, dot < 0 ? field.length() : dot);
+            if (current instanceof Document) current = ((Document) current).get(part);
+            else if (current instanceof Map) current = ((Map<?, ?>) current).get(part);
+            else return null;
+            if (dot < 0) break;
+            from = dot + 1;
+        }
+        return current;
+    }
+    
+    // Literal en la sintaxis de consulta (textos entre comillas simples)
+    public static String literal(Object value) {
+        if (value instanceof String) return "'" + ((String) value).replace("'", "''") + "'";
+        return String.valueOf(value);
+    }
+}
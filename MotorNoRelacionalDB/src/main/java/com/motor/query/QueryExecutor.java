@@ -1,21 +1,316 @@
 package com.motor.query;
 
+import com.motor.algorithms.SortAlgorithms;
 import com.motor.core.*;
+import com.motor.utils.Exceptions.CollectionNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * QUERYEXECUTOR - Ejecuta las consultas parseadas
  * 
  * Separación de responsabilidades:
  * - QueryParser: Analiza la sintaxis
- * - QueryExecutor: Ejecuta las operaciones
- * - QueryProcessor: Coordina ambos
+ * - QueryExecutor: Ejecuta las operaciones (no imprime nada)
+ * - QueryProcessor: Coordina ambos y muestra los resultados por consola
+ * 
+ * El camino de acceso lo elige QueryPlanner según costo estimado (búsqueda
+ * por _id, rango del Árbol B+, índice secundario o recorrido completo); la
+ * condición completa se verifica igual sobre cada candidato.
+ * 
+ * Un SELECT se ejecuta como una cadena de iteradores perezosos y devuelve un
+ * ResultSet: acceso -> WHERE -> orden -> OFFSET/LIMIT -> proyección.
+ * - Orden de _id (sin ORDER BY, o ORDER BY _id) con un acceso que recorre en
+ *   ese orden: nada se materializa y OFFSET + LIMIT cortan la lectura
+ * - Otro orden con LIMIT: top-k con un montículo de OFFSET + LIMIT + 1 documentos
+ * - Otro orden sin LIMIT: ordenamiento completo (MergeSort)
+ * 
+ * Proyección hacia el almacenamiento: si el SELECT nombra sus columnas, el
+ * acceso recibe los campos que la consulta usa (columnas, WHERE y ORDER BY)
+ * y un índice que guarda los documentos serializados decodifica solo esos.
  */
 public class QueryExecutor {
     
     private Database database;
+    private final QueryPlanner planner;
     
     public QueryExecutor(Database database) {
         this.database = database;
+        this.planner = new QueryPlanner();
+    }
+    
+    /**
+     * Ejecutar un SELECT como resultado perezoso
+     * Complejidad: O(1) para abrir con orden de _id; O(k log k) antes del
+     * primer documento si hay que ordenar
+     */
+    public ResultSet execute(Query.Select q) {
+        return execute(q, null);
+    }
+    
+    /**
+     * Reanudar un SELECT después de la clave codificada en el token
+     * (ResultSet.getContinuationToken(); null = desde el principio)
+     */
+    public ResultSet execute(Query.Select q, String continuation) {
+        Collection col = collection(q.collection);
+        List<Query.OrderBy> order = effectiveOrder(q.orderBy);
+        QueryPlanner.AccessPlan plan = planner.candidates(col, q.where, needed(q, order, continuation)).get(0);
+        return run(q, col, order, continuation, plan);
+    }
+    
+    /**
+     * Ejecutar un SELECT y materializar el resultado
+     * Complejidad: la del camino de acceso + O(k log k) si hay ORDER BY
+     */
+    public List<Document> select(Query.Select q) {
+        return execute(q).toList();
+    }
+    
+    private ResultSet run(Query.Select q, Collection col, List<Query.OrderBy> order, String continuation,
+                          QueryPlanner.AccessPlan plan) {
+        Object[] after = continuation == null ? null : ResultSet.decodeToken(continuation, order.size());
+        int offset = after == null ? q.offset : 0;
+        
+        Iterator<Document> rows;
+        if (order.size() == 1 && plan.idOrdered()) {
+            // El recorrido ya entrega el orden pedido: reanudar es empezar después del último _id
+            String afterId = after == null ? null : String.valueOf(after[0]);
+            rows = filter(plan.open(col, afterId, order.get(0).descending, usedFields(q, order)), q.where);
+        } else {
+            rows = filter(plan.open(col, null, false, usedFields(q, order)), q.where);
+            if (after != null) rows = filter(rows, doc -> compareKey(doc, order, after) > 0);
+            Comparator<Document> cmp = comparator(order);
+            // Uno más que los pedidos: así el ResultSet sabe si hay otra página
+            rows = q.limit < 0 ? sorted(rows, cmp) : topK(rows, cmp, offset + (long) q.limit + 1);
+        }
+        return new ResultSet(rows, offset, q.limit, q.fields, order, plan);
+    }
+    
+    // ORDER BY pedido + _id para desempatar (orden total, necesario para los tokens)
+    private static List<Query.OrderBy> effectiveOrder(List<Query.OrderBy> orderBy) {
+        List<Query.OrderBy> order = new ArrayList<>();
+        for (Query.OrderBy o : orderBy) {
+            order.add(o);
+            if (o.field.equals("_id")) return order;  // Lo que sigue no cambia el orden
+        }
+        order.add(new Query.OrderBy("_id", false));
+        return order;
+    }
+    
+    // Campos que lee la consulta: columnas, WHERE y orden (null = todos, SELECT *)
+    private static Set<String> usedFields(Query.Select q, List<Query.OrderBy> order) {
+        if (q.fields == null) return null;
+        Set<String> fields = conditionFields(q.where);
+        if (fields == null) return null;
+        fields.addAll(q.fields);
+        for (Query.OrderBy o : order) fields.add(o.field);
+        return fields;
+    }
+    
+    // Campos que nombra la condición (null = condición desconocida, pedir todos)
+    private static Set<String> conditionFields(Query.Condition where) {
+        Set<String> fields = new HashSet<>();
+        List<Query.Condition> pending = new ArrayList<>();
+        if (where != null) pending.add(where);
+        while (!pending.isEmpty()) {
+            Query.Condition c = pending.remove(pending.size() - 1);
+            if (c instanceof Query.Comparison) fields.add(((Query.Comparison) c).field);
+            else if (c instanceof Query.In) fields.add(((Query.In) c).field);
+            else if (c instanceof Query.And) pending.addAll(((Query.And) c).terms);
+            else if (c instanceof Query.Or) pending.addAll(((Query.Or) c).terms);
+            else return null;
+        }
+        return fields;
+    }
+    
+    // Documentos que alcanzan si el acceso recorre en orden de _id (-1 = todos)
+    private static long needed(Query.Select q, List<Query.OrderBy> order, String continuation) {
+        if (q.limit < 0 || order.size() > 1) return -1;
+        return (continuation == null ? q.offset : 0) + (long) q.limit;
+    }
+    
+    /**
+     * Ejecutar un INSERT (crea la colección si no existe)
+     * Complejidad: O(log n)
+     */
+    public int insert(Query.Insert q) {
+        Collection col = database.getCollection(q.collection);
+        if (col == null) col = database.createCollection(q.collection);
+        
+        Document doc = new Document(String.valueOf(q.id));
+        for (int i = 0; i < q.fields.size(); i++) doc.put(q.fields.get(i), q.values.get(i));
+        col.insert(doc);
+        return 1;
+    }
+    
+    /**
+     * Ejecutar un DELETE: elimina los documentos que cumplen el WHERE
+     * Complejidad: la del camino de acceso + O(k log n)
+     */
+    public int delete(Query.Delete q) {
+        Collection col = collection(q.collection);
+        int deleted = 0;
+        List<String> ids = new ArrayList<>();   // Primero juntar: no borrar mientras se recorre
+        // Solo hacen falta el _id y los campos del WHERE
+        Iterator<Document> matches = filter(planner.plan(col, q.where).open(col, null, false,
+            conditionFields(q.where)), q.where);
+        while (matches.hasNext()) ids.add(matches.next().getId());
+        for (String id : ids) {
+            if (col.delete(id)) deleted++;
+        }
+        return deleted;
+    }
+    
+    /**
+     * Camino de acceso que elegiría el planificador para la condición
+     */
+    public String accessPath(String collection, Query.Condition where) {
+        return planner.plan(collection(collection), where).toString();
+    }
+    
+    /**
+     * Ejecutar un SELECT hasta el final y describir su plan: el camino
+     * elegido con su costo estimado y el real, filas estimadas y reales, cómo
+     * se resolvió el orden y las alternativas descartadas (EXPLAIN)
+     * Complejidad: la del SELECT
+     */
+    public String explain(Query.Select q) {
+        Collection col = collection(q.collection);
+        Statistics st = planner.statistics(col);
+        List<Query.OrderBy> order = effectiveOrder(q.orderBy);
+        List<QueryPlanner.AccessPlan> plans = planner.candidates(col, q.where, needed(q, order, null));
+        QueryPlanner.AccessPlan chosen = plans.get(0);
+        
+        long start = System.nanoTime();
+        ResultSet rs = run(q, col, order, null, chosen);
+        while (rs.hasNext()) rs.next();
+        double ms = (System.nanoTime() - start) / 1e6;
+        
+        String sort;
+        if (order.size() == 1 && chosen.idOrdered()) sort = "el del recorrido" + (q.limit >= 0 ? " (OFFSET/LIMIT cortan la lectura)" : "");
+        else if (q.limit >= 0) sort = "top-k con montículo (k = " + (q.offset + (long) q.limit) + ")";
+        else sort = "ordenamiento completo (MergeSort)";
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append("Plan: ").append(chosen).append('\n');
+        sb.append(String.format("  Costo:          estimado %.1f | real %.1f%n", chosen.estimatedCost, chosen.actualCost()));
+        sb.append(String.format("  Filas leídas:   estimadas %.0f | reales %d%n", chosen.estimatedRows, chosen.getRowsRead()));
+        sb.append(String.format("  Filas del WHERE: estimadas %.0f%n", st.getRows() * st.selectivity(q.where)));
+        sb.append("  Orden: ").append(sort).append('\n');
+        sb.append(String.format("  Resultado: %d documentos en %.3f ms%n", rs.getReturned(), ms));
+        for (int i = 1; i < plans.size(); i++) {
+            sb.append(String.format("  Descartado: %s (costo estimado %.1f)%n", plans.get(i), plans.get(i).estimatedCost));
+        }
+        sb.append("  ").append(st);
+        return sb.toString();
+    }
+    
+    public QueryPlanner getPlanner() {
+        return planner;
+    }
+    
+    private Collection collection(String name) {
+        Collection col = database.getCollection(name);
+        if (col == null) throw new CollectionNotFoundException(name);
+        return col;
+    }
+    
+    // ==================== ITERADORES ====================
+    
+    private static Iterator<Document> filter(Iterator<Document> it, Query.Condition where) {
+        return where == null ? it : filter(it, where::matches);
+    }
+    
+    // Filtro perezoso con un documento de anticipación
+    private static Iterator<Document> filter(Iterator<Document> it, Predicate<Document> keep) {
+        return new Iterator<Document>() {
+            private Document next;
+            
+            @Override
+            public boolean hasNext() {
+                while (next == null && it.hasNext()) {
+                    Document doc = it.next();
+                    if (keep.test(doc)) next = doc;
+                }
+                return next != null;
+            }
+            
+            @Override
+            public Document next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Document doc = next;
+                next = null;
+                return doc;
+            }
+        };
+    }
+    
+    // Ordenar todo - O(k log k) tiempo, O(k) memoria
+    private static Iterator<Document> sorted(Iterator<Document> it, Comparator<Document> cmp) {
+        List<Document> all = new ArrayList<>();
+        while (it.hasNext()) all.add(it.next());
+        Document[] docs = all.toArray(new Document[0]);
+        SortAlgorithms.mergeSort(docs, 0, docs.length - 1, cmp);
+        return Arrays.asList(docs).iterator();
+    }
+    
+    // Los k primeros según cmp: montículo de máximos de tamaño k - O(n log k) tiempo, O(k) memoria
+    private static Iterator<Document> topK(Iterator<Document> it, Comparator<Document> cmp, long k) {
+        if (k <= 0) return new ArrayList<Document>().iterator();
+        int capacity = (int) Math.min(k, Integer.MAX_VALUE - 8);
+        PriorityQueue<Document> heap = new PriorityQueue<>(Math.min(capacity, 1024), cmp.reversed());
+        while (it.hasNext()) {
+            Document doc = it.next();
+            if (heap.size() < capacity) {
+                heap.add(doc);
+            } else if (cmp.compare(doc, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+        Document[] docs = new Document[heap.size()];
+        for (int i = docs.length - 1; i >= 0; i--) docs[i] = heap.poll();  // Sale primero el mayor
+        return Arrays.asList(docs).iterator();
+    }
+    
+    // Comparar un documento con la clave de un token (mismo orden que comparator())
+    private static int compareKey(Document doc, List<Query.OrderBy> order, Object[] key) {
+        for (int i = 0; i < key.length; i++) {
+            Query.OrderBy o = order.get(i);
+            int cmp = FieldKey.compare(Query.fieldValue(doc, o.field), key[i]);
+            if (cmp != 0) return o.descending ? -cmp : cmp;
+        }
+        return 0;
+    }
+    
+    // Comparador de ORDER BY (mismo orden entre tipos que los índices: FieldKey)
+    private static Comparator<Document> comparator(List<Query.OrderBy> orderBy) {
+        return (a, b) -> {
+            for (Query.OrderBy o : orderBy) {
+                int cmp = FieldKey.compare(Query.fieldValue(a, o.field), Query.fieldValue(b, o.field));
+                if (cmp != 0) return o.descending ? -cmp : cmp;
+            }
+            return 0;
+        };
+    }
+    
+    static Document project(Document doc, List<String> fields) {
+        Document result = new Document(doc.getId());
+        for (String field : fields) {
+            if (field.equals("_id")) continue;
+            Object value = Query.fieldValue(doc, field);
+            if (value != null) result.put(field, value);
+        }
+        return result;
     }
     
     public Database getDatabase() {
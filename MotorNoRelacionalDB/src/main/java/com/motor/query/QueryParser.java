@@ -1,119 +1,290 @@
 package com.motor.query;
 
+import com.motor.utils.Exceptions.InvalidQueryException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * QUERYPARSER - Analiza sintácticamente las consultas
  * 
- * Formato soportado:
- * - SELECT * FROM coleccion
- * - SELECT * FROM coleccion WHERE campo=valor
- * - INSERT INTO coleccion VALUES (id, campo=valor,campo2=valor2)
- * - DELETE FROM coleccion WHERE _id=valor
+ * Parser descendente recursivo sobre los tokens de Lexer; produce un AST
+ * tipado (Query). Las palabras clave no distinguen mayúsculas, pero los
+ * nombres de colecciones, campos y los valores se conservan tal cual.
+ * 
+ * Gramática:
+ * 
+ *   consulta   := [EXPLAIN] select | insert | delete
+ *   select     := SELECT ('*' | campo {',' campo}) FROM nombre [WHERE or]
+ *                 [ORDER BY campo [ASC|DESC] {',' ...}] [LIMIT n] [OFFSET n]
+ *   insert     := INSERT INTO nombre VALUES '(' valor {',' campo '=' valor} ')'
+ *   delete     := DELETE FROM nombre [WHERE or]
+ *   or         := and {OR and}
+ *   and        := primario {AND primario}
+ *   primario   := '(' or ')' | campo op valor | campo IN '(' valor {',' valor} ')'
+ *   op         := = | != | <> | < | <= | > | >=
+ *   valor      := 'texto' | "texto" | número | TRUE | FALSE | NULL | ? | palabra
+ * 
+ * Una palabra sin comillas como valor se toma como texto (WHERE carrera = Sistemas).
+ * Cada ? es un Query.Parameter numerado por orden de aparición; Query.bind()
+ * lo reemplaza por el valor real (sentencias preparadas).
+ * 
+ * normalize() reescribe la consulta con los literales como ? para que
+ * consultas con la misma forma compartan un único árbol en la caché de planes.
  * 
  * Complejidad del parsing: O(n) donde n = longitud de la consulta
  */
 public class QueryParser {
     
-    // Clase para almacenar consulta parseada
-    public static class ParsedQuery {
-        public String operation;     // SELECT, INSERT, DELETE
-        public String collection;    // Nombre de colección
-        public String whereField;    // Campo del WHERE
-        public String whereValue;    // Valor del WHERE
-        public String docId;         // ID para INSERT
-        public String data;          // Datos para INSERT
-    }
-    
     /**
      * Parsear consulta
      * Complejidad: O(n)
+     * @throws InvalidQueryException con la posición del error
      */
-    public ParsedQuery parse(String query) throws Exception {
-        ParsedQuery result = new ParsedQuery();
-        query = query.trim().toUpperCase();
-        String originalQuery = query;
-        
-        // Detectar operación
-        if (query.startsWith("SELECT")) {
-            result.operation = "SELECT";
-            parseSelect(originalQuery, result);
-        } else if (query.startsWith("INSERT")) {
-            result.operation = "INSERT";
-            parseInsert(originalQuery, result);
-        } else if (query.startsWith("DELETE")) {
-            result.operation = "DELETE";
-            parseDelete(originalQuery, result);
-        } else {
-            throw new Exception("Operación no reconocida");
-        }
+    public Query parse(String query) {
+        Lexer lx = new Lexer(query);
+        Query result;
+        if (lx.isKeyword("SELECT")) result = parseSelect(lx);
+        else if (lx.isKeyword("EXPLAIN")) result = parseExplain(lx);
+        else if (lx.isKeyword("INSERT")) result = parseInsert(lx);
+        else if (lx.isKeyword("DELETE")) result = parseDelete(lx);
+        else throw lx.error("operación no reconocida (SELECT, INSERT, DELETE o EXPLAIN)");
         
+        if (lx.type() != Lexer.Type.EOF) throw lx.error("texto inesperado '" + lx.text() + "'");
         return result;
     }
     
-    private void parseSelect(String query, ParsedQuery result) throws Exception {
-        // SELECT * FROM coleccion [WHERE campo=valor]
-        query = query.trim();
+    private Query.Select parseSelect(Lexer lx) {
+        lx.advance();  // SELECT
+        List<String> fields = null;
+        if (lx.type() == Lexer.Type.STAR) {
+            lx.advance();
+        } else {
+            fields = new ArrayList<>();
+            fields.add(identifier(lx, "campo"));
+            while (accept(lx, Lexer.Type.COMMA)) fields.add(identifier(lx, "campo"));
+        }
+        expectKeyword(lx, "FROM");
+        String collection = identifier(lx, "colección");
         
-        int fromIndex = query.toUpperCase().indexOf("FROM");
-        if (fromIndex == -1) throw new Exception("Falta FROM");
+        Query.Condition where = null;
+        if (acceptKeyword(lx, "WHERE")) where = parseOr(lx);
         
-        int whereIndex = query.toUpperCase().indexOf("WHERE");
+        List<Query.OrderBy> orderBy = Collections.emptyList();
+        if (acceptKeyword(lx, "ORDER")) {
+            expectKeyword(lx, "BY");
+            orderBy = new ArrayList<>();
+            do {
+                String field = identifier(lx, "campo");
+                boolean descending = false;
+                if (acceptKeyword(lx, "DESC")) descending = true;
+                else acceptKeyword(lx, "ASC");
+                orderBy.add(new Query.OrderBy(field, descending));
+            } while (accept(lx, Lexer.Type.COMMA));
+        }
         
-        if (whereIndex == -1) {
-            result.collection = query.substring(fromIndex + 4).trim();
-        } else {
-            result.collection = query.substring(fromIndex + 4, whereIndex).trim();
-            String whereClause = query.substring(whereIndex + 5).trim();
-            String[] parts = whereClause.split("=");
-            if (parts.length == 2) {
-                result.whereField = parts[0].trim();
-                result.whereValue = parts[1].trim();
-            }
+        int limit = -1, offset = 0;
+        if (acceptKeyword(lx, "LIMIT")) limit = count(lx, "LIMIT");
+        if (acceptKeyword(lx, "OFFSET")) offset = count(lx, "OFFSET");
+        return new Query.Select(collection, fields, where, orderBy, limit, offset);
+    }
+    
+    private Query.Explain parseExplain(Lexer lx) {
+        lx.advance();  // EXPLAIN
+        if (!lx.isKeyword("SELECT")) throw lx.error("EXPLAIN solo admite SELECT");
+        return new Query.Explain(parseSelect(lx));
+    }
+    
+    private Query.Insert parseInsert(Lexer lx) {
+        lx.advance();  // INSERT
+        expectKeyword(lx, "INTO");
+        String collection = identifier(lx, "colección");
+        expectKeyword(lx, "VALUES");
+        expect(lx, Lexer.Type.LPAREN, "'('");
+        Object id = value(lx);
+        List<String> fields = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        while (accept(lx, Lexer.Type.COMMA)) {
+            fields.add(identifier(lx, "campo"));
+            expect(lx, Lexer.Type.EQ, "'='");
+            values.add(value(lx));
         }
+        expect(lx, Lexer.Type.RPAREN, "')'");
+        if (id == null) throw lx.error("el ID no puede ser NULL");
+        return new Query.Insert(collection, id, fields, values);
     }
     
-    private void parseInsert(String query, ParsedQuery result) throws Exception {
-        // INSERT INTO coleccion VALUES (id, datos)
-        query = query.trim();
-        
-        int intoIndex = query.toUpperCase().indexOf("INTO");
-        int valuesIndex = query.toUpperCase().indexOf("VALUES");
-        
-        if (intoIndex == -1 || valuesIndex == -1) {
-            throw new Exception("Formato: INSERT INTO col VALUES (id, datos)");
+    private Query.Delete parseDelete(Lexer lx) {
+        lx.advance();  // DELETE
+        expectKeyword(lx, "FROM");
+        String collection = identifier(lx, "colección");
+        Query.Condition where = null;
+        if (acceptKeyword(lx, "WHERE")) where = parseOr(lx);
+        return new Query.Delete(collection, where);
+    }
+    
+    // ==================== CONDICIONES ====================
+    
+    private Query.Condition parseOr(Lexer lx) {
+        Query.Condition first = parseAnd(lx);
+        if (!lx.isKeyword("OR")) return first;
+        List<Query.Condition> terms = new ArrayList<>();
+        addFlattened(terms, first, true);
+        while (acceptKeyword(lx, "OR")) addFlattened(terms, parseAnd(lx), true);
+        return new Query.Or(terms);
+    }
+    
+    private Query.Condition parseAnd(Lexer lx) {
+        Query.Condition first = parsePrimary(lx);
+        if (!lx.isKeyword("AND")) return first;
+        List<Query.Condition> terms = new ArrayList<>();
+        addFlattened(terms, first, false);
+        while (acceptKeyword(lx, "AND")) addFlattened(terms, parsePrimary(lx), false);
+        return new Query.And(terms);
+    }
+    
+    // (a OR b) OR c -> OR(a, b, c); igual con AND
+    private static void addFlattened(List<Query.Condition> terms, Query.Condition c, boolean or) {
+        if (or && c instanceof Query.Or) terms.addAll(((Query.Or) c).terms);
+        else if (!or && c instanceof Query.And) terms.addAll(((Query.And) c).terms);
+        else terms.add(c);
+    }
+    
+    private Query.Condition parsePrimary(Lexer lx) {
+        if (accept(lx, Lexer.Type.LPAREN)) {
+            Query.Condition inner = parseOr(lx);
+            expect(lx, Lexer.Type.RPAREN, "')'");
+            return inner;
         }
-        
-        result.collection = query.substring(intoIndex + 4, valuesIndex).trim();
-        
-        String valuesStr = query.substring(valuesIndex + 6).trim();
-        if (valuesStr.startsWith("(") && valuesStr.endsWith(")")) {
-            valuesStr = valuesStr.substring(1, valuesStr.length() - 1);
-            String[] parts = valuesStr.split(",", 2);
-            result.docId = parts[0].trim();
-            if (parts.length > 1) {
-                result.data = parts[1].trim();
-            }
+        String field = identifier(lx, "campo");
+        if (acceptKeyword(lx, "IN")) {
+            expect(lx, Lexer.Type.LPAREN, "'('");
+            List<Object> values = new ArrayList<>();
+            values.add(value(lx));
+            while (accept(lx, Lexer.Type.COMMA)) values.add(value(lx));
+            expect(lx, Lexer.Type.RPAREN, "')'");
+            return new Query.In(field, values);
         }
+        Query.Op op;
+        switch (lx.type()) {
+            case EQ: op = Query.Op.EQ; break;
+            case NE: op = Query.Op.NE; break;
+            case LT: op = Query.Op.LT; break;
+            case LE: op = Query.Op.LE; break;
+            case GT: op = Query.Op.GT; break;
+            case GE: op = Query.Op.GE; break;
+            default: throw lx.error("se esperaba un operador (=, !=, <, <=, >, >=, IN)");
+        }
+        lx.advance();
+        return new Query.Comparison(field, op, value(lx));
     }
     
-    private void parseDelete(String query, ParsedQuery result) throws Exception {
-        // DELETE FROM coleccion WHERE _id=valor
-        query = query.trim();
-        
-        int fromIndex = query.toUpperCase().indexOf("FROM");
-        int whereIndex = query.toUpperCase().indexOf("WHERE");
+    // ==================== NORMALIZACIÓN ====================
+    
+    /**
+     * Forma de una consulta: texto con cada literal (texto o número) como ?,
+     * los literales extraídos en orden y las posiciones de los ? originales.
+     * Los números de LIMIT/OFFSET y las palabras sin comillas quedan en el texto;
+     * las palabras clave conservan sus mayúsculas (una aplicación envía siempre
+     * el mismo texto para la misma forma).
+     */
+    public static final class Normalized {
+        public final String text;
+        public final Object[] literals;   // null en las posiciones de ? del usuario
+        public final int[] userSlots;     // Índices de los ? escritos en la consulta
         
-        if (fromIndex == -1) throw new Exception("Falta FROM");
+        Normalized(String text, Object[] literals, int[] userSlots) {
+            this.text = text;
+            this.literals = literals;
+            this.userSlots = userSlots;
+        }
+    }
+    
+    /**
+     * Normalizar solo con el lexer (sin construir el AST)
+     * Complejidad: O(n)
+     */
+    public Normalized normalize(String query) {
+        Lexer lx = new Lexer(query);
+        StringBuilder sb = new StringBuilder(query.length());
+        List<Object> literals = new ArrayList<>();
+        List<Integer> userSlots = new ArrayList<>();
+        boolean afterCount = false;   // El token anterior fue LIMIT u OFFSET
         
-        if (whereIndex == -1) {
-            result.collection = query.substring(fromIndex + 4).trim();
-        } else {
-            result.collection = query.substring(fromIndex + 4, whereIndex).trim();
-            String whereClause = query.substring(whereIndex + 5).trim();
-            String[] parts = whereClause.split("=");
-            if (parts.length == 2) {
-                result.whereField = parts[0].trim();
-                result.whereValue = parts[1].trim();
+        while (lx.type() != Lexer.Type.EOF) {
+            if (sb.length() > 0) sb.append(' ');
+            Lexer.Type t = lx.type();
+            if (t == Lexer.Type.STRING || (t == Lexer.Type.NUMBER && !afterCount)) {
+                literals.add(t == Lexer.Type.STRING ? lx.stringValue() : lx.numberValue());
+                sb.append('?');
+            } else if (t == Lexer.Type.PARAM) {
+                userSlots.add(literals.size());
+                literals.add(null);
+                sb.append('?');
+            } else {
+                lx.appendText(sb);
             }
+            afterCount = lx.isKeyword("LIMIT") || lx.isKeyword("OFFSET");
+            lx.advance();
         }
+        
+        int[] slots = new int[userSlots.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = userSlots.get(i);
+        return new Normalized(sb.toString(), literals.toArray(), slots);
+    }
+    
+    // ==================== TOKENS ====================
+    
+    private Object value(Lexer lx) {
+        Object v;
+        switch (lx.type()) {
+            case STRING: v = lx.stringValue(); break;
+            case NUMBER: v = lx.numberValue(); break;
+            case PARAM: v = new Query.Parameter(lx.nextParameter()); break;
+            case IDENT:
+                if (lx.isKeyword("NULL")) v = null;
+                else if (lx.isKeyword("TRUE")) v = Boolean.TRUE;
+                else if (lx.isKeyword("FALSE")) v = Boolean.FALSE;
+                else v = lx.text();  // Palabra sin comillas: texto
+                break;
+            default: throw lx.error("se esperaba un valor");
+        }
+        lx.advance();
+        return v;
+    }
+    
+    private String identifier(Lexer lx, String what) {
+        if (lx.type() != Lexer.Type.IDENT) throw lx.error("se esperaba " + what);
+        String name = lx.text();
+        lx.advance();
+        return name;
+    }
+    
+    private int count(Lexer lx, String clause) {
+        if (lx.type() != Lexer.Type.NUMBER) throw lx.error("se esperaba un número en " + clause);
+        Number n = lx.numberValue();
+        if (!(n instanceof Integer) || n.intValue() < 0) throw lx.error(clause + " debe ser un entero >= 0");
+        lx.advance();
+        return n.intValue();
+    }
+    
+    private static boolean accept(Lexer lx, Lexer.Type type) {
+        if (lx.type() != type) return false;
+        lx.advance();
+        return true;
+    }
+    
+    private static boolean acceptKeyword(Lexer lx, String keyword) {
+        if (!lx.isKeyword(keyword)) return false;
+        lx.advance();
+        return true;
+    }
+    
+    private static void expect(Lexer lx, Lexer.Type type, String what) {
+        if (!accept(lx, type)) throw lx.error("se esperaba " + what);
+    }
+    
+    private static void expectKeyword(Lexer lx, String keyword) {
+        if (!acceptKeyword(lx, keyword)) throw lx.error("se esperaba " + keyword);
     }
 }
@@ -0,0 +1,470 @@
+package com.motor.query;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import com.motor.core.FieldKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QUERYPLANNER - Planificador de consultas basado en costos
+ * 
+ * Para cada WHERE arma los caminos de acceso posibles, estima cuántos
+ * documentos lee cada uno con las estadísticas de la colección (Statistics)
+ * y elige el más barato:
+ * - PK_LOOKUP:    _id = v / _id IN (...)       -> findById por valor
+ * - PK_RANGE:     _id < / <= / > / >= 'texto'  -> rango del Árbol B+ principal
+ * - INDEX_LOOKUP: campo = v / IN con índice     -> findByField por valor
+ * - INDEX_RANGE:  rango sobre índice "bplus"    -> findByFieldRange
+ * - FULL_SCAN:    siempre posible               -> recorrido completo
+ * 
+ * Solo se usan los términos de primer nivel de un AND; el resto del WHERE
+ * se verifica sobre cada documento leído. Un OR siempre recorre todo.
+ * 
+ * Modelo de costo (unidades abstractas, ver las constantes):
+ *   costo = sondeos * INDEX_PROBE + lecturas secuenciales * SEQ_READ
+ *           + lecturas por ID * RANDOM_READ
+ * El mismo modelo se aplica a lo que el plan realmente leyó (actualCost()),
+ * así EXPLAIN compara lo estimado con lo real en la misma escala.
+ * 
+ * PK_RANGE y FULL_SCAN recorren en orden de _id de forma perezosa: si el
+ * resultado va en ese orden, OFFSET + LIMIT se empujan al recorrido (deja de
+ * leer al juntar los necesarios) y el costo estimado lo tiene en cuenta.
+ * 
+ * Estadísticas: planificar nunca recorre la colección. Si faltan o están
+ * viejas (más escrituras que STALE_FRACTION de los documentos analizados),
+ * se pide un análisis en un hilo de fondo (uno por vez, sin repetir uno ya
+ * pendiente) y la consulta se planifica con lo que haya: las anteriores o
+ * Statistics.unanalyzed(). analyze() recalcula en el momento (ANALYZE
+ * explícito). Una igualdad sobre _id no consulta estadísticas: lee a lo sumo
+ * un documento por valor.
+ * Los planes no se guardan en la caché de planes: dependen de los valores ya
+ * ligados y de las estadísticas del momento, y planificar es O(términos).
+ */
+public class QueryPlanner {
+    
+    /** Documento leído en orden desde una hoja (hojas enlazadas) */
+    public static final double SEQ_READ = 1.0;
+    /** Documento buscado por ID (descenso completo del Árbol B+) */
+    public static final double RANDOM_READ = 3.0;
+    /** Posicionarse en un índice (búsqueda de la primera clave) */
+    public static final double INDEX_PROBE = 2.0;
+    
+    /** Cambio de tamaño que vuelve viejas a las estadísticas */
+    public static final double STALE_FRACTION = 0.2;
+    
+    public enum Access { PK_LOOKUP, PK_RANGE, INDEX_LOOKUP, INDEX_RANGE, FULL_SCAN }
+    
+    private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final Set<String> analyzing = ConcurrentHashMap.newKeySet();  // Pedidos al hilo de fondo
+    private final ThreadPoolExecutor analyzer;
+    
+    public QueryPlanner() {
+        analyzer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "analyze");
+            t.setDaemon(true);
+            return t;
+        });
+        analyzer.allowCoreThreadTimeOut(true);  // Sin análisis pendientes no queda un hilo vivo
+    }
+    
+    /**
+     * Estadísticas de la colección sin esperar un análisis: si faltan o están
+     * viejas pide uno en segundo plano y devuelve las que hay (o unanalyzed())
+     * Complejidad: O(1)
+     */
+    public Statistics statistics(Collection col) {
+        Statistics st = statistics.get(col.getName());
+        if (st == null || st.isStale(col, STALE_FRACTION)) {
+            analyzeLater(col);
+            if (st == null || st.getCollection() != col) st = Statistics.unanalyzed(col);
+        }
+        return st;
+    }
+    
+    // Encolar un análisis salvo que ya haya uno pendiente para la colección
+    private void analyzeLater(Collection col) {
+        String name = col.getName();
+        if (!analyzing.add(name)) return;
+        try {
+            analyzer.execute(() -> {
+                try {
+                    analyze(col);
+                } catch (RuntimeException e) {
+                    // La colección cambió o se borró durante el recorrido: lo reintenta la próxima consulta
+                } finally {
+                    analyzing.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            analyzing.remove(name);
+        }
+    }
+    
+    /**
+     * Recalcular las estadísticas de la colección ahora
+     * Complejidad: O(n)
+     */
+    public Statistics analyze(Collection col) {
+        Statistics st = Statistics.analyze(col);
+        // Un análisis más viejo que termina después no pisa al nuevo
+        statistics.merge(col.getName(), st, (old, fresh) -> old.getCollection() == fresh.getCollection()
+            && old.getModifications() > fresh.getModifications() ? old : fresh);
+        return st;
+    }
+    
+    /**
+     * Camino de acceso más barato para la condición
+     * Complejidad: O(términos del WHERE * log BUCKETS)
+     */
+    public AccessPlan plan(Collection col, Query.Condition where) {
+        return candidates(col, where, -1).get(0);
+    }
+    
+    /**
+     * Todos los caminos de acceso posibles, del más barato al más caro
+     * (ante igual costo gana el más específico)
+     * @param needed documentos que bastan si el resultado va en orden de _id
+     *               (OFFSET + LIMIT empujados al recorrido); -1 = todos
+     */
+    public List<AccessPlan> candidates(Collection col, Query.Condition where, long needed) {
+        List<AccessPlan> plans = new ArrayList<>();
+        List<Query.Condition> terms = conjuncts(where);
+        double n = col.size();
+        
+        // _id = v / _id IN (...): ningún otro camino lee menos de uno por valor
+        for (Query.Condition c : terms) {
+            List<Object> values = equalityValues(c);
+            if (values == null) continue;
+            String field = c instanceof Query.In ? ((Query.In) c).field : ((Query.Comparison) c).field;
+            if (field.equals("_id")) {
+                plans.add(new PkLookup(values, Math.min(n, values.size()), values.size() * RANDOM_READ));
+                plans.add(new FullScan(n, n * SEQ_READ));
+                return plans;
+            }
+        }
+        
+        Statistics st = statistics(col);
+        for (Query.Condition c : terms) {
+            List<Object> values = equalityValues(c);
+            if (values == null) continue;
+            String field = c instanceof Query.In ? ((Query.In) c).field : ((Query.Comparison) c).field;
+            if (col.hasIndex(field) && !values.contains(null)) {
+                double rows = n * st.selectivity(c);
+                plans.add(new IndexLookup(field, values, rows, values.size() * INDEX_PROBE + rows * RANDOM_READ));
+            }
+        }
+        
+        for (Bounds b : ranges(terms)) {
+            if (b.mixed) continue;
+            if (b.field.equals("_id")) {
+                if (!(b.kindProbe() instanceof String)) continue;
+                double rows = n * st.range("_id", b.from, b.fromInclusive, b.to, b.toInclusive);
+                rows = untilNeeded(rows, n, st.selectivity(where), needed);
+                plans.add(new PkRange(b, rows, INDEX_PROBE + rows * SEQ_READ));
+            } else if (col.hasOrderedIndex(b.field)) {
+                double rows = n * st.range(b.field, b.from, b.fromInclusive, b.to, b.toInclusive);
+                plans.add(new IndexRange(b, rows, INDEX_PROBE + rows * RANDOM_READ));
+            }
+        }
+        
+        double scanned = untilNeeded(n, n, st.selectivity(where), needed);
+        plans.add(new FullScan(scanned, scanned * SEQ_READ));
+        Collections.sort(plans, Comparator.comparingDouble(p -> p.estimatedCost));  // Estable
+        return plans;
+    }
+    
+    // Documentos que lee un recorrido en orden de _id hasta juntar 'needed' que cumplan el WHERE
+    private static double untilNeeded(double rows, double n, double selectivity, long needed) {
+        if (needed < 0) return rows;
+        double matching = n * selectivity;   // Los que cumplen, todos dentro del recorrido
+        if (matching <= needed) return rows;
+        return Math.min(rows, Math.ceil(needed * rows / matching));
+    }
+    
+    private static List<Query.Condition> conjuncts(Query.Condition where) {
+        if (where == null) return Collections.emptyList();
+        if (where instanceof Query.And) return ((Query.And) where).terms;
+        return Collections.singletonList(where);
+    }
+    
+    // Valores que fija un término de igualdad (campo = v, campo IN (...)); null si no lo es.
+    // Sin repetidos según la igualdad del WHERE (3, 3L y 3.0 son uno): cada valor se busca una vez
+    private static List<Object> equalityValues(Query.Condition c) {
+        if (c instanceof Query.In) {
+            List<Object> values = ((Query.In) c).values;
+            Set<FieldKey> seen = new HashSet<>();
+            List<Object> distinct = new ArrayList<>(values.size());
+            for (Object v : values) {
+                if (seen.add(new FieldKey(v))) distinct.add(v);
+            }
+            return distinct;
+        }
+        if (c instanceof Query.Comparison && ((Query.Comparison) c).op == Query.Op.EQ) {
+            return Collections.singletonList(((Query.Comparison) c).value);
+        }
+        return null;
+    }
+    
+    // ¿Es una comparación <, <=, > o >= con valor?
+    static boolean isRange(Query.Condition c) {
+        if (!(c instanceof Query.Comparison)) return false;
+        Query.Comparison cmp = (Query.Comparison) c;
+        return cmp.value != null && cmp.op != Query.Op.EQ && cmp.op != Query.Op.NE;
+    }
+    
+    // Límites más ajustados por campo entre las comparaciones <, <=, >, >= del AND
+    static List<Bounds> ranges(List<Query.Condition> terms) {
+        Map<String, Bounds> byField = new LinkedHashMap<>();
+        for (Query.Condition c : terms) {
+            if (!isRange(c)) continue;
+            Query.Comparison cmp = (Query.Comparison) c;
+            Bounds b = byField.computeIfAbsent(cmp.field, Bounds::new);
+            if (!b.accepts(cmp.value)) {
+                b.mixed = true;
+                continue;
+            }
+            boolean lower = cmp.op == Query.Op.GT || cmp.op == Query.Op.GE;
+            boolean inclusive = cmp.op == Query.Op.GE || cmp.op == Query.Op.LE;
+            if (lower) b.tightenFrom(cmp.value, inclusive);
+            else b.tightenTo(cmp.value, inclusive);
+        }
+        return new ArrayList<>(byField.values());
+    }
+    
+    // Rango [from, to] sobre un campo (null = sin límite)
+    static final class Bounds {
+        final String field;
+        Object from, to;
+        boolean fromInclusive = true, toInclusive = true;
+        boolean mixed;   // Límites de tipos distintos: el rango no sirve como acceso
+        
+        Bounds(String field) { this.field = field; }
+        
+        Object kindProbe() { return from != null ? from : to; }
+        
+        boolean accepts(Object v) {
+            Object probe = kindProbe();
+            return probe == null || FieldKey.sameKind(probe, v);
+        }
+        
+        void tightenFrom(Object v, boolean inclusive) {
+            int cmp = from == null ? 1 : FieldKey.compare(v, from);
+            if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                from = v;
+                fromInclusive = inclusive;
+            }
+        }
+        
+        void tightenTo(Object v, boolean inclusive) {
+            int cmp = to == null ? -1 : FieldKey.compare(v, to);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                to = v;
+                toInclusive = inclusive;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return (from == null ? "(-∞" : (fromInclusive ? "[" : "(") + Query.literal(from)) + ", "
+                + (to == null ? "+∞)" : Query.literal(to) + (toInclusive ? "]" : ")"));
+        }
+    }
+    
+    // ==================== CAMINOS DE ACCESO ====================
+    
+    /**
+     * Camino de acceso elegido para una ejecución. open() devuelve los
+     * candidatos (sin aplicar el WHERE) y cuenta lo que realmente leyó.
+     * Una instancia por ejecución: los contadores no son compartidos.
+     */
+    public abstract static class AccessPlan {
+        public final Access access;
+        public final double estimatedRows;   // Documentos que leerá el acceso
+        public final double estimatedCost;
+        protected long probes, sequentialReads, randomReads;
+        
+        AccessPlan(Access access, double estimatedRows, double estimatedCost) {
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+            this.estimatedCost = estimatedCost;
+        }
+        
+        /**
+         * Abrir el acceso
+         * @param after      reanudar después de este _id (null = desde el principio);
+         *                   solo lo respetan los accesos ordenados por _id
+         * @param descending recorrer de mayor a menor _id (idem)
+         * @param fields     campos que usa la consulta (null = todos); los
+         *                   recorridos los piden al índice para no decodificar
+         *                   el resto, los demás accesos devuelven documentos completos
+         */
+        public abstract Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields);
+        
+        /** ¿open() entrega los documentos en orden de _id, perezosamente? */
+        public boolean idOrdered() { return false; }
+        
+        public long getRowsRead() { return sequentialReads + randomReads; }
+        
+        public double actualCost() {
+            return probes * INDEX_PROBE + sequentialReads * SEQ_READ + randomReads * RANDOM_READ;
+        }
+        
+        // Recorrido perezoso que cuenta cada documento como lectura secuencial
+        Iterator<Document> counted(Iterator<Document> it) {
+            return new Iterator<Document>() {
+                @Override
+                public boolean hasNext() { return it.hasNext(); }
+                
+                @Override
+                public Document next() {
+                    Document doc = it.next();
+                    sequentialReads++;
+                    return doc;
+                }
+            };
+        }
+    }
+    
+    private static final class PkLookup extends AccessPlan {
+        private final List<Object> ids;
+        
+        PkLookup(List<Object> ids, double rows, double cost) {
+            super(Access.PK_LOOKUP, rows, cost);
+            this.ids = ids;
+        }
+        
+        @Override
+        public Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields) {
+            List<Document> docs = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                if (id == null) continue;
+                randomReads++;
+                Document doc = col.findById(String.valueOf(id));
+                if (doc != null) docs.add(doc);
+            }
+            return docs.iterator();
+        }
+        
+        @Override
+        public String toString() {
+            return "findById sobre _id (" + ids.size() + (ids.size() == 1 ? " valor" : " valores") + ") - O(log n) por valor";
+        }
+    }
+    
+    private static final class PkRange extends AccessPlan {
+        private final Bounds bounds;
+        
+        PkRange(Bounds bounds, double rows, double cost) {
+            super(Access.PK_RANGE, rows, cost);
+            this.bounds = bounds;
+        }
+        
+        @Override
+        public boolean idOrdered() { return true; }
+        
+        @Override
+        public Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields) {
+            probes++;
+            String from = (String) bounds.from, to = (String) bounds.to;
+            boolean fromInclusive = bounds.fromInclusive, toInclusive = bounds.toInclusive;
+            // Reanudar: el último _id visto ajusta el límite del lado por el que se avanza
+            if (after != null && !descending && (from == null || after.compareTo(from) >= 0)) {
+                from = after;
+                fromInclusive = false;
+            } else if (after != null && descending && (to == null || after.compareTo(to) <= 0)) {
+                to = after;
+                toInclusive = false;
+            }
+            return counted(col.scan(from, fromInclusive, to, toInclusive, descending, fields).iterator());
+        }
+        
+        @Override
+        public String toString() {
+            return "rango del Árbol B+ sobre _id " + bounds + " - O(log n + k)";
+        }
+    }
+    
+    private static final class IndexLookup extends AccessPlan {
+        private final String field;
+        private final List<Object> values;
+        
+        IndexLookup(String field, List<Object> values, double rows, double cost) {
+            super(Access.INDEX_LOOKUP, rows, cost);
+            this.field = field;
+            this.values = values;
+        }
+        
+        @Override
+        public Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields) {
+            List<Document> docs = new ArrayList<>();
+            for (Object v : values) {
+                probes++;
+                List<Document> found = col.findByField(field, v);
+                randomReads += found.size();
+                docs.addAll(found);
+            }
+            return docs.iterator();
+        }
+        
+        @Override
+        public String toString() {
+            return "índice secundario sobre " + field + " (" + values.size()
+                + (values.size() == 1 ? " valor" : " valores") + ") - O(1) / O(log n) por valor";
+        }
+    }
+    
+    private static final class IndexRange extends AccessPlan {
+        private final Bounds bounds;
+        
+        IndexRange(Bounds bounds, double rows, double cost) {
+            super(Access.INDEX_RANGE, rows, cost);
+            this.bounds = bounds;
+        }
+        
+        @Override
+        public Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields) {
+            probes++;
+            List<Document> docs = col.findByFieldRange(bounds.field, bounds.from, bounds.fromInclusive,
+                bounds.to, bounds.toInclusive);
+            randomReads += docs.size();
+            return docs.iterator();
+        }
+        
+        @Override
+        public String toString() {
+            return "rango del índice secundario sobre " + bounds.field + " " + bounds + " - O(log n + k)";
+        }
+    }
+    
+    private static final class FullScan extends AccessPlan {
+        FullScan(double rows, double cost) {
+            super(Access.FULL_SCAN, rows, cost);
+        }
+        
+        @Override
+        public boolean idOrdered() { return true; }
+        
+        @Override
+        public Iterator<Document> open(Collection col, String after, boolean descending, Set<String> fields) {
+            if (after == null) return counted(col.scan(null, true, null, true, descending, fields).iterator());
+            return counted(descending ? col.scan(null, true, after, false, true, fields).iterator()
+                                      : col.scan(after, false, null, true, false, fields).iterator());
+        }
+        
+        @Override
+        public String toString() { return "recorrido completo - O(n)"; }
+    }
+}
@@ -1,85 +1,155 @@
 package com.motor.query;
 
 import com.motor.core.*;
-import java.util.List;
+import com.motor.utils.Exceptions.InvalidQueryException;
+import java.io.PrintStream;
 
 /**
  * QUERYPROCESSOR - Procesa y ejecuta consultas
  * 
- * Soporta:
+ * Soporta (ver la gramática completa en QueryParser):
  * - SELECT * FROM coleccion
- * - SELECT * FROM coleccion WHERE campo=valor
- * - INSERT INTO coleccion VALUES (id, datos)
- * - DELETE FROM coleccion WHERE _id=valor
+ * - SELECT nombre, edad FROM coleccion WHERE edad >= 18 AND carrera IN ('Sistemas', 'Electronica')
+ *   ORDER BY edad DESC LIMIT 10 OFFSET 20
+ * - INSERT INTO coleccion VALUES (id, campo='valor', campo2=123)
+ * - DELETE FROM coleccion WHERE _id = 'valor'
+ * - EXPLAIN SELECT ... (plan elegido, costo estimado y real)
+ * 
+ * Caché de planes: cada consulta se normaliza con el lexer (literales -> ?)
+ * y el árbol parseado se guarda en un PlanCache LRU bajo ese texto. Las
+ * consultas que solo difieren en los literales se parsean una vez; las
+ * siguientes pagan el lexer y bind(). prepare() usa la misma caché y además
+ * acepta ? explícitos (PreparedStatement).
+ * 
+ * execute() es la interfaz de consola: recorre el ResultSet perezoso y
+ * escribe en el PrintStream recibido por lotes de texto (no una escritura
+ * por documento). Para usar el motor como biblioteca: query() o prepare(),
+ * que devuelven el ResultSet sin imprimir nada.
  */
 public class QueryProcessor {
     
     private Database database;
     private QueryParser parser;
+    private QueryExecutor executor;
+    private final PlanCache plans;
+    private final PrintStream out;
+    
+    private static final int DEFAULT_PLAN_CACHE_SIZE = 256;
+    
+    /** Caracteres acumulados antes de cada escritura en la salida */
+    private static final int OUTPUT_CHUNK = 64 * 1024;
     
     public QueryProcessor(Database database) {
+        this(database, DEFAULT_PLAN_CACHE_SIZE, System.out);
+    }
+    
+    public QueryProcessor(Database database, int planCacheSize) {
+        this(database, planCacheSize, System.out);
+    }
+    
+    public QueryProcessor(Database database, int planCacheSize, PrintStream out) {
         this.database = database;
+        this.out = out;
         this.parser = new QueryParser();
+        this.executor = new QueryExecutor(database);
+        this.plans = new PlanCache(planCacheSize);
+    }
+    
+    /**
+     * Preparar una consulta con parámetros ? para ejecutarla muchas veces
+     * Complejidad: O(n) la primera vez de cada forma; luego O(n) del lexer
+     * @throws InvalidQueryException si la consulta no es válida
+     */
+    public PreparedStatement prepare(String query) {
+        QueryParser.Normalized normalized = parser.normalize(query);
+        return new PreparedStatement(executor, plan(query, normalized), normalized);
+    }
+    
+    // Árbol de la consulta desde la caché, o parseándola si es nueva
+    private Query plan(String query, QueryParser.Normalized normalized) {
+        Query plan = plans.get(normalized.text);
+        if (plan != null) return plan;
+        try {
+            plan = parser.parse(normalized.text);
+        } catch (InvalidQueryException e) {
+            parser.parse(query);  // Reportar el error con las posiciones del texto original
+            throw e;
+        }
+        plans.put(normalized.text, plan);
+        return plan;
+    }
+    
+    // Consulta lista para ejecutar: árbol de la caché con los literales ligados
+    private Query bound(String query) {
+        QueryParser.Normalized normalized = parser.normalize(query);
+        if (normalized.userSlots.length > 0) {
+            throw new InvalidQueryException("la consulta tiene parámetros ?, use prepare()");
+        }
+        return plan(query, normalized).bind(normalized.literals);
+    }
+    
+    /**
+     * Ejecutar un SELECT sin imprimir: resultado perezoso
+     * @throws InvalidQueryException si la consulta no es un SELECT válido
+     */
+    public ResultSet query(String query) {
+        return query(query, null);
+    }
+    
+    /**
+     * Página siguiente de un SELECT (token de ResultSet.getContinuationToken())
+     */
+    public ResultSet query(String query, String continuation) {
+        Query q = bound(query);
+        if (q.kind() != Query.Kind.SELECT) throw new InvalidQueryException("query() requiere un SELECT");
+        return executor.execute((Query.Select) q, continuation);
     }
     
     public void execute(String query) {
         try {
-            QueryParser.ParsedQuery parsed = parser.parse(query);
+            Query parsed = bound(query);
             
-            switch (parsed.operation) {
-                case "SELECT": executeSelect(parsed); break;
-                case "INSERT": executeInsert(parsed); break;
-                case "DELETE": executeDelete(parsed); break;
-                default: System.out.println("Operación no soportada");
+            switch (parsed.kind()) {
+                case SELECT: executeSelect((Query.Select) parsed); break;
+                case INSERT: executeInsert((Query.Insert) parsed); break;
+                case DELETE: executeDelete((Query.Delete) parsed); break;
+                case EXPLAIN: out.println(executor.explain(((Query.Explain) parsed).select)); break;
+                default: out.println("Operación no soportada");
             }
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            out.println("Error: " + e.getMessage());
         }
     }
     
-    private void executeSelect(QueryParser.ParsedQuery p) {
-        Collection col = database.getCollection(p.collection);
-        if (col == null) {
-            System.out.println("Colección no encontrada");
-            return;
-        }
-        
-        if (p.whereField == null) {
-            col.showAll();
-            System.out.println("Complejidad: O(n)");
-        } else if (p.whereField.equals("_id")) {
-            Document doc = col.findById(p.whereValue);
-            System.out.println(doc != null ? doc : "No encontrado");
-            System.out.println("Complejidad: O(log n)");
-        } else {
-            List<Document> results = col.findByField(p.whereField, p.whereValue);
-            results.forEach(System.out::println);
-            System.out.println("Total: " + results.size() + " | Complejidad: O(n)");
-        }
-    }
+    public PlanCache getPlanCache() { return plans; }
     
-    private void executeInsert(QueryParser.ParsedQuery p) {
-        Collection col = database.getCollection(p.collection);
-        if (col == null) col = database.createCollection(p.collection);
-        
-        Document doc = new Document(p.docId);
-        if (p.data != null) {
-            for (String pair : p.data.split(",")) {
-                String[] kv = pair.split("=");
-                if (kv.length == 2) doc.put(kv[0].trim(), kv[1].trim());
+    private void executeSelect(Query.Select q) {
+        ResultSet rs = executor.execute(q);
+        StringBuilder sb = new StringBuilder();
+        String nl = System.lineSeparator();
+        while (rs.hasNext()) {
+            sb.append(rs.next()).append(nl);
+            if (sb.length() >= OUTPUT_CHUNK) {
+                out.print(sb);
+                sb.setLength(0);
             }
         }
-        col.insert(doc);
-        System.out.println("✓ Insertado | Complejidad: O(log n)");
+        if (rs.getReturned() == 0) sb.append("No encontrado").append(nl);
+        sb.append("Total: ").append(rs.getReturned()).append(" | Acceso: ").append(rs.getPlan()).append(nl);
+        String token = rs.getContinuationToken();
+        if (token != null) sb.append("Continuación: ").append(token).append(nl);
+        out.print(sb);
     }
     
-    private void executeDelete(QueryParser.ParsedQuery p) {
-        Collection col = database.getCollection(p.collection);
-        if (col == null) { System.out.println("Colección no encontrada"); return; }
-        
-        if ("_id".equals(p.whereField)) {
-            System.out.println(col.delete(p.whereValue) ? "✓ Eliminado" : "No encontrado");
-            System.out.println("Complejidad: O(log n)");
-        }
+    private void executeInsert(Query.Insert q) {
+        executor.insert(q);
+        out.println("✓ Insertado | Complejidad: O(log n)");
+    }
+    
+    private void executeDelete(Query.Delete q) {
+        String path = executor.accessPath(q.collection, q.where);
+        int deleted = executor.delete(q);
+        out.println(deleted > 0 ? "✓ Eliminados: " + deleted : "No encontrado");
+        out.println("Acceso: " + path);
     }
 }
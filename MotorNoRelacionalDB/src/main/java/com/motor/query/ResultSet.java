@@ -0,0 +1,151 @@
+package com.motor.query;
+
+import com.motor.core.Document;
+import com.motor.utils.Exceptions.InvalidQueryException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * RESULTSET - Resultado perezoso de un SELECT
+ * 
+ * Lo devuelve QueryExecutor.execute(): los documentos se producen a medida
+ * que se piden. Si el orden del resultado coincide con el de _id, se leen
+ * de la colección por lotes (Collection.scan) y la memoria es constante sin
+ * importar el tamaño del resultado; con otro ORDER BY se ordena antes de
+ * entregar el primero (con LIMIT solo se guardan OFFSET + LIMIT documentos).
+ * 
+ * Paginación por clave (keyset): todo resultado tiene un orden total
+ * (ORDER BY y, para desempatar, _id). getContinuationToken() codifica la
+ * clave del último documento entregado; QueryExecutor.execute(q, token)
+ * reanuda justo después, sin volver a leer ni saltar las páginas previas
+ * (OFFSET se aplica solo a la primera página).
+ * 
+ *   ResultSet page = executor.execute(q);           // q con LIMIT 100
+ *   List<Document> docs = page.nextBatch(100);
+ *   String token = page.getContinuationToken();     // null = no hay más
+ *   ResultSet next = executor.execute(q, token);
+ * 
+ * No es thread-safe: un ResultSet lo consume un solo cliente.
+ */
+public class ResultSet implements Iterator<Document> {
+    
+    private final Iterator<Document> rows;    // Filtrados y ordenados, sin proyectar
+    private final List<String> fields;        // null = todos
+    private final List<Query.OrderBy> order;  // Orden efectivo (termina en _id)
+    private final QueryPlanner.AccessPlan plan;
+    private int toSkip;
+    private final int limit;                  // -1 = sin límite
+    private Document last;                    // Último entregado (sin proyectar)
+    private int returned;
+    
+    ResultSet(Iterator<Document> rows, int offset, int limit, List<String> fields,
+              List<Query.OrderBy> order, QueryPlanner.AccessPlan plan) {
+        this.rows = rows;
+        this.toSkip = offset;
+        this.limit = limit;
+        this.fields = fields;
+        this.order = order;
+        this.plan = plan;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (limit >= 0 && returned >= limit) return false;
+        while (toSkip > 0 && rows.hasNext()) {  // OFFSET: se descarta sin proyectar
+            rows.next();
+            toSkip--;
+        }
+        return rows.hasNext();
+    }
+    
+    @Override
+    public Document next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        last = rows.next();
+        returned++;
+        return fields == null ? last : QueryExecutor.project(last, fields);
+    }
+    
+    /**
+     * Siguiente lote de hasta max documentos (vacío al terminar)
+     * Complejidad: O(max) más lo que lea el camino de acceso
+     */
+    public List<Document> nextBatch(int max) {
+        List<Document> batch = new ArrayList<>(Math.min(max, 1024));
+        while (batch.size() < max && hasNext()) batch.add(next());
+        return batch;
+    }
+    
+    /**
+     * Todos los documentos restantes (materializa el resto del resultado)
+     */
+    public List<Document> toList() {
+        List<Document> all = new ArrayList<>();
+        while (hasNext()) all.add(next());
+        return all;
+    }
+    
+    /**
+     * Token para reanudar después del último documento entregado, o null si
+     * no queda nada (al llegar al LIMIT mira si el resultado sigue)
+     */
+    public String getContinuationToken() {
+        if (last == null) return null;
+        boolean more = limit >= 0 && returned >= limit ? rows.hasNext() : hasNext();
+        return more ? encodeToken(last, order) : null;
+    }
+    
+    public QueryPlanner.AccessPlan getPlan() { return plan; }
+    
+    public int getReturned() { return returned; }
+    
+    // ==================== TOKENS ====================
+    
+    // Valores de la clave de orden como literales separados por comas, en Base64 URL
+    static String encodeToken(Document doc, List<Query.OrderBy> order) {
+        StringBuilder sb = new StringBuilder();
+        for (Query.OrderBy o : order) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(Query.literal(Query.fieldValue(doc, o.field)));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decodificar un token de la misma consulta (size = campos del orden efectivo)
+     * @throws InvalidQueryException si el token no corresponde a la consulta
+     */
+    static Object[] decodeToken(String token, int size) {
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("token de continuación inválido");
+        }
+        
+        Object[] key = new Object[size];
+        Lexer lx = new Lexer(text);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && lx.type() != Lexer.Type.COMMA) throw new InvalidQueryException("token de continuación inválido");
+            if (i > 0) lx.advance();
+            switch (lx.type()) {
+                case STRING: key[i] = lx.stringValue(); break;
+                case NUMBER: key[i] = lx.numberValue(); break;
+                case IDENT:
+                    if (lx.isKeyword("NULL")) key[i] = null;
+                    else if (lx.isKeyword("TRUE")) key[i] = Boolean.TRUE;
+                    else if (lx.isKeyword("FALSE")) key[i] = Boolean.FALSE;
+                    else throw new InvalidQueryException("token de continuación inválido");
+                    break;
+                default: throw new InvalidQueryException("token de continuación inválido");
+            }
+            lx.advance();
+        }
+        if (lx.type() != Lexer.Type.EOF) throw new InvalidQueryException("token de continuación inválido");
+        return key;
+    }
+}
@@ -0,0 +1,332 @@
+package com.motor.query;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import com.motor.core.FieldKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * STATISTICS - Estadísticas de una colección para el planificador
+ * 
+ * analyze() recorre la colección una vez y toma una muestra uniforme de
+ * hasta SAMPLE_SIZE documentos (muestreo de reservorio). Por cada campo de
+ * primer nivel de la muestra (y por _id) guarda:
+ * - Fracción de documentos que lo tienen
+ * - Valores distintos: exacto si la muestra es toda la colección; si no,
+ *   estimador GEE: sqrt(n / muestra) * f1 + (d - f1), con f1 = valores
+ *   vistos una sola vez y d = distintos en la muestra (si ningún valor se
+ *   repite en la muestra se asume un campo único: distintos = n)
+ * - Histograma equi-profundidad (BUCKETS cubetas con la misma cantidad de
+ *   valores) sobre los valores del tipo más común del campo, ordenados con
+ *   FieldKey, para estimar rangos. Dentro de una cubeta se interpola: los
+ *   números por su valor y los textos por los caracteres que siguen al
+ *   prefijo común de los límites de la cubeta
+ * 
+ * selectivity() estima la fracción de documentos que cumple una condición
+ * (AND como producto, OR como unión, suponiendo independencia entre campos).
+ * 
+ * unanalyzed() son las de una colección todavía sin analizar: solo la
+ * cantidad de documentos, y para cada campo los valores usuales de la
+ * literatura (DEFAULT_EQUALITY, DEFAULT_RANGE).
+ * 
+ * Envejecen por cantidad de escrituras (Collection.getModificationCount),
+ * no por diferencia de tamaño: una carga que solo actualiza también las
+ * vuelve viejas.
+ * 
+ * Inmutable: el planificador reemplaza las estadísticas viejas por otras nuevas.
+ * 
+ * Complejidad:
+ * - analyze(): O(n) lecturas + O(s log s) por campo, s = tamaño de la muestra
+ * - selectivity(): O(log BUCKETS) por comparación
+ */
+public final class Statistics {
+    
+    public static final int SAMPLE_SIZE = 4096;
+    public static final int BUCKETS = 32;
+    
+    // Caracteres que se interpolan dentro de una cubeta de textos
+    private static final int SCALAR_CHARS = 6;
+    
+    // Sin estadísticas del campo (campos anidados): valores usuales en la literatura
+    static final double DEFAULT_EQUALITY = 0.01;
+    static final double DEFAULT_RANGE = 1.0 / 3;
+    
+    private final Collection collection;
+    private final long rows;        // Cardinalidad al analizar
+    private final int sampled;
+    private final Map<String, FieldStats> fields;
+    private final long modifications;  // Escrituras de la colección al analizar
+    private final boolean analyzed;
+    
+    private Statistics(Collection collection, long rows, int sampled, Map<String, FieldStats> fields,
+                       long modifications, boolean analyzed) {
+        this.collection = collection;
+        this.rows = rows;
+        this.sampled = sampled;
+        this.fields = fields;
+        this.modifications = modifications;
+        this.analyzed = analyzed;
+    }
+    
+    /**
+     * Estadísticas sin recorrer nada: el tamaño actual y valores usuales por campo
+     * Complejidad: O(1)
+     */
+    public static Statistics unanalyzed(Collection col) {
+        return new Statistics(col, col.size(), 0, new HashMap<>(), col.getModificationCount(), false);
+    }
+    
+    /**
+     * Recorrer la colección y construir las estadísticas
+     * Complejidad: O(n)
+     */
+    public static Statistics analyze(Collection col) {
+        long modifications = col.getModificationCount();  // Antes de leer: lo que llegue después cuenta
+        Document[] sample = new Document[SAMPLE_SIZE];
+        Random random = new Random(col.getName().hashCode());
+        long seen = 0;
+        Iterator<Document> it = col.stream().iterator();
+        while (it.hasNext()) {
+            Document doc = it.next();
+            if (seen < SAMPLE_SIZE) {
+                sample[(int) seen] = doc;
+            } else {
+                long j = (long) (random.nextDouble() * (seen + 1));  // Reservorio (algoritmo R)
+                if (j < SAMPLE_SIZE) sample[(int) j] = doc;
+            }
+            seen++;
+        }
+        int m = (int) Math.min(seen, SAMPLE_SIZE);
+        
+        Map<String, List<Object>> values = new HashMap<>();
+        List<Object> ids = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            ids.add(sample[i].getId());
+            for (String key : sample[i].getKeys()) {
+                Object v = sample[i].get(key);
+                if (v != null) values.computeIfAbsent(key, k -> new ArrayList<>()).add(v);
+            }
+        }
+        
+        Map<String, FieldStats> fields = new HashMap<>();
+        fields.put("_id", new FieldStats(ids, m, seen));
+        for (Map.Entry<String, List<Object>> e : values.entrySet()) {
+            fields.put(e.getKey(), new FieldStats(e.getValue(), m, seen));
+        }
+        return new Statistics(col, seen, m, fields, modifications, true);
+    }
+    
+    /**
+     * ¿Cambió la colección lo suficiente como para volver a analizar?
+     * (otra instancia con el mismo nombre, o desde el análisis hubo más
+     * escrituras que una fracción de los documentos analizados)
+     */
+    boolean isStale(Collection col, double fraction) {
+        return col != collection || col.getModificationCount() - modifications > rows * fraction;
+    }
+    
+    // false para unanalyzed()
+    public boolean isAnalyzed() { return analyzed; }
+    
+    // Colección a la que corresponden
+    Collection getCollection() { return collection; }
+    
+    long getModifications() { return modifications; }
+    
+    public long getRows() { return rows; }
+    public int getSampleSize() { return sampled; }
+    public FieldStats field(String name) { return fields.get(name); }
+    
+    /**
+     * Fracción estimada de documentos que cumple la condición (null = todos)
+     * Complejidad: O(comparaciones de la condición)
+     */
+    public double selectivity(Query.Condition c) {
+        if (c == null) return 1;
+        if (c instanceof Query.And) {
+            // Los rangos sobre un mismo campo se combinan en uno (no son independientes)
+            List<Query.Condition> terms = ((Query.And) c).terms;
+            double s = 1;
+            for (Query.Condition term : terms) {
+                if (!QueryPlanner.isRange(term)) s *= selectivity(term);
+            }
+            for (QueryPlanner.Bounds b : QueryPlanner.ranges(terms)) {
+                s *= b.mixed ? 0 : range(b.field, b.from, b.fromInclusive, b.to, b.toInclusive);
+            }
+            return s;
+        }
+        if (c instanceof Query.Or) {
+            double none = 1;
+            for (Query.Condition term : ((Query.Or) c).terms) none *= 1 - selectivity(term);
+            return 1 - none;
+        }
+        if (c instanceof Query.In) {
+            Query.In in = (Query.In) c;
+            double s = 0;
+            for (Object v : in.values) s += equality(in.field, v);
+            return Math.min(1, s);
+        }
+        Query.Comparison cmp = (Query.Comparison) c;
+        switch (cmp.op) {
+            case EQ: return equality(cmp.field, cmp.value);
+            case NE: return 1 - equality(cmp.field, cmp.value);
+            case LT: return range(cmp.field, null, true, cmp.value, false);
+            case LE: return range(cmp.field, null, true, cmp.value, true);
+            case GT: return range(cmp.field, cmp.value, false, null, true);
+            default: return range(cmp.field, cmp.value, true, null, true);
+        }
+    }
+    
+    /**
+     * Fracción con campo = value
+     * Complejidad: O(log BUCKETS)
+     */
+    public double equality(String field, Object value) {
+        FieldStats fs = fields.get(field);
+        if (fs == null) return !analyzed || field.indexOf('.') >= 0 ? DEFAULT_EQUALITY : (value == null ? 1 : 0);
+        if (value == null) return 1 - fs.presentFraction;
+        return fs.equality(value);
+    }
+    
+    /**
+     * Fracción con campo entre from y to (null = sin límite; ambos del mismo tipo)
+     * Complejidad: O(log BUCKETS)
+     */
+    public double range(String field, Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        FieldStats fs = fields.get(field);
+        if (fs == null) return !analyzed || field.indexOf('.') >= 0 ? DEFAULT_RANGE : 0;
+        return fs.range(from, fromInclusive, to, toInclusive);
+    }
+    
+    @Override
+    public String toString() {
+        if (!analyzed) return String.format("Statistics{%s: %d documentos, sin analizar}", collection.getName(), rows);
+        return String.format("Statistics{%s: %d documentos, muestra %d, %d campos}",
+            collection.getName(), rows, sampled, fields.size());
+    }
+    
+    // ==================== ESTADÍSTICAS DE UN CAMPO ====================
+    
+    public static final class FieldStats {
+        public final double presentFraction;   // Documentos que tienen el campo
+        public final long distinct;            // Valores distintos estimados
+        public final int kind;                 // FieldKey.rank() del tipo más común
+        public final double kindFraction;      // Fracción de valores de ese tipo
+        private final Object[] bounds;         // BUCKETS + 1 límites del histograma
+        
+        FieldStats(List<Object> values, int sampled, long rows) {
+            int n = values.size();
+            this.presentFraction = sampled == 0 ? 0 : (double) n / sampled;
+            
+            Map<FieldKey, Integer> counts = new HashMap<>();
+            int[] kinds = new int[5];
+            for (Object v : values) {
+                counts.merge(new FieldKey(v), 1, Integer::sum);
+                kinds[FieldKey.rank(v)]++;
+            }
+            long d = counts.size();
+            if (sampled < rows) {
+                long once = counts.values().stream().filter(c -> c == 1).count();
+                d = once == d ? rows : Math.round(Math.sqrt((double) rows / sampled) * once + (d - once));
+            }
+            this.distinct = Math.max(1, Math.min(d, Math.round(rows * presentFraction)));
+            
+            int best = 1;
+            for (int k = 2; k < kinds.length; k++) if (kinds[k] > kinds[best]) best = k;
+            int dominant = best;
+            this.kind = dominant;
+            this.kindFraction = n == 0 ? 0 : (double) kinds[dominant] / n;
+            
+            Object[] sorted = values.stream().filter(v -> FieldKey.rank(v) == dominant).toArray();
+            Arrays.sort(sorted, FieldKey::compare);
+            if (sorted.length == 0) {
+                this.bounds = new Object[0];
+            } else {
+                this.bounds = new Object[BUCKETS + 1];
+                for (int i = 0; i <= BUCKETS; i++) bounds[i] = sorted[(int) ((long) i * (sorted.length - 1) / BUCKETS)];
+            }
+        }
+        
+        double equality(Object value) {
+            return presentFraction * share(value);
+        }
+        
+        // Fracción de los valores presentes igual a value (0 fuera del histograma)
+        private double share(Object value) {
+            if (FieldKey.rank(value) == kind && bounds.length > 0
+                    && (FieldKey.compare(value, bounds[0]) < 0 || FieldKey.compare(value, bounds[BUCKETS]) > 0)) {
+                return 0;
+            }
+            return 1.0 / distinct;
+        }
+        
+        double range(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+            Object probe = from != null ? from : to;
+            if (probe == null) return presentFraction;
+            if (FieldKey.rank(probe) != kind || bounds.length == 0) return 0;  // Otro tipo: la comparación falla
+            // cumulative() cuenta los menores: corregir con la igualdad en cada límite
+            double lo = from == null ? 0 : cumulative(from) + (fromInclusive ? 0 : share(from));
+            double hi = to == null ? 1 : cumulative(to) + (toInclusive ? share(to) : 0);
+            return presentFraction * kindFraction * Math.min(1, Math.max(0, hi - lo));
+        }
+        
+        // Fracción de valores (del tipo del histograma) menores que v
+        private double cumulative(Object v) {
+            if (FieldKey.compare(v, bounds[0]) < 0) return 0;
+            int last = FieldKey.compare(v, bounds[BUCKETS]);
+            if (last > 0) return 1;
+            if (last == 0) return Math.max(0, 1 - share(v));  // Todos menos los iguales al máximo
+            int lo = 0, hi = BUCKETS;   // bounds[lo] <= v < bounds[hi]
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                if (FieldKey.compare(bounds[mid], v) <= 0) lo = mid;
+                else hi = mid;
+            }
+            double within = 0.5;
+            if (v instanceof Number && bounds[lo] instanceof Number && bounds[hi] instanceof Number) {
+                double a = ((Number) bounds[lo]).doubleValue(), b = ((Number) bounds[hi]).doubleValue();
+                if (b > a) within = (((Number) v).doubleValue() - a) / (b - a);
+            } else if (v instanceof String && bounds[lo] instanceof String && bounds[hi] instanceof String) {
+                String a = (String) bounds[lo], b = (String) bounds[hi], text = (String) v;
+                int prefix = commonPrefix(a, b);
+                // Base = rango de caracteres presentes (dígitos -> base 10, minúsculas -> base 26...)
+                char low = Character.MAX_VALUE, high = 0;
+                for (String str : new String[] {a, b, text}) {
+                    for (int i = prefix; i < str.length() && i < prefix + SCALAR_CHARS; i++) {
+                        low = (char) Math.min(low, str.charAt(i));
+                        high = (char) Math.max(high, str.charAt(i));
+                    }
+                }
+                double sa = scalar(a, prefix, low, high), sb = scalar(b, prefix, low, high);
+                if (sb > sa) within = Math.min(1, Math.max(0, (scalar(text, prefix, low, high) - sa) / (sb - sa)));
+            }
+            return (lo + within) / BUCKETS;
+        }
+        
+        private static int commonPrefix(String a, String b) {
+            int n = Math.min(a.length(), b.length()), i = 0;
+            while (i < n && a.charAt(i) == b.charAt(i)) i++;
+            return i;
+        }
+        
+        // Texto como número en [0, 1): los caracteres que siguen al prefijo como dígitos en base high - low + 2
+        private static double scalar(String s, int prefix, char low, char high) {
+            double base = high - low + 2;   // El 0 queda para "sin carácter" (textos más cortos)
+            double value = 0, scale = 1;
+            for (int i = prefix; i < s.length() && i < prefix + SCALAR_CHARS; i++) {
+                scale /= base;
+                value += (s.charAt(i) - low + 1) * scale;
+            }
+            return value;
+        }
+        
+        public Object min() { return bounds.length == 0 ? null : bounds[0]; }
+        public Object max() { return bounds.length == 0 ? null : bounds[BUCKETS]; }
+    }
+}
@@ -0,0 +1,239 @@
+package com.motor.storage;
+
+import com.motor.utils.Exceptions.StorageException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * BUFFERPOOL - Caché de páginas con memoria acotada y desalojo LRU-2
+ * 
+ * Se ubica entre DiskBPlusTreeIndex y PageFile: las páginas se copian a un
+ * número fijo de marcos (presupuesto / pageSize) y solo se leen del archivo
+ * en un fallo. La memoria usada es exactamente la del presupuesto, sin
+ * importar el tamaño del archivo.
+ * 
+ * - pin/unpin: una página fijada no se desaloja; unpin(id, true) la marca
+ *   sucia y se escribe al archivo recién al desalojarla o en sync()
+ * - LRU-2 (LRU-K con K = 2): se desaloja la página cuyo penúltimo acceso es
+ *   el más antiguo. Las páginas vistas una sola vez (hojas de un recorrido)
+ *   salen primero; las que se usan siempre (raíz, nodos internos) quedan.
+ *   Accesos casi consecutivos a la misma página (una misma operación) cuentan
+ *   como uno solo, para que un recorrido no parezca uso frecuente.
+ * 
+ * Thread-safe (métodos synchronized; la E/S de un fallo ocurre con el
+ * monitor tomado, simple y suficiente para un solo archivo).
+ * 
+ * Lectores sin bloqueo (Collection.findById optimista) pueden tener fijada
+ * una página que el escritor libera: free() no la descarta sino que la deja
+ * limpia y sin dueño hasta que la suelten, y allocate() pone en cero la
+ * cabecera del marco si la página se reutiliza antes. El lector ve bytes
+ * inválidos y su validación falla; el escritor no se entera.
+ * 
+ * Complejidad:
+ * - pin() con acierto: O(log marcos); con fallo: O(log marcos) + una lectura
+ * - unpin(): O(log marcos)
+ */
+public class BufferPool implements PageStore {
+    
+    private static final int MIN_FRAMES = 8;
+    private static final int CORRELATED_ACCESSES = 2;  // Distancia máxima de accesos "de la misma operación"
+    
+    private final PageFile file;
+    private final int pageSize;
+    private final int capacity;
+    
+    private static final class Frame {
+        final int index;
+        final ByteBuffer data;
+        int pageId = -1;
+        int pins;
+        boolean dirty;
+        long last;      // Último acceso (reloj lógico)
+        long previous;  // Penúltimo acceso; 0 = visto una sola vez
+        
+        Frame(int index, int pageSize) {
+            this.index = index;
+            this.data = ByteBuffer.allocate(pageSize);
+        }
+    }
+    
+    private final Map<Integer, Frame> table = new HashMap<>();
+    private final ArrayDeque<Frame> freeFrames = new ArrayDeque<>();
+    private int allocatedFrames;
+    
+    // Marcos sin fijar ordenados por (penúltimo acceso, último acceso): el primero es la víctima
+    private final TreeSet<Frame> evictable = new TreeSet<>(Comparator
+        .comparingLong((Frame f) -> f.previous)
+        .thenComparingLong(f -> f.last)
+        .thenComparingInt(f -> f.index));
+    
+    private long clock;
+    private long hits, misses, evictions, writeBacks;
+    
+    /**
+     * @param memoryBytes presupuesto de memoria para los marcos
+     */
+    public BufferPool(PageFile file, long memoryBytes) {
+        this.file = file;
+        this.pageSize = file.getPageSize();
+        this.capacity = (int) Math.max(MIN_FRAMES, Math.min(Integer.MAX_VALUE, memoryBytes / pageSize));
+    }
+    
+    /**
+     * Fijar una página (cargándola si no está)
+     * Complejidad: O(log marcos) + una lectura en un fallo
+     */
+    @Override
+    public synchronized ByteBuffer pin(int id) {
+        Frame frame = table.get(id);
+        if (frame != null) {
+            hits++;
+            if (frame.pins == 0) evictable.remove(frame);
+        } else {
+            misses++;
+            frame = obtainFrame();
+            try {
+                file.readPage(id, frame.data);
+            } catch (RuntimeException e) {
+                freeFrames.push(frame);  // Página inválida (p. ej. leída por un lector optimista)
+                throw e;
+            }
+            frame.pageId = id;
+            frame.previous = 0;
+            frame.last = 0;
+            table.put(id, frame);
+        }
+        frame.pins++;
+        recordAccess(frame);
+        return frame.data.duplicate();
+    }
+    
+    // Registrar un acceso (el marco no está en evictable mientras está fijado)
+    private void recordAccess(Frame frame) {
+        clock++;
+        if (frame.last == 0 || clock - frame.last > CORRELATED_ACCESSES) frame.previous = frame.last;
+        frame.last = clock;
+    }
+    
+    // Marco libre, nuevo (dentro del presupuesto) o desalojado
+    private Frame obtainFrame() {
+        if (!freeFrames.isEmpty()) return freeFrames.pop();
+        if (allocatedFrames < capacity) return new Frame(allocatedFrames++, pageSize);
+        
+        Frame victim = evictable.pollFirst();
+        if (victim == null) throw new StorageException("buffer pool agotado: " + capacity + " páginas fijadas");
+        if (victim.dirty) {
+            file.writePage(victim.pageId, victim.data);
+            writeBacks++;
+        }
+        table.remove(victim.pageId);
+        victim.dirty = false;
+        evictions++;
+        return victim;
+    }
+    
+    /**
+     * Soltar una página fijada
+     * Complejidad: O(log marcos)
+     */
+    @Override
+    public synchronized void unpin(int id, boolean dirty) {
+        Frame frame = table.get(id);
+        if (frame == null || frame.pins == 0) throw new IllegalStateException("Página no fijada: " + id);
+        if (dirty) frame.dirty = true;
+        if (--frame.pins == 0) evictable.add(frame);
+    }
+    
+    @Override
+    public synchronized int allocate() {
+        int id = file.allocate();  // Se carga con el primer pin()
+        Frame stale = table.get(id);
+        if (stale != null) {
+            // Marco de la página liberada que un lector todavía tenía fijada:
+            // misma cabecera en cero que deja PageFile.allocate()
+            for (int i = 0; i < 16; i++) stale.data.put(i, (byte) 0);
+        }
+        return id;
+    }
+    
+    /**
+     * Liberar una página: su marco se descarta sin escribirlo (PageFile
+     * guarda el enlace de la lista libre directamente en el archivo). Si
+     * un lector la tiene fijada, el marco queda limpio hasta que la suelte.
+     */
+    @Override
+    public synchronized void free(int id) {
+        Frame frame = table.get(id);
+        if (frame != null && frame.pins > 0) {
+            frame.dirty = false;  // Sin escribirlo al desalojar: el archivo tiene el enlace de la lista libre
+        } else if (frame != null) {
+            evictable.remove(frame);
+            table.remove(id);
+            frame.dirty = false;
+            frame.pageId = -1;
+            freeFrames.push(frame);
+        }
+        file.free(id);
+    }
+    
+    @Override
+    public long getMeta(int slot) { return file.getMeta(slot); }
+    
+    @Override
+    public void setMeta(int slot, long value) { file.setMeta(slot, value); }
+    
+    @Override
+    public void markDirty() { file.markDirty(); }
+    
+    /**
+     * Escribir los marcos sucios y forzar el archivo a disco
+     * Complejidad: O(marcos)
+     */
+    @Override
+    public synchronized void sync() {
+        for (Frame frame : table.values()) {
+            if (frame.dirty) {
+                file.writePage(frame.pageId, frame.data);
+                frame.dirty = false;
+                writeBacks++;
+            }
+        }
+        file.sync();
+    }
+    
+    @Override
+    public synchronized void close() {
+        sync();
+        file.close();
+    }
+    
+    @Override
+    public int getPageSize() { return pageSize; }
+    
+    @Override
+    public int getPageCount() { return file.getPageCount(); }
+    
+    public PageFile getPageFile() { return file; }
+    
+    // ==================== ESTADÍSTICAS ====================
+    
+    public int getCapacity() { return capacity; }
+    public synchronized int getResidentPages() { return table.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getWriteBacks() { return writeBacks; }
+    
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    public synchronized void resetStats() {
+        hits = misses = evictions = writeBacks = 0;
+    }
+}
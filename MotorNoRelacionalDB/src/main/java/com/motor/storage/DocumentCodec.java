@@ -0,0 +1,629 @@
+package com.motor.storage;
+
+import com.motor.core.Document;
+import com.motor.index.Serializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DOCUMENTCODEC - Formato binario versionado para documentos
+ * 
+ * Archivo:    [magic "MDOC"][versión 1 byte] registro*
+ * Registro:   [longitud varint][documento]
+ * Documento:  [_id][cantidad de campos varint] ([nombre][etiqueta][valor])*
+ * Nombre:     varint r; r = 0 -> nombre literal (entra al diccionario),
+ *             r > 0 -> nombre número r - 1 del diccionario
+ * 
+ * El diccionario de nombres de campo vive lo que dura el flujo (Writer /
+ * Reader) o un solo documento (encode / decode). En una colección los mismos
+ * nombres se repiten en cada documento: se escriben una vez y después
+ * cuestan 1 byte, y el lector reutiliza la misma instancia de String.
+ * 
+ * Valores (etiqueta de 1 byte + datos):
+ * - null, false, true: solo la etiqueta
+ * - Integer / Long: varint con zigzag (números chicos = 1 o 2 bytes)
+ * - Double / Float: 8 / 4 bytes IEEE 754
+ * - String: longitud varint + UTF-8
+ * - Document anidado, List (arreglo) y Map<String, ?>: recursivos
+ * 
+ * Cada tipo vuelve exactamente como se guardó (20 sigue siendo Integer,
+ * "20" sigue siendo String). Los campos primitivos de Document se leen y
+ * escriben por posición con sus accesores tipados, sin cajas. Tipos fuera de la lista se rechazan con
+ * IllegalArgumentException en lugar de convertirse en texto.
+ * 
+ * Writer / Reader codifican de a un documento sobre un flujo (sin cargar
+ * el archivo completo en memoria).
+ * 
+ * Proyección: decode(..., Projection) decodifica solo algunos campos de
+ * primer nivel. Cada valor lleva su etiqueta y los de largo variable su
+ * longitud, así que los demás campos se saltan sin crear objetos: los
+ * nombres se comparan como bytes UTF-8 y la lectura termina al encontrar
+ * el último campo pedido.
+ * 
+ * Complejidad: O(tamaño del documento) para codificar y decodificar
+ */
+public final class DocumentCodec {
+    
+    public static final int MAGIC = 0x4D444F43;  // "MDOC"
+    public static final byte VERSION = 1;
+    
+    static final byte T_NULL = 0;
+    static final byte T_FALSE = 1;
+    static final byte T_TRUE = 2;
+    static final byte T_INT = 3;
+    static final byte T_LONG = 4;
+    static final byte T_DOUBLE = 5;
+    static final byte T_FLOAT = 6;
+    static final byte T_STRING = 7;
+    static final byte T_DOCUMENT = 8;
+    static final byte T_ARRAY = 9;
+    static final byte T_MAP = 10;
+    
+    /** Máximo de nombres en el diccionario (los siguientes van literales) */
+    static final int MAX_KEYS = 4096;
+    
+    // Búfer de codificación reutilizable (una instancia por hilo)
+    private byte[] buf = new byte[256];
+    private int len;
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    
+    /** Para guardar documentos como valores de DiskBPlusTreeIndex */
+    public static final Serializer<Document> SERIALIZER = new Serializer<Document>() {
+        public byte[] toBytes(Document doc) { return encode(doc); }
+        public Document fromBytes(byte[] data, int offset, int length) { return decode(data, offset, length); }
+    };
+    
+    private DocumentCodec() {}
+    
+    /**
+     * Codificar un documento (sin prefijo de longitud)
+     * Complejidad: O(tamaño del documento)
+     */
+    public static byte[] encode(Document doc) {
+        DocumentCodec codec = new DocumentCodec();
+        codec.writeDocument(doc);
+        return Arrays.copyOf(codec.buf, codec.len);
+    }
+    
+    public static Document decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+    
+    /**
+     * Decodificar un documento desde data[offset, offset + length)
+     * Complejidad: O(tamaño del documento)
+     */
+    public static Document decode(byte[] data, int offset, int length) {
+        return new Decoder(data, offset, offset + length, new ArrayList<>()).readDocument();
+    }
+    
+    /**
+     * Decodificar solo los campos de projection (con el _id); los demás se
+     * saltan sin decodificarlos
+     * Complejidad: O(bytes hasta el último campo pedido), objetos solo de
+     * los campos pedidos
+     */
+    public static Document decode(byte[] data, int offset, int length, Projection projection) {
+        return new Decoder(data, offset, offset + length).readDocument(projection.names);
+    }
+    
+    /**
+     * Campos a decodificar, de primer nivel: "direccion.ciudad" pide
+     * "direccion" completo y "_id" siempre viene. Se arma una vez por
+     * consulta o recorrido y se reutiliza en cada documento.
+     */
+    public static final class Projection {
+        final byte[][] names;  // UTF-8, como se codifican los nombres
+        
+        public Projection(Iterable<String> fields) {
+            Set<String> topLevel = new LinkedHashSet<>();
+            for (String field : fields) {
+                int dot = field.indexOf('.');
+                String name = dot < 0 ? field : field.substring(0, dot);
+                if (!name.equals("_id")) topLevel.add(name);
+            }
+            names = new byte[topLevel.size()][];
+            int i = 0;
+            for (String name : topLevel) names[i++] = name.getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Projection");
+            for (int i = 0; i < names.length; i++) {
+                sb.append(i == 0 ? "[" : ", ").append(new String(names[i], StandardCharsets.UTF_8));
+            }
+            return sb.append(names.length == 0 ? "[]" : "]").toString();
+        }
+    }
+    
+    // ==================== CODIFICACIÓN ====================
+    
+    private void ensure(int extra) {
+        if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+    
+    private void writeByte(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+    
+    // Entero sin signo en base 128 (7 bits por byte)
+    private void writeVarint(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[len++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[len++] = (byte) v;
+    }
+    
+    // Zigzag: -1 -> 1, 1 -> 2, -2 -> 3 ... (negativos chicos = pocos bytes)
+    private void writeSigned(long v) {
+        writeVarint((v << 1) ^ (v >> 63));
+    }
+    
+    private void writeFixed(long v, int bytes) {
+        ensure(bytes);
+        for (int i = bytes - 1; i >= 0; i--) buf[len++] = (byte) (v >>> (8 * i));
+    }
+    
+    private void writeString(String s) {
+        // Camino rápido ASCII: un byte por carácter, sin arreglo intermedio
+        int n = s.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) ascii = s.charAt(i) < 0x80;
+        if (ascii) {
+            writeVarint(n);
+            ensure(n);
+            for (int i = 0; i < n; i++) buf[len++] = (byte) s.charAt(i);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+    }
+    
+    // _id admite null (documentos anidados): longitud + 1, 0 = null
+    private void writeNullableString(String s) {
+        if (s == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+    }
+    
+    private void writeKey(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            writeVarint(id + 1L);
+            return;
+        }
+        writeVarint(0);
+        writeString(key);
+        if (keyIds.size() < MAX_KEYS) keyIds.put(key, keyIds.size());
+    }
+    
+    // Por posición: los primitivos se escriben sin pasar por una caja
+    private void writeDocument(Document doc) {
+        writeNullableString(doc.getId());
+        int n = doc.size();
+        writeVarint(n);
+        for (int i = 0; i < n; i++) {
+            writeKey(doc.keyAt(i));
+            switch (doc.typeAt(i)) {
+                case NULL:    writeByte(T_NULL); break;
+                case BOOLEAN: writeByte(doc.longAt(i) != 0 ? T_TRUE : T_FALSE); break;
+                case INT:     writeByte(T_INT); writeSigned(doc.longAt(i)); break;
+                case LONG:    writeByte(T_LONG); writeSigned(doc.longAt(i)); break;
+                case DOUBLE:
+                    writeByte(T_DOUBLE);
+                    writeFixed(Double.doubleToRawLongBits(doc.doubleAt(i)), 8);
+                    break;
+                default:      writeValue(doc.valueAt(i));
+            }
+        }
+    }
+    
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(T_NULL);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? T_TRUE : T_FALSE);
+        } else if (value instanceof Integer) {
+            writeByte(T_INT);
+            writeSigned((Integer) value);
+        } else if (value instanceof Long) {
+            writeByte(T_LONG);
+            writeSigned((Long) value);
+        } else if (value instanceof Double) {
+            writeByte(T_DOUBLE);
+            writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            writeByte(T_FLOAT);
+            writeFixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof String) {
+            writeByte(T_STRING);
+            writeString((String) value);
+        } else if (value instanceof Document) {
+            writeByte(T_DOCUMENT);
+            writeDocument((Document) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            writeByte(T_ARRAY);
+            writeVarint(list.size());
+            for (Object item : list) writeValue(item);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeByte(T_MAP);
+            writeVarint(map.size());
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!(e.getKey() instanceof String)) {
+                    throw new IllegalArgumentException("Las claves de un Map deben ser String: " + e.getKey());
+                }
+                writeKey((String) e.getKey());
+                writeValue(e.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Tipo no soportado: " + value.getClass().getName());
+        }
+    }
+    
+    // ==================== DECODIFICACIÓN ====================
+    
+    private static final class Decoder {
+        private final byte[] b;
+        private int pos;
+        private final int end;
+        private final List<String> keys;  // Diccionario de nombres (espejo de keyIds); null al proyectar
+        
+        // Al proyectar: nombres del diccionario como posición en b, String solo si se usan
+        private int[] keyPos, keyLen;
+        private String[] keyNames;
+        private int keyCount;
+        
+        Decoder(byte[] b, int pos, int end, List<String> keys) {
+            this.b = b;
+            this.pos = pos;
+            this.end = end;
+            this.keys = keys;
+        }
+        
+        // Decodificador de un documento con proyección
+        Decoder(byte[] b, int pos, int end) {
+            this(b, pos, end, null);
+            keyPos = new int[16];
+            keyLen = new int[16];
+            keyNames = new String[16];
+        }
+        
+        long readVarint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte x = next();
+                v |= (long) (x & 0x7F) << shift;
+                if (x >= 0) return v;
+            }
+            throw new IllegalArgumentException("Varint inválido");
+        }
+        
+        long readSigned() {
+            long v = readVarint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+        
+        long readFixed(int bytes) {
+            long v = 0;
+            for (int i = 0; i < bytes; i++) v = (v << 8) | (next() & 0xFF);
+            return v;
+        }
+        
+        byte next() {
+            if (pos >= end) throw new IllegalArgumentException("Documento truncado");
+            return b[pos++];
+        }
+        
+        int readLength(long n) {
+            if (n < 0 || n > end - pos) throw new IllegalArgumentException("Longitud inválida: " + n);
+            return (int) n;
+        }
+        
+        String readString() {
+            int n = readLength(readVarint());
+            String s = new String(b, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+        
+        String readNullableString() {
+            long n = readVarint();
+            if (n == 0) return null;
+            int size = readLength(n - 1);
+            String s = new String(b, pos, size, StandardCharsets.UTF_8);
+            pos += size;
+            return s;
+        }
+        
+        String readKey() {
+            if (keys == null) return keyName(readKeyIndex());
+            long ref = readVarint();
+            if (ref > 0) {
+                if (ref > keys.size()) throw new IllegalArgumentException("Nombre de campo inexistente: " + ref);
+                return keys.get((int) (ref - 1));
+            }
+            String key = readString();
+            if (keys.size() < MAX_KEYS) keys.add(key);
+            return key;
+        }
+        
+        Document readDocument() {
+            Document doc = new Document(readNullableString());
+            long fields = readVarint();
+            for (long i = 0; i < fields; i++) readField(doc, readKey());
+            return doc;
+        }
+        
+        // Solo los campos de wanted; corta al encontrar el último
+        Document readDocument(byte[][] wanted) {
+            Document doc = new Document(readNullableString());
+            long fields = readVarint();
+            int missing = wanted.length;
+            for (long i = 0; i < fields && missing > 0; i++) {
+                int key = readKeyIndex();
+                if (isWanted(key, wanted)) {
+                    readField(doc, keyName(key));
+                    missing--;
+                } else {
+                    skipValue();
+                }
+            }
+            return doc;
+        }
+        
+        // Primitivos directo a los campos tipados, sin caja intermedia
+        private void readField(Document doc, String key) {
+            switch (next()) {
+                case T_FALSE:  doc.putBoolean(key, false); break;
+                case T_TRUE:   doc.putBoolean(key, true); break;
+                case T_INT:    doc.putInt(key, (int) readSigned()); break;
+                case T_LONG:   doc.putLong(key, readSigned()); break;
+                case T_DOUBLE: doc.putDouble(key, Double.longBitsToDouble(readFixed(8))); break;
+                default:
+                    pos--;  // Devolver la etiqueta a readValue()
+                    doc.put(key, readValue());
+            }
+        }
+        
+        // ==================== PROYECCIÓN ====================
+        
+        /**
+         * Número del próximo nombre en el diccionario, sin crear el String.
+         * Pasado MAX_KEYS el nombre literal ocupa una entrada provisoria que
+         * pisa el siguiente (igual que readKey, que ya no los registra).
+         */
+        int readKeyIndex() {
+            long ref = readVarint();
+            if (ref > 0) {
+                if (ref > keyCount) throw new IllegalArgumentException("Nombre de campo inexistente: " + ref);
+                return (int) (ref - 1);
+            }
+            int n = readLength(readVarint());
+            int index = keyCount;
+            if (index == keyPos.length) {
+                keyPos = Arrays.copyOf(keyPos, index * 2);
+                keyLen = Arrays.copyOf(keyLen, index * 2);
+                keyNames = Arrays.copyOf(keyNames, index * 2);
+            }
+            keyPos[index] = pos;
+            keyLen[index] = n;
+            keyNames[index] = null;
+            if (keyCount < MAX_KEYS) keyCount++;
+            pos += n;
+            return index;
+        }
+        
+        String keyName(int index) {
+            String name = keyNames[index];
+            if (name == null) keyNames[index] = name = new String(b, keyPos[index], keyLen[index], StandardCharsets.UTF_8);
+            return name;
+        }
+        
+        private boolean isWanted(int key, byte[][] wanted) {
+            int from = keyPos[key], to = from + keyLen[key];
+            for (byte[] name : wanted) {
+                if (Arrays.equals(b, from, to, name, 0, name.length)) return true;
+            }
+            return false;
+        }
+        
+        // Avanzar sobre un valor sin decodificarlo (los nombres anidados entran al diccionario)
+        private void skipValue() {
+            byte tag = next();
+            switch (tag) {
+                case T_NULL:
+                case T_FALSE:
+                case T_TRUE:     return;
+                case T_INT:
+                case T_LONG:     readVarint(); return;
+                case T_DOUBLE:   pos += readLength(8); return;
+                case T_FLOAT:    pos += readLength(4); return;
+                case T_STRING: {
+                    int n = readLength(readVarint());  // Antes de sumar: readVarint() mueve pos
+                    pos += n;
+                    return;
+                }
+                case T_DOCUMENT: {
+                    long id = readVarint();
+                    if (id > 0) pos += readLength(id - 1);
+                    long fields = readVarint();
+                    for (long i = 0; i < fields; i++) {
+                        readKeyIndex();
+                        skipValue();
+                    }
+                    return;
+                }
+                case T_ARRAY: {
+                    int n = readLength(readVarint());
+                    for (int i = 0; i < n; i++) skipValue();
+                    return;
+                }
+                case T_MAP: {
+                    int n = readLength(readVarint());
+                    for (int i = 0; i < n; i++) {
+                        readKeyIndex();
+                        skipValue();
+                    }
+                    return;
+                }
+                default: throw new IllegalArgumentException("Etiqueta de tipo desconocida: " + tag);
+            }
+        }
+        
+        Object readValue() {
+            byte tag = next();
+            switch (tag) {
+                case T_NULL:     return null;
+                case T_FALSE:    return Boolean.FALSE;
+                case T_TRUE:     return Boolean.TRUE;
+                case T_INT:      return (int) readSigned();
+                case T_LONG:     return readSigned();
+                case T_DOUBLE:   return Double.longBitsToDouble(readFixed(8));
+                case T_FLOAT:    return Float.intBitsToFloat((int) readFixed(4));
+                case T_STRING:   return readString();
+                case T_DOCUMENT: return readDocument();
+                case T_ARRAY: {
+                    int n = readLength(readVarint());  // Cada elemento ocupa al menos 1 byte
+                    List<Object> list = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) list.add(readValue());
+                    return list;
+                }
+                case T_MAP: {
+                    int n = readLength(readVarint());
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < n; i++) {
+                        String key = readKey();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                default: throw new IllegalArgumentException("Etiqueta de tipo desconocida: " + tag);
+            }
+        }
+    }
+    
+    // ==================== FLUJOS ====================
+    
+    /**
+     * Escritor de flujo: cabecera + un registro por write()
+     */
+    public static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final DocumentCodec codec = new DocumentCodec();
+        private long count;
+        
+        public Writer(OutputStream out) throws IOException {
+            this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, 64 * 1024);
+            this.out.write(new byte[] {'M', 'D', 'O', 'C', VERSION});
+        }
+        
+        public void write(Document doc) throws IOException {
+            codec.len = 0;
+            int keysBefore = codec.keyIds.size();
+            try {
+                codec.writeDocument(doc);
+            } catch (RuntimeException e) {
+                // El documento no se escribe: olvidar los nombres que agregó al diccionario
+                codec.keyIds.values().removeIf(id -> id >= keysBefore);
+                throw e;
+            }
+            int length = codec.len;
+            // Prefijo de longitud varint
+            while ((length & ~0x7F) != 0) {
+                out.write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            out.write(length);
+            out.write(codec.buf, 0, codec.len);
+            count++;
+        }
+        
+        public long getCount() { return count; }
+        
+        public void flush() throws IOException { out.flush(); }
+        
+        @Override
+        public void close() throws IOException { out.close(); }
+    }
+    
+    /**
+     * Lector de flujo: valida cabecera y versión, read() devuelve null al final
+     */
+    public static final class Reader implements Closeable {
+        private final InputStream in;
+        private byte[] buf = new byte[256];
+        private final List<String> keys = new ArrayList<>();
+        private final int version;
+        
+        public Reader(InputStream in) throws IOException {
+            this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 64 * 1024);
+            byte[] header = new byte[5];
+            readFully(header, 5);
+            int magic = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16)
+                      | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+            if (magic != MAGIC) throw new IOException("No es un archivo de documentos (MDOC)");
+            version = header[4];
+            if (version < 1 || version > VERSION) throw new IOException("Versión de formato no soportada: " + version);
+        }
+        
+        public Document read() throws IOException {
+            int first = in.read();
+            if (first < 0) return null;  // Fin del flujo
+            int length = 0;
+            int shift = 0;
+            int b = first;
+            while (true) {
+                length |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+                shift += 7;
+                if (shift > 28 || (b = in.read()) < 0) throw new EOFException("Registro truncado");
+            }
+            if (buf.length < length) buf = new byte[Math.max(length, buf.length * 2)];
+            readFully(buf, length);
+            return new Decoder(buf, 0, length, keys).readDocument();
+        }
+        
+        private void readFully(byte[] target, int length) throws IOException {
+            int off = 0;
+            while (off < length) {
+                int n = in.read(target, off, length - off);
+                if (n < 0) throw new EOFException("Registro truncado");
+                off += n;
+            }
+        }
+        
+        public int getVersion() { return version; }
+        
+        @Override
+        public void close() throws IOException { in.close(); }
+    }
+}
@@ -1,6 +1,9 @@
 package com.motor.storage;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 /**
  * FILEHANDLER - Manejo de archivos para persistencia
@@ -28,6 +31,46 @@ public class FileHandler {
         }
     }
     
+    /**
+     * Agregar contenido al final del archivo (lo crea si no existe)
+     * Complejidad: O(m) donde m = contenido agregado
+     */
+    public void append(String filename, String content) {
+        try (FileWriter writer = new FileWriter(basePath + "/" + filename, true)) {
+            writer.write(content);
+        } catch (IOException e) {
+            System.out.println("Error escribiendo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reemplazar el archivo de forma atómica: escribe un temporal, lo fuerza
+     * a disco y lo renombra encima. Tras una caída queda la versión vieja
+     * completa o la nueva completa, nunca una mezcla.
+     * Complejidad: O(n)
+     */
+    public void replace(String filename, String content) {
+        File target = new File(basePath, filename);
+        File tmp = new File(basePath, filename + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(content);
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            System.out.println("Error escribiendo: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Error reemplazando: " + e.getMessage());
+        }
+    }
+    
+    public String getBasePath() { return basePath; }
+    
     /**
      * Leer contenido de archivo
      * Complejidad: O(n)
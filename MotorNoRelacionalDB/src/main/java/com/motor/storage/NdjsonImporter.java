@@ -0,0 +1,407 @@
+package com.motor.storage;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import com.motor.core.FieldDictionary;
+import com.motor.utils.Exceptions.JsonException;
+import com.motor.utils.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * NDJSONIMPORTER - Importación masiva de NDJSON en paralelo
+ * 
+ * Tubería de tres etapas:
+ * 
+ *   lector (hilo que llama)  trozos de ~chunkBytes cortados en '\n'
+ *   workers (pool)           parsean su trozo con JsonReader y lo ordenan
+ *                            por _id (Collection.sortById)
+ *   escritor (un hilo)       aplica los lotes a la colección en el orden
+ *                            del archivo
+ * 
+ * Contrapresión: un semáforo limita los trozos en vuelo (leídos y todavía
+ * no aplicados). Si los workers o el escritor se atrasan, el lector deja de
+ * leer: la memoria de la tubería es O(maxInFlight * chunkBytes) sin
+ * importar el tamaño del archivo.
+ * 
+ * Escritura:
+ * - Colección vacía al empezar: se juntan hasta maxInFlight lotes
+ *   ordenados. Si el archivo termina antes, se mezclan (k-way merge) en una
+ *   sola carga masiva del Árbol B+ (Collection.bulkLoad). Si no, se carga lo
+ *   juntado y el resto sigue como con datos, así la memoria queda acotada
+ *   también en este caso (archivos más grandes que la RAM, colecciones en
+ *   disco).
+ * - Colección con datos: cada lote entra con insertSorted() apenas le toca.
+ * En los dos casos, ante un _id repetido gana la última línea del archivo.
+ * 
+ * Formato: un documento JSON por línea, cada uno con "_id". Un error de
+ * sintaxis o un documento sin _id detiene la importación con JsonException
+ * y la línea del archivo. Los lotes ya aplicados quedan insertados; si todavía
+ * se estaban juntando para la carga masiva, no se inserta nada.
+ * 
+ *   NdjsonImporter importer = new NdjsonImporter(col);
+ *   importer.setProgress(System.out);
+ *   long n = importer.importFile(Paths.get("estudiantes.ndjson"));
+ *   double rate = importer.getDocsPerSecond();
+ * 
+ * Complejidad: O(n log c) repartido entre los workers (c = documentos por
+ * trozo) + O(n log k) para mezclar k lotes o O(n log N) para insertarlos
+ */
+public class NdjsonImporter {
+    
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    
+    /** Trozos en vuelo por worker */
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    
+    private static final long PROGRESS_INTERVAL_NS = 1_000_000_000L;
+    
+    private final Collection collection;
+    private final int workers;
+    private final int chunkBytes;
+    private final int maxInFlight;
+    private PrintStream progress;
+    
+    // Resultado de la última importación
+    private long documents;
+    private long lines;
+    private long bytes;
+    private long elapsedNanos;
+    private long startNanos;
+    
+    // Trozo de líneas completas del archivo
+    private static final class Chunk {
+        final long seq;
+        final byte[] data;
+        final int length;
+        final long firstLine;
+        
+        Chunk(long seq, byte[] data, int length, long firstLine) {
+            this.seq = seq;
+            this.data = data;
+            this.length = length;
+            this.firstLine = firstLine;
+        }
+    }
+    
+    // Documentos de un trozo, ordenados por _id (o el error al parsearlo)
+    private static final class Batch {
+        final long seq;
+        final Document[] docs;
+        final int count;
+        final Exception error;
+        
+        Batch(long seq, Document[] docs, int count, Exception error) {
+            this.seq = seq;
+            this.docs = docs;
+            this.count = count;
+            this.error = error;
+        }
+    }
+    
+    private static final Batch END = new Batch(-1, null, 0, null);
+    
+    public NdjsonImporter(Collection collection) {
+        this(collection, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_CHUNK_BYTES);
+    }
+    
+    public NdjsonImporter(Collection collection, int workers, int chunkBytes) {
+        if (workers < 1) throw new IllegalArgumentException("Se necesita al menos un worker");
+        if (chunkBytes < 1) throw new IllegalArgumentException("Tamaño de trozo inválido: " + chunkBytes);
+        this.collection = collection;
+        this.workers = workers;
+        this.chunkBytes = chunkBytes;
+        this.maxInFlight = workers * IN_FLIGHT_PER_WORKER;
+    }
+    
+    /** Escribir el avance (documentos y docs/s) una vez por segundo; null = sin avance */
+    public void setProgress(PrintStream progress) {
+        this.progress = progress;
+    }
+    
+    public long importFile(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return importStream(in);
+        }
+    }
+    
+    /**
+     * Importar todo el flujo (no lo cierra)
+     * @return documentos insertados (sin contar IDs repetidos)
+     * @throws JsonException si una línea no es un documento válido con _id
+     */
+    public long importStream(InputStream in) throws IOException {
+        startNanos = System.nanoTime();
+        documents = lines = bytes = 0;
+        
+        Pipeline pipeline = new Pipeline(collection.size() == 0);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "ndjson-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread writer = new Thread(pipeline::write, "ndjson-writer");
+        writer.setDaemon(true);
+        writer.start();
+        
+        try {
+            pipeline.read(in, pool);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pipeline.fail(e);
+        } catch (IOException | RuntimeException e) {
+            pipeline.fail(e);
+        } finally {
+            join(writer);  // Ningún lote se aplica después de volver
+            pool.shutdownNow();
+        }
+        if (pipeline.failure == null && pipeline.deferred != null) {
+            documents = collection.bulkLoad(merge(pipeline.deferred));
+        }
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (pipeline.failure != null) rethrow(pipeline.failure);
+        return documents;
+    }
+    
+    // Esperar al hilo aunque interrumpan al que llama (se conserva la interrupción)
+    private static void join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+    
+    private static void rethrow(Exception e) throws IOException {
+        if (e instanceof IOException) throw (IOException) e;
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        InterruptedIOException interrupted = new InterruptedIOException("Importación interrumpida");
+        interrupted.initCause(e);
+        throw interrupted;
+    }
+    
+    // ==================== TUBERÍA ====================
+    
+    private final class Pipeline {
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final BlockingQueue<Batch> done = new LinkedBlockingQueue<>();  // Acotada por inFlight
+        List<Batch> deferred;   // Lotes para la carga masiva; null = insertar al llegar (solo el escritor)
+        volatile long totalChunks = -1;
+        volatile Exception failure;
+        
+        Pipeline(boolean bulk) {
+            this.deferred = bulk ? new ArrayList<>() : null;
+        }
+        
+        void fail(Exception e) {
+            if (failure == null) failure = e;
+            inFlight.release(maxInFlight);  // Despertar al lector si espera lugar
+            done.offer(END);                // Y al escritor si espera lotes
+        }
+        
+        // Hilo que llama: corta el flujo en trozos de líneas completas
+        void read(InputStream in, ExecutorService pool) throws IOException, InterruptedException {
+            byte[] buf = new byte[chunkBytes];
+            int len = 0;
+            long seq = 0;
+            long line = 1;
+            while (failure == null) {
+                int n = in.read(buf, len, buf.length - len);
+                if (n < 0) break;
+                len += n;
+                bytes += n;
+                if (len < buf.length) continue;
+                
+                int cut = len - 1;
+                while (cut >= 0 && buf[cut] != '\n') cut--;
+                if (cut < 0) {  // Una línea más larga que el trozo: agrandarlo
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                byte[] next = new byte[chunkBytes];
+                int tail = len - cut - 1;
+                if (tail > next.length) next = new byte[tail * 2];
+                System.arraycopy(buf, cut + 1, next, 0, tail);
+                line = submit(pool, new Chunk(seq++, buf, cut + 1, line));
+                buf = next;
+                len = tail;
+            }
+            if (failure == null && len > 0) line = submit(pool, new Chunk(seq++, buf, len, line));
+            lines = line - 1;
+            totalChunks = seq;
+            done.offer(END);
+        }
+        
+        // Espera lugar en la tubería y entrega el trozo a un worker; devuelve la línea siguiente
+        long submit(ExecutorService pool, Chunk chunk) throws InterruptedException {
+            inFlight.acquire();
+            long line = chunk.firstLine;
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk.data[i] == '\n') line++;
+            }
+            if (failure == null) pool.execute(() -> done.offer(parse(chunk, collection.getFieldDictionary())));
+            return line;
+        }
+        
+        // Hilo escritor: aplica los lotes en orden de trozo
+        void write() {
+            Map<Long, Batch> pending = new HashMap<>();  // Llegados antes de su turno
+            long next = 0;
+            long lastReport = System.nanoTime();
+            try {
+                while (failure == null) {
+                    long total = totalChunks;
+                    if (total >= 0 && next == total) return;
+                    Batch batch = done.take();
+                    if (batch == END) continue;
+                    pending.put(batch.seq, batch);
+                    while ((batch = pending.remove(next)) != null) {
+                        if (batch.error != null) {
+                            fail(batch.error);
+                            return;
+                        }
+                        apply(batch);
+                        next++;
+                        inFlight.release();
+                    }
+                    if (progress != null && System.nanoTime() - lastReport >= PROGRESS_INTERVAL_NS) {
+                        lastReport = System.nanoTime();
+                        progress.printf("  %d documentos | %.0f docs/s%n", documents, getDocsPerSecond(lastReport));
+                    }
+                }
+            } catch (InterruptedException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+        
+        void apply(Batch batch) {
+            if (deferred != null) {
+                deferred.add(batch);  // Documentos leídos; se cuentan de nuevo al cargar sin repetidos
+                documents += batch.count;
+                if (deferred.size() > maxInFlight) {
+                    // Ya no es un archivo chico: cargar lo juntado y seguir lote por lote
+                    documents = collection.bulkLoad(merge(deferred));
+                    deferred = null;
+                }
+                return;
+            }
+            int before = collection.size();
+            collection.insertSorted(batch.docs, batch.count);
+            documents += collection.size() - before;  // Un _id que ya estaba reemplaza, no suma
+        }
+    }
+    
+    // Worker: parsear las líneas del trozo y ordenarlas por _id
+    private static Batch parse(Chunk chunk, FieldDictionary dictionary) {
+        try {
+            JsonReader json = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(chunk.data, 0, chunk.length), StandardCharsets.UTF_8), chunk.firstLine);
+            json.setDictionary(dictionary);
+            List<Document> docs = new ArrayList<>();
+            while (json.hasNext()) {
+                Document doc = json.readDocument();
+                if (doc.getId() == null) throw new JsonException("documento sin _id (línea " + json.getLine() + ")");
+                docs.add(doc);
+            }
+            Document[] sorted = docs.toArray(new Document[0]);
+            return new Batch(chunk.seq, sorted, Collection.sortById(sorted), null);
+        } catch (IOException | RuntimeException e) {
+            return new Batch(chunk.seq, null, 0, e);
+        }
+    }
+    
+    // ==================== MEZCLA ====================
+    
+    // Cursor sobre un lote ordenado
+    private static final class Cursor {
+        final Batch batch;
+        int pos;
+        
+        Cursor(Batch batch) { this.batch = batch; }
+        
+        Document current() { return batch.docs[pos]; }
+    }
+    
+    /**
+     * Recorrido ordenado por _id de todos los lotes (k-way merge con un
+     * montículo); con un _id en varios lotes queda el del lote más tardío
+     * Complejidad: O(log k) por documento
+     */
+    private static Iterator<Document> merge(List<Batch> batches) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, batches.size()), (a, b) -> {
+            int c = a.current().getId().compareTo(b.current().getId());
+            return c != 0 ? c : Long.compare(a.batch.seq, b.batch.seq);
+        });
+        for (Batch batch : batches) {
+            if (batch.count > 0) heap.add(new Cursor(batch));
+        }
+        
+        return new Iterator<Document>() {
+            @Override
+            public boolean hasNext() { return !heap.isEmpty(); }
+            
+            @Override
+            public Document next() {
+                if (heap.isEmpty()) throw new NoSuchElementException();
+                Document doc = advance(heap.poll());
+                while (!heap.isEmpty() && heap.peek().current().getId().equals(doc.getId())) {
+                    doc = advance(heap.poll());  // Empate: el lote posterior sale después y gana
+                }
+                return doc;
+            }
+            
+            private Document advance(Cursor cursor) {
+                Document doc = cursor.current();
+                if (++cursor.pos < cursor.batch.count) heap.add(cursor);
+                return doc;
+            }
+        };
+    }
+    
+    // ==================== RESULTADO ====================
+    
+    /** Documentos de la última importación (sin repetidos al terminar) */
+    public long getDocuments() { return documents; }
+    
+    /** Líneas leídas en la última importación */
+    public long getLines() { return lines; }
+    
+    public long getBytes() { return bytes; }
+    
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getDocsPerSecond() {
+        return elapsedNanos == 0 ? 0 : documents / (elapsedNanos / 1e9);
+    }
+    
+    private double getDocsPerSecond(long now) {
+        return documents / ((now - startNanos) / 1e9);
+    }
+}
@@ -0,0 +1,236 @@
+package com.motor.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * OFFHEAPARENA - Memoria fuera del heap con asignador por slabs
+ * 
+ * Guarda registros de bytes (documentos codificados) en ByteBuffer directos:
+ * el GC no recorre su contenido, así que millones de registros no alargan
+ * las pausas ni ocupan el heap.
+ * 
+ * Asignador por slabs:
+ * - Clases de tamaño: 32, 40, 48, 56, 64, 80, 96, 112, 128, 160... (cuatro
+ *   pasos por potencia de 2: se desperdicia a lo sumo ~20% por bloque)
+ * - Cada slab (SLAB_BYTES) se dedica a una clase y se corta en bloques
+ *   iguales; un registro más grande que MAX_BLOCK recibe un slab propio
+ * - free() deja el bloque en la lista libre de su clase, enlazada dentro de
+ *   los propios bloques (sin objetos en el heap); allocate() la usa primero
+ * 
+ * Bloque: [largo 4][datos]. Dirección = (slab << 32) | desplazamiento.
+ * 
+ * Los slabs no se devuelven al sistema (salvo los de registros grandes al
+ * liberarlos): la memoria queda para la misma clase. El total está acotado
+ * por -XX:MaxDirectMemorySize (por defecto, igual a -Xmx).
+ * 
+ * Escrituras (allocate / free) synchronized; read() sin bloqueo con
+ * accesos absolutos al búfer. Leer un bloque ya liberado no corrompe nada:
+ * devuelve bytes viejos o de otro registro, o IllegalArgumentException
+ * (Collection lo detecta al validar la lectura optimista).
+ * 
+ * Complejidad: allocate(), free(), read(): O(1) + O(largo) al copiar
+ */
+public class OffHeapArena {
+    
+    /** Tamaño de cada slab */
+    public static final int SLAB_BYTES = 1 << 20;
+    
+    /** Bloque más grande que se corta de un slab compartido */
+    public static final int MAX_BLOCK = SLAB_BYTES / 4;
+    
+    public static final long NULL = -1;
+    
+    private static final int HEADER = 4;
+    private static final int MIN_BLOCK = 32;
+    private static final int LARGE = -1;  // Clase de un slab con un solo registro grande
+    
+    private static final int[] CLASS_SIZES;
+    static {
+        int[] sizes = new int[64];
+        int n = 0;
+        for (int size = MIN_BLOCK; size <= MAX_BLOCK; size += Math.max(8, Integer.highestOneBit(size) / 4)) {
+            sizes[n++] = size;
+        }
+        CLASS_SIZES = Arrays.copyOf(sizes, n);
+    }
+    
+    private volatile ByteBuffer[] slabs = new ByteBuffer[16];
+    private int[] slabClass = new int[16];
+    private int slabCount;
+    private int freeSlab = -1;  // Posición libre en slabs (de un registro grande ya liberado)
+    
+    // Por clase: slab en uso, próximo desplazamiento libre y lista de bloques liberados
+    private final int[] currentSlab = new int[CLASS_SIZES.length];
+    private final int[] bump = new int[CLASS_SIZES.length];
+    private final long[] freeList = new long[CLASS_SIZES.length];
+    
+    private long reservedBytes;  // Slabs pedidos
+    private long usedBytes;      // Bloques ocupados (con su cabecera y redondeo)
+    private long records;
+    
+    public OffHeapArena() {
+        Arrays.fill(currentSlab, -1);
+        Arrays.fill(freeList, NULL);
+    }
+    
+    // ==================== ESCRITURA ====================
+    
+    /**
+     * Copiar data[offset, offset + length) a un bloque nuevo
+     * Complejidad: O(1) + O(length)
+     * @return dirección del registro
+     */
+    public synchronized long allocate(byte[] data, int offset, int length) {
+        int needed = length + HEADER;
+        long address;
+        if (needed > MAX_BLOCK) {
+            int slab = addSlab(needed, LARGE);
+            address = address(slab, 0);
+            usedBytes += needed;
+        } else {
+            int c = classOf(needed);
+            address = freeList[c];
+            if (address != NULL) {
+                freeList[c] = buffer(address).getLong(offset(address) + HEADER);
+            } else {
+                if (currentSlab[c] < 0 || bump[c] + CLASS_SIZES[c] > SLAB_BYTES) {
+                    currentSlab[c] = addSlab(SLAB_BYTES, c);
+                    bump[c] = 0;
+                }
+                address = address(currentSlab[c], bump[c]);
+                bump[c] += CLASS_SIZES[c];
+            }
+            usedBytes += CLASS_SIZES[c];
+        }
+        ByteBuffer buf = buffer(address);
+        int at = offset(address);
+        buf.putInt(at, length);
+        buf.put(at + HEADER, data, offset, length);
+        records++;
+        return address;
+    }
+    
+    public long allocate(byte[] data) {
+        return allocate(data, 0, data.length);
+    }
+    
+    /**
+     * Liberar un registro; la dirección deja de ser válida
+     * Complejidad: O(1)
+     */
+    public synchronized void free(long address) {
+        int slab = (int) (address >>> 32);
+        int c = slabClass[slab];
+        if (c == LARGE) {
+            usedBytes -= slabs[slab].capacity();
+            reservedBytes -= slabs[slab].capacity();
+            slabs[slab] = null;  // El Cleaner del búfer directo libera la memoria
+            slabClass[slab] = freeSlab;
+            freeSlab = slab;
+        } else {
+            buffer(address).putLong(offset(address) + HEADER, freeList[c]);
+            freeList[c] = address;
+            usedBytes -= CLASS_SIZES[c];
+        }
+        records--;
+    }
+    
+    /** Liberar todo (los búferes quedan para el GC) */
+    public synchronized void clear() {
+        slabs = new ByteBuffer[16];
+        slabClass = new int[16];
+        slabCount = 0;
+        freeSlab = -1;
+        Arrays.fill(currentSlab, -1);
+        Arrays.fill(freeList, NULL);
+        reservedBytes = usedBytes = records = 0;
+    }
+    
+    private int addSlab(int bytes, int sizeClass) {
+        int slab;
+        if (sizeClass == LARGE && freeSlab >= 0) {
+            slab = freeSlab;
+            freeSlab = slabClass[slab];
+        } else {
+            slab = slabCount++;
+            if (slab == slabs.length) {
+                slabClass = Arrays.copyOf(slabClass, slab * 2);
+                slabs = Arrays.copyOf(slabs, slab * 2);  // Los lectores ven el arreglo viejo o el nuevo: ambos tienen los slabs
+            }
+        }
+        ByteBuffer[] table = slabs;
+        table[slab] = ByteBuffer.allocateDirect(bytes);
+        slabs = table;  // Publicar el slab nuevo a los lectores
+        slabClass[slab] = sizeClass;
+        reservedBytes += bytes;
+        return slab;
+    }
+    
+    // Clase más chica que admite size bytes (búsqueda binaria)
+    private static int classOf(int size) {
+        int lo = 0, hi = CLASS_SIZES.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (CLASS_SIZES[mid] < size) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    
+    // ==================== LECTURA ====================
+    
+    /** Largo del registro */
+    public int length(long address) {
+        return buffer(address).getInt(offset(address));
+    }
+    
+    /**
+     * Copia del registro
+     * @throws IllegalArgumentException si el largo guardado no es válido
+     *         (bloque liberado y reutilizado durante la lectura)
+     */
+    public byte[] read(long address) {
+        ByteBuffer buf = buffer(address);
+        int at = offset(address);
+        int length = buf.getInt(at);
+        if (length < 0 || at + HEADER + length > buf.capacity()) {
+            throw new IllegalArgumentException("Registro inválido en " + Long.toHexString(address));
+        }
+        byte[] data = new byte[length];
+        buf.get(at + HEADER, data, 0, length);
+        return data;
+    }
+    
+    private ByteBuffer buffer(long address) {
+        ByteBuffer buf = slabs[(int) (address >>> 32)];
+        if (buf == null) throw new IllegalArgumentException("Dirección liberada: " + Long.toHexString(address));
+        return buf;
+    }
+    
+    private static int offset(long address) {
+        return (int) address;
+    }
+    
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+    
+    // ==================== ESTADÍSTICAS ====================
+    
+    /** Memoria directa pedida (slabs) */
+    public synchronized long getReservedBytes() { return reservedBytes; }
+    
+    /** Bytes en bloques ocupados */
+    public synchronized long getUsedBytes() { return usedBytes; }
+    
+    public synchronized long getRecords() { return records; }
+    
+    public synchronized int getSlabCount() { return slabCount; }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("OffHeapArena{%d registros, %.1f MB usados de %.1f MB en %d slabs}",
+            records, usedBytes / 1e6, reservedBytes / 1e6, slabCount);
+    }
+}
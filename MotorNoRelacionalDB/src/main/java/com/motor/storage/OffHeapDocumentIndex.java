@@ -0,0 +1,179 @@
+package com.motor.storage;
+
+import com.motor.core.Collection;
+import com.motor.core.Document;
+import com.motor.index.BPlusTreeIndex;
+import com.motor.index.ProjectingIndex;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OFFHEAPDOCUMENTINDEX - Índice principal con los documentos fuera del heap
+ * 
+ * Modo de almacenamiento para Collection: los documentos se guardan
+ * codificados (DocumentCodec) en un OffHeapArena y el Árbol B+ en el heap
+ * solo relaciona _id -> dirección. Cada lectura decodifica el documento en
+ * el momento (search, cursores de stream/scan/SELECT); nada queda retenido.
+ * 
+ *   Database db = new Database("eventos");
+ *   Collection col = db.createCollection("logs", new OffHeapDocumentIndex());
+ *   col.enableCache(64 << 20);   // Opcional: los documentos calientes ya decodificados
+ * 
+ * En el heap queda por documento solo el _id y su entrada en el árbol
+ * (decenas de bytes en lugar del documento completo y sus objetos): el GC
+ * ya no recorre los documentos y el heap crece con la cantidad de IDs, no
+ * con el tamaño de los datos.
+ * 
+ * Proyección (ProjectingIndex): los cursores con campos decodifican solo
+ * esos campos (DocumentCodec.Projection), así que un SELECT de pocas
+ * columnas o un findByField sin índice no arman los documentos completos.
+ * 
+ * Como con DiskBPlusTreeIndex, los documentos devueltos son copias:
+ * modificarlos no cambia lo guardado (hay que usar Collection.update).
+ * Con Collection.enableCache no: findById() devuelve la instancia
+ * compartida del caché, que tampoco se debe modificar.
+ * 
+ * No es thread-safe para escrituras (Collection las serializa). Un
+ * documento reemplazado se libera después de apuntar el árbol a la copia
+ * nueva; un lector optimista que alcance el bloque viejo lee bytes
+ * inválidos, falla o no valida, y reintenta con bloqueo.
+ * 
+ * Complejidad: O(log n) + O(tamaño del documento) por operación
+ */
+public class OffHeapDocumentIndex implements ProjectingIndex<String, Document> {
+    
+    private final BPlusTreeIndex<String, Long> addresses;
+    private final OffHeapArena arena;
+    
+    public OffHeapDocumentIndex() {
+        this(new BPlusTreeIndex<>(Collection.DEFAULT_ORDER), new OffHeapArena());
+    }
+    
+    public OffHeapDocumentIndex(BPlusTreeIndex<String, Long> addresses, OffHeapArena arena) {
+        if (addresses.size() > 0) throw new IllegalArgumentException("El índice de direcciones debe estar vacío");
+        this.addresses = addresses;
+        this.arena = arena;
+    }
+    
+    // ==================== ESCRITURA ====================
+    
+    @Override
+    public void insert(String id, Document doc) {
+        long address = arena.allocate(DocumentCodec.encode(doc));
+        Long previous = addresses.search(id);
+        addresses.insert(id, address);
+        if (previous != null) arena.free(previous);  // Recién ahora: el árbol ya apunta a la copia nueva
+    }
+    
+    @Override
+    public boolean delete(String id) {
+        Long address = addresses.search(id);
+        if (address == null) return false;
+        addresses.delete(id);
+        arena.free(address);
+        return true;
+    }
+    
+    /**
+     * Carga masiva: cada documento se codifica al arena a medida que el
+     * Árbol B+ de direcciones lo pide. Si falla (claves desordenadas) el
+     * árbol queda vacío y, si el arena no tenía otros registros, se vacía.
+     * Complejidad: O(n) + O(tamaño de los datos)
+     */
+    @Override
+    public void bulkLoad(Iterator<Map.Entry<String, Document>> entries, double fillFactor) {
+        boolean emptyArena = arena.getRecords() == 0;
+        try {
+            loadAddresses(entries, fillFactor);
+        } catch (RuntimeException e) {
+            if (emptyArena && addresses.size() == 0) arena.clear();
+            throw e;
+        }
+    }
+    
+    private void loadAddresses(Iterator<Map.Entry<String, Document>> entries, double fillFactor) {
+        addresses.bulkLoad(new Iterator<Map.Entry<String, Long>>() {
+            @Override
+            public boolean hasNext() { return entries.hasNext(); }
+            
+            @Override
+            public Map.Entry<String, Long> next() {
+                Map.Entry<String, Document> e = entries.next();
+                long address = arena.allocate(DocumentCodec.encode(e.getValue()));
+                return new AbstractMap.SimpleImmutableEntry<>(e.getKey(), address);
+            }
+        }, fillFactor);
+    }
+    
+    // ==================== LECTURA ====================
+    
+    @Override
+    public Document search(String id) {
+        Long address = addresses.search(id);
+        return address == null ? null : load(address);
+    }
+    
+    // Decodificar el documento guardado en address
+    private Document load(long address) {
+        return DocumentCodec.decode(arena.read(address));
+    }
+    
+    // Decodificar solo los campos de projection
+    private Document load(long address, DocumentCodec.Projection projection) {
+        byte[] data = arena.read(address);
+        return DocumentCodec.decode(data, 0, data.length, projection);
+    }
+    
+    @Override
+    public Cursor<String, Document> cursor(String from, boolean fromInclusive, String to, boolean toInclusive,
+                                           boolean descending) {
+        return cursor(from, fromInclusive, to, toInclusive, descending, null);
+    }
+    
+    @Override
+    public Cursor<String, Document> cursor(String from, boolean fromInclusive, String to, boolean toInclusive,
+                                           boolean descending, Set<String> fields) {
+        Cursor<String, Long> positions = addresses.cursor(from, fromInclusive, to, toInclusive, descending);
+        DocumentCodec.Projection projection = fields == null ? null : new DocumentCodec.Projection(fields);
+        return new Cursor<String, Document>() {
+            @Override
+            public boolean hasNext() { return positions.hasNext(); }
+            
+            @Override
+            public Document next() {  // Se decodifica recién al pedirlo
+                long address = positions.next();
+                return projection == null ? load(address) : load(address, projection);
+            }
+            
+            @Override
+            public String lastKey() { return positions.lastKey(); }
+        };
+    }
+    
+    /**
+     * Todos los documentos decodificados (materializa la colección en el
+     * heap: para recorridos grandes conviene cursor())
+     * Complejidad: O(n)
+     */
+    @Override
+    public List<Document> getAllValues() {
+        List<Document> docs = new ArrayList<>(addresses.size());
+        Cursor<String, Document> cursor = cursor();
+        while (cursor.hasNext()) docs.add(cursor.next());
+        return docs;
+    }
+    
+    @Override
+    public int size() { return addresses.size(); }
+    
+    public OffHeapArena getArena() { return arena; }
+    
+    @Override
+    public String toString() {
+        return "OffHeapDocumentIndex{" + addresses.size() + " documentos, " + arena + "}";
+    }
+}
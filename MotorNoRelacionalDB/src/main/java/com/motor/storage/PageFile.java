@@ -0,0 +1,323 @@
+package com.motor.storage;
+
+import com.motor.utils.Exceptions.StorageException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PAGEFILE - Archivo de páginas de tamaño fijo mapeado en memoria
+ * 
+ * El archivo se divide en páginas de pageSize bytes identificadas por número.
+ * La página 0 es la cabecera:
+ * 
+ *   [magic][pageSize][pageCount][primera página libre][cantidad libres]
+ *   [8 ranuras long de metadatos para quien use el archivo (raíz, tamaño...)]
+ * 
+ * - Acceso con FileChannel.map en regiones de REGION_BYTES: el sistema
+ *   operativo trae a memoria solo las páginas que se tocan y las puede
+ *   desalojar, así que el archivo puede ser más grande que la RAM / -Xmx
+ * - Asignación: primero reutiliza páginas de la lista libre (enlazada a
+ *   través de los primeros 4 bytes de cada página libre), si no crece
+ * - pin() devuelve la vista mapeada (sin copia); readPage()/writePage()
+ *   copian con E/S posicional para un caché propio (BufferPool)
+ * - sync() fuerza a disco las páginas modificadas
+ * - Estado consistente/sucio en la cabecera: markDirty() lo pone en sucio
+ *   (forzado a disco) antes de la primera modificación tras un sync(), así
+ *   isClean() detecta al abrir si hubo una caída con cambios a medio escribir
+ * - trackChanges()/takeChanges() anotan las páginas modificadas entre medio,
+ *   para copiar el archivo en caliente y repasar solo esas al final
+ * 
+ * No es thread-safe para escrituras (allocate/free); las lecturas
+ * concurrentes de páginas sí son seguras.
+ * 
+ * Complejidad:
+ * - page(), allocate(), free(): O(1)
+ */
+public class PageFile implements PageStore {
+    
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int META_SLOTS = 8;
+    
+    private static final int MAGIC = 0x50414745;  // "PAGE"
+    private static final long REGION_BYTES = 16L * 1024 * 1024;
+    
+    // Posiciones dentro de la cabecera
+    private static final int H_MAGIC = 0;
+    private static final int H_PAGE_SIZE = 4;
+    private static final int H_PAGE_COUNT = 8;
+    private static final int H_FREE_HEAD = 12;
+    private static final int H_FREE_COUNT = 16;
+    private static final int H_DIRTY = 20;
+    private static final int H_META = 32;
+    
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int pagesPerRegion;
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];  // Se reemplaza al crecer
+    private final ByteBuffer header;
+    private final boolean cleanAtOpen;
+    private boolean dirty;
+    private volatile Set<Integer> changed;  // null = sin anotar
+    
+    /**
+     * Abrir o crear el archivo
+     * @param pageSize tamaño de página para archivos nuevos (uno existente usa el suyo)
+     */
+    public PageFile(String path, int pageSize) {
+        try {
+            channel = FileChannel.open(Paths.get(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean fresh = channel.size() == 0;
+            if (!fresh) {
+                ByteBuffer head = ByteBuffer.allocate(8);
+                channel.read(head, 0);
+                if (head.getInt(H_MAGIC) != MAGIC) throw new StorageException("no es un archivo de páginas: " + path);
+                pageSize = head.getInt(H_PAGE_SIZE);
+            }
+            if (pageSize < 512 || Integer.bitCount(pageSize) != 1) {
+                throw new IllegalArgumentException("Tamaño de página inválido: " + pageSize);
+            }
+            this.pageSize = pageSize;
+            this.pagesPerRegion = (int) (REGION_BYTES / pageSize);
+            
+            ensureMapped(1);
+            header = page(0);
+            if (fresh) {
+                header.putInt(H_MAGIC, MAGIC);
+                header.putInt(H_PAGE_SIZE, pageSize);
+                header.putInt(H_PAGE_COUNT, 1);
+            } else {
+                ensureMapped(getPageCount());
+            }
+            cleanAtOpen = fresh || header.getInt(H_DIRTY) == 0;
+        } catch (IOException e) {
+            throw new StorageException("no se pudo abrir " + path + ": " + e.getMessage());
+        }
+    }
+    
+    public PageFile(String path) {
+        this(path, DEFAULT_PAGE_SIZE);
+    }
+    
+    /**
+     * Ver si un archivo existente quedó consistente sin abrirlo para escritura
+     * Complejidad: O(1)
+     */
+    public static boolean isClean(String path) {
+        try (FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(H_DIRTY + 4);
+            ch.read(head, 0);
+            return head.getInt(H_MAGIC) == MAGIC && head.getInt(H_DIRTY) == 0;
+        } catch (IOException e) {
+            throw new StorageException("no se pudo leer " + path + ": " + e.getMessage());
+        }
+    }
+    
+    // Mapear regiones hasta cubrir 'pages' páginas
+    private void ensureMapped(int pages) throws IOException {
+        MappedByteBuffer[] current = regions;
+        if ((long) current.length * pagesPerRegion >= pages) return;
+        int needed = (int) ((pages + (long) pagesPerRegion - 1) / pagesPerRegion);
+        MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+        for (int r = current.length; r < needed; r++) {
+            grown[r] = channel.map(FileChannel.MapMode.READ_WRITE, r * REGION_BYTES, REGION_BYTES);
+        }
+        regions = grown;  // Publicación: los lectores ven el arreglo viejo o el nuevo completo
+    }
+    
+    /**
+     * Vista de una página (posición 0, límite pageSize)
+     * Complejidad: O(1)
+     */
+    public ByteBuffer page(int id) {
+        MappedByteBuffer[] current = regions;
+        if (id < 0 || id / pagesPerRegion >= current.length) throw new IndexOutOfBoundsException("Página inexistente: " + id);
+        ByteBuffer region = current[id / pagesPerRegion].duplicate();
+        int offset = (id % pagesPerRegion) * pageSize;
+        region.position(offset).limit(offset + pageSize);
+        return region.slice();
+    }
+    
+    @Override
+    public ByteBuffer pin(int id) { return page(id); }
+    
+    @Override
+    public void unpin(int id, boolean dirty) {
+        if (dirty) noteChange(id);  // La vista mapeada ya es el archivo
+    }
+    
+    /**
+     * Copiar una página del archivo a dst (pageSize bytes desde la posición 0)
+     * Complejidad: O(pageSize)
+     */
+    public void readPage(int id, ByteBuffer dst) {
+        dst.clear();
+        try {
+            while (dst.hasRemaining()) {
+                if (channel.read(dst, (long) id * pageSize + dst.position()) < 0) {
+                    throw new StorageException("página fuera del archivo: " + id);
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("no se pudo leer la página " + id + ": " + e.getMessage());
+        }
+        dst.clear();
+    }
+    
+    /**
+     * Escribir src (pageSize bytes desde la posición 0) sobre una página
+     * Complejidad: O(pageSize)
+     */
+    public void writePage(int id, ByteBuffer src) {
+        noteChange(id);
+        src.clear();
+        try {
+            while (src.hasRemaining()) channel.write(src, (long) id * pageSize + src.position());
+        } catch (IOException e) {
+            throw new StorageException("no se pudo escribir la página " + id + ": " + e.getMessage());
+        }
+        src.clear();
+    }
+    
+    /**
+     * Obtener una página libre (reutilizada o nueva), con la cabecera en cero
+     * Complejidad: O(1)
+     */
+    @Override
+    public int allocate() {
+        markDirty();
+        int id = header.getInt(H_FREE_HEAD);
+        if (id != 0) {
+            header.putInt(H_FREE_HEAD, page(id).getInt(0));
+            header.putInt(H_FREE_COUNT, header.getInt(H_FREE_COUNT) - 1);
+        } else {
+            id = getPageCount();
+            try {
+                ensureMapped(id + 1);
+            } catch (IOException e) {
+                throw new StorageException("no se pudo crecer el archivo: " + e.getMessage());
+            }
+            header.putInt(H_PAGE_COUNT, id + 1);
+        }
+        ByteBuffer p = page(id);
+        for (int i = 0; i < 16; i++) p.put(i, (byte) 0);
+        noteChange(id);
+        return id;
+    }
+    
+    /**
+     * Devolver una página a la lista libre
+     * Complejidad: O(1)
+     */
+    @Override
+    public void free(int id) {
+        if (id <= 0) throw new IllegalArgumentException("Página inválida: " + id);
+        markDirty();
+        page(id).putInt(0, header.getInt(H_FREE_HEAD));
+        noteChange(id);
+        header.putInt(H_FREE_HEAD, id);
+        header.putInt(H_FREE_COUNT, header.getInt(H_FREE_COUNT) + 1);
+    }
+    
+    @Override
+    public long getMeta(int slot) {
+        return header.getLong(H_META + 8 * checkSlot(slot));
+    }
+    
+    @Override
+    public void setMeta(int slot, long value) {
+        markDirty();
+        header.putLong(H_META + 8 * checkSlot(slot), value);
+    }
+    
+    private static int checkSlot(int slot) {
+        if (slot < 0 || slot >= META_SLOTS) throw new IndexOutOfBoundsException("Ranura inválida: " + slot);
+        return slot;
+    }
+    
+    /**
+     * Forzar a disco las páginas modificadas
+     * Complejidad: O(páginas sucias)
+     */
+    @Override
+    public void sync() {
+        for (MappedByteBuffer region : regions) region.force();
+        try {
+            channel.force(false);  // Lo escrito con writePage()
+        } catch (IOException e) {
+            throw new StorageException("no se pudo sincronizar el archivo de páginas: " + e.getMessage());
+        }
+        if (dirty) {
+            header.putInt(H_DIRTY, 0);
+            regions[0].force(0, pageSize);
+            dirty = false;
+        }
+    }
+    
+    /**
+     * Marcar el archivo como sucio antes de modificar páginas
+     * Solo escribe (y fuerza la cabecera) la primera vez tras cada sync().
+     * Complejidad: O(1)
+     */
+    @Override
+    public void markDirty() {
+        if (dirty) return;
+        header.putInt(H_DIRTY, 1);
+        regions[0].force(0, pageSize);
+        dirty = true;
+    }
+    
+    /**
+     * Empezar a anotar las páginas que se modifican (la cabecera no se anota)
+     * Una página cambiada antes de esta llamada ya está en el archivo, así
+     * que una copia hecha después más las páginas anotadas queda al día.
+     * Complejidad: O(1)
+     */
+    public void trackChanges() {
+        changed = ConcurrentHashMap.newKeySet();
+    }
+    
+    /**
+     * Dejar de anotar y devolver las páginas modificadas desde trackChanges()
+     * Complejidad: O(1)
+     */
+    public Set<Integer> takeChanges() {
+        Set<Integer> result = changed;
+        changed = null;
+        return result != null ? result : Set.of();
+    }
+    
+    // Se llama después de modificar: si trackChanges() llegó antes, la anota
+    private void noteChange(int id) {
+        Set<Integer> current = changed;
+        if (current != null) current.add(id);
+    }
+    
+    // false si al abrir el archivo había cambios sin sincronizar (caída)
+    public boolean isClean() { return cleanAtOpen; }
+    
+    @Override
+    public void close() {
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new StorageException("no se pudo cerrar el archivo de páginas: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public int getPageSize() { return pageSize; }
+    
+    @Override
+    public int getPageCount() { return header.getInt(H_PAGE_COUNT); }
+    
+    public int getFreeCount() { return header.getInt(H_FREE_COUNT); }
+}
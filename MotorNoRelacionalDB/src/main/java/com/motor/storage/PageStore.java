@@ -0,0 +1,48 @@
+package com.motor.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * PAGESTORE - Acceso a páginas de tamaño fijo con fijado explícito
+ * 
+ * Lo implementan PageFile (vista directa del archivo mapeado, fijar no
+ * cuesta nada) y BufferPool (copias en un caché acotado). Quien usa las
+ * páginas (DiskBPlusTreeIndex) no sabe cuál de los dos tiene detrás:
+ * 
+ *   ByteBuffer p = store.pin(id);
+ *   try { ... leer / escribir con posiciones absolutas ... }
+ *   finally { store.unpin(id, modificada); }
+ * 
+ * Una página fijada no se desaloja ni se reutiliza hasta soltarla.
+ */
+public interface PageStore extends AutoCloseable {
+    
+    // Fijar una página y obtener su contenido (posición 0, límite pageSize)
+    ByteBuffer pin(int id);
+    
+    // Soltar una página; dirty = true si se modificó mientras estaba fijada
+    void unpin(int id, boolean dirty);
+    
+    // Página nueva o reutilizada, con los primeros 16 bytes en cero
+    int allocate();
+    
+    // Devolver una página libre (no debe estar fijada)
+    void free(int id);
+    
+    long getMeta(int slot);
+    
+    void setMeta(int slot, long value);
+    
+    // Marcar el archivo como sucio antes de modificarlo (ver PageFile)
+    void markDirty();
+    
+    // Escribir todo lo modificado y forzarlo a disco
+    void sync();
+    
+    @Override
+    void close();
+    
+    int getPageSize();
+    
+    int getPageCount();
+}
@@ -0,0 +1,48 @@
+package com.motor.storage;
+
+import com.motor.core.Document;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RECORDIO - Campos de los registros del registro de escritura y las copias
+ * 
+ * Cadenas con longitud de 4 bytes y documentos como [longitud][DocumentCodec].
+ * 
+ * Complejidad: O(tamaño del dato)
+ */
+final class RecordIO {
+    
+    private RecordIO() {}
+    
+    // Cadenas con longitud de 4 bytes (writeUTF se limita a 64 KB)
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    static void writeDocument(DataOutput out, Document doc) throws IOException {
+        byte[] bytes = DocumentCodec.encode(doc);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static Document readDocument(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try {
+            return DocumentCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+}
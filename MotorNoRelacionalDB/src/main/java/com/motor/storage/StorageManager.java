@@ -1,17 +1,82 @@
 package com.motor.storage;
 
 import com.motor.core.*;
+import com.motor.index.DiskBPlusTreeIndex;
+import com.motor.index.Serializer;
+import com.motor.utils.Exceptions.StorageException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * STORAGEMANAGER - Gestiona persistencia con buffer usando Lista Enlazada
  * 
  * Implementa TDA Lista (estructura lineal del pensum)
+ * 
+ * open(db) activa el registro de escritura anticipada (WriteAheadLog): al
+ * arrancar reproduce el registro sobre la base y desde ahí cada escritura
+ * durable cuesta un append secuencial en lugar de reescribir la colección.
+ * 
+ * Checkpoints (checkpoint() o startCheckpoints() en segundo plano):
+ * 1. Rota el registro y anota L0 = último LSN
+ * 2. Por colección, copia consistente (Collection.snapshot(), con su LSN)
+ *    escrita en <col>.snap.tmp, forzada a disco y renombrada atómicamente
+ * 3. Manifiesto "checkpoint" (L0 + colecciones) con el mismo método
+ * 4. Borra los segmentos del registro con LSN <= L0
+ * 
+ * Recuperación = cargar las copias (carga masiva) + reproducir solo los
+ * registros posteriores al LSN de cada copia: el tiempo de arranque depende
+ * de los datos y de lo escrito desde el último checkpoint, no del historial.
+ * 
+ * Colecciones en disco (openDiskCollection): el índice principal vive en
+ * <col>.db (DiskBPlusTreeIndex) y no se copia a memoria. En el checkpoint,
+ * con la colección quieta, se fuerza el archivo a disco anotando su LSN y
+ * se guarda una copia <col>.db.copy. Al arrancar, si el archivo quedó
+ * consistente se usa tal cual (arranque sin carga); si no, se restaura la
+ * copia. En ambos casos se reproducen los registros posteriores a su LSN.
  */
 public class StorageManager {
     
+    private String basePath;
     private FileHandler fileHandler;
     private WriteBuffer writeBuffer;
+    private WriteAheadLog wal;
+    private Database database;
+    private ScheduledExecutorService checkpointer;
+    private final Map<String, DiskBPlusTreeIndex<String, Document>> diskTrees = new HashMap<>();
+    private final Map<String, PageFile> pageFiles = new HashMap<>();
+    private final List<Long> skippedLsns = new ArrayList<>();  // Registros no recuperados en open()
+    private volatile RuntimeException checkpointFailure;  // Último error del hilo de checkpoints
+    
+    private static final String MANIFEST = "checkpoint";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String DATA_SUFFIX = ".mdb";
+    private static final String PAGES_SUFFIX = ".db";
+    private static final String PAGES_COPY_SUFFIX = ".db.copy";
+    private static final int META_LSN = PageFile.META_SLOTS - 1;  // Ranura libre del árbol
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;  // "SNAP"
+    private static final int MANIFEST_MAGIC = 0x43484B50;  // "CHKP"
     
     // TDA LISTA ENLAZADA SIMPLE para buffer
     private class WriteBuffer {
@@ -46,29 +111,388 @@ public class StorageManager {
     }
     
     public StorageManager(String basePath) {
+        this.basePath = basePath;
         this.fileHandler = new FileHandler(basePath);
         this.writeBuffer = new WriteBuffer();
     }
     
     public void bufferWrite(Document doc) { writeBuffer.add(doc); }
     
+    // Agregar lo acumulado al archivo de la colección (sin pisar lo anterior)
     public void flush(String colName) {
         StringBuilder sb = new StringBuilder();
         while (!writeBuffer.isEmpty()) {
             sb.append(writeBuffer.remove().toString()).append("\n");
         }
-        fileHandler.write(colName + ".json", sb.toString());
+        fileHandler.append(colName + ".json", sb.toString());
     }
     
+    /**
+     * Guardar la colección completa en <col>.mdb (formato DocumentCodec)
+     * Se escribe en streaming desde el cursor (sin armar un String gigante)
+     * y se reemplaza de forma atómica: temporal + fsync + renombrado.
+     * Complejidad: O(n)
+     */
     public void saveCollection(Collection col) {
-        List<Document> docs = col.getAll();
-        StringBuilder sb = new StringBuilder("[\n");
-        for (int i = 0; i < docs.size(); i++) {
-            sb.append("  ").append(docs.get(i));
-            if (i < docs.size() - 1) sb.append(",");
-            sb.append("\n");
-        }
-        sb.append("]");
-        fileHandler.write(col.getName() + ".json", sb.toString());
+        File tmp = new File(basePath, col.getName() + DATA_SUFFIX + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DocumentCodec.Writer out = new DocumentCodec.Writer(file)) {
+            Iterator<Document> docs = col.stream().iterator();
+            while (docs.hasNext()) out.write(docs.next());
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            throw new StorageException("no se pudo guardar " + col.getName() + ": " + e.getMessage());
+        }
+        moveAtomically(tmp, new File(basePath, col.getName() + DATA_SUFFIX));
+    }
+    
+    /**
+     * Cargar <col>.mdb en la base (crea la colección si no existe)
+     * Los documentos vienen ordenados por ID: insertAll() usa carga masiva.
+     * Complejidad: O(n) (MergeSort detecta que ya viene ordenado)
+     * @return la colección, o null si no hay archivo guardado
+     */
+    public Collection loadCollection(Database db, String name) {
+        File file = new File(basePath, name + DATA_SUFFIX);
+        if (!file.exists()) return null;
+        List<Document> docs = new ArrayList<>();
+        try (DocumentCodec.Reader in = new DocumentCodec.Reader(new FileInputStream(file))) {
+            for (Document doc = in.read(); doc != null; doc = in.read()) docs.add(doc);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new StorageException("no se pudo cargar " + name + ": " + e.getMessage());
+        }
+        Collection col = db.createCollection(name);
+        col.insertAll(docs);
+        return col;
+    }
+    
+    /**
+     * Abrir (o crear) una colección con el índice principal en disco
+     * Debe llamarse antes de open(db) para que la recuperación la tenga en
+     * cuenta. dropCollection() no borra el archivo.
+     * Complejidad: O(1) si el archivo quedó consistente, O(tamaño) si hay
+     * que restaurar la copia del último checkpoint
+     */
+    public Collection openDiskCollection(Database db, String name) {
+        return openDiskCollection(db, name, 0);
+    }
+    
+    /**
+     * Igual, con las páginas en un BufferPool de cacheBytes (0 = acceder al
+     * archivo mapeado directamente y dejar el caché al sistema operativo)
+     */
+    public synchronized Collection openDiskCollection(Database db, String name, long cacheBytes) {
+        if (wal != null) throw new StorageException("las colecciones en disco se abren antes de open()");
+        File pages = new File(basePath, name + PAGES_SUFFIX);
+        if (pages.exists() && !PageFile.isClean(pages.getPath())) {
+            // Caída con cambios sin sincronizar: el árbol puede estar a medio escribir
+            File copy = new File(basePath, name + PAGES_COPY_SUFFIX);
+            if (copy.exists()) {
+                copyDurably(copy, new File(basePath, name + PAGES_SUFFIX + ".tmp"));
+                moveAtomically(new File(basePath, name + PAGES_SUFFIX + ".tmp"), pages);
+            } else if (!pages.delete()) {  // Sin checkpoint todavía: se reconstruye del registro
+                throw new StorageException("no se pudo borrar " + pages.getName());
+            }
+        }
+        PageFile file = new PageFile(pages.getPath());
+        PageStore store = cacheBytes > 0 ? new BufferPool(file, cacheBytes) : file;
+        DiskBPlusTreeIndex<String, Document> tree = new DiskBPlusTreeIndex<>(
+            store, Serializer.STRING, DocumentCodec.SERIALIZER);
+        diskTrees.put(name, tree);
+        pageFiles.put(name, file);
+        return db.createCollection(name, tree);
+    }
+    
+    /**
+     * Recuperar la base (último checkpoint + registro) y dejar el registro activo
+     * Un registro que no se puede decodificar o aplicar no detiene la
+     * recuperación del resto: se salta y su LSN queda en getSkippedLsns(),
+     * que quien abre debe revisar (vacía = se recuperó todo).
+     * Complejidad: O(datos + registros posteriores al checkpoint)
+     * @return cantidad de operaciones reproducidas del registro
+     */
+    public long open(Database db) {
+        this.database = db;
+        Map<String, Long> snapshotLsn = new HashMap<>();
+        long checkpointLsn = loadCheckpoint(db, snapshotLsn);
+        for (Map.Entry<String, DiskBPlusTreeIndex<String, Document>> e : diskTrees.entrySet()) {
+            long lsn = e.getValue().getPageStore().getMeta(META_LSN);
+            if (lsn > 0) snapshotLsn.put(e.getKey(), lsn);
+        }
+        
+        long[] replayed = new long[1];
+        skippedLsns.clear();
+        wal = new WriteAheadLog(basePath, record -> {
+            // Lo que ya está en la copia de la colección no se reaplica
+            if (record.lsn <= snapshotLsn.getOrDefault(record.collection, checkpointLsn)) return;
+            try {
+                apply(db, record);
+                replayed[0]++;
+            } catch (RuntimeException e) {
+                skippedLsns.add(record.lsn);  // No impide recuperar el resto
+            }
+        });
+        skippedLsns.addAll(wal.getSkippedLsns());
+        Collections.sort(skippedLsns);
+        db.setChangeLog(wal);
+        return replayed[0];
+    }
+    
+    /**
+     * Checkpoint: copia de cada colección + truncado del registro
+     * Los escritores siguen trabajando durante la copia: las colecciones en
+     * memoria solo toman el bloqueo de lectura para capturar los documentos y
+     * las de disco para sincronizar y repasar las páginas cambiadas al copiar.
+     * Complejidad: O(n) sobre todos los documentos
+     */
+    public synchronized void checkpoint() {
+        if (wal == null) throw new StorageException("registro no abierto (llamar a open)");
+        wal.rotate();
+        long checkpointLsn = wal.lastLsn();
+        
+        List<String> names = database.getCollectionNames();
+        List<String> saved = new ArrayList<>();
+        for (String name : names) {
+            Collection col = database.getCollection(name);
+            if (col == null) continue;  // Eliminada mientras tanto: la cubre el registro
+            DiskBPlusTreeIndex<String, Document> tree = diskTrees.get(name);
+            if (tree != null && col.isBackedBy(tree)) {
+                checkpointPages(col, tree);
+                continue;
+            }
+            writeSnapshot(col, col.snapshot());
+            saved.add(name);
+        }
+        writeManifest(checkpointLsn, saved);
+        
+        // Copias de colecciones que ya no existen
+        Set<String> live = new HashSet<>(saved);
+        File[] files = new File(basePath).listFiles();
+        if (files != null) {
+            for (File f : files) {
+                String n = f.getName();
+                if (n.endsWith(SNAPSHOT_SUFFIX)
+                        && !live.contains(n.substring(0, n.length() - SNAPSHOT_SUFFIX.length()))) {
+                    f.delete();
+                }
+            }
+        }
+        wal.truncateBefore(checkpointLsn);
+    }
+    
+    // LSN de los registros que el último open() no pudo recuperar
+    public List<Long> getSkippedLsns() { return Collections.unmodifiableList(skippedLsns); }
+    
+    /**
+     * Checkpoints periódicos en un hilo de fondo
+     * Un checkpoint que falla no detiene los siguientes; el error queda en
+     * getCheckpointFailure() hasta el próximo que termine bien (mientras
+     * fallen, el registro no se trunca y sigue creciendo).
+     */
+    public synchronized void startCheckpoints(long periodMillis) {
+        if (checkpointer != null) return;
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                synchronized (this) {
+                    if (wal != null) checkpoint();  // close() pudo ganar la carrera
+                }
+                checkpointFailure = null;
+            } catch (RuntimeException e) {
+                checkpointFailure = e;
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // Error del último checkpoint de fondo (null si terminó bien o no hubo)
+    public RuntimeException getCheckpointFailure() { return checkpointFailure; }
+    
+    // Escribir <col>.snap: temporal + fsync + renombrado atómico
+    private void writeSnapshot(Collection col, Collection.Snapshot snapshot) {
+        File target = new File(basePath, col.getName() + SNAPSHOT_SUFFIX);
+        File tmp = new File(basePath, col.getName() + SNAPSHOT_SUFFIX + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshot.lsn);
+            RecordIO.writeString(out, col.getName());
+            out.writeInt(col.getOrder());
+            out.writeInt(snapshot.documents.size());
+            for (Document doc : snapshot.documents) RecordIO.writeDocument(out, doc);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            throw new StorageException("no se pudo escribir la copia de " + col.getName() + ": " + e.getMessage());
+        }
+        moveAtomically(tmp, target);
+    }
+    
+    /**
+     * Copia del archivo de páginas en dos fases
+     * 1. Sin bloqueo: copia completa mientras los escritores siguen, anotando
+     *    las páginas que cambian entre medio (la copia puede quedar mezclada)
+     * 2. Con la colección quieta: LSN, sync y se recopian solo la cabecera y
+     *    las páginas anotadas, así la copia queda igual al archivo en ese LSN
+     * Complejidad: O(archivo) sin bloqueo + O(páginas cambiadas) con bloqueo
+     */
+    private void checkpointPages(Collection col, DiskBPlusTreeIndex<String, Document> tree) {
+        PageFile file = pageFiles.get(col.getName());
+        File copyTmp = new File(basePath, col.getName() + PAGES_COPY_SUFFIX + ".tmp");
+        file.trackChanges();
+        try {
+            Files.copy(new File(basePath, col.getName() + PAGES_SUFFIX).toPath(), copyTmp.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel out = FileChannel.open(copyTmp.toPath(), StandardOpenOption.WRITE)) {
+                col.atConsistentPoint(lsn -> {
+                    tree.getPageStore().setMeta(META_LSN, lsn);
+                    tree.sync();
+                    Set<Integer> changed = new HashSet<>(file.takeChanges());
+                    changed.add(0);
+                    copyPages(file, changed, out);
+                });
+                out.force(true);
+            }
+        } catch (IOException e) {
+            throw new StorageException("no se pudo copiar " + col.getName() + PAGES_SUFFIX + ": " + e.getMessage());
+        } finally {
+            file.takeChanges();  // Si falló antes de la fase 2
+        }
+        moveAtomically(copyTmp, new File(basePath, col.getName() + PAGES_COPY_SUFFIX));
+    }
+    
+    // Recopiar páginas sueltas del archivo vivo sobre la copia
+    private static void copyPages(PageFile file, Set<Integer> ids, FileChannel out) {
+        ByteBuffer buf = ByteBuffer.allocate(file.getPageSize());
+        try {
+            for (int id : ids) {
+                file.readPage(id, buf);
+                long pos = (long) id * file.getPageSize();
+                while (buf.hasRemaining()) out.write(buf, pos + buf.position());
+            }
+        } catch (IOException e) {
+            throw new StorageException("no se pudieron copiar páginas: " + e.getMessage());
+        }
+    }
+    
+    // Copiar un archivo y forzarlo a disco
+    private static void copyDurably(File from, File to) {
+        try {
+            Files.copy(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(to.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new StorageException("no se pudo copiar " + from.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    private void writeManifest(long checkpointLsn, List<String> names) {
+        File tmp = new File(basePath, MANIFEST + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeLong(checkpointLsn);
+            out.writeInt(names.size());
+            for (String name : names) RecordIO.writeString(out, name);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            throw new StorageException("no se pudo escribir el manifiesto: " + e.getMessage());
+        }
+        moveAtomically(tmp, new File(basePath, MANIFEST));
+    }
+    
+    private static void moveAtomically(File from, File to) {
+        try {
+            Files.move(from.toPath(), to.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new StorageException("no se pudo renombrar " + from.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Cargar el último checkpoint (si hay) en la base
+     * @param snapshotLsn se llena con el LSN de la copia de cada colección
+     * @return LSN del checkpoint (0 = no hay)
+     */
+    private long loadCheckpoint(Database db, Map<String, Long> snapshotLsn) {
+        File manifest = new File(basePath, MANIFEST);
+        if (!manifest.exists()) return 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(manifest)))) {
+            if (in.readInt() != MANIFEST_MAGIC) throw new IOException("manifiesto inválido");
+            long checkpointLsn = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = RecordIO.readString(in);
+                DiskBPlusTreeIndex<String, Document> tree = diskTrees.get(name);
+                if (tree != null && tree.getPageStore().getMeta(META_LSN) > 0) continue;  // El archivo ya es más nuevo
+                snapshotLsn.put(name, readSnapshot(db, new File(basePath, name + SNAPSHOT_SUFFIX)));
+            }
+            return checkpointLsn;
+        } catch (IOException e) {
+            throw new StorageException("no se pudo cargar el checkpoint: " + e.getMessage());
+        }
+    }
+    
+    // Cargar <col>.snap con carga masiva; devuelve su LSN
+    private static long readSnapshot(Database db, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("copia inválida: " + file.getName());
+            long lsn = in.readLong();
+            String name = RecordIO.readString(in);
+            int order = in.readInt();
+            int count = in.readInt();
+            List<Document> docs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) docs.add(RecordIO.readDocument(in));
+            db.createCollection(name, order).insertAll(docs);
+            return lsn;
+        }
+    }
+    
+    // Reaplicar una operación registrada (la base todavía no tiene registro asignado)
+    private static void apply(Database db, WriteAheadLog.Record record) {
+        if (record.op == WriteAheadLog.OP_CREATE) {
+            db.createCollection(record.collection, record.order);
+            return;
+        }
+        if (record.op == WriteAheadLog.OP_DROP) {
+            db.dropCollection(record.collection);
+            return;
+        }
+        Collection col = db.createCollection(record.collection);
+        switch (record.op) {
+            case WriteAheadLog.OP_INSERT: col.insert(record.document); break;
+            case WriteAheadLog.OP_UPDATE: col.update(record.id, record.document); break;
+            case WriteAheadLog.OP_DELETE: col.delete(record.id); break;
+        }
+    }
+    
+    public WriteAheadLog getWriteAheadLog() { return wal; }
+    
+    // Detener los checkpoints, escribir lo pendiente del registro y cerrarlo
+    // (los archivos de páginas quedan consistentes con el último LSN)
+    public synchronized void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            checkpointer = null;
+        }
+        long lastLsn = 0;
+        if (wal != null) {
+            wal.close();
+            lastLsn = wal.lastLsn();
+            wal = null;
+        }
+        for (DiskBPlusTreeIndex<String, Document> tree : diskTrees.values()) {
+            if (lastLsn > 0) tree.getPageStore().setMeta(META_LSN, lastLsn);
+            tree.getPageStore().close();
+        }
+        diskTrees.clear();
+        pageFiles.clear();
     }
 }
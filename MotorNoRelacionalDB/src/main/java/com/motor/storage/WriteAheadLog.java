@@ -0,0 +1,439 @@
+package com.motor.storage;
+
+import com.motor.core.ChangeLog;
+import com.motor.core.Document;
+import com.motor.utils.Exceptions.StorageException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * WRITEAHEADLOG - Registro de escritura anticipada con commit en grupo
+ * 
+ * Cada insert/update/delete se agrega al final del registro como registro binario:
+ * 
+ *   [longitud int][crc32c int][lsn long][op byte][colección][datos de la op]
+ * 
+ * El registro está partido en segmentos wal-<primer LSN>.log. Se pasa a un
+ * segmento nuevo al superar maxSegmentBytes o al pedirlo un checkpoint
+ * (rotate()); truncateBefore(lsn) borra los segmentos que ya cubre un
+ * checkpoint, así el registro no crece sin límite.
+ * 
+ * - Escritura durable = un append secuencial, no reescribir la colección
+ * - Commit en grupo: los registros se acumulan en memoria; el primer hilo que
+ *   pide sync() se vuelve líder, escribe el lote completo y hace un solo
+ *   fsync; los demás esperan y se despiertan con su registro ya en disco.
+ *   Mientras el líder espera al disco, los nuevos registros forman el
+ *   siguiente lote (con más escritores, más registros por fsync)
+ * - Recuperación: al abrir se reproducen los segmentos en orden; el primer
+ *   registro incompleto o con CRC inválido (escritura cortada por una caída)
+ *   marca el final: su segmento se trunca ahí y los posteriores se descartan.
+ *   Un registro completo con CRC válido que no se puede decodificar (operación
+ *   desconocida, documento ilegible) no es una cola cortada: se salta y su
+ *   LSN queda en getSkippedLsns()
+ * 
+ * Complejidad:
+ * - log*(): O(tamaño del documento), sin I/O
+ * - sync(): un write + fsync por lote
+ * - Recuperación: O(tamaño del registro)
+ */
+public class WriteAheadLog implements ChangeLog, AutoCloseable {
+    
+    public static final byte OP_CREATE = 1;
+    public static final byte OP_DROP = 2;
+    public static final byte OP_INSERT = 3;
+    public static final byte OP_UPDATE = 4;
+    public static final byte OP_DELETE = 5;
+    
+    /** Tamaño por defecto de un segmento antes de rotar */
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    
+    private static final int MAX_RECORD = 1 << 30;
+    
+    /** Registro leído durante la recuperación */
+    public static final class Record {
+        public final long lsn;
+        public final byte op;
+        public final String collection;
+        public final String id;          // UPDATE / DELETE
+        public final Document document;  // INSERT / UPDATE
+        public final int order;          // CREATE
+        
+        Record(long lsn, byte op, String collection, String id, Document document, int order) {
+            this.lsn = lsn;
+            this.op = op;
+            this.collection = collection;
+            this.id = id;
+            this.document = document;
+            this.order = order;
+        }
+    }
+    
+    // ByteArrayOutputStream con acceso al arreglo interno (evita copias)
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) { super(size); }
+        byte[] array() { return buf; }
+        
+        void writeInt(int v) {
+            write(v >>> 24); write(v >>> 16); write(v >>> 8); write(v);
+        }
+    }
+    
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    private final File dir;
+    private final long maxSegmentBytes;
+    private final List<Long> segments = new ArrayList<>();  // Primer LSN de cada segmento, en orden
+    private FileChannel channel;  // Segmento actual (el último); solo lo usa el líder
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    
+    private final Buffer scratch = new Buffer(256);  // Cuerpo del registro en construcción
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final CRC32C crc = new CRC32C();
+    private Buffer pending = new Buffer(64 * 1024);  // Lote que escribirá el próximo líder
+    private Buffer spare = new Buffer(64 * 1024);
+    
+    private long lastLsn;       // Último LSN asignado
+    private long durableLsn;    // Último LSN en disco
+    private boolean flushing;   // Hay un líder escribiendo
+    private boolean rotateRequested;
+    private IOException failure;
+    private final List<Long> skippedLsns = new ArrayList<>();  // Ilegibles al reproducir
+    
+    private long recordCount;   // Agregados desde que se abrió
+    private long syncCount;
+    
+    public WriteAheadLog(String dir, Consumer<Record> handler) {
+        this(dir, handler, DEFAULT_SEGMENT_BYTES);
+    }
+    
+    /**
+     * Abrir (o crear) el registro en dir y reproducir su contenido
+     * @param handler         recibe cada registro válido en orden (null = solo validar)
+     * @param maxSegmentBytes tamaño a partir del cual se abre un segmento nuevo
+     */
+    public WriteAheadLog(String dir, Consumer<Record> handler, long maxSegmentBytes) {
+        this.dir = new File(dir);
+        this.maxSegmentBytes = maxSegmentBytes;
+        try {
+            this.dir.mkdirs();
+            String[] names = this.dir.list();
+            if (names != null) {
+                for (String name : names) {
+                    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                    }
+                }
+            }
+            Collections.sort(segments);
+            
+            for (int i = 0; i < segments.size(); i++) {
+                try (FileChannel segment = FileChannel.open(segmentFile(segments.get(i)).toPath(),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    long end = replay(segment, handler);
+                    if (end < segment.size()) {
+                        // Cola cortada: truncar y descartar lo que siga (ya no es alcanzable)
+                        segment.truncate(end);
+                        while (segments.size() > i + 1) {
+                            segmentFile(segments.remove(segments.size() - 1)).delete();
+                        }
+                    }
+                }
+            }
+            
+            if (segments.isEmpty()) segments.add(lastLsn + 1);
+            // Un segmento recién rotado puede estar vacío: su nombre fija el próximo LSN
+            lastLsn = Math.max(lastLsn, segments.get(segments.size() - 1) - 1);
+            channel = openSegment(segments.get(segments.size() - 1));
+        } catch (IOException e) {
+            throw new StorageException("no se pudo abrir el registro: " + e.getMessage());
+        }
+        durableLsn = lastLsn;
+    }
+    
+    private File segmentFile(long firstLsn) {
+        return new File(dir, String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+    }
+    
+    // Abrir un segmento para agregar al final
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        FileChannel segment = FileChannel.open(segmentFile(firstLsn).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segment.position(segment.size());
+        return segment;
+    }
+    
+    // Leer registros de un segmento; devuelve el final del último válido
+    private long replay(FileChannel segment, Consumer<Record> handler) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(segment.position(0)), 64 * 1024));
+        long validEnd = 0;
+        byte[] body = new byte[256];
+        while (true) {
+            int length, checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD) break;
+                if (body.length < length) body = new byte[Math.max(length, body.length * 2)];
+                in.readFully(body, 0, length);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) break;
+            
+            Record record;
+            try {
+                record = decode(new DataInputStream(new ByteArrayInputStream(body, 0, length)));
+            } catch (IOException | RuntimeException e) {
+                // Escrito completo pero ilegible: se salta sin cortar el registro
+                long lsn = length >= 8 ? ByteBuffer.wrap(body, 0, 8).getLong() : lastLsn + 1;
+                lastLsn = Math.max(lastLsn, lsn);
+                skippedLsns.add(lsn);
+                validEnd += 8 + length;
+                continue;
+            }
+            lastLsn = record.lsn;
+            if (handler != null) handler.accept(record);
+            validEnd += 8 + length;
+        }
+        return validEnd;
+    }
+    
+    private static Record decode(DataInputStream in) throws IOException {
+        long lsn = in.readLong();
+        byte op = in.readByte();
+        String collection = RecordIO.readString(in);
+        switch (op) {
+            case OP_CREATE: return new Record(lsn, op, collection, null, null, in.readInt());
+            case OP_DROP:   return new Record(lsn, op, collection, null, null, 0);
+            case OP_INSERT: return new Record(lsn, op, collection, null, RecordIO.readDocument(in), 0);
+            case OP_UPDATE: {
+                String id = RecordIO.readString(in);
+                return new Record(lsn, op, collection, id, RecordIO.readDocument(in), 0);
+            }
+            case OP_DELETE: return new Record(lsn, op, collection, RecordIO.readString(in), null, 0);
+            default: throw new IOException("Operación desconocida en el registro: " + op);
+        }
+    }
+    
+    /**
+     * Agregar un registro al lote pendiente
+     * Complejidad: O(tamaño del registro), sin I/O
+     */
+    private long append(byte op, String collection, Body body) {
+        lock.lock();
+        try {
+            if (failure != null) throw new StorageException("registro no disponible: " + failure.getMessage());
+            long lsn = lastLsn + 1;
+            scratch.reset();
+            scratchOut.writeLong(lsn);
+            scratchOut.writeByte(op);
+            RecordIO.writeString(scratchOut, collection);
+            body.write(scratchOut);
+            
+            crc.reset();
+            crc.update(scratch.array(), 0, scratch.size());
+            pending.writeInt(scratch.size());
+            pending.writeInt((int) crc.getValue());
+            pending.write(scratch.array(), 0, scratch.size());
+            
+            lastLsn = lsn;
+            recordCount++;
+            return lsn;
+        } catch (IOException e) {
+            throw new StorageException("no se pudo codificar el registro: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public long logCreate(String collection, int order) {
+        return append(OP_CREATE, collection, out -> out.writeInt(order));
+    }
+    
+    @Override
+    public long logDrop(String collection) {
+        return append(OP_DROP, collection, out -> {});
+    }
+    
+    @Override
+    public long logInsert(String collection, Document doc) {
+        return append(OP_INSERT, collection, out -> RecordIO.writeDocument(out, doc));
+    }
+    
+    @Override
+    public long logUpdate(String collection, String id, Document doc) {
+        return append(OP_UPDATE, collection, out -> {
+            RecordIO.writeString(out, id);
+            RecordIO.writeDocument(out, doc);
+        });
+    }
+    
+    @Override
+    public long logDelete(String collection, String id) {
+        return append(OP_DELETE, collection, out -> RecordIO.writeString(out, id));
+    }
+    
+    /**
+     * Esperar a que el registro lsn esté en disco (commit en grupo)
+     * Complejidad: a lo sumo dos fsync (el lote en curso y el propio)
+     */
+    @Override
+    public void sync(long lsn) {
+        lock.lock();
+        try {
+            while (durableLsn < lsn) flushOrWait();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Cerrar el segmento actual: lo pendiente se escribe y los registros
+     * siguientes van a un segmento nuevo (lo usa el checkpoint)
+     */
+    public void rotate() {
+        lock.lock();
+        try {
+            rotateRequested = true;
+            while (rotateRequested) flushOrWait();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Con el bloqueo tomado: ser líder de un lote o esperar al líder actual
+    private void flushOrWait() {
+        if (failure != null) throw new StorageException("fsync fallido: " + failure.getMessage());
+        if (flushing) {
+            flushed.awaitUninterruptibly();  // Otro hilo es líder: esperar su lote
+            return;
+        }
+        
+        // Líder: tomar todo lo pendiente y escribirlo sin retener el bloqueo
+        flushing = true;
+        Buffer batch = pending;
+        pending = spare;
+        long batchLsn = lastLsn;
+        long currentSegment = segments.get(segments.size() - 1);
+        boolean rotate = rotateRequested;
+        Long newSegment = null;
+        IOException error = null;
+        lock.unlock();
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(batch.array(), 0, batch.size());
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(false);
+            
+            // Rotar solo si el segmento actual ya tiene registros
+            if ((rotate || channel.size() >= maxSegmentBytes) && currentSegment <= batchLsn) {
+                FileChannel next = openSegment(batchLsn + 1);
+                channel.close();
+                channel = next;
+                newSegment = batchLsn + 1;
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        
+        batch.reset();
+        spare = batch;
+        flushing = false;
+        if (error != null) {
+            failure = error;
+        } else {
+            durableLsn = batchLsn;
+            syncCount++;
+            if (newSegment != null) segments.add(newSegment);
+            if (rotate) rotateRequested = false;
+        }
+        flushed.signalAll();
+    }
+    
+    /**
+     * Borrar los segmentos cuyos registros tienen todos LSN <= lsn
+     * (ya incluidos en un checkpoint). El segmento actual nunca se borra.
+     * @return cantidad de segmentos borrados
+     */
+    public int truncateBefore(long lsn) {
+        lock.lock();
+        try {
+            int removed = 0;
+            // El segmento i abarca [segments[i], segments[i+1] - 1]
+            while (segments.size() > 1 && segments.get(1) <= lsn + 1) {
+                segmentFile(segments.remove(0)).delete();
+                removed++;
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Escribir lo pendiente y cerrar el archivo
+     */
+    @Override
+    public void close() {
+        sync(lastLsn());
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new StorageException("no se pudo cerrar el registro: " + e.getMessage());
+        }
+    }
+    
+    // LSN de los registros con CRC válido que no se pudieron decodificar al abrir
+    public List<Long> getSkippedLsns() { return Collections.unmodifiableList(skippedLsns); }
+    
+    @Override
+    public long lastLsn() {
+        lock.lock();
+        try { return lastLsn; } finally { lock.unlock(); }
+    }
+    
+    public int getSegmentCount() {
+        lock.lock();
+        try { return segments.size(); } finally { lock.unlock(); }
+    }
+    
+    public long getRecordCount() {
+        lock.lock();
+        try { return recordCount; } finally { lock.unlock(); }
+    }
+    
+    // fsync realizados; recordCount / syncCount = registros por fsync
+    public long getSyncCount() {
+        lock.lock();
+        try { return syncCount; } finally { lock.unlock(); }
+    }
+}
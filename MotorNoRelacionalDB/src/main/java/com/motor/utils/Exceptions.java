@@ -29,6 +29,12 @@ public class Exceptions {
         }
     }
     
+    public static class JsonException extends RuntimeException {
+        public JsonException(String msg) {
+            super("JSON inválido: " + msg);
+        }
+    }
+    
     public static class StorageException extends RuntimeException {
         public StorageException(String msg) {
             super("Error de almacenamiento: " + msg);
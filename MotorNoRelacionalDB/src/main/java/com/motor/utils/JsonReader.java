@@ -0,0 +1,604 @@
+package com.motor.utils;
+
+import com.motor.core.Document;
+import com.motor.core.FieldDictionary;
+import com.motor.utils.Exceptions.JsonException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSONREADER - Lector JSON de flujo (pull) sobre un Reader
+ * 
+ * Quien lee pide los tokens de a uno (peek(), beginObject(), nextName(),
+ * nextString()...) y el lector consume solo lo necesario de un búfer de
+ * caracteres de tamaño fijo: un archivo de varios GB se recorre con memoria
+ * constante. readDocument() arma un Document con esas mismas llamadas.
+ * 
+ * JSON completo (RFC 8259): objetos y arreglos anidados, escapes (\n, \",
+ * \\uXXXX con pares sustitutos), números con fracción y exponente, true,
+ * false, null. Admite varios valores seguidos en el nivel superior, así que
+ * el mismo lector sirve para NDJSON (un documento por línea).
+ * 
+ * Números: Integer si entran, si no Long, si no Double (mismas reglas que
+ * Document.parseValue). readDocument() los guarda sin caja (putInt...).
+ * Con setDictionary() los documentos se arman directo sobre las formas de
+ * una colección (Collection.getFieldDictionary) y entran sin rearmarse.
+ * 
+ * Errores de sintaxis: JsonException con línea y columna.
+ * 
+ * Complejidad: O(1) por token (O(m) para textos de largo m)
+ */
+public class JsonReader implements Closeable {
+    
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+    
+    // Contextos de la pila de anidamiento
+    private static final int TOP = 0;
+    private static final int ARRAY_FIRST = 1;   // Después de '['
+    private static final int ARRAY = 2;         // Después de un elemento
+    private static final int OBJECT_FIRST = 3;  // Después de '{'
+    private static final int OBJECT = 4;        // Después de un valor
+    private static final int OBJECT_COLON = 5;  // Después de un nombre
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /** Profundidad máxima (evita desbordar la pila en readDocument) */
+    public static final int MAX_DEPTH = 512;
+    
+    /** Nombres de campo distintos que se reutilizan como una sola instancia */
+    private static final int MAX_NAMES = 4096;
+    private static final int NAME_TABLE_SIZE = 2 * MAX_NAMES;  // Potencia de 2
+    
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long consumed;   // Caracteres anteriores a buf[0]
+    private long line;
+    private long lineStart;  // Posición absoluta del comienzo de la línea
+    
+    private int[] stack = new int[32];
+    private int depth = 1;   // stack[0] = TOP
+    
+    private Token peeked;
+    private boolean boolValue;
+    private Document.Type numberType;
+    private long longValue;
+    private double doubleValue;
+    
+    private final StringBuilder scratch = new StringBuilder();
+    // Tabla hash abierta de nombres ya vistos, buscada sobre los char del búfer
+    private final String[] names = new String[NAME_TABLE_SIZE];
+    private int nameCount;
+    private FieldDictionary dictionary = FieldDictionary.DEFAULT;
+    
+    public JsonReader(Reader in) {
+        this(in, 1);
+    }
+    
+    /**
+     * firstLine: número de línea del primer carácter (para leer un trozo de
+     * un archivo más grande y reportar errores con la línea del archivo)
+     */
+    public JsonReader(Reader in, long firstLine) {
+        this.in = in;
+        this.line = firstLine;
+    }
+    
+    /** Diccionario de formas para los documentos de readDocument() */
+    public void setDictionary(FieldDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
+    // ==================== TOKENS ====================
+    
+    /**
+     * Tipo del próximo token, sin consumirlo
+     * Complejidad: O(1) (los números se leen acá)
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) return peeked;
+        int c;
+        switch (stack[depth - 1]) {
+            case TOP:
+                c = nextNonWhitespace();
+                if (c < 0) return peeked = Token.END_DOCUMENT;
+                break;
+            case ARRAY_FIRST:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                stack[depth - 1] = ARRAY;
+                break;
+            case ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("se esperaba ',' o ']'");
+                c = nextNonWhitespace();
+                break;
+            case OBJECT_FIRST:
+            case OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (stack[depth - 1] == OBJECT) {
+                    if (c != ',') throw syntaxError("se esperaba ',' o '}'");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("se esperaba el nombre de un campo");
+                stack[depth - 1] = OBJECT_COLON;
+                return peeked = Token.NAME;
+            case OBJECT_COLON:
+                if (nextNonWhitespace() != ':') throw syntaxError("se esperaba ':'");
+                stack[depth - 1] = OBJECT;
+                c = nextNonWhitespace();
+                break;
+            default:
+                throw new IllegalStateException("Contexto inválido: " + stack[depth - 1]);
+        }
+        return peeked = valueToken(c);
+    }
+    
+    private Token valueToken(int c) throws IOException {
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't': expectLiteral("rue"); boolValue = true; return Token.BOOLEAN;
+            case 'f': expectLiteral("alse"); boolValue = false; return Token.BOOLEAN;
+            case 'n': expectLiteral("ull"); return Token.NULL;
+            case -1: throw syntaxError("fin inesperado");
+            default:
+                if (c == '-' || isDigit(c)) {
+                    readNumber(c);
+                    return Token.NUMBER;
+                }
+                throw syntaxError("carácter inesperado '" + (char) c + "'");
+        }
+    }
+    
+    /** true si quedan elementos en el objeto o arreglo actual (o valores en el flujo) */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+    
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(OBJECT_FIRST);
+    }
+    
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+    
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(ARRAY_FIRST);
+    }
+    
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+    
+    /**
+     * Nombre del próximo campo. Los nombres se repiten en cada documento:
+     * si ya se vio, se devuelve la misma instancia sin crear un String
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        // Camino rápido: nombre sin escapes completo en el búfer
+        int hash = 0;
+        for (int i = pos; i < limit; i++) {
+            char c = buf[i];
+            if (c == '"') {
+                String name = internName(hash, pos, i - pos);
+                pos = i + 1;
+                return name;
+            }
+            if (c == '\\' || c < 0x20) break;
+            hash = 31 * hash + c;
+        }
+        String name = readString();
+        String known = findName(name.hashCode(), name.toCharArray(), 0, name.length());
+        return known != null ? known : addName(name);
+    }
+    
+    private String internName(int hash, int start, int length) {
+        String known = findName(hash, buf, start, length);
+        return known != null ? known : addName(new String(buf, start, length));
+    }
+    
+    private String findName(int hash, char[] chars, int start, int length) {
+        int mask = NAME_TABLE_SIZE - 1;
+        for (int i = (hash ^ (hash >>> 16)) & mask; names[i] != null; i = (i + 1) & mask) {
+            String candidate = names[i];
+            if (candidate.hashCode() == hash && candidate.length() == length && sameChars(candidate, chars, start)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+    
+    private static boolean sameChars(String s, char[] chars, int start) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != chars[start + i]) return false;
+        }
+        return true;
+    }
+    
+    private String addName(String name) {
+        if (nameCount == MAX_NAMES) return name;
+        int mask = NAME_TABLE_SIZE - 1;
+        int hash = name.hashCode();
+        int i = (hash ^ (hash >>> 16)) & mask;
+        while (names[i] != null) i = (i + 1) & mask;
+        names[i] = name;
+        nameCount++;
+        return name;
+    }
+    
+    public String nextString() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+    
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return boolValue;
+    }
+    
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+    
+    /**
+     * @throws JsonException si el número no es entero o no entra en int
+     */
+    public int nextInt() throws IOException {
+        expect(Token.NUMBER);
+        if (numberType != Document.Type.INT) throw syntaxError("se esperaba un entero de 32 bits");
+        return (int) longValue;
+    }
+    
+    /**
+     * @throws JsonException si el número no es entero o no entra en long
+     */
+    public long nextLong() throws IOException {
+        expect(Token.NUMBER);
+        if (numberType == Document.Type.DOUBLE) throw syntaxError("se esperaba un entero");
+        return longValue;
+    }
+    
+    public double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        return numberType == Document.Type.DOUBLE ? doubleValue : longValue;
+    }
+    
+    /** Número en caja: Integer, Long o Double */
+    public Number nextNumber() throws IOException {
+        expect(Token.NUMBER);
+        switch (numberType) {
+            case INT: return (int) longValue;
+            case LONG: return longValue;
+            default: return doubleValue;
+        }
+    }
+    
+    /**
+     * Saltar el próximo valor completo (un objeto o arreglo con todo su contenido)
+     * Complejidad: O(tamaño del valor), sin armar objetos
+     */
+    public void skipValue() throws IOException {
+        int level = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT: beginObject(); level++; break;
+                case BEGIN_ARRAY: beginArray(); level++; break;
+                case END_OBJECT: endObject(); level--; break;
+                case END_ARRAY: endArray(); level--; break;
+                case NAME:
+                case STRING: peeked = null; skipString(); break;
+                case END_DOCUMENT: throw syntaxError("fin inesperado");
+                default: peeked = null;  // NUMBER, BOOLEAN, NULL: peek() ya los leyó
+            }
+        } while (level > 0);
+    }
+    
+    private void expect(Token token) throws IOException {
+        if (peek() != token) throw syntaxError("se esperaba " + token + " y se encontró " + peeked);
+        peeked = null;
+    }
+    
+    private void push(int context) {
+        if (depth == MAX_DEPTH) throw syntaxError("anidamiento mayor a " + MAX_DEPTH + " niveles");
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = context;
+    }
+    
+    // ==================== DOCUMENTOS ====================
+    
+    /**
+     * Leer un objeto como Document: "_id" (texto o número) es el ID y el
+     * resto son campos; objetos anidados son Document (con ID solo si traen
+     * "_id") y arreglos son List
+     * Complejidad: O(tamaño del objeto)
+     */
+    public Document readDocument() throws IOException {
+        beginObject();
+        Document doc = new Document(null, dictionary);
+        while (hasNext()) {
+            String name = nextName();
+            if (name.equals("_id")) {
+                doc.setId(readId());
+                continue;
+            }
+            switch (peek()) {
+                case NUMBER:
+                    peeked = null;
+                    if (numberType == Document.Type.INT) doc.putInt(name, (int) longValue);
+                    else if (numberType == Document.Type.LONG) doc.putLong(name, longValue);
+                    else doc.putDouble(name, doubleValue);
+                    break;
+                case BOOLEAN: doc.putBoolean(name, nextBoolean()); break;
+                default: doc.put(name, readValue());
+            }
+        }
+        endObject();
+        return doc;
+    }
+    
+    private String readId() throws IOException {
+        switch (peek()) {
+            case STRING: return nextString();
+            case NUMBER: return String.valueOf(nextNumber());
+            case NULL: nextNull(); return null;
+            default: throw syntaxError("_id debe ser texto o número");
+        }
+    }
+    
+    /**
+     * Próximo valor como objeto Java: Document, List, String, Integer,
+     * Long, Double, Boolean o null
+     */
+    public Object readValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT: return readDocument();
+            case BEGIN_ARRAY: {
+                beginArray();
+                List<Object> list = new ArrayList<>();
+                while (hasNext()) list.add(readValue());
+                endArray();
+                return list;
+            }
+            case STRING: return nextString();
+            case NUMBER: return nextNumber();
+            case BOOLEAN: return nextBoolean();
+            case NULL: nextNull(); return null;
+            default: throw syntaxError("se esperaba un valor y se encontró " + peeked);
+        }
+    }
+    
+    // ==================== CARACTERES ====================
+    
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0) return false;
+        limit = n;
+        return true;
+    }
+    
+    private int readChar() throws IOException {
+        if (pos >= limit && !fill()) return -1;
+        return buf[pos++];
+    }
+    
+    private int peekChar() throws IOException {
+        if (pos >= limit && !fill()) return -1;
+        return buf[pos];
+    }
+    
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) return -1;
+            char c = buf[pos++];
+            if (c == '\n') {
+                line++;
+                lineStart = consumed + pos;
+            } else if (c != ' ' && c != '\t' && c != '\r' && !(c == '\uFEFF' && consumed + pos == 1)) {
+                return c;  // El BOM solo se ignora al comienzo del flujo
+            }
+        }
+    }
+    
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (readChar() != rest.charAt(i)) throw syntaxError("literal inválido");
+        }
+        checkDelimiter();
+    }
+    
+    // Después de un número o literal solo puede venir un separador
+    private void checkDelimiter() throws IOException {
+        int c = peekChar();
+        switch (c) {
+            case -1: case ' ': case '\t': case '\n': case '\r': case ',': case ']': case '}':
+                return;
+            default:
+                throw syntaxError("carácter inesperado '" + (char) c + "'");
+        }
+    }
+    
+    // Gramática: -?(0|[1-9]d*)(.d+)?([eE][+-]?d+)?
+    private void readNumber(int first) throws IOException {
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        sb.append((char) first);
+        int c = first;
+        if (c == '-') {
+            c = readChar();
+            if (!isDigit(c)) throw syntaxError("número inválido");
+            sb.append((char) c);
+        }
+        long magnitude = c - '0';
+        int digits = 1;
+        if (c == '0') {
+            if (isDigit(peekChar())) throw syntaxError("número con ceros a la izquierda");
+        } else {
+            while (isDigit(c = peekChar())) {
+                pos++;
+                sb.append((char) c);
+                magnitude = magnitude * 10 + (c - '0');
+                digits++;
+            }
+        }
+        
+        boolean integral = true;
+        if (peekChar() == '.') {
+            integral = false;
+            sb.append(buf[pos++]);
+            readDigits(sb);
+        }
+        c = peekChar();
+        if (c == 'e' || c == 'E') {
+            integral = false;
+            sb.append(buf[pos++]);
+            c = peekChar();
+            if (c == '+' || c == '-') sb.append(buf[pos++]);
+            readDigits(sb);
+        }
+        checkDelimiter();
+        
+        if (!integral) {
+            numberType = Document.Type.DOUBLE;
+            doubleValue = Double.parseDouble(sb.toString());
+            return;
+        }
+        long v;
+        if (digits <= 18) {
+            v = first == '-' ? -magnitude : magnitude;  // Sin desborde: hasta 18 dígitos entran
+        } else {
+            try {
+                v = Long.parseLong(sb.toString());
+            } catch (NumberFormatException e) {
+                numberType = Document.Type.DOUBLE;   // Entero que no entra en long
+                doubleValue = Double.parseDouble(sb.toString());
+                return;
+            }
+        }
+        longValue = v;
+        numberType = v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE ? Document.Type.INT : Document.Type.LONG;
+    }
+    
+    // Uno o más dígitos (fracción y exponente)
+    private void readDigits(StringBuilder sb) throws IOException {
+        int c = readChar();
+        if (!isDigit(c)) throw syntaxError("número inválido");
+        sb.append((char) c);
+        while (isDigit(c = peekChar())) {
+            pos++;
+            sb.append((char) c);
+        }
+    }
+    
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    /**
+     * Texto hasta la comilla de cierre (la de apertura ya se consumió)
+     * Camino rápido: sin escapes y dentro del búfer, un solo new String()
+     */
+    private String readString() throws IOException {
+        StringBuilder sb = null;
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos];
+                if (c == '"') {
+                    String s = sb == null ? new String(buf, start, pos - start)
+                                          : sb.append(buf, start, pos - start).toString();
+                    pos++;
+                    return s;
+                }
+                if (c == '\\') {
+                    sb = builder(sb).append(buf, start, pos - start);
+                    pos++;
+                    readEscape(sb);
+                    start = pos;
+                    continue;
+                }
+                if (c < 0x20) throw syntaxError("carácter de control sin escapar en un texto");
+                pos++;
+            }
+            sb = builder(sb).append(buf, start, pos - start);
+            if (!fill()) throw syntaxError("texto sin cerrar");
+        }
+    }
+    
+    private void skipString() throws IOException {
+        while (true) {
+            int c = readChar();
+            if (c == '"') return;
+            if (c == '\\') readEscape(null);
+            else if (c < 0) throw syntaxError("texto sin cerrar");
+            else if (c < 0x20) throw syntaxError("carácter de control sin escapar en un texto");
+        }
+    }
+    
+    private StringBuilder builder(StringBuilder sb) {
+        if (sb != null) return sb;
+        scratch.setLength(0);
+        return scratch;
+    }
+    
+    // Secuencia después de '\'; sb null = solo validar
+    private void readEscape(StringBuilder sb) throws IOException {
+        int c = readChar();
+        char decoded;
+        switch (c) {
+            case '"': case '\\': case '/': decoded = (char) c; break;
+            case 'b': decoded = '\b'; break;
+            case 'f': decoded = '\f'; break;
+            case 'n': decoded = '\n'; break;
+            case 'r': decoded = '\r'; break;
+            case 't': decoded = '\t'; break;
+            case 'u': {
+                int v = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = readChar();
+                    int d = h < 0 ? -1 : Character.digit(h, 16);
+                    if (d < 0) throw syntaxError("escape \\u inválido");
+                    v = (v << 4) | d;
+                }
+                decoded = (char) v;  // Los pares sustitutos quedan como dos char, igual que en Java
+                break;
+            }
+            default: throw syntaxError("escape inválido");
+        }
+        if (sb != null) sb.append(decoded);
+    }
+    
+    // ==================== ERRORES ====================
+    
+    private JsonException syntaxError(String message) {
+        return new JsonException(message + " (línea " + line + ", columna " + (consumed + pos - lineStart) + ")");
+    }
+    
+    public long getLine() { return line; }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -1,69 +1,67 @@
 package com.motor.utils;
 
+import com.motor.core.Collection;
 import com.motor.core.Document;
+import com.motor.utils.Exceptions.JsonException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
 
 /**
- * JSONUTILS - Utilidades para manejo de JSON simple
+ * JSONUTILS - Utilidades para manejo de JSON
  * 
- * Parser básico sin dependencias externas
+ * Parser y escritor propios, sin dependencias externas (JsonReader /
+ * JsonWriter). toJson/fromJson trabajan con un documento en memoria;
+ * importJson/exportJson mueven colecciones completas desde y hacia un
+ * flujo (JSON con un arreglo de documentos, o NDJSON con uno por línea)
+ * con memoria constante.
  */
 public class JsonUtils {
     
+    /** Documentos por lote en importJson (cada lote es un insertAll) */
+    public static final int IMPORT_BATCH = 10_000;
+    
     /**
-     * Convertir Document a JSON string
+     * Convertir Document a JSON string (indentado)
      * Complejidad: O(n) donde n = número de campos
      */
     public static String toJson(Document doc) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("  \"_id\": \"").append(doc.getId()).append("\"");
-        
-        for (String key : doc.getKeys()) {
-            sb.append(",\n  \"").append(key).append("\": ");
-            Object value = doc.get(key);
-            if (value instanceof String) {
-                sb.append("\"").append(value).append("\"");
-            } else {
-                sb.append(value);
-            }
+        StringWriter sw = new StringWriter();
+        try {
+            JsonWriter json = new JsonWriter(sw);
+            json.setIndent("  ");
+            json.writeDocument(doc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringWriter no lanza
         }
-        sb.append("\n}");
-        return sb.toString();
+        return sw.toString();
     }
     
     /**
-     * Parsear JSON simple a Document
+     * Parsear JSON a Document
+     * Los números, booleanos y null conservan su tipo; objetos anidados son
+     * Document y arreglos List. Sin "_id" el documento queda con ID null.
      * Complejidad: O(n) donde n = longitud del string
+     * @return null si el texto no es un objeto
+     * @throws JsonException si el JSON es inválido
      */
     public static Document fromJson(String json) {
-        json = json.trim();
-        if (!json.startsWith("{") || !json.endsWith("}")) {
-            return null;
-        }
-        
-        json = json.substring(1, json.length() - 1).trim();
-        String[] pairs = json.split(",");
-        
-        String id = "unknown";
-        Document doc = null;
-        
-        for (String pair : pairs) {
-            String[] kv = pair.split(":", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim().replace("\"", "");
-                String value = kv[1].trim().replace("\"", "");
-                
-                if (key.equals("_id")) {
-                    id = value;
-                    doc = new Document(id);
-                } else if (doc != null) {
-                    doc.put(key, value);
-                }
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) return null;
+            Document doc = reader.readDocument();
+            if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+                throw new JsonException("contenido después del documento");
             }
+            return doc;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        
-        return doc != null ? doc : new Document(id);
     }
     
     /**
@@ -71,14 +69,80 @@ public class JsonUtils {
      * Complejidad: O(n * m) donde n = docs, m = campos promedio
      */
     public static String toJsonArray(List<Document> docs) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[\n");
-        for (int i = 0; i < docs.size(); i++) {
-            sb.append(toJson(docs.get(i)));
-            if (i < docs.size() - 1) sb.append(",");
-            sb.append("\n");
+        StringWriter sw = new StringWriter();
+        try {
+            JsonWriter json = new JsonWriter(sw);
+            json.setIndent("  ");
+            json.beginArray();
+            for (Document doc : docs) json.writeDocument(doc);
+            json.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
+    }
+    
+    // ==================== IMPORTACIÓN / EXPORTACIÓN ====================
+    
+    /**
+     * Escribir toda la colección en out, en orden de _id
+     * ndjson = true: un documento compacto por línea; false: un arreglo JSON
+     * con un documento por línea. Recorre con Collection.stream(): no copia
+     * la colección ni arma el texto en memoria.
+     * Complejidad: O(n) - memoria O(1)
+     * @return cantidad de documentos escritos
+     */
+    public static long exportJson(Collection col, Writer out, boolean ndjson) throws IOException {
+        Writer buffered = out instanceof BufferedWriter ? out : new BufferedWriter(out, 64 * 1024);
+        JsonWriter json = new JsonWriter(buffered);
+        long count = 0;
+        if (!ndjson) buffered.write('[');
+        Iterator<Document> it = col.stream().iterator();
+        while (it.hasNext()) {
+            if (!ndjson) buffered.write(count == 0 ? "\n" : ",\n");
+            json.writeDocument(it.next());
+            if (ndjson) buffered.write('\n');
+            count++;
+        }
+        if (!ndjson) buffered.write(count == 0 ? "]\n" : "\n]\n");
+        buffered.flush();
+        return count;
+    }
+    
+    /**
+     * Cargar documentos desde in: un arreglo JSON de objetos o una secuencia
+     * de objetos (NDJSON; también objetos seguidos o indentados). Se leen de
+     * a uno y se insertan por lotes de IMPORT_BATCH con insertAll() (en una
+     * colección vacía, el primer lote usa la carga masiva del Árbol B+).
+     * Complejidad: O(n log n) - memoria O(IMPORT_BATCH) además de la colección
+     * @return documentos insertados (un ID repetido dentro de un lote cuenta una vez)
+     * @throws JsonException si el JSON es inválido o un documento no tiene _id
+     *         (los lotes anteriores al error quedan insertados)
+     */
+    public static long importJson(Reader in, Collection col) throws IOException {
+        JsonReader json = new JsonReader(in);
+        json.setDictionary(col.getFieldDictionary());
+        boolean array = json.peek() == JsonReader.Token.BEGIN_ARRAY;
+        if (array) json.beginArray();
+        
+        List<Document> batch = new ArrayList<>(IMPORT_BATCH);
+        long count = 0;
+        long read = 0;
+        while (json.hasNext()) {
+            Document doc = json.readDocument();
+            read++;
+            if (doc.getId() == null) throw new JsonException("el documento " + read + " no tiene _id");
+            batch.add(doc);
+            if (batch.size() == IMPORT_BATCH) {
+                count += col.insertAll(batch);
+                batch.clear();
+            }
+        }
+        if (array) {
+            json.endArray();
+            if (json.peek() != JsonReader.Token.END_DOCUMENT) throw new JsonException("contenido después del arreglo");
         }
-        sb.append("]");
-        return sb.toString();
+        if (!batch.isEmpty()) count += col.insertAll(batch);
+        return count;
     }
 }
@@ -0,0 +1,266 @@
+package com.motor.utils;
+
+import com.motor.core.Document;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSONWRITER - Escritor JSON de flujo sobre un Writer
+ * 
+ * Contraparte de JsonReader: beginObject(), name(), value(), endObject()...
+ * escriben directo en el Writer (con búfer), sin armar el texto completo en
+ * memoria. Lleva una pila de contextos para poner comas y validar el orden
+ * de las llamadas (IllegalStateException si falta un name() o sobra un end).
+ * 
+ * Compacto por defecto; setIndent("  ") lo indenta. Varios valores seguidos
+ * en el nivel superior se escriben sin separador: quien escribe NDJSON
+ * agrega el salto de línea después de cada documento.
+ * 
+ * writeDocument() recorre el Document por posición: los campos primitivos
+ * se escriben sin pasar por una caja.
+ * 
+ * Complejidad: O(1) por llamada (O(m) para textos de largo m)
+ */
+public class JsonWriter implements Closeable, Flushable {
+    
+    private static final int TOP = 0;
+    private static final int ARRAY_FIRST = 1;
+    private static final int ARRAY = 2;
+    private static final int OBJECT_FIRST = 3;
+    private static final int OBJECT = 4;
+    private static final int OBJECT_NAME = 5;   // Nombre escrito, falta el valor
+    
+    // Reemplazo de los caracteres ASCII que no pueden ir tal cual en un texto
+    private static final String[] ESCAPES = new String[128];
+    static {
+        for (int c = 0; c < 0x20; c++) ESCAPES[c] = String.format("\\u%04x", c);
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+    }
+    
+    private final Writer out;
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private String indent;   // null = compacto
+    
+    public JsonWriter(Writer out) {
+        this.out = out instanceof BufferedWriter || out instanceof StringWriter ? out : new BufferedWriter(out, 64 * 1024);
+    }
+    
+    public void setIndent(String indent) {
+        this.indent = indent == null || indent.isEmpty() ? null : indent;
+    }
+    
+    // ==================== ESTRUCTURA ====================
+    
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push(OBJECT_FIRST);
+        return this;
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        return close(OBJECT_FIRST, OBJECT, '}');
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push(ARRAY_FIRST);
+        return this;
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        return close(ARRAY_FIRST, ARRAY, ']');
+    }
+    
+    private JsonWriter close(int empty, int nonEmpty, char bracket) throws IOException {
+        int context = stack[depth - 1];
+        if (context != empty && context != nonEmpty) throw new IllegalStateException("Cierre '" + bracket + "' fuera de lugar");
+        depth--;
+        if (context == nonEmpty) newline();
+        out.write(bracket);
+        return this;
+    }
+    
+    public JsonWriter name(String name) throws IOException {
+        int context = stack[depth - 1];
+        if (context == OBJECT) out.write(',');
+        else if (context != OBJECT_FIRST) throw new IllegalStateException("name() fuera de un objeto");
+        stack[depth - 1] = OBJECT_NAME;
+        newline();
+        writeString(name);
+        out.write(indent == null ? ":" : ": ");
+        return this;
+    }
+    
+    private void beforeValue() throws IOException {
+        switch (stack[depth - 1]) {
+            case TOP: return;
+            case ARRAY_FIRST: stack[depth - 1] = ARRAY; newline(); return;
+            case ARRAY: out.write(','); newline(); return;
+            case OBJECT_NAME: stack[depth - 1] = OBJECT; return;
+            default: throw new IllegalStateException("Falta name() antes del valor");
+        }
+    }
+    
+    private void push(int context) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = context;
+    }
+    
+    // ==================== VALORES ====================
+    
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+    
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+    
+    /**
+     * @throws IllegalArgumentException con NaN o infinito (JSON no los admite)
+     */
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON no admite " + value);
+        }
+        beforeValue();
+        out.write(Double.toString(value));  // 20.0 se relee como Double, no como Integer
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+    
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+    
+    /**
+     * Valor de cualquier tipo que guarda un Document: textos, números,
+     * booleanos, null, Document, List y Map (claves con String.valueOf)
+     * @throws IllegalArgumentException con otros tipos
+     */
+    public JsonWriter value(Object value) throws IOException {
+        if (value == null) return nullValue();
+        if (value instanceof String) return value((String) value);
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Double) return value((double) (Double) value);
+        if (value instanceof Float) {
+            float f = (Float) value;
+            if (Float.isNaN(f) || Float.isInfinite(f)) throw new IllegalArgumentException("JSON no admite " + f);
+            beforeValue();
+            out.write(Float.toString(f));  // Sin los decimales espurios de (double) f
+            return this;
+        }
+        if (value instanceof Boolean) return value((boolean) (Boolean) value);
+        if (value instanceof Document) return writeDocument((Document) value);
+        if (value instanceof List) {
+            beginArray();
+            for (Object item : (List<?>) value) value(item);
+            return endArray();
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(e.getKey()));
+                value(e.getValue());
+            }
+            return endObject();
+        }
+        throw new IllegalArgumentException("Tipo no soportado en JSON: " + value.getClass().getName());
+    }
+    
+    /**
+     * Escribir un Document como objeto ("_id" primero si tiene ID)
+     * Complejidad: O(tamaño del documento)
+     */
+    public JsonWriter writeDocument(Document doc) throws IOException {
+        beginObject();
+        if (doc.getId() != null) name("_id").value(doc.getId());
+        int n = doc.size();
+        for (int i = 0; i < n; i++) {
+            name(doc.keyAt(i));
+            switch (doc.typeAt(i)) {
+                case INT:
+                case LONG:    value(doc.longAt(i)); break;
+                case DOUBLE:  value(doc.doubleAt(i)); break;
+                case BOOLEAN: value(doc.longAt(i) != 0); break;
+                case NULL:    nullValue(); break;
+                default:      value(doc.valueAt(i));
+            }
+        }
+        return endObject();
+    }
+    
+    // ==================== TEXTO ====================
+    
+    // Copia por tramos los caracteres que no necesitan escape
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = ESCAPES[c];
+                if (replacement == null) continue;
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";  // Separadores de línea: válidos en JSON, no en JavaScript
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (start < i) out.write(s, start, i - start);
+            out.write(replacement);
+            start = i + 1;
+        }
+        if (start < n) out.write(s, start, n - start);
+        out.write('"');
+    }
+    
+    private void newline() throws IOException {
+        if (indent == null) return;
+        out.write('\n');
+        for (int i = 1; i < depth; i++) out.write(indent);
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}